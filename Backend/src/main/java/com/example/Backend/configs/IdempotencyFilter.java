@@ -0,0 +1,280 @@
+package com.example.Backend.configs;
+
+import com.example.Backend.services.IdempotencyService;
+import com.example.Backend.services.IdempotencyService.Claim;
+import com.example.Backend.services.IdempotencyService.ClaimOutcome;
+import com.example.Backend.services.IdempotencyService.IdempotencyRecord;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Makes order and payment mutations safe to retry. Requests carrying an Idempotency-Key header
+ * execute at most once per (user, key); retries get the stored response replayed. Only 2xx
+ * responses are stored, so a failed attempt can be retried with the same key. A 2xx response too
+ * large to store is recorded without its body: retries get its status and
+ * {@value #BODY_OMITTED_HEADER} instead of running the mutation again. The request body is
+ * buffered to fingerprint it, so bodies over {@code idempotency.max-request-bytes} are refused
+ * with 413 rather than read into memory.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final String BODY_OMITTED_HEADER = "Idempotent-Body-Omitted";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH");
+    private static final List<String> PROTECTED_PATHS = List.of(
+            "/api/sales-orders",
+            "/api/sales-orders/**",
+            "/payments",
+            "/payments/**");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final IdempotencyService idempotencyService;
+
+    @Value("${idempotency.max-body-bytes:65536}")
+    private int maxBodyBytes;
+
+    @Value("${idempotency.max-request-bytes:1048576}")
+    private int maxRequestBytes;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NotNull HttpServletRequest request) {
+        if (!MUTATING_METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PROTECTED_PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response, @NotNull FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid Idempotency-Key header");
+            return;
+        }
+
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body too large");
+            return;
+        }
+        // Content-Length may be absent (chunked) or wrong, so the read itself is capped as well
+        byte[] body = readAtMost(request.getInputStream(), maxRequestBytes);
+        if (body == null) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body too large");
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+        String fingerprint = fingerprint(request, cachedRequest.getBody());
+        String scopedKey = currentPrincipal() + ":" + key;
+
+        Claim claim;
+        try {
+            claim = idempotencyService.acquire(scopedKey, fingerprint);
+        } catch (Exception e) {
+            // Redis unavailable: serve the request rather than blocking the till
+            log.warn("Idempotency store unavailable, executing request without protection: {}", e.getMessage());
+            filterChain.doFilter(cachedRequest, response);
+            return;
+        }
+
+        if (claim.getOutcome() == ClaimOutcome.REPLAY) {
+            replay(response, claim.getRecord());
+            return;
+        }
+        if (claim.getOutcome() == ClaimOutcome.MISMATCH) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                    "Idempotency-Key was already used for a different request");
+            return;
+        }
+        if (claim.getOutcome() == ClaimOutcome.IN_PROGRESS) {
+            response.sendError(HttpServletResponse.SC_CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+            return;
+        }
+
+        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(cachedRequest, wrappedResponse);
+
+            int status = wrappedResponse.getStatus();
+            byte[] body = wrappedResponse.getContentAsByteArray();
+            if (status >= 200 && status < 300) {
+                // The mutation has happened either way, so the key must not become claimable again
+                idempotencyService.complete(scopedKey, claim, body.length <= maxBodyBytes
+                        ? IdempotencyRecord.completed(fingerprint, status, wrappedResponse.getContentType(),
+                                new String(body, StandardCharsets.UTF_8))
+                        : IdempotencyRecord.completedWithoutBody(fingerprint, status, wrappedResponse.getContentType()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.abandon(scopedKey, claim);
+            }
+            wrappedResponse.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyRecord record) throws IOException {
+        log.info("Replaying stored response for idempotent request");
+        response.setStatus(record.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.isBodyOmitted()) {
+            response.setHeader(BODY_OMITTED_HEADER, "true");
+            return;
+        }
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getBody() != null) {
+            byte[] body = record.getBody().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // The whole stream, or null as soon as it turns out to be longer than the limit
+    private static byte[] readAtMost(InputStream input, int limit) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(limit, 8192));
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            if (buffer.size() + read > limit) {
+                return null;
+            }
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    private String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new CachedBodyInputStream(body);
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Replays the buffered body. The whole body is already in memory, so it is always ready, and a
+     * non-blocking reader is told so as soon as it registers.
+     */
+    private static class CachedBodyInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream input;
+
+        CachedBodyInputStream(byte[] body) {
+            this.input = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return input.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (readListener == null) {
+                throw new NullPointerException("readListener");
+            }
+            try {
+                if (!isFinished()) {
+                    readListener.onDataAvailable();
+                }
+                if (isFinished()) {
+                    readListener.onAllDataRead();
+                }
+            } catch (IOException | RuntimeException e) {
+                readListener.onError(e);
+            }
+        }
+
+        @Override
+        public int read() {
+            return input.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return input.read(b, off, len);
+        }
+    }
+}
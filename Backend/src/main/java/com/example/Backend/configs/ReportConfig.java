@@ -0,0 +1,47 @@
+package com.example.Backend.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ReportConfig {
+
+    @Value("${reports.executor.pool-size:4}")
+    private int poolSize;
+
+    @Value("${reports.executor.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${report-jobs.pool-size:2}")
+    private int jobPoolSize;
+
+    @Bean(name = "reportTaskExecutor")
+    public Executor reportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Report-");
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs report jobs highest priority first. The queue itself is unbounded; ReportJobService
+     * caps how many jobs may wait in it.
+     */
+    @Bean(name = "reportJobExecutor", destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor reportJobExecutor() {
+        return new ThreadPoolExecutor(jobPoolSize, jobPoolSize, 60, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), new CustomizableThreadFactory("ReportJob-"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.Backend.controllers;
+
+import com.example.Backend.dtos.ResponseData;
+import com.example.Backend.dtos.report.DashboardStatsDto;
+import com.example.Backend.services.DashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Dashboard", description = "Dashboard statistics")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Get dashboard statistics", description = "Served from a snapshot refreshed at most every few seconds")
+    public ResponseEntity<ResponseData<DashboardStatsDto>> getStats() {
+        try {
+            DashboardStatsDto stats = dashboardService.getStats();
+            return ResponseEntity.ok(ResponseData.<DashboardStatsDto>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Dashboard statistics retrieved successfully")
+                    .data(stats)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting dashboard statistics: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<DashboardStatsDto>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error getting dashboard statistics: " + e.getMessage())
+                            .build());
+        }
+    }
+}
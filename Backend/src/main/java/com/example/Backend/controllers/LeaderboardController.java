@@ -0,0 +1,89 @@
+package com.example.Backend.controllers;
+
+import com.example.Backend.dtos.ResponseData;
+import com.example.Backend.dtos.report.LeaderboardEntry;
+import com.example.Backend.services.LeaderboardBroadcaster;
+import com.example.Backend.services.LeaderboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Sales Leaderboard", description = "Live sales leaderboard by day, week and month")
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+    private final LeaderboardBroadcaster leaderboardBroadcaster;
+
+    @GetMapping("/{period}")
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Get top salespeople for the day, week or month containing the date")
+    public ResponseEntity<ResponseData<List<LeaderboardEntry>>> getLeaderboard(
+            @Parameter(description = "day, week or month") @PathVariable String period,
+            @Parameter(description = "Date inside the period, defaults to today") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Number of entries (max 100)") @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<LeaderboardEntry> entries = leaderboardService.getTop(
+                    LeaderboardService.Period.valueOf(period.toUpperCase()),
+                    date != null ? date : LocalDate.now(),
+                    limit);
+            return ResponseEntity.ok(ResponseData.<List<LeaderboardEntry>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Leaderboard retrieved successfully")
+                    .data(entries)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting {} leaderboard: {}", period, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<List<LeaderboardEntry>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error getting leaderboard: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    @Operation(summary = "Rebuild the day, week and month leaderboards containing the date from the database")
+    public ResponseEntity<ResponseData<Void>> rebuildLeaderboard(
+            @Parameter(description = "Date inside the periods, defaults to today") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            LocalDate target = date != null ? date : LocalDate.now();
+            log.info("Rebuilding sales leaderboards for {}", target);
+            leaderboardService.rebuild(target);
+            return ResponseEntity.ok(ResponseData.<Void>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Leaderboards rebuilt successfully")
+                    .build());
+        } catch (Exception e) {
+            log.error("Error rebuilding leaderboards: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<Void>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error rebuilding leaderboards: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Stream leaderboard rank changes as server-sent events")
+    public SseEmitter streamRankChanges() {
+        return leaderboardBroadcaster.register();
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.Backend.controllers;
 
+import com.example.Backend.dtos.CursorPage;
+import com.example.Backend.dtos.CursorPage.TotalMode;
 import com.example.Backend.dtos.ResponseData;
 import com.example.Backend.dtos.payment.PaymentCreateDTO;
 import com.example.Backend.dtos.payment.PaymentResponseDTO;
@@ -144,6 +146,33 @@ public class PaymentController {
                 .build());
     }
 
+    @GetMapping("/customer/{customerId}/cursor")
+    @Operation(summary = "Get payments by customer with keyset pagination",
+            description = "Pages on (paid_at, id), newest first. Pass nextCursor from the previous page to continue.")
+    @PreAuthorize("hasAuthority('PAYMENT_READ')")
+    public ResponseEntity<ResponseData<CursorPage<PaymentResponseDTO>>> getPaymentsByCustomerCursor(
+            @Parameter(description = "Customer ID") @PathVariable Long customerId,
+            @Parameter(description = "nextCursor of the previous page, empty for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Total count: NONE, ESTIMATE or EXACT") @RequestParam(defaultValue = "NONE") TotalMode total) {
+
+        try {
+            CursorPage<PaymentResponseDTO> payments =
+                    paymentService.getPaymentsByCustomerCursor(customerId, cursor, size, total);
+            return ResponseEntity.ok(ResponseData.<CursorPage<PaymentResponseDTO>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Customer payments retrieved successfully")
+                    .data(payments)
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<CursorPage<PaymentResponseDTO>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message(e.getMessage())
+                            .build());
+        }
+    }
+
     @GetMapping("/order/{orderId}")
     @Operation(summary = "Get payments by order", description = "Get all payments for a specific order")
     @PreAuthorize("hasAuthority('PAYMENT_READ')")
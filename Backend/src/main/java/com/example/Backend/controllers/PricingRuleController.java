@@ -0,0 +1,144 @@
+package com.example.Backend.controllers;
+
+import com.example.Backend.dtos.ResponseData;
+import com.example.Backend.dtos.pricing.PricingRuleRequest;
+import com.example.Backend.dtos.pricing.PricingRuleResponse;
+import com.example.Backend.services.PricingRuleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/pricing-rules")
+@RequiredArgsConstructor
+@Validated
+@Slf4j
+@Tag(name = "Pricing Rules", description = "API quản lý quy tắc giá: thuế, giảm giá theo bậc và khuyến mãi")
+public class PricingRuleController {
+
+    private final PricingRuleService pricingRuleService;
+
+    @PostMapping
+    @Operation(summary = "Tạo quy tắc giá", description = "Tạo quy tắc thuế, giảm giá theo bậc hoặc khuyến mãi")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<ResponseData<PricingRuleResponse>> createRule(
+            @Valid @RequestBody PricingRuleRequest request) {
+        try {
+            log.info("Tạo quy tắc giá mới: {}", request.getName());
+            PricingRuleResponse rule = pricingRuleService.createRule(request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ResponseData.<PricingRuleResponse>builder()
+                            .status(HttpStatus.CREATED.value())
+                            .message("Tạo quy tắc giá thành công")
+                            .data(rule)
+                            .build());
+        } catch (Exception e) {
+            log.error("Lỗi tạo quy tắc giá: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<PricingRuleResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi tạo quy tắc giá: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Cập nhật quy tắc giá", description = "Cập nhật quy tắc giá theo ID")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<ResponseData<PricingRuleResponse>> updateRule(
+            @Parameter(description = "ID của quy tắc giá") @PathVariable @Min(1) Long id,
+            @Valid @RequestBody PricingRuleRequest request) {
+        try {
+            log.info("Cập nhật quy tắc giá ID: {}", id);
+            PricingRuleResponse rule = pricingRuleService.updateRule(id, request);
+            return ResponseEntity.ok(ResponseData.<PricingRuleResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Cập nhật quy tắc giá thành công")
+                    .data(rule)
+                    .build());
+        } catch (Exception e) {
+            log.error("Lỗi cập nhật quy tắc giá ID {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<PricingRuleResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi cập nhật quy tắc giá: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Lấy quy tắc giá theo ID")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('SALES')")
+    public ResponseEntity<ResponseData<PricingRuleResponse>> getRule(
+            @Parameter(description = "ID của quy tắc giá") @PathVariable @Min(1) Long id) {
+        try {
+            PricingRuleResponse rule = pricingRuleService.getRuleById(id);
+            return ResponseEntity.ok(ResponseData.<PricingRuleResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy quy tắc giá thành công")
+                    .data(rule)
+                    .build());
+        } catch (Exception e) {
+            log.error("Lỗi lấy quy tắc giá ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseData.<PricingRuleResponse>builder()
+                            .status(HttpStatus.NOT_FOUND.value())
+                            .message("Không tìm thấy quy tắc giá: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping
+    @Operation(summary = "Lấy danh sách quy tắc giá")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('SALES')")
+    public ResponseEntity<ResponseData<List<PricingRuleResponse>>> getAllRules() {
+        try {
+            List<PricingRuleResponse> rules = pricingRuleService.getAllRules();
+            return ResponseEntity.ok(ResponseData.<List<PricingRuleResponse>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy danh sách quy tắc giá thành công")
+                    .data(rules)
+                    .build());
+        } catch (Exception e) {
+            log.error("Lỗi lấy danh sách quy tắc giá: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<List<PricingRuleResponse>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy danh sách quy tắc giá: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Xóa quy tắc giá")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<ResponseData<Void>> deleteRule(
+            @Parameter(description = "ID của quy tắc giá") @PathVariable @Min(1) Long id) {
+        try {
+            log.info("Xóa quy tắc giá ID: {}", id);
+            pricingRuleService.deleteRule(id);
+            return ResponseEntity.ok(ResponseData.<Void>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Xóa quy tắc giá thành công")
+                    .build());
+        } catch (Exception e) {
+            log.error("Lỗi xóa quy tắc giá ID {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<Void>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi xóa quy tắc giá: " + e.getMessage())
+                            .build());
+        }
+    }
+}
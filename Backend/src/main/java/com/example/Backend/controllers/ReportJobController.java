@@ -0,0 +1,135 @@
+package com.example.Backend.controllers;
+
+import com.example.Backend.dtos.ResponseData;
+import com.example.Backend.dtos.report.ReportJobRequest;
+import com.example.Backend.dtos.report.ReportJobStatus;
+import com.example.Backend.services.ReportJobBroadcaster;
+import com.example.Backend.services.ReportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Report Jobs", description = "Asynchronous report generation")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+    private final ReportJobBroadcaster reportJobBroadcaster;
+
+    @PostMapping
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Submit a report job; identical queued or running jobs are shared")
+    public ResponseEntity<ResponseData<ReportJobStatus>> submitJob(@Valid @RequestBody ReportJobRequest request,
+                                                                   Authentication authentication) {
+        try {
+            ReportJobStatus status = reportJobService.submit(request, authentication != null ? authentication.getName() : null);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ResponseData.<ReportJobStatus>builder()
+                            .status(HttpStatus.ACCEPTED.value())
+                            .message("Report job accepted")
+                            .data(status)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error submitting {} report job: {}", request.getType(), e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<ReportJobStatus>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error submitting report job: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Get report job status and progress")
+    public ResponseEntity<ResponseData<ReportJobStatus>> getJob(@PathVariable String jobId) {
+        ReportJobStatus status = reportJobService.getStatus(jobId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseData.<ReportJobStatus>builder()
+                            .status(HttpStatus.NOT_FOUND.value())
+                            .message("Report job not found or expired")
+                            .build());
+        }
+        return ResponseEntity.ok(ResponseData.<ReportJobStatus>builder()
+                .status(HttpStatus.OK.value())
+                .message("Report job retrieved successfully")
+                .data(status)
+                .build());
+    }
+
+    @GetMapping("/{jobId}/result")
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Download the JSON result of a completed report job, gzip-encoded when accepted")
+    public ResponseEntity<byte[]> getJobResult(
+            @PathVariable String jobId,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        byte[] compressed = reportJobService.getCompressedResult(jobId);
+        if (compressed == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .body(compressed);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .body(in.readAllBytes());
+        } catch (IOException e) {
+            log.error("Corrupt result for report job {}: {}", jobId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @DeleteMapping("/{jobId}")
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Cancel a queued or running report job")
+    public ResponseEntity<ResponseData<ReportJobStatus>> cancelJob(@PathVariable String jobId) {
+        try {
+            ReportJobStatus status = reportJobService.cancel(jobId);
+            return ResponseEntity.ok(ResponseData.<ReportJobStatus>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Report job cancelled")
+                    .data(status)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error cancelling report job {}: {}", jobId, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<ReportJobStatus>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error cancelling report job: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Stream report job progress as server-sent events")
+    public SseEmitter streamJobProgress(@PathVariable String jobId) {
+        return reportJobBroadcaster.register(jobId);
+    }
+}
@@ -1,10 +1,26 @@
 package com.example.Backend.controllers;
 
+import com.example.Backend.dtos.CursorPage;
+import com.example.Backend.dtos.CursorPage.TotalMode;
 import com.example.Backend.dtos.ResponseData;
+import com.example.Backend.dtos.event.OrderLifecycleEvent;
+import com.example.Backend.dtos.pricing.PriceQuoteResponse;
+import com.example.Backend.dtos.report.SalesCubeResult;
+import com.example.Backend.dtos.report.TopProductDto;
+import com.example.Backend.dtos.salesorder.CheckoutRequest;
+import com.example.Backend.dtos.salesorder.ReceiptResponse;
 import com.example.Backend.dtos.salesorder.SalesOrderRequest;
 import com.example.Backend.dtos.salesorder.SalesOrderResponse;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.ProductModel;
 import com.example.Backend.models.SalesOrder;
+import com.example.Backend.services.CheckoutService;
+import com.example.Backend.services.OrderEventService;
+import com.example.Backend.services.SalesCubeService;
 import com.example.Backend.services.SalesOrderService;
+import com.example.Backend.services.SalesRollupService;
+import com.example.Backend.services.TopProductService;
+import com.example.Backend.utils.SalesCube;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -36,6 +52,11 @@ import java.util.List;
 public class SalesOrderController {
 
     private final SalesOrderService salesOrderService;
+    private final OrderEventService orderEventService;
+    private final CheckoutService checkoutService;
+    private final SalesRollupService salesRollupService;
+    private final TopProductService topProductService;
+    private final SalesCubeService salesCubeService;
 
     @PostMapping
     @PreAuthorize("hasAuthority('SALES_CREATE')")
@@ -63,6 +84,54 @@ public class SalesOrderController {
         }
     }
 
+    @PostMapping("/checkout")
+    @PreAuthorize("hasAuthority('SALES_CREATE') and hasAuthority('PAYMENT_CREATE')")
+    @Operation(summary = "Till checkout: create, price, pay and decrease stock in one request",
+            description = "Send an Idempotency-Key header so a retried checkout is not charged twice")
+    public ResponseEntity<ResponseData<ReceiptResponse>> checkout(
+            @Valid @RequestBody CheckoutRequest request) {
+        try {
+            log.info("Checking out basket of {} lines for customer ID: {}", request.getItems().size(), request.getCustomerId());
+            ReceiptResponse response = checkoutService.checkout(request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ResponseData.<ReceiptResponse>builder()
+                            .status(HttpStatus.CREATED.value())
+                            .message("Checkout completed successfully")
+                            .data(response)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error during checkout: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<ReceiptResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error during checkout: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/quote")
+    @PreAuthorize("hasAuthority('SALES_CREATE')")
+    @Operation(summary = "Price a cart with the active pricing rules without creating an order")
+    public ResponseEntity<ResponseData<PriceQuoteResponse>> quoteOrder(
+            @Valid @RequestBody SalesOrderRequest request) {
+        try {
+            log.info("Quoting cart for customer ID: {}", request.getCustomerId());
+            PriceQuoteResponse response = salesOrderService.quoteOrder(request);
+            return ResponseEntity.ok(ResponseData.<PriceQuoteResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Quote calculated successfully")
+                    .data(response)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error quoting cart: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<PriceQuoteResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error calculating quote: " + e.getMessage())
+                            .build());
+        }
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('SALES_UPDATE')")
     @Operation(summary = "Update sales order")
@@ -133,6 +202,55 @@ public class SalesOrderController {
         }
     }
 
+    @GetMapping("/{id}/events")
+    @PreAuthorize("hasAuthority('SALES_READ')")
+    @Operation(summary = "Get the lifecycle event log of a sales order")
+    public ResponseEntity<ResponseData<List<OrderLifecycleEvent>>> getOrderEvents(
+            @Parameter(description = "Order ID") @PathVariable Long id) {
+        try {
+            log.info("Getting event log for sales order ID: {}", id);
+            List<OrderLifecycleEvent> response = orderEventService.getEventsForOrder(id);
+            return ResponseEntity.ok(ResponseData.<List<OrderLifecycleEvent>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Order events retrieved successfully")
+                    .data(response)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting events for sales order {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<List<OrderLifecycleEvent>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error getting order events: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAuthority('SALES_READ')")
+    @Operation(summary = "Get sales orders with keyset pagination",
+            description = "Pages on (created_at, id), newest first. Pass nextCursor from the previous page to continue.")
+    public ResponseEntity<ResponseData<CursorPage<SalesOrderResponse>>> getOrdersByCursor(
+            @Parameter(description = "nextCursor of the previous page, empty for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Total count: NONE, ESTIMATE or EXACT") @RequestParam(defaultValue = "NONE") TotalMode total) {
+        try {
+            log.info("Getting sales orders by cursor");
+            CursorPage<SalesOrderResponse> response = salesOrderService.getOrdersByCursor(cursor, size, total);
+            return ResponseEntity.ok(ResponseData.<CursorPage<SalesOrderResponse>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Sales orders retrieved successfully")
+                    .data(response)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting sales orders by cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<CursorPage<SalesOrderResponse>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error getting sales orders: " + e.getMessage())
+                            .build());
+        }
+    }
+
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAuthority('SALES_READ')")
     @Operation(summary = "Get orders by status")
@@ -403,4 +521,124 @@ public class SalesOrderController {
         }
     }
 
+    @GetMapping("/reports/top-products")
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Get top-selling products",
+            description = "Mode COUNTERS (default) and ORDERS are exact; SKETCH bounds memory for very large catalogs")
+    public ResponseEntity<ResponseData<List<TopProductDto>>> getTopProducts(
+            @Parameter(description = "Start Date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End Date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Number of products (max 100)") @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Rank by QUANTITY or REVENUE") @RequestParam(defaultValue = "QUANTITY") TopProductService.Metric metric,
+            @Parameter(description = "COUNTERS, SKETCH or ORDERS") @RequestParam(defaultValue = "COUNTERS") TopProductService.Mode mode) {
+        try {
+            log.info("Getting top {} products by {} from {} to {}", limit, metric, startDate, endDate);
+            if (startDate.isAfter(endDate)) {
+                return ResponseEntity.badRequest()
+                        .body(ResponseData.<List<TopProductDto>>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message("Start date cannot be after end date")
+                                .build());
+            }
+            List<TopProductDto> products = topProductService.getTopProducts(startDate, endDate, limit, metric, mode);
+            return ResponseEntity.ok(ResponseData.<List<TopProductDto>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Top products retrieved successfully")
+                    .data(products)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting top products from {} to {}: {}", startDate, endDate, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<List<TopProductDto>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error getting top products: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping("/reports/cube")
+    @PreAuthorize("hasAuthority('REPORT_VIEW')")
+    @Operation(summary = "Slice revenue and units of PAID orders by any combination of dimensions",
+            description = "Group by BRAND, CATEGORY, SKU, STAFF, CUSTOMER_TIER and DAY; no group-by returns the grand total")
+    public ResponseEntity<ResponseData<SalesCubeResult>> getSalesCube(
+            @Parameter(description = "Start Date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End Date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Dimensions to group by") @RequestParam(required = false) List<SalesCube.Dimension> groupBy,
+            @Parameter(description = "Brand IDs") @RequestParam(required = false) List<Long> brandIds,
+            @Parameter(description = "Categories") @RequestParam(required = false) List<ProductModel.ProductCategory> categories,
+            @Parameter(description = "SKU IDs") @RequestParam(required = false) List<Long> skuIds,
+            @Parameter(description = "Staff user IDs") @RequestParam(required = false) List<Long> userIds,
+            @Parameter(description = "Customer tiers") @RequestParam(required = false) List<Customer.CustomerTier> tiers,
+            @Parameter(description = "Number of groups, by revenue (max 10000)") @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            log.info("Querying sales cube by {} from {} to {}", groupBy, startDate, endDate);
+            SalesCubeResult result = salesCubeService.query(startDate, endDate, groupBy != null ? groupBy : List.of(),
+                    brandIds, categories, skuIds, userIds, tiers, limit);
+            return ResponseEntity.ok(ResponseData.<SalesCubeResult>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Sales cube retrieved successfully")
+                    .data(result)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error querying sales cube from {} to {}: {}", startDate, endDate, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<SalesCubeResult>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error querying sales cube: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/reports/cube/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reload the in-memory sales cube of this node from the order tables")
+    public ResponseEntity<ResponseData<Integer>> reloadSalesCube() {
+        try {
+            int lines = salesCubeService.reload();
+            return ResponseEntity.ok(ResponseData.<Integer>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Sales cube reloaded successfully")
+                    .data(lines)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error reloading sales cube: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<Integer>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error reloading sales cube: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/reports/rollup/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild daily sales rollups from orders, one month per worker")
+    public ResponseEntity<ResponseData<Integer>> backfillSalesRollup(
+            @Parameter(description = "Start Date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End Date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            log.info("Backfilling daily sales rollups from {} to {}", startDate, endDate);
+            if (startDate.isAfter(endDate)) {
+                return ResponseEntity.badRequest()
+                        .body(ResponseData.<Integer>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message("Start date cannot be after end date")
+                                .build());
+            }
+            int months = salesRollupService.backfill(startDate, endDate);
+            return ResponseEntity.ok(ResponseData.<Integer>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Rebuilt daily sales rollups for " + months + " months")
+                    .data(months)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error backfilling daily sales rollups from {} to {}: {}", startDate, endDate, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<Integer>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error backfilling daily sales rollups: " + e.getMessage())
+                            .build());
+        }
+    }
+
 }
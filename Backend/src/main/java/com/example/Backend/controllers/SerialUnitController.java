@@ -1,8 +1,13 @@
 package com.example.Backend.controllers;
 
 import com.example.Backend.dtos.ResponseData;
+import com.example.Backend.dtos.serial.ImeiFilterStatsResponse;
+import com.example.Backend.dtos.serial.ImeiValidationRequest;
+import com.example.Backend.dtos.serial.ImeiValidationResponse;
+import com.example.Backend.dtos.serial.SerialTraceResponse;
 import com.example.Backend.dtos.serial.SerialUnitRequest;
 import com.example.Backend.dtos.serial.SerialUnitResponse;
+import com.example.Backend.services.ImeiIntakeService;
 import com.example.Backend.services.SerialUnitService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -31,6 +36,7 @@ import java.util.List;
 public class SerialUnitController {
 
     private final SerialUnitService serialUnitService;
+    private final ImeiIntakeService imeiIntakeService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('INVENTORY_MANAGER')")
@@ -102,6 +108,61 @@ public class SerialUnitController {
         }
     }
 
+    @PostMapping("/imei/validate")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INVENTORY_MANAGER') or hasRole('STAFF')")
+    @Operation(summary = "Validate scanned IMEIs", description = "Normalize, checksum and duplicate-check a batch of IMEIs before intake")
+    public ResponseEntity<ResponseData<ImeiValidationResponse>> validateImeis(
+            @Valid @RequestBody ImeiValidationRequest request) {
+        try {
+            ImeiValidationResponse response = imeiIntakeService.validate(request.getImeis());
+            return ResponseEntity.ok(ResponseData.<ImeiValidationResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("IMEIs validated successfully")
+                    .data(response)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error validating IMEIs: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<ImeiValidationResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Error validating IMEIs: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping("/imei-filter/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "IMEI filter statistics", description = "Size, fill and false-positive rate of the IMEI existence filter")
+    public ResponseEntity<ResponseData<ImeiFilterStatsResponse>> getImeiFilterStats() {
+        return ResponseEntity.ok(ResponseData.<ImeiFilterStatsResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("IMEI filter statistics retrieved successfully")
+                .data(imeiIntakeService.getStats())
+                .build());
+    }
+
+    @GetMapping("/imei/{imei}/trace")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Operation(summary = "Trace serial unit by IMEI", description = "Full history of a unit: status changes, sale, warranties and repairs")
+    public ResponseEntity<ResponseData<SerialTraceResponse>> traceByImei(
+            @Parameter(description = "IMEI number") @PathVariable String imei) {
+        try {
+            SerialTraceResponse response = serialUnitService.traceByImei(imei);
+            return ResponseEntity.ok(ResponseData.<SerialTraceResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Serial unit trace retrieved successfully")
+                    .data(response)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error tracing serial unit by IMEI {}: {}", imei, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseData.<SerialTraceResponse>builder()
+                            .status(HttpStatus.NOT_FOUND.value())
+                            .message("Serial unit not found: " + e.getMessage())
+                            .build());
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     @Operation(summary = "Get all serial units", description = "Get paginated list of all serial units")
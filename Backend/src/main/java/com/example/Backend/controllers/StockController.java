@@ -1,10 +1,29 @@
 package com.example.Backend.controllers;
 
+import com.example.Backend.dtos.CursorPage;
+import com.example.Backend.dtos.CursorPage.TotalMode;
 import com.example.Backend.dtos.ResponseData;
+import com.example.Backend.dtos.stock.GoodsReceiptRequest;
+import com.example.Backend.dtos.stock.GoodsReceiptResponse;
+import com.example.Backend.dtos.stock.InventoryValuationResponse;
+import com.example.Backend.dtos.stock.LocationAvailabilityResponse;
+import com.example.Backend.dtos.stock.ReplenishmentSuggestion;
+import com.example.Backend.dtos.stock.StockAsOfResponse;
 import com.example.Backend.dtos.stock.StockItemResponse;
+import com.example.Backend.dtos.stock.StockLocationRequest;
+import com.example.Backend.dtos.stock.StockLocationResponse;
 import com.example.Backend.dtos.stock.StockMovementRequest;
 import com.example.Backend.dtos.stock.StockMovementResponse;
+import com.example.Backend.dtos.stock.StockTransferRequest;
+import com.example.Backend.dtos.stock.StockTransferResponse;
+import com.example.Backend.services.GoodsReceiptService;
+import com.example.Backend.services.InventoryValuationService;
+import com.example.Backend.services.ReplenishmentService;
+import com.example.Backend.services.StockEventBroadcaster;
+import com.example.Backend.services.StockLocationService;
 import com.example.Backend.services.StockService;
+import com.example.Backend.services.StockSnapshotService;
+import com.example.Backend.services.StockTransferService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,13 +35,18 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -34,6 +58,57 @@ import java.util.List;
 public class StockController {
 
     private final StockService stockService;
+    private final InventoryValuationService inventoryValuationService;
+    private final StockSnapshotService stockSnapshotService;
+    private final GoodsReceiptService goodsReceiptService;
+    private final ReplenishmentService replenishmentService;
+    private final StockEventBroadcaster stockEventBroadcaster;
+    private final StockLocationService stockLocationService;
+    private final StockTransferService stockTransferService;
+
+    @GetMapping("/sku/{skuId}/availability")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Operation(summary = "Lấy số lượng có thể bán theo SKU ID", description = "Trả về số lượng tồn trừ số lượng đã giữ, từ bộ nhớ đệm")
+    public ResponseEntity<ResponseData<Integer>> getAvailableQuantity(
+            @Parameter(description = "SKU ID") @PathVariable Long skuId) {
+        try {
+            int available = stockService.getAvailableQuantity(skuId);
+            return ResponseEntity.ok(ResponseData.<Integer>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy số lượng có thể bán thành công")
+                    .data(available)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting available quantity for SKU ID {}: {}", skuId, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<Integer>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy số lượng có thể bán: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping("/sku/{skuId}/locations")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Operation(summary = "Tra cứu chi nhánh còn hàng theo SKU ID", description = "Trả về tổng số lượng có thể bán và các kho/chi nhánh còn hàng, nhiều nhất trước")
+    public ResponseEntity<ResponseData<LocationAvailabilityResponse>> getLocationAvailability(
+            @Parameter(description = "SKU ID") @PathVariable Long skuId) {
+        try {
+            LocationAvailabilityResponse availability = stockLocationService.getAvailability(skuId);
+            return ResponseEntity.ok(ResponseData.<LocationAvailabilityResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy tồn kho theo chi nhánh thành công")
+                    .data(availability)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting location availability for SKU ID {}: {}", skuId, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<LocationAvailabilityResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy tồn kho theo chi nhánh: " + e.getMessage())
+                            .build());
+        }
+    }
 
     @GetMapping("/sku/{skuId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
@@ -186,30 +261,176 @@ public class StockController {
         }
     }
 
+    @PostMapping("/receipts")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Nhập kho theo phiếu", description = "Nhập một lô hàng gồm nhiều SKU và IMEI trong một giao dịch, kèm kết quả từng dòng")
+    public ResponseEntity<ResponseData<GoodsReceiptResponse>> receiveGoods(
+            @Valid @RequestBody GoodsReceiptRequest request,
+            Authentication authentication) {
+        try {
+            log.info("Receiving goods receipt with {} lines", request.getLines().size());
+            GoodsReceiptResponse receipt = goodsReceiptService.receive(request,
+                    authentication != null ? authentication.getName() : null);
+
+            if (!receipt.isApplied()) {
+                return ResponseEntity.badRequest()
+                        .body(ResponseData.<GoodsReceiptResponse>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message("Phiếu nhập có " + receipt.getLinesRejected() + " dòng không hợp lệ, chưa nhập kho")
+                                .data(receipt)
+                                .build());
+            }
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ResponseData.<GoodsReceiptResponse>builder()
+                            .status(HttpStatus.CREATED.value())
+                            .message("Nhập kho thành công")
+                            .data(receipt)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error receiving goods: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<GoodsReceiptResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi nhập kho: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // ==================== LOCATION ENDPOINTS ====================
+
+    @GetMapping("/locations")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Operation(summary = "Lấy danh sách kho/chi nhánh", description = "Lấy các kho và chi nhánh đang hoạt động")
+    public ResponseEntity<ResponseData<List<StockLocationResponse>>> getLocations() {
+        try {
+            List<StockLocationResponse> locations = stockLocationService.getLocations();
+            return ResponseEntity.ok(ResponseData.<List<StockLocationResponse>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy danh sách kho thành công")
+                    .data(locations)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting stock locations: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<List<StockLocationResponse>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy danh sách kho: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/locations")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Tạo kho/chi nhánh", description = "Thêm một kho hoặc chi nhánh mới")
+    public ResponseEntity<ResponseData<StockLocationResponse>> createLocation(
+            @Valid @RequestBody StockLocationRequest request) {
+        try {
+            log.info("Creating stock location {}", request.getCode());
+            StockLocationResponse location = stockLocationService.createLocation(request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ResponseData.<StockLocationResponse>builder()
+                            .status(HttpStatus.CREATED.value())
+                            .message("Tạo kho thành công")
+                            .data(location)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error creating stock location: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<StockLocationResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi tạo kho: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/transfers")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Chuyển kho", description = "Chuyển hàng giữa hai kho/chi nhánh; tất cả các dòng cùng thành công hoặc không dòng nào")
+    public ResponseEntity<ResponseData<StockTransferResponse>> transferStock(
+            @Valid @RequestBody StockTransferRequest request,
+            Authentication authentication) {
+        try {
+            log.info("Transferring {} lines from location {} to {}",
+                    request.getLines().size(), request.getFromLocationId(), request.getToLocationId());
+            StockTransferResponse transfer = stockTransferService.transfer(request,
+                    authentication != null ? authentication.getName() : null);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ResponseData.<StockTransferResponse>builder()
+                            .status(HttpStatus.CREATED.value())
+                            .message("Chuyển kho thành công")
+                            .data(transfer)
+                            .build());
+        } catch (Exception e) {
+            log.error("Error transferring stock: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<StockTransferResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi chuyển kho: " + e.getMessage())
+                            .build());
+        }
+    }
+
     @GetMapping("/movements")
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     @Operation(summary = "Lấy lịch sử chuyển động kho", description = "Lấy danh sách các giao dịch nhập/xuất kho")
-    public ResponseEntity<ResponseData<String>> getStockMovements(
-            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+    public ResponseEntity<ResponseData<Page<StockMovementResponse>>> getStockMovements(
+            @PageableDefault(size = 20) Pageable pageable) {
         try {
             log.info("Getting stock movements with pagination");
-            // TODO: Implement stockService.getStockMovements() method
-            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
-                    .body(ResponseData.<String>builder()
-                            .status(HttpStatus.NOT_IMPLEMENTED.value())
-                            .message("Chức năng lấy lịch sử chuyển động kho chưa được implement")
-                            .data("Vui lòng implement StockService.getStockMovements() method")
-                            .build());
+            Page<StockMovementResponse> movements = stockService.getStockMovements(pageable);
+            return ResponseEntity.ok(ResponseData.<Page<StockMovementResponse>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy lịch sử chuyển động kho thành công")
+                    .data(movements)
+                    .build());
         } catch (Exception e) {
             log.error("Error getting stock movements: {}", e.getMessage());
             return ResponseEntity.badRequest()
-                    .body(ResponseData.<String>builder()
+                    .body(ResponseData.<Page<StockMovementResponse>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy lịch sử chuyển động kho: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @GetMapping("/movements/cursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Operation(summary = "Lấy lịch sử chuyển động kho theo con trỏ",
+            description = "Phân trang keyset theo (created_at, id); truyền nextCursor của trang trước để lấy trang tiếp theo")
+    public ResponseEntity<ResponseData<CursorPage<StockMovementResponse>>> getStockMovementsByCursor(
+            @Parameter(description = "Con trỏ nextCursor của trang trước, bỏ trống cho trang đầu") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Số bản ghi mỗi trang (tối đa 100)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Tổng số bản ghi: NONE, ESTIMATE hoặc EXACT") @RequestParam(defaultValue = "NONE") TotalMode total) {
+        try {
+            log.info("Getting stock movements by cursor");
+            CursorPage<StockMovementResponse> movements = stockService.getStockMovementsByCursor(cursor, size, total);
+            return ResponseEntity.ok(ResponseData.<CursorPage<StockMovementResponse>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy lịch sử chuyển động kho thành công")
+                    .data(movements)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting stock movements by cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<CursorPage<StockMovementResponse>>builder()
                             .status(HttpStatus.BAD_REQUEST.value())
                             .message("Lỗi lấy lịch sử chuyển động kho: " + e.getMessage())
                             .build());
         }
     }
 
+    // ==================== STOCK EVENTS ====================
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Operation(summary = "Theo dõi biến động tồn kho (SSE)",
+            description = "Mở đầu bằng danh sách SKU sắp hết/hết hàng, sau đó đẩy thay đổi tồn kho và các lần vượt ngưỡng")
+    public SseEmitter streamStockEvents(
+            @Parameter(description = "Chỉ theo dõi các SKU này") @RequestParam(required = false) List<Long> skuIds,
+            @Parameter(description = "Chỉ gửi khi vượt ngưỡng tồn kho") @RequestParam(defaultValue = "false") boolean crossingsOnly) {
+        return stockEventBroadcaster.register(skuIds, crossingsOnly);
+    }
+
     // ==================== STOCK STATISTICS ====================
 
     @GetMapping("/statistics")
@@ -218,17 +439,7 @@ public class StockController {
     public ResponseEntity<ResponseData<Object>> getStockStatistics() {
         try {
             log.info("Getting stock statistics");
-            // Basic statistics using available methods
-            List<StockItemResponse> allItems = stockService.getAllStockItems();
-            List<StockItemResponse> lowStock = stockService.getLowStockItems();
-            List<StockItemResponse> outOfStock = stockService.getOutOfStockItems();
-
-            var statistics = java.util.Map.of(
-                "totalItems", allItems.size(),
-                "lowStockItems", lowStock.size(),
-                "outOfStockItems", outOfStock.size(),
-                "inStockItems", allItems.size() - outOfStock.size()
-            );
+            var statistics = stockService.getStockStatistics();
 
             return ResponseEntity.ok(ResponseData.<Object>builder()
                     .status(HttpStatus.OK.value())
@@ -244,4 +455,132 @@ public class StockController {
                             .build());
         }
     }
+
+    @GetMapping("/valuation")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Lấy giá trị tồn kho", description = "Tính giá trị tồn kho theo giá vốn bình quân gia quyền, tổng hoặc theo thương hiệu/danh mục")
+    public ResponseEntity<ResponseData<InventoryValuationResponse>> getInventoryValuation(
+            @Parameter(description = "Nhóm theo: NONE, BRAND, CATEGORY")
+            @RequestParam(defaultValue = "NONE") InventoryValuationService.GroupBy groupBy) {
+        try {
+            log.info("Getting inventory valuation grouped by {}", groupBy);
+            InventoryValuationResponse valuation = inventoryValuationService.getValuation(groupBy);
+
+            return ResponseEntity.ok(ResponseData.<InventoryValuationResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy giá trị tồn kho thành công")
+                    .data(valuation)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting inventory valuation: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<InventoryValuationResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy giá trị tồn kho: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // ==================== POINT-IN-TIME STOCK ====================
+
+    @GetMapping("/as-of")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Lấy tồn kho tại một thời điểm", description = "Dựng lại số lượng tồn theo SKU từ bản chụp gần nhất và các chuyển động kho sau đó")
+    public ResponseEntity<ResponseData<StockAsOfResponse>> getStockAsOf(
+            @Parameter(description = "Thời điểm (ISO-8601)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @Parameter(description = "SKU ID (tùy chọn)") @RequestParam(required = false) Long skuId) {
+        try {
+            log.info("Getting stock as of {} for SKU {}", at, skuId);
+            StockAsOfResponse stock = stockSnapshotService.getStockAsOf(at, skuId);
+
+            return ResponseEntity.ok(ResponseData.<StockAsOfResponse>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy tồn kho tại thời điểm thành công")
+                    .data(stock)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting stock as of {}: {}", at, e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<StockAsOfResponse>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy tồn kho tại thời điểm: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Chụp tồn kho cuối ngày", description = "Tạo các bản chụp tồn kho còn thiếu đến hết ngày chỉ định (mặc định hôm qua)")
+    public ResponseEntity<ResponseData<Integer>> takeStockSnapshots(
+            @Parameter(description = "Ngày cuối cùng") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate through) {
+        try {
+            LocalDate lastDay = through != null ? through : LocalDate.now().minusDays(1);
+            if (!lastDay.isBefore(LocalDate.now())) {
+                throw new IllegalArgumentException("Chỉ có thể chụp tồn kho của ngày đã kết thúc");
+            }
+            int taken = stockSnapshotService.takeSnapshotsThrough(lastDay);
+
+            return ResponseEntity.ok(ResponseData.<Integer>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Chụp tồn kho thành công")
+                    .data(taken)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error taking stock snapshots: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<Integer>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi chụp tồn kho: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // ==================== REPLENISHMENT ====================
+
+    @GetMapping("/replenishment")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('WAREHOUSE_MANAGER')")
+    @Operation(summary = "Lấy đề xuất nhập hàng", description = "Các SKU đã chạm điểm đặt hàng theo dự báo nhu cầu, kèm số lượng đề xuất")
+    public ResponseEntity<ResponseData<List<ReplenishmentSuggestion>>> getReplenishmentSuggestions(
+            @Parameter(description = "Số dòng tối đa") @RequestParam(defaultValue = "100") int limit) {
+        try {
+            List<ReplenishmentSuggestion> suggestions = replenishmentService.getSuggestions(Math.max(1, Math.min(limit, 1000)));
+
+            return ResponseEntity.ok(ResponseData.<List<ReplenishmentSuggestion>>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Lấy đề xuất nhập hàng thành công")
+                    .data(suggestions)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting replenishment suggestions: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<List<ReplenishmentSuggestion>>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi lấy đề xuất nhập hàng: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    @PostMapping("/replenishment/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Chạy dự báo nhập hàng", description = "Dự báo lại nhu cầu cho toàn bộ SKU (FULL) hoặc chỉ các SKU có biến động (INCREMENTAL)")
+    public ResponseEntity<ResponseData<Integer>> runReplenishment(
+            @Parameter(description = "FULL hoặc INCREMENTAL") @RequestParam(defaultValue = "INCREMENTAL") ReplenishmentService.Mode mode) {
+        try {
+            log.info("Running replenishment forecast in {} mode", mode);
+            int forecast = replenishmentService.runNow(mode);
+
+            return ResponseEntity.ok(ResponseData.<Integer>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("Dự báo nhập hàng thành công")
+                    .data(forecast)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error running replenishment forecast: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ResponseData.<Integer>builder()
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .message("Lỗi dự báo nhập hàng: " + e.getMessage())
+                            .build());
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.Backend.dtos;
+
+import com.example.Backend.utils.KeysetCursor;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+    private Boolean totalEstimated;
+
+    public enum TotalMode {
+        NONE,
+        ESTIMATE,
+        EXACT
+    }
+
+    /**
+     * Build a page from rows fetched with a limit of {@code size + 1}; the extra row only signals
+     * that another page exists.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, KeysetCursor> cursorOf,
+                                          Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        return CursorPage.<T>builder()
+                .content(page.stream().map(mapper).collect(Collectors.toList()))
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    public static int clampSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Attach a total count. Estimates come from planner statistics; a negative estimate means none
+     * is available and the exact count is used instead.
+     */
+    public CursorPage<T> withTotal(TotalMode mode, LongSupplier estimate, LongSupplier exact) {
+        if (mode == TotalMode.ESTIMATE) {
+            long estimated = estimate.getAsLong();
+            if (estimated >= 0) {
+                this.totalElements = estimated;
+                this.totalEstimated = true;
+                return this;
+            }
+        }
+        if (mode != TotalMode.NONE) {
+            this.totalElements = exact.getAsLong();
+            this.totalEstimated = false;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.Backend.dtos.event;
+
+import com.example.Backend.models.OrderEvent.EventType;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * In-process message published by the order event relay. Delivery is at-least-once, so listeners
+ * with side effects should dedupe on {@code eventId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLifecycleEvent {
+
+    private Long eventId;
+    private EventType eventType;
+    private Long orderId;
+    private String orderNumber;
+    private Long customerId;
+    private Long userId;
+    private OrderStatus previousStatus;
+    private OrderStatus status;
+    private BigDecimal total;
+    private LocalDate orderDate;
+    private LocalDateTime occurredAt;
+    private List<Line> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long skuId;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal lineTotal;
+    }
+}
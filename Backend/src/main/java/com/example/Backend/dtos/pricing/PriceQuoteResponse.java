@@ -0,0 +1,43 @@
+package com.example.Backend.dtos.pricing;
+
+import com.example.Backend.models.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteResponse {
+
+    private Long customerId;
+    private Customer.CustomerTier customerTier;
+    private List<Line> lines;
+    private BigDecimal grossAmount;
+    private BigDecimal lineDiscount;
+    private BigDecimal subtotal;
+    private BigDecimal orderDiscount;
+    private BigDecimal taxAmount;
+    private BigDecimal total;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long skuId;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal grossAmount;
+        private BigDecimal discount;
+        private BigDecimal taxRate;
+        private BigDecimal taxAmount;
+        private BigDecimal lineTotal;
+        private List<String> appliedRules;
+    }
+}
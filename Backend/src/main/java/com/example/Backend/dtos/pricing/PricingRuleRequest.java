@@ -0,0 +1,43 @@
+package com.example.Backend.dtos.pricing;
+
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.PricingRule;
+import com.example.Backend.models.ProductModel;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class PricingRuleRequest {
+
+    @NotBlank(message = "Rule name is required")
+    private String name;
+
+    @NotNull(message = "Rule type is required")
+    private PricingRule.RuleType ruleType;
+
+    private Long skuId;
+    private ProductModel.ProductCategory category;
+    private Customer.CustomerTier customerTier;
+    private Long campaignId;
+
+    @Min(value = 1, message = "Minimum quantity must be at least 1")
+    private Integer minQuantity;
+
+    @DecimalMin(value = "0.0", message = "Percent must not be negative")
+    @DecimalMax(value = "100.0", message = "Percent must not exceed 100")
+    private BigDecimal percent;
+
+    @DecimalMin(value = "0.0", message = "Amount off must not be negative")
+    private BigDecimal amountOff;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Boolean isActive;
+}
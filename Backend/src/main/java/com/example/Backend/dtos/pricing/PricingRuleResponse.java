@@ -0,0 +1,37 @@
+package com.example.Backend.dtos.pricing;
+
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.PricingRule;
+import com.example.Backend.models.ProductModel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PricingRuleResponse {
+
+    private Long id;
+    private String name;
+    private PricingRule.RuleType ruleType;
+    private Long skuId;
+    private ProductModel.ProductCategory category;
+    private Customer.CustomerTier customerTier;
+    private Long campaignId;
+    private String campaignName;
+    private Integer minQuantity;
+    private BigDecimal percent;
+    private BigDecimal amountOff;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
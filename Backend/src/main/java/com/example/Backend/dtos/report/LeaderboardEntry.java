@@ -0,0 +1,19 @@
+package com.example.Backend.dtos.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    private Integer rank;
+    private Long userId;
+    private String fullName;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,25 @@
+package com.example.Backend.dtos.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Pushed to leaderboard SSE subscribers whenever an order moves a salesperson's score.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardRankChange {
+    private String period;
+    private String periodKey;
+    private Long userId;
+    private Long orderId;
+    private Integer rank;
+    private BigDecimal revenue;
+    private BigDecimal delta;
+}
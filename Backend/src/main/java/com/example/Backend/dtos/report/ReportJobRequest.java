@@ -0,0 +1,34 @@
+package com.example.Backend.dtos.report;
+
+import com.example.Backend.services.ReportJobService.Priority;
+import com.example.Backend.services.ReportJobService.ReportType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobRequest {
+
+    @NotNull(message = "Report type is required")
+    private ReportType type;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 100, message = "Limit must be at most 100")
+    private Integer limit;
+
+    @Builder.Default
+    private Priority priority = Priority.NORMAL;
+}
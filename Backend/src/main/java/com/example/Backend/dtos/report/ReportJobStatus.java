@@ -0,0 +1,33 @@
+package com.example.Backend.dtos.report;
+
+import com.example.Backend.services.ReportJobService.JobState;
+import com.example.Backend.services.ReportJobService.Priority;
+import com.example.Backend.services.ReportJobService.ReportType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobStatus {
+    private String jobId;
+    private ReportType type;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer limit;
+    private Priority priority;
+    private JobState state;
+    private Integer progress; // Percentage
+    private String submittedBy;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private Long resultBytes; // Compressed size
+}
@@ -0,0 +1,20 @@
+package com.example.Backend.dtos.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesCubeResult {
+    private List<String> groupBy;
+    private List<SalesCubeRow> rows;
+    private Integer totalGroups; // Before the limit
+    private Integer cubeRows;
+    private Long elapsedMs;
+}
@@ -0,0 +1,20 @@
+package com.example.Backend.dtos.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesCubeRow {
+    private Map<String, String> dimensions; // Dimension -> label, in group-by order
+    private Map<String, Long> ids; // BRAND, SKU and STAFF ids, for drilling down
+    private Long quantity;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,50 @@
+package com.example.Backend.dtos.salesorder;
+
+import com.example.Backend.models.Payment;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class CheckoutRequest {
+
+    @NotNull(message = "Customer ID is required")
+    private Long customerId;
+
+    private Long locationId; // till's location; defaults to the default location
+
+    @NotNull(message = "Payment method is required")
+    private Payment.PaymentMethod paymentMethod;
+
+    @DecimalMin(value = "0.0", message = "Discount must not be negative")
+    private BigDecimal discount;
+
+    @DecimalMin(value = "0.0", message = "Amount tendered must not be negative")
+    private BigDecimal amountTendered;
+
+    private String notes;
+
+    @NotEmpty(message = "Items are required")
+    @Valid
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+
+        @NotNull(message = "SKU ID is required")
+        private Long skuId;
+
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+
+        // IMEIs scanned at the till; when given there must be one per unit
+        private List<String> serialNumbers;
+    }
+}
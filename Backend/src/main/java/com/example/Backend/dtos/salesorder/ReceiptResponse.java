@@ -0,0 +1,50 @@
+package com.example.Backend.dtos.salesorder;
+
+import com.example.Backend.models.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptResponse {
+
+    private Long orderId;
+    private String orderNumber;
+    private Long paymentId;
+    private Long customerId;
+    private String customerName;
+    private String cashierName;
+    private Payment.PaymentMethod paymentMethod;
+    private LocalDateTime paidAt;
+    private List<Line> lines;
+    private BigDecimal subtotal;
+    private BigDecimal discount;
+    private BigDecimal taxAmount;
+    private BigDecimal total;
+    private BigDecimal amountTendered;
+    private BigDecimal change;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long skuId;
+        private String productName;
+        private String variantName;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal discount;
+        private BigDecimal taxAmount;
+        private BigDecimal lineTotal;
+        private List<String> serialNumbers;
+    }
+}
@@ -19,5 +19,6 @@ public class SalesOrderItemResponse {
     private Long serialUnitId;
     private Integer quantity;
     private BigDecimal unitPrice;
+    private BigDecimal discount;
     private BigDecimal lineTotal;
 }
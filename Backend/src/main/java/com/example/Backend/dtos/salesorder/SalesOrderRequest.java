@@ -2,6 +2,7 @@ package com.example.Backend.dtos.salesorder;
 
 import com.example.Backend.models.Payment;
 import com.example.Backend.models.SalesOrder;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -13,10 +14,12 @@ public class SalesOrderRequest {
 
     @NotNull(message = "Customer ID is required")
     private Long customerId;
+    private Long locationId; // selling location; defaults to the default location
     private String notes;
     private BigDecimal discount;
     private Payment.PaymentMethod paymentMethod;
 
     @NotNull(message = "Items are required")
+    @Valid
     private List<SalesOrderItemRequest> items;
 }
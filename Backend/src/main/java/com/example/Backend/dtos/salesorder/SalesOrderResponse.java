@@ -18,10 +18,12 @@ import java.util.List;
 public class SalesOrderResponse {
 
     private Long id;
+    private String orderNumber;
     private Long customerId;
     private String customerName;
     private Long userId;
     private String userName;
+    private Long locationId;
     private SalesOrder.OrderStatus status;
     private Payment.PaymentMethod paymentMethod;
     private BigDecimal subtotal;
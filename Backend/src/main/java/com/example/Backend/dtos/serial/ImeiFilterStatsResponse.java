@@ -0,0 +1,27 @@
+package com.example.Backend.dtos.serial;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImeiFilterStatsResponse {
+
+    private boolean ready;
+    private LocalDateTime builtAt;
+    private long bitSize;
+    private int hashFunctions;
+    private long approximateElements;
+    private double configuredFalsePositiveRate;
+    private double expectedFalsePositiveRate; // from the filter's current fill
+    private long lookups;
+    private long probableHits; // lookups the filter could not rule out
+    private long confirmedDuplicates; // probable hits the database confirmed
+    private double observedFalsePositiveRate; // unconfirmed hits over lookups of new IMEIs
+}
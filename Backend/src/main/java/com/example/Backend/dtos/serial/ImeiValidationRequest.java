@@ -0,0 +1,21 @@
+package com.example.Backend.dtos.serial;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImeiValidationRequest {
+
+    @NotEmpty(message = "IMEIs are required")
+    @Size(max = 5000, message = "At most 5000 IMEIs per request")
+    private List<String> imeis;
+}
@@ -0,0 +1,38 @@
+package com.example.Backend.dtos.serial;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImeiValidationResponse {
+
+    private int total;
+    private int accepted;
+    private int rejected;
+    private List<Result> results; // in request order
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String input;
+        private String imei; // normalized; null when nothing was left
+        private Status status;
+    }
+
+    public enum Status {
+        VALID,
+        INVALID_FORMAT,
+        INVALID_CHECKSUM,
+        DUPLICATE_IN_BATCH,
+        ALREADY_REGISTERED
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.Backend.dtos.serial;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerialTraceResponse {
+
+    private Long serialUnitId;
+    private String imei;
+    private Long skuId;
+    private String skuCode;
+    private String status;
+    private LocalDateTime receivedAt;
+    private List<Entry> timeline;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String kind; // STATUS, SALE, WARRANTY or REPAIR
+        private LocalDateTime at;
+        private String status;
+        private String refType;
+        private Long refId;
+        private String detail;
+    }
+}
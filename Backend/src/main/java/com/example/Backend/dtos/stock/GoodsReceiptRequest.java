@@ -0,0 +1,62 @@
+package com.example.Backend.dtos.stock;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One supplier shipment. Serialized lines list their IMEIs and receive one unit per IMEI; other
+ * lines give a quantity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GoodsReceiptRequest {
+
+    private Long locationId; // defaults to the default location
+
+    private String refType; // e.g. PURCHASE_ORDER
+
+    private Long refId;
+
+    private LocalDate purchaseDate; // defaults to today
+
+    private String notes;
+
+    // Apply the valid lines and report the rest, instead of rejecting the whole document
+    @Builder.Default
+    private boolean acceptPartial = false;
+
+    @NotEmpty(message = "Receipt lines are required")
+    @Valid
+    private List<Line> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+
+        @NotNull(message = "SKU ID is required")
+        private Long skuId;
+
+        @Min(value = 1, message = "Quantity must be positive")
+        private Integer quantity;
+
+        @DecimalMin(value = "0.0", message = "Unit cost must be non-negative")
+        private BigDecimal unitCost; // defaults to the SKU cost price
+
+        private List<String> imeis;
+    }
+}
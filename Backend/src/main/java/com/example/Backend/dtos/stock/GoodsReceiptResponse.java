@@ -0,0 +1,34 @@
+package com.example.Backend.dtos.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GoodsReceiptResponse {
+
+    private boolean applied;
+    private int linesReceived;
+    private int linesRejected;
+    private long unitsReceived;
+    private int serialsCreated;
+    private List<LineResult> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private int index;
+        private Long skuId;
+        private Integer quantity;
+        private boolean received;
+        private List<String> errors;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.Backend.dtos.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryValuationResponse {
+
+    private String groupBy;
+    private Long totalQuantity;
+    private BigDecimal totalValue;
+    private List<Line> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String key;
+        private String label;
+        private Long quantity;
+        private BigDecimal value;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.Backend.dtos.stock;
+
+import com.example.Backend.models.StockLocation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Where a SKU can be sold from: the total free quantity and the locations that have some free,
+ * most first.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationAvailabilityResponse {
+
+    private Long skuId;
+    private Integer availableQty;
+    private List<Location> locations;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Location {
+        private Long locationId;
+        private String code;
+        private String name;
+        private StockLocation.LocationType type;
+        private Integer quantity;
+        private Integer reservedQty;
+        private Integer availableQty;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.Backend.dtos.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplenishmentSuggestion {
+
+    private Long skuId;
+    private Integer quantity;
+    private Integer reservedQty;
+    private Integer availableQty;
+    private Integer minStock;
+    private Integer maxStock;
+    private BigDecimal weeklyDemand;
+    private Integer reorderPoint;
+    private Integer orderUpTo;
+    private Integer suggestedQty;
+    private LocalDateTime forecastAt;
+}
@@ -0,0 +1,32 @@
+package com.example.Backend.dtos.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfResponse {
+
+    private LocalDateTime asOf;
+    private LocalDate snapshotDate; // null when replayed from the start of the ledger
+    private LocalDateTime replayedFrom;
+    private Long totalQuantity;
+    private List<Line> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long skuId;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.Backend.dtos.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelEvent {
+
+    private Long skuId;
+    private Integer quantity;
+    private Integer reservedQty;
+    private Integer availableQty;
+    private Integer minStock;
+    private StockStatus status;
+    private StockStatus previousStatus; // null when not known to this node
+    private boolean thresholdCrossed;
+    private LocalDateTime at;
+
+    public enum StockStatus {
+        IN_STOCK, LOW_STOCK, OUT_OF_STOCK;
+
+        // Same thresholds as StockItem.isLowStock and the out-of-stock query
+        public static StockStatus of(int quantity, int minStock) {
+            if (quantity <= 0) {
+                return OUT_OF_STOCK;
+            }
+            return quantity <= minStock ? LOW_STOCK : IN_STOCK;
+        }
+    }
+}
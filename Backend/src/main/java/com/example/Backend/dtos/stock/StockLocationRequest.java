@@ -0,0 +1,27 @@
+package com.example.Backend.dtos.stock;
+
+import com.example.Backend.models.StockLocation;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLocationRequest {
+
+    @NotBlank(message = "Location code is required")
+    @Size(max = 32, message = "Location code must be at most 32 characters")
+    private String code;
+
+    @NotBlank(message = "Location name is required")
+    private String name;
+
+    private StockLocation.LocationType type; // defaults to STORE
+
+    private String address;
+}
@@ -0,0 +1,22 @@
+package com.example.Backend.dtos.stock;
+
+import com.example.Backend.models.StockLocation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLocationResponse {
+
+    private Long id;
+    private String code;
+    private String name;
+    private StockLocation.LocationType type;
+    private String address;
+    private Boolean active;
+    private Boolean isDefault;
+}
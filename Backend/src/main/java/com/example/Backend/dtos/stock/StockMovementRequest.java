@@ -1,6 +1,7 @@
 package com.example.Backend.dtos.stock;
 
 import com.example.Backend.models.StockMovement;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -19,12 +22,17 @@ public class StockMovementRequest {
 
     private Long serialUnitId;
 
+    private Long locationId; // defaults to the default location
+
     @Min(value = 1, message = "Quantity must be positive")
     private Integer quantity = 1;
 
     @NotNull(message = "Reason is required")
     private StockMovement.MovementReason reason;
 
+    @DecimalMin(value = "0.0", message = "Unit cost must be non-negative")
+    private BigDecimal unitCost; // IN only; defaults to the SKU cost price
+
     private String refType;
 
     private Long refId;
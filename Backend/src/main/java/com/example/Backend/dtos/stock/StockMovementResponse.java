@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -19,9 +20,11 @@ public class StockMovementResponse {
     private String skuName;
     private Long serialUnitId;
     private String serialNumber;
+    private Long locationId;
     private StockMovement.MovementType movementType;
     private Integer quantity;
     private StockMovement.MovementReason reason;
+    private BigDecimal unitCost;
     private String refType;
     private Long refId;
     private String notes;
@@ -0,0 +1,48 @@
+package com.example.Backend.dtos.stock;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Move stock between two locations. All lines move or none do.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTransferRequest {
+
+    @NotNull(message = "Source location is required")
+    private Long fromLocationId;
+
+    @NotNull(message = "Destination location is required")
+    private Long toLocationId;
+
+    private String notes;
+
+    @NotEmpty(message = "Transfer lines are required")
+    @Valid
+    private List<Line> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+
+        @NotNull(message = "SKU ID is required")
+        private Long skuId;
+
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be positive")
+        private Integer quantity;
+    }
+}
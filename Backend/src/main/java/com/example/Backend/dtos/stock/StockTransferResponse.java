@@ -0,0 +1,23 @@
+package com.example.Backend.dtos.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTransferResponse {
+
+    private Long transferId;
+    private Long fromLocationId;
+    private Long toLocationId;
+    private Map<Long, Integer> quantities; // by SKU id
+    private String notes;
+    private LocalDateTime createdAt;
+}
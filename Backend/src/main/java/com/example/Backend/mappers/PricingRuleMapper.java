@@ -0,0 +1,34 @@
+package com.example.Backend.mappers;
+
+import com.example.Backend.dtos.pricing.PricingRuleResponse;
+import com.example.Backend.models.PricingRule;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PricingRuleMapper {
+
+    public PricingRuleResponse toResponse(PricingRule rule) {
+        if (rule == null) {
+            return null;
+        }
+
+        return PricingRuleResponse.builder()
+                .id(rule.getId())
+                .name(rule.getName())
+                .ruleType(rule.getRuleType())
+                .skuId(rule.getSku() != null ? rule.getSku().getId() : null)
+                .category(rule.getCategory())
+                .customerTier(rule.getCustomerTier())
+                .campaignId(rule.getCampaign() != null ? rule.getCampaign().getId() : null)
+                .campaignName(rule.getCampaign() != null ? rule.getCampaign().getName() : null)
+                .minQuantity(rule.getMinQuantity())
+                .percent(rule.getPercent())
+                .amountOff(rule.getAmountOff())
+                .startDate(rule.getStartDate())
+                .endDate(rule.getEndDate())
+                .isActive(rule.getIsActive())
+                .createdAt(rule.getCreatedAt())
+                .updatedAt(rule.getUpdatedAt())
+                .build();
+    }
+}
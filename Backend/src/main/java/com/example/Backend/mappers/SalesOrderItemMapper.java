@@ -20,6 +20,7 @@ public class SalesOrderItemMapper {
                 .serialUnitId(item.getSerialUnit() != null ? item.getSerialUnit().getId() : null)
                 .quantity(item.getQuantity())
                 .unitPrice(item.getUnitPrice())
+                .discount(item.getDiscount())
                 .lineTotal(item.getLineTotal())
                 .build();
     }
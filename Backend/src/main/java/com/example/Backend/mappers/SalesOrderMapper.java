@@ -48,10 +48,12 @@ public class SalesOrderMapper {
 
         return SalesOrderResponse.builder()
                 .id(salesOrder.getId())
+                .orderNumber(salesOrder.getOrderNumber())
                 .customerId(salesOrder.getCustomer() != null ? salesOrder.getCustomer().getId() : null)
                 .customerName(salesOrder.getCustomer() != null ? salesOrder.getCustomer().getFullName() : null)
                 .userId(salesOrder.getUser() != null ? salesOrder.getUser().getId() : null)
                 .userName(salesOrder.getUser() != null ? salesOrder.getUser().getFullName() : null)
+                .locationId(salesOrder.getLocation() != null ? salesOrder.getLocation().getId() : null)
                 .status(salesOrder.getStatus())
                 .paymentMethod(salesOrder.getPaymentMethod())
                 .subtotal(salesOrder.getSubtotal())
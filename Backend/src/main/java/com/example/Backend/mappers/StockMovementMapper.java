@@ -18,9 +18,11 @@ public class StockMovementMapper {
                 .skuName(stockMovement.getSku().getModel().getName())
                 .serialUnitId(stockMovement.getSerialUnit() != null ? stockMovement.getSerialUnit().getId() : null)
                 .serialNumber(stockMovement.getSerialUnit() != null ? stockMovement.getSerialUnit().getImei() : null)
+                .locationId(stockMovement.getLocation() != null ? stockMovement.getLocation().getId() : null)
                 .movementType(stockMovement.getMovementType())
                 .quantity(stockMovement.getQuantity())
                 .reason(stockMovement.getReason())
+                .unitCost(stockMovement.getUnitCost())
                 .refType(stockMovement.getRefType())
                 .refId(stockMovement.getRefId())
                 .notes(stockMovement.getNotes())
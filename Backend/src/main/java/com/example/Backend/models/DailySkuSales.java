@@ -0,0 +1,46 @@
+package com.example.Backend.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Units sold and line revenue of one SKU on one order date, over orders currently PAID. Kept in
+ * step with daily_sales_rollup and rebuilt by the same monthly backfill.
+ */
+@Data
+@Entity
+@Table(name = "daily_sku_sales",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_sku_sales_key", columnNames = {"sales_date", "sku_id"}))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySkuSales {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "sku_id", nullable = false)
+    private Long skuId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long quantity = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
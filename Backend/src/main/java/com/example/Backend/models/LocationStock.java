@@ -0,0 +1,59 @@
+package com.example.Backend.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantity and reservations of one SKU at one location. The per-SKU totals in
+ * {@link StockItem} are moved by the same statements, see StockBatchRepository.
+ */
+@Data
+@Entity
+@Table(name = "location_stock", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_location_stock_location_sku", columnNames = {"location_id", "sku_id"})
+}, indexes = {
+    @Index(name = "idx_location_stock_sku_id", columnList = "sku_id")
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id", nullable = false)
+    private StockLocation location;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sku_id", nullable = false)
+    private SKU sku;
+
+    @Min(value = 0, message = "Quantity must be non-negative")
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer quantity = 0;
+
+    @Min(value = 0, message = "Reserved quantity must be non-negative")
+    @Column(name = "reserved_qty", nullable = false)
+    @Builder.Default
+    private Integer reservedQty = 0;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public Integer getAvailableQuantity() {
+        return quantity - reservedQty;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.Backend.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Append-only record of an order state change, written in the same transaction as the change
+ * itself. The event columns never change; the relay stamps each row with its position in relay
+ * order once published, and counts failed deliveries on it.
+ */
+@Data
+@Entity
+@Table(name = "order_event", indexes = {
+    @Index(name = "idx_order_event_order_id", columnList = "order_id")
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, updatable = false)
+    private Long orderId;
+
+    @Column(name = "customer_id", updatable = false)
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, updatable = false)
+    private EventType eventType;
+
+    @Column(precision = 12, scale = 2, updatable = false)
+    private BigDecimal total;
+
+    @Column(columnDefinition = "TEXT", nullable = false, updatable = false)
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Null until the relay has published the event (or given up on it)
+    @Column(name = "relay_seq", unique = true)
+    private Long relaySeq;
+
+    @Column(name = "relayed_at")
+    private LocalDateTime relayedAt;
+
+    @Column(name = "delivery_attempts", nullable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    private Integer deliveryAttempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    public enum EventType {
+        ORDER_CONFIRMED("order_confirmed"),
+        ORDER_PAID("order_paid"),
+        ORDER_CANCELLED("order_cancelled"),
+        ORDER_REFUNDED("order_refunded");
+
+        private final String value;
+
+        EventType(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
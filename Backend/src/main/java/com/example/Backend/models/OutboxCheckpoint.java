@@ -0,0 +1,33 @@
+package com.example.Backend.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Position of the last outbox event a relay has published (its relay_seq), so the relay resumes
+ * from there after a restart and outbox followers know how far they may read.
+ */
+@Data
+@Entity
+@Table(name = "outbox_checkpoint")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "last_event_id", nullable = false)
+    @Builder.Default
+    private Long lastEventId = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -11,7 +11,10 @@ import lombok.*;
 
 @Data
 @Entity
-@Table(name = "payment")
+@Table(name = "payment", indexes = {
+    @Index(name = "idx_payment_paid_at_id", columnList = "paid_at DESC, id DESC"),
+    @Index(name = "idx_payment_customer_paid_at_id", columnList = "customer_id, paid_at DESC, id DESC")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,6 +28,10 @@ public class Payment {
     @JoinColumn(name = "order_id", nullable = false)
     private SalesOrder order;
 
+    // The order's customer, copied so a customer's payments are one index range
+    @Column(name = "customer_id")
+    private Long customerId;
+
     @NotNull
     @DecimalMin(value = "0.01", message = "Amount must be positive")
     @Column(nullable = false, precision = 12, scale = 2)
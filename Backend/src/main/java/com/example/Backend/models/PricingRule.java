@@ -0,0 +1,106 @@
+package com.example.Backend.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A tax rate or discount applied by the pricing engine. Scope fields left null match everything;
+ * a rule scoped to a SKU wins over one scoped to a category, which wins over a global rule.
+ */
+@Data
+@Entity
+@Table(name = "pricing_rule")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PricingRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Rule name is required")
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rule_type", nullable = false)
+    private RuleType ruleType;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sku_id")
+    private SKU sku;
+
+    @Enumerated(EnumType.STRING)
+    private ProductModel.ProductCategory category;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "customer_tier")
+    private Customer.CustomerTier customerTier;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "campaign_id")
+    private Campaign campaign;
+
+    @Min(value = 1, message = "Minimum quantity must be at least 1")
+    @Column(name = "min_quantity", nullable = false)
+    @Builder.Default
+    private Integer minQuantity = 1;
+
+    @DecimalMin(value = "0.0", inclusive = true)
+    @DecimalMax(value = "100.0", inclusive = true)
+    @Column(precision = 5, scale = 2)
+    private BigDecimal percent;
+
+    @DecimalMin(value = "0.0", inclusive = true)
+    @Column(name = "amount_off", precision = 12, scale = 2)
+    private BigDecimal amountOff;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(name = "is_active", nullable = false)
+    @Builder.Default
+    private Boolean isActive = true;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum RuleType {
+        TAX("tax"),
+        TIERED_DISCOUNT("tiered_discount"),
+        PROMOTION("promotion");
+
+        private final String value;
+
+        RuleType(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
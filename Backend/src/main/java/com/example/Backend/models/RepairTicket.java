@@ -16,7 +16,9 @@ import lombok.NoArgsConstructor;
 
 @Data
 @Entity
-@Table(name = "repair_ticket")
+@Table(name = "repair_ticket", indexes = {
+    @Index(name = "idx_repair_ticket_serial_unit_id", columnList = "serial_unit_id")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,49 @@
+package com.example.Backend.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latest demand forecast of one SKU and the stock levels derived from it. The suggested order
+ * quantity is worked out against the live stock row when suggestions are read.
+ */
+@Data
+@Entity
+@Table(name = "replenishment_forecast")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplenishmentForecast {
+
+    @Id
+    @Column(name = "sku_id")
+    private Long skuId;
+
+    // Forecast units for the coming week
+    @Column(name = "weekly_demand", nullable = false, precision = 12, scale = 3)
+    private BigDecimal weeklyDemand;
+
+    @Column(name = "demand_std_dev", nullable = false, precision = 12, scale = 3)
+    private BigDecimal demandStdDev;
+
+    @Column(name = "reorder_point", nullable = false)
+    private Integer reorderPoint;
+
+    @Column(name = "order_up_to", nullable = false)
+    private Integer orderUpTo;
+
+    @Column(name = "history_weeks", nullable = false)
+    private Integer historyWeeks;
+
+    @Column(nullable = false)
+    private Boolean seasonal;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
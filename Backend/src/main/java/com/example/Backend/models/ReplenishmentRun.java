@@ -0,0 +1,39 @@
+package com.example.Backend.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One nightly replenishment batch. The row is claimed before the batch starts so only one node
+ * runs it; the start time of the last finished run bounds the next incremental run.
+ */
+@Data
+@Entity
+@Table(name = "replenishment_run")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplenishmentRun {
+
+    @Id
+    @Column(name = "run_date")
+    private LocalDate runDate;
+
+    @Column(nullable = false)
+    private String mode;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "sku_count")
+    private Integer skuCount;
+}
@@ -15,7 +15,9 @@ import jakarta.validation.constraints.NotNull;
 
 @Data
 @Entity
-@Table(name = "sales_order")
+@Table(name = "sales_order", indexes = {
+    @Index(name = "idx_sales_order_created_at_id", columnList = "created_at DESC, id DESC")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,6 +27,10 @@ public class SalesOrder {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Null for orders created before order numbers existed
+    @Column(name = "order_number", unique = true, updatable = false)
+    private String orderNumber;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
@@ -33,6 +39,11 @@ public class SalesOrder {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Selling location that reserves and ships the stock; null means the default location
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id")
+    private StockLocation location;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
@@ -13,7 +13,9 @@ import lombok.NoArgsConstructor;
 
 @Data
 @Entity
-@Table(name = "sales_order_item")
+@Table(name = "sales_order_item", indexes = {
+    @Index(name = "idx_sales_order_item_serial_unit_id", columnList = "serial_unit_id")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +46,12 @@ public class SalesOrderItem {
     @Column(name = "unit_price", nullable = false, precision = 12, scale = 2)
     private BigDecimal unitPrice;
 
+    @NotNull
+    @DecimalMin(value = "0.0", inclusive = true)
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal discount = BigDecimal.ZERO;
+
     @NotNull
     @DecimalMin(value = "0.0", inclusive = true)
     @Column(name = "line_total", nullable = false, precision = 12, scale = 2)
@@ -51,7 +59,8 @@ public class SalesOrderItem {
 
     // Business logic methods
     public BigDecimal calculateLineTotal() {
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        BigDecimal gross = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        return discount != null ? gross.subtract(discount) : gross;
     }
 
     public void updateLineTotal() {
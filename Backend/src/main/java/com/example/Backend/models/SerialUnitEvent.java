@@ -0,0 +1,55 @@
+package com.example.Backend.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Append-only history of a serial unit's status, one row per change. Bulk paths (goods receipt,
+ * checkout, serial allocation) write their rows in the same statement that changes the units.
+ */
+@Data
+@Entity
+@Table(name = "serial_unit_event", indexes = {
+    @Index(name = "idx_serial_unit_event_unit", columnList = "serial_unit_id, created_at")
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerialUnitEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "serial_unit_id", nullable = false, updatable = false)
+    private Long serialUnitId;
+
+    // Null when the unit was first received
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", updatable = false)
+    private SerialUnit.SerialStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", nullable = false, updatable = false)
+    private SerialUnit.SerialStatus toStatus;
+
+    @Column(name = "ref_type", updatable = false)
+    private String refType;
+
+    @Column(name = "ref_id", updatable = false)
+    private Long refId;
+
+    @Column(columnDefinition = "TEXT", updatable = false)
+    private String notes;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.example.Backend.models;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import org.hibernate.annotations.UpdateTimestamp;
@@ -11,6 +12,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Stock of one SKU summed over all locations: the aggregated read model that availability checks,
+ * valuation and reports use. The per-location rows are {@link LocationStock}; every write moves
+ * both in one statement.
+ */
 @Data
 @Entity
 @Table(name = "stock_item")
@@ -45,6 +51,10 @@ public class StockItem {
     @Column(name = "max_stock")
     private Integer maxStock;
 
+    // Moving weighted-average unit cost of the units on hand
+    @Column(name = "avg_cost", precision = 14, scale = 4)
+    private BigDecimal avgCost;
+
     @UpdateTimestamp
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
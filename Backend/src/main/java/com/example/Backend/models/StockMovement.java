@@ -1,5 +1,6 @@
 package com.example.Backend.models;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import org.hibernate.annotations.CreationTimestamp;
@@ -14,12 +15,15 @@ import lombok.NoArgsConstructor;
 
 @Data
 @Entity
-@Table(name = "stock_movement")
+@Table(name = "stock_movement", indexes = {
+    @Index(name = "idx_stock_movement_created_at_id", columnList = "created_at DESC, id DESC")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class StockMovement {
 
+    // Rows are written by StockLedgerWriter, which assigns ids from blocks of this column's sequence
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,6 +36,11 @@ public class StockMovement {
     @JoinColumn(name = "serial_unit_id")
     private SerialUnit serialUnit;
 
+    // Where the units came in or went out; null on rows written before stock had locations
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id")
+    private StockLocation location;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "movement_type", nullable = false)
     private MovementType movementType;
@@ -45,6 +54,10 @@ public class StockMovement {
     @Column(nullable = false)
     private MovementReason reason;
 
+    // Cost per unit of an IN movement, as folded into the SKU's average cost
+    @Column(name = "unit_cost", precision = 14, scale = 4)
+    private BigDecimal unitCost;
+
     @Column(name = "ref_type")
     private String refType;
 
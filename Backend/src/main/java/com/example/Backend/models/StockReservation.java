@@ -0,0 +1,86 @@
+package com.example.Backend.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Table(name = "stock_reservation", indexes = {
+    @Index(name = "idx_stock_reservation_order_id", columnList = "order_id"),
+    @Index(name = "idx_stock_reservation_status_expires", columnList = "status, expires_at")
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private SalesOrder order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sku_id", nullable = false)
+    private SKU sku;
+
+    // Location the quantity is held at; null on holds taken before stock had locations
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id")
+    private StockLocation location;
+
+    @Min(value = 1, message = "Quantity must be positive")
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private ReservationStatus status = ReservationStatus.ACTIVE;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum ReservationStatus {
+        ACTIVE("active"),
+        CONSUMED("consumed"),
+        RELEASED("released"),
+        EXPIRED("expired");
+
+        private final String value;
+
+        ReservationStatus(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    // Business logic methods
+    public boolean isActive() {
+        return status == ReservationStatus.ACTIVE;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return isActive() && expiresAt.isBefore(now);
+    }
+}
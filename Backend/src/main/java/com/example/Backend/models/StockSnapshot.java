@@ -0,0 +1,36 @@
+package com.example.Backend.models;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantity of one SKU on hand at the end of a day, as replayed from the stock movement ledger.
+ * SKUs with nothing on hand are left out, so a missing row means zero.
+ */
+@Data
+@Entity
+@Table(name = "stock_snapshot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_snapshot_key", columnNames = {"snapshot_date", "sku_id"}))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(name = "sku_id", nullable = false)
+    private Long skuId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
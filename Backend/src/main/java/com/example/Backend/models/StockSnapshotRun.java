@@ -0,0 +1,32 @@
+package com.example.Backend.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marks a day whose stock snapshot has been taken, also when every SKU was out of stock.
+ */
+@Data
+@Entity
+@Table(name = "stock_snapshot_run")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshotRun {
+
+    @Id
+    @Column(name = "snapshot_date")
+    private LocalDate snapshotDate;
+
+    @Column(name = "sku_count", nullable = false)
+    private Integer skuCount;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+}
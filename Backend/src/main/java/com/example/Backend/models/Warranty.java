@@ -16,7 +16,9 @@ import lombok.NoArgsConstructor;
 
 @Data
 @Entity
-@Table(name = "warranty")
+@Table(name = "warranty", indexes = {
+    @Index(name = "idx_warranty_serial_unit_id", columnList = "serial_unit_id")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
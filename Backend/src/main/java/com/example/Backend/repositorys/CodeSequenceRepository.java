@@ -0,0 +1,50 @@
+package com.example.Backend.repositorys;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sequences behind business codes (warranty codes, ticket and order numbers). Each sequence value
+ * is the first of a block of values, so a node reserves a whole block with one nextval.
+ * Sequence and table names come from constants, never from requests.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CodeSequenceRepository {
+
+    // Advisory lock class ("SEQC") serializing sequence creation across nodes
+    private static final int CREATE_LOCK_CLASS = 0x53455143;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the sequence with the given block size if it is missing. A new sequence starts above
+     * the largest id of the table, so new codes cannot repeat codes that were numbered by id or row
+     * count before. Must run in a transaction: nodes preparing the same sequence queue on an
+     * advisory lock held until commit, and only the one that finds it missing creates it, with the
+     * start value in the CREATE itself, so no node ever moves a sequence another has drawn from.
+     */
+    public void createIfMissing(String sequence, int blockSize, String table) {
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_advisory_xact_lock(?, hashtext(?))",
+                Long.class, CREATE_LOCK_CLASS, sequence);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, sequence);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        Long start = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+        jdbcTemplate.execute("CREATE SEQUENCE " + sequence + " INCREMENT BY " + blockSize + " START WITH " + start);
+    }
+
+    /**
+     * Reserve the next block: returns {first value, block size}. The size is read in the same
+     * statement, so a block is never assumed larger than the sequence's increment.
+     */
+    public long[] nextBlock(String sequence) {
+        return jdbcTemplate.queryForObject(
+                "SELECT nextval(?::regclass), seqincrement FROM pg_sequence WHERE seqrelid = ?::regclass",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                sequence, sequence);
+    }
+}
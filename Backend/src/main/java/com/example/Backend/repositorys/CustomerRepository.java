@@ -48,6 +48,10 @@ public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSp
     @Query("SELECT COUNT(c) FROM Customer c WHERE c.createdAt >= :date")
     long countCustomersCreatedAfter(@Param("date") LocalDateTime date);
 
+    @Query("SELECT COUNT(c) FROM Customer c WHERE c.createdAt >= :startDate AND c.createdAt < :endDate")
+    long countCustomersCreatedBetween(@Param("startDate") LocalDateTime startDate,
+                                      @Param("endDate") LocalDateTime endDate);
+
     // Tìm kiếm nâng cao
     @Query("SELECT c FROM Customer c WHERE " +
            "(:fullName IS NULL OR LOWER(c.fullName) LIKE LOWER(CONCAT('%', :fullName, '%'))) AND " +
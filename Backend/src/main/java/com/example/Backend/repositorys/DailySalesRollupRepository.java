@@ -0,0 +1,72 @@
+package com.example.Backend.repositorys;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.DailySalesRollup;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, user_id, status, order_count, total_amount, updated_at) " +
+                   "VALUES (:salesDate, :userId, :status, :countDelta, :amountDelta, NOW()) " +
+                   "ON CONFLICT (sales_date, user_id, status) DO UPDATE SET " +
+                   "order_count = daily_sales_rollup.order_count + EXCLUDED.order_count, " +
+                   "total_amount = daily_sales_rollup.total_amount + EXCLUDED.total_amount, " +
+                   "updated_at = NOW()", nativeQuery = true)
+    int applyDelta(@Param("salesDate") LocalDate salesDate,
+                   @Param("userId") Long userId,
+                   @Param("status") String status,
+                   @Param("countDelta") long countDelta,
+                   @Param("amountDelta") BigDecimal amountDelta);
+
+    // Status changes take the month lock shared, a month rebuild takes it exclusively
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock_shared(:lockClass, :month)", nativeQuery = true)
+    long lockMonthShared(@Param("lockClass") int lockClass, @Param("month") int month);
+
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(:lockClass, :month)", nativeQuery = true)
+    long lockMonthExclusive(@Param("lockClass") int lockClass, @Param("month") int month);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_sales_rollup WHERE sales_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, user_id, status, order_count, total_amount, updated_at) " +
+                   "SELECT order_date, user_id, status, COUNT(*), COALESCE(SUM(total), 0), NOW() FROM sales_order " +
+                   "WHERE order_date BETWEEN :startDate AND :endDate " +
+                   "GROUP BY order_date, user_id, status", nativeQuery = true)
+    int rebuildBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT r.salesDate, SUM(r.orderCount), SUM(r.totalAmount) FROM DailySalesRollup r " +
+           "WHERE r.status = 'PAID' AND r.salesDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.salesDate ORDER BY r.salesDate")
+    List<Object[]> getDailySales(@Param("startDate") LocalDate startDate,
+                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT SUM(r.totalAmount) FROM DailySalesRollup r " +
+           "WHERE r.status = 'PAID' AND r.salesDate BETWEEN :startDate AND :endDate")
+    BigDecimal getTotalSales(@Param("startDate") LocalDate startDate,
+                             @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT r.userId, u.fullName, SUM(r.orderCount), SUM(r.totalAmount) FROM DailySalesRollup r " +
+           "JOIN User u ON u.id = r.userId " +
+           "WHERE r.status = 'PAID' AND r.salesDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.userId, u.fullName")
+    List<Object[]> getSalesPerformanceByUser(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT r.status, SUM(r.orderCount) FROM DailySalesRollup r GROUP BY r.status")
+    List<Object[]> countOrdersByStatus();
+
+    @Query(value = "SELECT MIN(order_date) FROM sales_order", nativeQuery = true)
+    LocalDate findFirstOrderDate();
+}
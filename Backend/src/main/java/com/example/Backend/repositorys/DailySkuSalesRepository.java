@@ -0,0 +1,47 @@
+package com.example.Backend.repositorys;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.DailySkuSales;
+
+@Repository
+public interface DailySkuSalesRepository extends JpaRepository<DailySkuSales, Long> {
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_sku_sales WHERE sales_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sku_sales (sales_date, sku_id, quantity, revenue, updated_at) " +
+                   "SELECT so.order_date, soi.sku_id, SUM(soi.quantity), SUM(soi.line_total), NOW() " +
+                   "FROM sales_order so JOIN sales_order_item soi ON soi.order_id = so.id " +
+                   "WHERE so.status = 'PAID' AND so.order_date BETWEEN :startDate AND :endDate " +
+                   "GROUP BY so.order_date, soi.sku_id", nativeQuery = true)
+    int rebuildBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT d.skuId, SUM(d.quantity), SUM(d.revenue) FROM DailySkuSales d " +
+           "WHERE d.skuId IN :skuIds AND d.salesDate BETWEEN :startDate AND :endDate GROUP BY d.skuId")
+    List<Object[]> sumBySkuIds(@Param("skuIds") Collection<Long> skuIds,
+                               @Param("startDate") LocalDate startDate,
+                               @Param("endDate") LocalDate endDate);
+
+    // Exact baseline straight from the order tables
+    @Query(value = "SELECT soi.sku_id, SUM(soi.quantity), SUM(soi.line_total) " +
+                   "FROM sales_order so JOIN sales_order_item soi ON soi.order_id = so.id " +
+                   "WHERE so.status = 'PAID' AND so.order_date BETWEEN :startDate AND :endDate " +
+                   "GROUP BY soi.sku_id " +
+                   "ORDER BY CASE WHEN :byRevenue THEN SUM(soi.line_total) ELSE SUM(soi.quantity) END DESC, soi.sku_id " +
+                   "LIMIT :limit", nativeQuery = true)
+    List<Object[]> findTopSkusFromOrders(@Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate,
+                                         @Param("byRevenue") boolean byRevenue,
+                                         @Param("limit") int limit);
+}
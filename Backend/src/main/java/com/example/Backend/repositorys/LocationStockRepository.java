@@ -0,0 +1,23 @@
+package com.example.Backend.repositorys;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.LocationStock;
+
+@Repository
+public interface LocationStockRepository extends JpaRepository<LocationStock, Long> {
+
+    // Served by the partial index idx_location_stock_sku_available
+    @Query("SELECT ls FROM LocationStock ls JOIN FETCH ls.location l " +
+           "WHERE ls.sku.id = :skuId AND ls.quantity > ls.reservedQty AND l.active = true " +
+           "ORDER BY ls.quantity - ls.reservedQty DESC")
+    List<LocationStock> findAvailableBySkuId(@Param("skuId") Long skuId);
+
+    @Query("SELECT ls FROM LocationStock ls JOIN FETCH ls.sku WHERE ls.location.id = :locationId ORDER BY ls.sku.id")
+    List<LocationStock> findByLocationId(@Param("locationId") Long locationId);
+}
@@ -0,0 +1,41 @@
+package com.example.Backend.repositorys;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.OrderEvent;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    // Not yet published, oldest first
+    List<OrderEvent> findByRelaySeqIsNullOrderByIdAsc(Pageable limit);
+
+    List<OrderEvent> findByRelaySeqIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable limit);
+
+    @Query("SELECT e.id FROM OrderEvent e WHERE e.relaySeq IS NULL")
+    List<Long> findUnrelayedIds();
+
+    // Published events in relay order, for followers reading up to the relay checkpoint
+    List<OrderEvent> findByRelaySeqGreaterThanAndRelaySeqLessThanEqualOrderByRelaySeqAsc(Long afterSeq, Long upToSeq, Pageable limit);
+
+    List<OrderEvent> findByOrderIdOrderByIdAsc(Long orderId);
+
+    @Modifying
+    @Query("UPDATE OrderEvent e SET e.deliveryAttempts = e.deliveryAttempts + 1, e.lastError = :error WHERE e.id = :id")
+    int recordFailedDelivery(@Param("id") Long id, @Param("error") String error);
+
+    // One-off: events the relay published before relay positions existed sit at or below its old id
+    // checkpoint and keep their id as position. A no-op once any event has a position.
+    @Modifying
+    @Query(value = "UPDATE order_event SET relay_seq = id, relayed_at = created_at " +
+                   "WHERE relay_seq IS NULL AND id <= :lastEventId " +
+                   "AND NOT EXISTS (SELECT 1 FROM order_event WHERE relay_seq IS NOT NULL)", nativeQuery = true)
+    int backfillRelayPositions(@Param("lastEventId") long lastEventId);
+}
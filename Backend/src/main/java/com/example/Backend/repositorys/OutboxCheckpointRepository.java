@@ -0,0 +1,24 @@
+package com.example.Backend.repositorys;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.OutboxCheckpoint;
+
+@Repository
+public interface OutboxCheckpointRepository extends JpaRepository<OutboxCheckpoint, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO outbox_checkpoint (name, last_event_id, updated_at) VALUES (:name, 0, NOW()) " +
+                   "ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int createIfMissing(@Param("name") String name);
+
+    // Empty when another node is currently relaying under the same checkpoint
+    @Query(value = "SELECT * FROM outbox_checkpoint WHERE name = :name FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<OutboxCheckpoint> lockForRelay(@Param("name") String name);
+}
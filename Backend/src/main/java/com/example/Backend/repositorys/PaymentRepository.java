@@ -18,7 +18,22 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     List<Payment> findByOrderId(Long orderId);
 
-    Page<Payment> findByOrder_Customer_Id(@Param("customerId") Long customerId, Pageable pageable);
+    Page<Payment> findByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+
+    // Keyset pagination on (customer_id, paid_at, id): payments carry no created_at and are written once with paid_at set
+    @Query("SELECT p FROM Payment p WHERE p.customerId = :customerId " +
+           "ORDER BY p.paidAt DESC, p.id DESC")
+    List<Payment> findFirstPageByCustomerKeyset(@Param("customerId") Long customerId, Pageable limit);
+
+    @Query("SELECT p FROM Payment p WHERE p.customerId = :customerId AND p.paidAt <= :paidAt AND " +
+           "(p.paidAt < :paidAt OR p.id < :id) " +
+           "ORDER BY p.paidAt DESC, p.id DESC")
+    List<Payment> findPageByCustomerAfterKeyset(@Param("customerId") Long customerId,
+                                               @Param("paidAt") LocalDateTime paidAt,
+                                               @Param("id") Long id,
+                                               Pageable limit);
+
+    long countByCustomerId(Long customerId);
 
     @Query("SELECT p FROM Payment p WHERE p.order.id = :orderId")
     Page<Payment> findByOrderId(@Param("orderId") Long orderId, Pageable pageable);
@@ -0,0 +1,27 @@
+package com.example.Backend.repositorys;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.PricingRule;
+
+@Repository
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+
+    @Query("SELECT r FROM PricingRule r LEFT JOIN FETCH r.campaign LEFT JOIN FETCH r.sku WHERE r.isActive = true")
+    List<PricingRule> findAllActiveForCompilation();
+
+    List<PricingRule> findAllByOrderByIdAsc();
+
+    // Cheap fingerprint of the rule set, used to notice changes made on other nodes
+    @Query("SELECT COUNT(r), MAX(r.updatedAt), (SELECT MAX(c.updatedAt) FROM Campaign c) FROM PricingRule r")
+    List<Object[]> getRuleSetVersion();
+
+    default String ruleSetVersion() {
+        Object[] row = getRuleSetVersion().get(0);
+        return row[0] + "|" + row[1] + "|" + row[2];
+    }
+}
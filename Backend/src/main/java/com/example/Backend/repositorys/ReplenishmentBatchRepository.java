@@ -0,0 +1,113 @@
+package com.example.Backend.repositorys;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.ReplenishmentForecast;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Set-based reads and writes of the nightly replenishment batch, one round trip per SKU chunk.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReplenishmentBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Long> findStockedSkuIds() {
+        return jdbcTemplate.queryForList("SELECT sku_id FROM stock_item ORDER BY sku_id", Long.class);
+    }
+
+    public List<Long> findSkuIdsMovedSince(LocalDateTime since) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT sku_id FROM stock_movement WHERE created_at >= ? ORDER BY sku_id",
+                Long.class, Timestamp.valueOf(since));
+    }
+
+    /**
+     * Units sold per SKU and week (weeks start on Monday) in [from, to), skipping empty weeks.
+     */
+    public void forEachWeeklySales(List<Long> skuIds, LocalDate from, LocalDate to, WeeklySalesHandler handler) {
+        Long[] ids = skuIds.toArray(Long[]::new);
+        jdbcTemplate.query(
+                "SELECT sku_id, CAST(date_trunc('week', created_at) AS date) AS week, SUM(quantity) " +
+                "FROM stock_movement " +
+                "WHERE sku_id = ANY(?) AND movement_type = 'OUT' AND reason = 'SALE' " +
+                "AND created_at >= ? AND created_at < ? " +
+                "GROUP BY sku_id, week ORDER BY sku_id, week",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+                    ps.setTimestamp(2, Timestamp.valueOf(from.atStartOfDay()));
+                    ps.setTimestamp(3, Timestamp.valueOf(to.atStartOfDay()));
+                },
+                (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getObject(2, LocalDate.class), rs.getLong(3)));
+    }
+
+    /**
+     * min_stock and max_stock (null when unbounded) of the given SKUs' stock rows.
+     */
+    public Map<Long, Integer[]> findStockLimits(List<Long> skuIds) {
+        Long[] ids = skuIds.toArray(Long[]::new);
+        Map<Long, Integer[]> limits = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT sku_id, min_stock, max_stock FROM stock_item WHERE sku_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) rs -> limits.put(rs.getLong(1),
+                        new Integer[]{rs.getInt(2), rs.getObject(3, Integer.class)}));
+        return limits;
+    }
+
+    public int upsertForecasts(List<ReplenishmentForecast> forecasts) {
+        int size = forecasts.size();
+        Long[] skuIds = new Long[size];
+        BigDecimal[] demand = new BigDecimal[size];
+        BigDecimal[] stdDev = new BigDecimal[size];
+        Integer[] reorderPoints = new Integer[size];
+        Integer[] orderUpTo = new Integer[size];
+        Integer[] historyWeeks = new Integer[size];
+        Boolean[] seasonal = new Boolean[size];
+        for (int i = 0; i < size; i++) {
+            ReplenishmentForecast forecast = forecasts.get(i);
+            skuIds[i] = forecast.getSkuId();
+            demand[i] = forecast.getWeeklyDemand();
+            stdDev[i] = forecast.getDemandStdDev();
+            reorderPoints[i] = forecast.getReorderPoint();
+            orderUpTo[i] = forecast.getOrderUpTo();
+            historyWeeks[i] = forecast.getHistoryWeeks();
+            seasonal[i] = forecast.getSeasonal();
+        }
+        return jdbcTemplate.update(
+                "INSERT INTO replenishment_forecast (sku_id, weekly_demand, demand_std_dev, reorder_point, order_up_to, " +
+                "history_weeks, seasonal, computed_at) " +
+                "SELECT *, NOW() FROM unnest(?::bigint[], ?::numeric[], ?::numeric[], ?::int[], ?::int[], ?::int[], ?::boolean[]) " +
+                "ON CONFLICT (sku_id) DO UPDATE SET weekly_demand = EXCLUDED.weekly_demand, " +
+                "demand_std_dev = EXCLUDED.demand_std_dev, reorder_point = EXCLUDED.reorder_point, " +
+                "order_up_to = EXCLUDED.order_up_to, history_weeks = EXCLUDED.history_weeks, " +
+                "seasonal = EXCLUDED.seasonal, computed_at = EXCLUDED.computed_at",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", skuIds));
+                    ps.setArray(2, ps.getConnection().createArrayOf("numeric", demand));
+                    ps.setArray(3, ps.getConnection().createArrayOf("numeric", stdDev));
+                    ps.setArray(4, ps.getConnection().createArrayOf("integer", reorderPoints));
+                    ps.setArray(5, ps.getConnection().createArrayOf("integer", orderUpTo));
+                    ps.setArray(6, ps.getConnection().createArrayOf("integer", historyWeeks));
+                    ps.setArray(7, ps.getConnection().createArrayOf("boolean", seasonal));
+                });
+    }
+
+    @FunctionalInterface
+    public interface WeeklySalesHandler {
+        void accept(long skuId, LocalDate weekStart, long quantity);
+    }
+}
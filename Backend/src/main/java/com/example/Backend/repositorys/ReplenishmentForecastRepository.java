@@ -0,0 +1,41 @@
+package com.example.Backend.repositorys;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.ReplenishmentForecast;
+
+@Repository
+public interface ReplenishmentForecastRepository extends JpaRepository<ReplenishmentForecast, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO replenishment_run (run_date, mode, started_at) VALUES (:runDate, :mode, :startedAt) " +
+                   "ON CONFLICT (run_date) DO NOTHING", nativeQuery = true)
+    int claimRun(@Param("runDate") LocalDate runDate, @Param("mode") String mode, @Param("startedAt") LocalDateTime startedAt);
+
+    @Modifying
+    @Query(value = "UPDATE replenishment_run SET finished_at = NOW(), sku_count = :skuCount WHERE run_date = :runDate", nativeQuery = true)
+    int finishRun(@Param("runDate") LocalDate runDate, @Param("skuCount") int skuCount);
+
+    @Query(value = "SELECT MAX(started_at) FROM replenishment_run WHERE finished_at IS NOT NULL", nativeQuery = true)
+    Optional<LocalDateTime> findLastFinishedRunStart();
+
+    // Order up to the target, never past max_stock, for SKUs at or below their reorder point
+    @Query(value = "SELECT f.sku_id, si.quantity, si.reserved_qty, si.min_stock, si.max_stock, " +
+                   "f.weekly_demand, f.reorder_point, f.order_up_to, " +
+                   "LEAST(f.order_up_to, COALESCE(si.max_stock, f.order_up_to)) - (si.quantity - si.reserved_qty) AS suggested, " +
+                   "f.computed_at " +
+                   "FROM replenishment_forecast f JOIN stock_item si ON si.sku_id = f.sku_id " +
+                   "WHERE si.quantity - si.reserved_qty <= GREATEST(f.reorder_point, si.min_stock) " +
+                   "AND LEAST(f.order_up_to, COALESCE(si.max_stock, f.order_up_to)) > si.quantity - si.reserved_qty " +
+                   "ORDER BY f.weekly_demand DESC, f.sku_id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findSuggestions(@Param("limit") int limit);
+}
@@ -1,6 +1,7 @@
 package com.example.Backend.repositorys;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,12 @@ public interface SKURepository extends JpaRepository<SKU, Long> {
 
     List<SKU> findByModelIdAndIsActiveTrue(Long modelId);
 
+    @Query("SELECT s FROM SKU s JOIN FETCH s.model WHERE s.id IN :ids")
+    List<SKU> findAllWithModelByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s FROM SKU s JOIN FETCH s.model m JOIN FETCH m.brand WHERE s.id IN :ids")
+    List<SKU> findAllWithModelAndBrandByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT s FROM SKU s WHERE s.model.id = :modelId AND " +
            "(:variantName IS NULL OR s.variantName = :variantName) AND " +
            "(:color IS NULL OR s.color = :color) AND " +
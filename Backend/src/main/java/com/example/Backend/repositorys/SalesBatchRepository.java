@@ -0,0 +1,237 @@
+package com.example.Backend.repositorys;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Set-based statements on the sales tables: every statement handles a whole basket or batch at once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesBatchRepository {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    // History rows for the units of a "sold" CTE, taking the reference as the next two parameters
+    private static final String SOLD_EVENTS =
+            "events AS (INSERT INTO serial_unit_event (serial_unit_id, from_status, to_status, ref_type, ref_id, created_at) " +
+            "SELECT sold.id, 'IN_STOCK', 'SOLD', ?, ?, NOW() FROM sold) ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert all order lines in one statement. The lists are parallel; serial unit ids may contain nulls.
+     */
+    public int insertOrderItems(Long orderId, List<Long> skuIds, List<Long> serialUnitIds, List<Integer> quantities,
+                                List<BigDecimal> unitPrices, List<BigDecimal> discounts, List<BigDecimal> lineTotals) {
+        if (skuIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(
+                "INSERT INTO sales_order_item (order_id, sku_id, serial_unit_id, quantity, unit_price, discount, line_total) " +
+                "SELECT ?, v.sku_id, v.serial_unit_id, v.qty, v.unit_price, v.discount, v.line_total " +
+                "FROM unnest(?::bigint[], ?::bigint[], ?::int[], ?::numeric[], ?::numeric[], ?::numeric[]) " +
+                "AS v(sku_id, serial_unit_id, qty, unit_price, discount, line_total)",
+                ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setLong(1, orderId);
+                    ps.setArray(2, array(connection, "bigint", skuIds.toArray()));
+                    ps.setArray(3, array(connection, "bigint", serialUnitIds.toArray()));
+                    ps.setArray(4, array(connection, "integer", quantities.toArray()));
+                    ps.setArray(5, array(connection, "numeric", unitPrices.toArray()));
+                    ps.setArray(6, array(connection, "numeric", discounts.toArray()));
+                    ps.setArray(7, array(connection, "numeric", lineTotals.toArray()));
+                });
+    }
+
+    /**
+     * Mark the given in-stock serial units of each SKU as sold and record the change in their
+     * history. Returns imei to serial unit id for the units that were actually available; anything
+     * missing was unknown, on another SKU or not in stock.
+     */
+    public Map<String, Long> markSerialsSold(List<String> imeis, List<Long> skuIds, String refType, Long refId) {
+        Map<String, Long> sold = new LinkedHashMap<>();
+        if (imeis.isEmpty()) {
+            return sold;
+        }
+        jdbcTemplate.query(
+                "WITH sold AS (" +
+                "UPDATE serial_unit su SET status = 'SOLD', updated_at = NOW() " +
+                "FROM unnest(?::text[], ?::bigint[]) AS v(imei, sku_id) " +
+                "WHERE su.imei = v.imei AND su.sku_id = v.sku_id AND su.status = 'IN_STOCK' " +
+                "RETURNING su.imei, su.id), " +
+                SOLD_EVENTS +
+                "SELECT imei, id FROM sold",
+                ps -> {
+                    ps.setArray(1, array(ps.getConnection(), "text", imeis.toArray()));
+                    ps.setArray(2, array(ps.getConnection(), "bigint", skuIds.toArray()));
+                    ps.setString(3, refType);
+                    ps.setObject(4, refId, Types.BIGINT);
+                },
+                rs -> {
+                    sold.put(rs.getString(1), rs.getLong(2));
+                });
+        return sold;
+    }
+
+    /**
+     * Claim and mark sold the oldest in-stock serial units of each SKU, up to the count asked for,
+     * in one statement that also records the change in their history. Units another transaction
+     * has locked are skipped rather than waited for, so concurrent sales of the same SKU never block
+     * each other or claim the same unit; a SKU may come back with fewer units than asked when the
+     * rest are taken. Rows are returned oldest first per SKU.
+     */
+    public List<AllocatedSerial> allocateSerials(List<Long> skuIds, List<Integer> counts, String refType, Long refId) {
+        List<AllocatedSerial> allocated = new ArrayList<>();
+        if (skuIds.isEmpty()) {
+            return allocated;
+        }
+        jdbcTemplate.query(
+                "WITH claimed AS (" +
+                "SELECT c.id, c.sku_id, c.imei, c.purchase_date FROM unnest(?::bigint[], ?::int[]) AS v(sku_id, n) " +
+                "CROSS JOIN LATERAL (SELECT su.id, su.sku_id, su.imei, su.purchase_date FROM serial_unit su " +
+                "WHERE su.sku_id = v.sku_id AND su.status = 'IN_STOCK' " +
+                "ORDER BY su.purchase_date NULLS LAST, su.id LIMIT v.n FOR UPDATE SKIP LOCKED) c), " +
+                "sold AS (" +
+                "UPDATE serial_unit su SET status = 'SOLD', updated_at = NOW() FROM claimed " +
+                "WHERE su.id = claimed.id RETURNING su.id), " +
+                SOLD_EVENTS +
+                "SELECT claimed.sku_id, claimed.id, claimed.imei FROM claimed JOIN sold ON sold.id = claimed.id " +
+                "ORDER BY claimed.sku_id, claimed.purchase_date NULLS LAST, claimed.id",
+                ps -> {
+                    ps.setArray(1, array(ps.getConnection(), "bigint", skuIds.toArray()));
+                    ps.setArray(2, array(ps.getConnection(), "integer", counts.toArray()));
+                    ps.setString(3, refType);
+                    ps.setObject(4, refId, Types.BIGINT);
+                },
+                rs -> {
+                    allocated.add(new AllocatedSerial(rs.getLong(1), rs.getLong(2), rs.getString(3)));
+                });
+        return allocated;
+    }
+
+    public record AllocatedSerial(long skuId, long serialUnitId, String imei) {
+    }
+
+    /**
+     * Index of the order events the relay has not published yet, as small as the backlog.
+     */
+    public void createUnrelayedOrderEventIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_order_event_unrelayed " +
+                "ON order_event (id) WHERE relay_seq IS NULL");
+    }
+
+    /**
+     * Copy the order's customer onto up to {@code limit} payments that predate payment.customer_id.
+     * Returns the number of payments updated, zero once none is left.
+     */
+    public int backfillPaymentCustomers(int limit) {
+        return jdbcTemplate.update(
+                "UPDATE payment p SET customer_id = so.customer_id FROM sales_order so " +
+                "WHERE so.id = p.order_id AND p.id IN (SELECT id FROM payment WHERE customer_id IS NULL LIMIT ?)",
+                limit);
+    }
+
+    /**
+     * Index of the units that can still be sold, in the order allocation takes them.
+     */
+    public void createSerialInStockIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_serial_unit_sku_in_stock " +
+                "ON serial_unit (sku_id, purchase_date, id) WHERE status = 'IN_STOCK'");
+    }
+
+    /**
+     * Add per-SKU quantity and revenue deltas to one day's counters in a single upsert. Rows are
+     * touched in the order given, so callers pass SKUs ascending.
+     */
+    public int upsertDailySkuSales(LocalDate salesDate, List<Long> skuIds, List<Long> quantities, List<BigDecimal> revenues) {
+        if (skuIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(
+                "INSERT INTO daily_sku_sales (sales_date, sku_id, quantity, revenue, updated_at) " +
+                "SELECT ?, v.sku_id, v.qty, v.revenue, NOW() " +
+                "FROM unnest(?::bigint[], ?::bigint[], ?::numeric[]) AS v(sku_id, qty, revenue) " +
+                "ON CONFLICT (sales_date, sku_id) DO UPDATE SET " +
+                "quantity = daily_sku_sales.quantity + EXCLUDED.quantity, " +
+                "revenue = daily_sku_sales.revenue + EXCLUDED.revenue, updated_at = NOW()",
+                ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setObject(1, salesDate);
+                    ps.setArray(2, array(connection, "bigint", skuIds.toArray()));
+                    ps.setArray(3, array(connection, "bigint", quantities.toArray()));
+                    ps.setArray(4, array(connection, "numeric", revenues.toArray()));
+                });
+    }
+
+    /**
+     * Stream the daily SKU counters of a date range to the handler without materializing them.
+     * Rows arrive as (sku_id, quantity, revenue in cents).
+     */
+    public void forEachDailySkuSales(LocalDate startDate, LocalDate endDate, SkuSalesHandler handler) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            "SELECT sku_id, quantity, (revenue * 100)::bigint FROM daily_sku_sales " +
+                            "WHERE sales_date BETWEEN ? AND ?");
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    ps.setObject(1, startDate);
+                    ps.setObject(2, endDate);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+    }
+
+    @FunctionalInterface
+    public interface SkuSalesHandler {
+        void accept(long skuId, long quantity, long revenueCents);
+    }
+
+    /**
+     * Stream every line of currently PAID orders with the attributes the sales cube slices by.
+     */
+    public void forEachPaidOrderLine(PaidLineHandler handler) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            "SELECT soi.sku_id, s.code, m.brand_id, b.name, m.category, so.user_id, u.full_name, " +
+                            "c.tier, so.order_date, soi.quantity, (soi.line_total * 100)::bigint " +
+                            "FROM sales_order so " +
+                            "JOIN sales_order_item soi ON soi.order_id = so.id " +
+                            "JOIN sku s ON s.id = soi.sku_id " +
+                            "JOIN product_model m ON m.id = s.model_id " +
+                            "JOIN brand b ON b.id = m.brand_id " +
+                            "JOIN customer c ON c.id = so.customer_id " +
+                            "JOIN users u ON u.id = so.user_id " +
+                            "WHERE so.status = 'PAID'");
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4),
+                        rs.getString(5), rs.getLong(6), rs.getString(7), rs.getString(8),
+                        rs.getObject(9, LocalDate.class), rs.getLong(10), rs.getLong(11)));
+    }
+
+    @FunctionalInterface
+    public interface PaidLineHandler {
+        void accept(long skuId, String skuCode, long brandId, String brandName, String category, long userId,
+                    String userName, String customerTier, LocalDate orderDate, long quantity, long revenueCents);
+    }
+
+    private static Array array(Connection connection, String type, Object[] values) throws SQLException {
+        return connection.createArrayOf(type, values);
+    }
+}
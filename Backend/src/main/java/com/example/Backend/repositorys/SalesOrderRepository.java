@@ -33,6 +33,20 @@ public interface SalesOrderRepository extends JpaRepository<SalesOrder, Long> {
 
     Page<SalesOrder> findByStatus(OrderStatus status, Pageable pageable);
 
+    // Keyset pagination on (created_at, id); the redundant createdAt bound gives the planner an index range
+    @Query("SELECT so FROM SalesOrder so ORDER BY so.createdAt DESC, so.id DESC")
+    List<SalesOrder> findFirstPageByKeyset(Pageable limit);
+
+    @Query("SELECT so FROM SalesOrder so WHERE so.createdAt <= :createdAt AND " +
+           "(so.createdAt < :createdAt OR so.id < :id) " +
+           "ORDER BY so.createdAt DESC, so.id DESC")
+    List<SalesOrder> findPageAfterKeyset(@Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable limit);
+
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('sales_order' AS regclass)", nativeQuery = true)
+    long estimateRowCount();
+
     @Query("SELECT so FROM SalesOrder so WHERE so.orderDate BETWEEN :startDate AND :endDate")
     List<SalesOrder> findByOrderDateBetween(@Param("startDate") LocalDate startDate,
                                            @Param("endDate") LocalDate endDate);
@@ -68,9 +82,9 @@ public interface SalesOrderRepository extends JpaRepository<SalesOrder, Long> {
     @Query("SELECT so.status, COUNT(so) FROM SalesOrder so GROUP BY so.status")
     List<Object[]> getOrderCountByStatus();
 
-    @Query("SELECT DATE(so.orderDate), COUNT(so), SUM(so.total) FROM SalesOrder so " +
+    @Query("SELECT so.orderDate, COUNT(so), SUM(so.total) FROM SalesOrder so " +
            "WHERE so.status = 'PAID' AND so.orderDate BETWEEN :startDate AND :endDate " +
-           "GROUP BY DATE(so.orderDate) ORDER BY DATE(so.orderDate)")
+           "GROUP BY so.orderDate ORDER BY so.orderDate")
     List<Object[]> getDailySalesReport(@Param("startDate") LocalDate startDate,
                                       @Param("endDate") LocalDate endDate);
 
@@ -80,6 +94,12 @@ public interface SalesOrderRepository extends JpaRepository<SalesOrder, Long> {
     List<Object[]> getSalesPerformanceByUser(@Param("startDate") LocalDate startDate,
                                             @Param("endDate") LocalDate endDate);
 
+    @Query("SELECT u.id, u.fullName, COUNT(so), SUM(so.total) FROM SalesOrder so JOIN so.user u " +
+           "WHERE so.status = 'PAID' AND so.orderDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY u.id, u.fullName")
+    List<Object[]> getSalesPerformanceByUserId(@Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate);
+
     // Customer statistics methods
     @Query("SELECT COUNT(so) FROM SalesOrder so WHERE so.customer.id = :customerId AND so.status IN ('PAID', 'DELIVERED')")
     Long countCompletedOrdersByCustomer(@Param("customerId") Long customerId);
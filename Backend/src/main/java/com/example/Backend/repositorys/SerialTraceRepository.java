@@ -0,0 +1,59 @@
+package com.example.Backend.repositorys;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Assembles the life of one serial unit from every table that refers to it. Each branch of the
+ * query is an index lookup on serial_unit_id, so a trace costs one round trip however long the
+ * unit's history is.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SerialTraceRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Timeline rows of the unit with the given IMEI, oldest first. The UNIT row carries the unit
+     * itself (status, SKU id and code); it is missing only when the IMEI is unknown.
+     */
+    public List<TraceRow> findTimelineByImei(String imei) {
+        return jdbcTemplate.query(
+                "WITH su AS (SELECT id, sku_id, status, created_at FROM serial_unit WHERE imei = ?) " +
+                "SELECT su.id AS unit_id, 'UNIT' AS kind, su.created_at AS at, su.status, 'sku' AS ref_type, su.sku_id AS ref_id, " +
+                "s.code AS detail FROM su JOIN sku s ON s.id = su.sku_id " +
+                "UNION ALL " +
+                "SELECT su.id, 'STATUS', e.created_at, e.to_status, e.ref_type, e.ref_id, e.notes " +
+                "FROM su JOIN serial_unit_event e ON e.serial_unit_id = su.id " +
+                "UNION ALL " +
+                "SELECT su.id, 'SALE', so.created_at, so.status, 'sales_order', so.id, c.full_name " +
+                "FROM su JOIN sales_order_item soi ON soi.serial_unit_id = su.id " +
+                "JOIN sales_order so ON so.id = soi.order_id JOIN customer c ON c.id = so.customer_id " +
+                "UNION ALL " +
+                "SELECT su.id, 'WARRANTY', w.created_at, w.status, 'warranty', w.id, " +
+                "w.warranty_code || ' ' || w.start_date || '..' || w.end_date " +
+                "FROM su JOIN warranty w ON w.serial_unit_id = su.id " +
+                "UNION ALL " +
+                "SELECT su.id, 'REPAIR', r.received_at, r.status, 'repair_ticket', r.id, r.ticket_number || ': ' || r.issue_desc " +
+                "FROM su JOIN repair_ticket r ON r.serial_unit_id = su.id " +
+                "ORDER BY at, kind",
+                (rs, rowNum) -> {
+                    Timestamp at = rs.getTimestamp("at");
+                    long refId = rs.getLong("ref_id");
+                    Long ref = rs.wasNull() ? null : refId;
+                    return new TraceRow(rs.getLong("unit_id"), rs.getString("kind"), at != null ? at.toLocalDateTime() : null,
+                            rs.getString("status"), rs.getString("ref_type"), ref, rs.getString("detail"));
+                },
+                imei);
+    }
+
+    public record TraceRow(long unitId, String kind, LocalDateTime at, String status, String refType, Long refId, String detail) {
+    }
+}
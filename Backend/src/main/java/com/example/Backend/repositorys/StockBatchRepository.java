@@ -0,0 +1,489 @@
+package com.example.Backend.repositorys;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.StockMovement;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Set-based statements on stock_item that Spring Data cannot express as one round trip.
+ * Every batch is keyed by SKU id in a SortedMap so that rows are always touched in the
+ * same (ascending sku_id) order, which is what keeps concurrent multi-SKU orders from deadlocking.
+ * <p>
+ * Quantities live per location in location_stock, and stock_item holds their per-SKU totals.
+ * Each location-scoped write changes the location rows and the totals in one statement. Callers
+ * lock the stock_item rows first ({@link #lockBySkuIds}), so that writers at different
+ * locations of the same SKU, transfers included, queue on one row instead of deadlocking.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockBatchRepository {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Row-lock the stock items of the given SKUs in ascending sku_id order.
+     */
+    public List<Long> lockBySkuIds(Collection<Long> skuIds) {
+        Long[] ids = skuIds.stream().sorted().distinct().toArray(Long[]::new);
+        return jdbcTemplate.query(
+                "SELECT sku_id FROM stock_item WHERE sku_id = ANY(?) ORDER BY sku_id FOR UPDATE",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)),
+                (rs, rowNum) -> rs.getLong(1));
+    }
+
+    /**
+     * SKUs whose available quantity at the location (plus what the caller already holds there)
+     * cannot cover the demand.
+     */
+    public List<Long> findShortages(long locationId, SortedMap<Long, Integer> demand, Map<Long, Integer> held) {
+        Long[] skuIds = demand.keySet().toArray(Long[]::new);
+        Integer[] quantities = demand.values().toArray(Integer[]::new);
+        Integer[] heldQuantities = demand.keySet().stream()
+                .map(skuId -> held.getOrDefault(skuId, 0))
+                .toArray(Integer[]::new);
+        return jdbcTemplate.query(
+                "SELECT v.sku_id FROM unnest(?::bigint[], ?::int[], ?::int[]) AS v(sku_id, qty, held) " +
+                "LEFT JOIN location_stock ls ON ls.sku_id = v.sku_id AND ls.location_id = ? " +
+                "WHERE ls.id IS NULL OR ls.quantity - ls.reserved_qty + v.held < v.qty " +
+                "ORDER BY v.sku_id",
+                ps -> {
+                    ps.setArray(1, bigintArray(ps.getConnection(), skuIds));
+                    ps.setArray(2, intArray(ps.getConnection(), quantities));
+                    ps.setArray(3, intArray(ps.getConnection(), heldQuantities));
+                    ps.setLong(4, locationId);
+                },
+                (rs, rowNum) -> rs.getLong(1));
+    }
+
+    /**
+     * Add the demanded quantities to reserved_qty at the location in one statement. Returns the
+     * number of SKUs reserved.
+     */
+    public int reserve(long locationId, SortedMap<Long, Integer> demand) {
+        return updateWithQuantities(
+                "WITH moved AS (UPDATE location_stock ls SET reserved_qty = ls.reserved_qty + v.qty, updated_at = NOW() " +
+                "FROM unnest(?::bigint[], ?::int[]) AS v(sku_id, qty) " +
+                "WHERE ls.location_id = ? AND ls.sku_id = v.sku_id AND ls.quantity - ls.reserved_qty >= v.qty " +
+                "RETURNING ls.sku_id, v.qty) " +
+                "UPDATE stock_item si SET reserved_qty = si.reserved_qty + moved.qty, updated_at = NOW() " +
+                "FROM moved WHERE si.sku_id = moved.sku_id",
+                locationId, demand);
+    }
+
+    /**
+     * Give reserved quantities back at the location. Never drives reserved_qty below zero.
+     */
+    public int release(long locationId, SortedMap<Long, Integer> held) {
+        return updateWithQuantities(
+                "WITH moved AS (UPDATE location_stock ls SET reserved_qty = GREATEST(ls.reserved_qty - v.qty, 0), updated_at = NOW() " +
+                "FROM unnest(?::bigint[], ?::int[]) AS v(sku_id, qty) " +
+                "WHERE ls.location_id = ? AND ls.sku_id = v.sku_id " +
+                "RETURNING ls.sku_id, v.qty) " +
+                "UPDATE stock_item si SET reserved_qty = GREATEST(si.reserved_qty - moved.qty, 0), updated_at = NOW() " +
+                "FROM moved WHERE si.sku_id = moved.sku_id",
+                locationId, held);
+    }
+
+    /**
+     * Turn held quantities into real stock decreases at the location: quantity drops by the demand
+     * and reserved_qty by what was held for it. Returns the number of SKUs decreased.
+     */
+    public int consume(long locationId, SortedMap<Long, Integer> demand, Map<Long, Integer> held) {
+        Long[] skuIds = demand.keySet().toArray(Long[]::new);
+        Integer[] quantities = demand.values().toArray(Integer[]::new);
+        Integer[] heldQuantities = demand.keySet().stream()
+                .map(skuId -> held.getOrDefault(skuId, 0))
+                .toArray(Integer[]::new);
+        return jdbcTemplate.update(
+                "WITH moved AS (UPDATE location_stock ls SET quantity = ls.quantity - v.qty, " +
+                "reserved_qty = GREATEST(ls.reserved_qty - v.held, 0), updated_at = NOW() " +
+                "FROM unnest(?::bigint[], ?::int[], ?::int[]) AS v(sku_id, qty, held) " +
+                "WHERE ls.location_id = ? AND ls.sku_id = v.sku_id AND ls.quantity - ls.reserved_qty + v.held >= v.qty " +
+                "RETURNING ls.sku_id, v.qty, v.held) " +
+                "UPDATE stock_item si SET quantity = si.quantity - moved.qty, " +
+                "reserved_qty = GREATEST(si.reserved_qty - moved.held, 0), updated_at = NOW() " +
+                "FROM moved WHERE si.sku_id = moved.sku_id",
+                ps -> {
+                    ps.setArray(1, bigintArray(ps.getConnection(), skuIds));
+                    ps.setArray(2, intArray(ps.getConnection(), quantities));
+                    ps.setArray(3, intArray(ps.getConnection(), heldQuantities));
+                    ps.setLong(4, locationId);
+                });
+    }
+
+    /**
+     * Move quantities from one location to another in one statement: each SKU is debited at the
+     * source only if enough is free there, and credited at the destination, creating its row. The
+     * per-SKU totals do not change. Returns the number of SKUs moved.
+     */
+    public int transfer(long fromLocationId, long toLocationId, SortedMap<Long, Integer> quantities) {
+        Long[] skuIds = quantities.keySet().toArray(Long[]::new);
+        Integer[] moved = quantities.values().toArray(Integer[]::new);
+        return jdbcTemplate.update(
+                "WITH debited AS (UPDATE location_stock ls SET quantity = ls.quantity - v.qty, updated_at = NOW() " +
+                "FROM unnest(?::bigint[], ?::int[]) AS v(sku_id, qty) " +
+                "WHERE ls.location_id = ? AND ls.sku_id = v.sku_id AND ls.quantity - ls.reserved_qty >= v.qty " +
+                "RETURNING ls.sku_id, v.qty) " +
+                "INSERT INTO location_stock AS ls (location_id, sku_id, quantity, reserved_qty, updated_at) " +
+                "SELECT ?, d.sku_id, d.qty, 0, NOW() FROM debited d ORDER BY d.sku_id " +
+                "ON CONFLICT (location_id, sku_id) DO UPDATE SET quantity = ls.quantity + EXCLUDED.quantity, updated_at = NOW()",
+                ps -> {
+                    ps.setArray(1, bigintArray(ps.getConnection(), skuIds));
+                    ps.setArray(2, intArray(ps.getConnection(), moved));
+                    ps.setLong(3, fromLocationId);
+                    ps.setLong(4, toLocationId);
+                });
+    }
+
+    /**
+     * Set the quantity of one SKU at the location if it is still the one read, moving the SKU
+     * total by the difference. Returns 0 when another write got in between.
+     */
+    public int compareAndSetQuantity(long locationId, long skuId, int expectedQuantity, int newQuantity) {
+        return jdbcTemplate.update(
+                "WITH moved AS (UPDATE location_stock SET quantity = ?, updated_at = NOW() " +
+                "WHERE location_id = ? AND sku_id = ? AND quantity = ? AND reserved_qty <= ? RETURNING sku_id) " +
+                "UPDATE stock_item si SET quantity = si.quantity + ?, updated_at = NOW() " +
+                "FROM moved WHERE si.sku_id = moved.sku_id",
+                newQuantity, locationId, skuId, expectedQuantity, newQuantity, newQuantity - expectedQuantity);
+    }
+
+    /**
+     * Take received quantities into stock at the location in one statement, creating missing
+     * location and stock rows. Each unit cost (null to leave the average alone) is folded into the
+     * SKU's moving weighted-average cost, (avg * on hand + cost * received) / (on hand + received)
+     * at 4 decimals; a receipt onto an empty shelf starts the average afresh.
+     */
+    public int receive(long locationId, SortedMap<Long, Integer> quantities, Map<Long, BigDecimal> unitCosts) {
+        Long[] skuIds = quantities.keySet().toArray(Long[]::new);
+        Integer[] received = quantities.values().toArray(Integer[]::new);
+        BigDecimal[] costs = quantities.keySet().stream().map(unitCosts::get).toArray(BigDecimal[]::new);
+        return jdbcTemplate.update(
+                "WITH v AS (SELECT * FROM unnest(?::bigint[], ?::int[], ?::numeric[]) AS v(sku_id, qty, cost)), " +
+                "located AS (INSERT INTO location_stock AS ls (location_id, sku_id, quantity, reserved_qty, updated_at) " +
+                "SELECT ?, v.sku_id, v.qty, 0, NOW() FROM v ORDER BY v.sku_id " +
+                "ON CONFLICT (location_id, sku_id) DO UPDATE SET quantity = ls.quantity + EXCLUDED.quantity, updated_at = NOW() " +
+                "RETURNING ls.sku_id) " +
+                "INSERT INTO stock_item AS si (sku_id, quantity, reserved_qty, min_stock, avg_cost, updated_at) " +
+                "SELECT v.sku_id, v.qty, 0, 0, ROUND(v.cost, 4), NOW() " +
+                "FROM v JOIN located ON located.sku_id = v.sku_id ORDER BY v.sku_id " +
+                "ON CONFLICT (sku_id) DO UPDATE SET " +
+                "avg_cost = CASE WHEN EXCLUDED.avg_cost IS NULL THEN si.avg_cost " +
+                "WHEN si.avg_cost IS NULL OR si.quantity <= 0 THEN EXCLUDED.avg_cost " +
+                "ELSE ROUND((si.avg_cost * si.quantity + EXCLUDED.avg_cost * EXCLUDED.quantity) " +
+                "/ (si.quantity + EXCLUDED.quantity), 4) END, " +
+                "quantity = si.quantity + EXCLUDED.quantity, updated_at = NOW()",
+                ps -> {
+                    ps.setArray(1, bigintArray(ps.getConnection(), skuIds));
+                    ps.setArray(2, intArray(ps.getConnection(), received));
+                    ps.setArray(3, ps.getConnection().createArrayOf("numeric", costs));
+                    ps.setLong(4, locationId);
+                });
+    }
+
+    /**
+     * Cost price of each given SKU that exists; the value is null when the SKU has no cost price.
+     */
+    public Map<Long, BigDecimal> findSkuCostPrices(Collection<Long> skuIds) {
+        Long[] ids = skuIds.stream().distinct().toArray(Long[]::new);
+        Map<Long, BigDecimal> costPrices = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, cost_price FROM sku WHERE id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)),
+                (RowCallbackHandler) rs -> costPrices.put(rs.getLong(1), rs.getBigDecimal(2)));
+        return costPrices;
+    }
+
+    /**
+     * Which of the given IMEIs are already registered.
+     */
+    public Set<String> findExistingImeis(Collection<String> imeis) {
+        String[] values = imeis.toArray(String[]::new);
+        return new HashSet<>(jdbcTemplate.query(
+                "SELECT imei FROM serial_unit WHERE imei = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", values)),
+                (rs, rowNum) -> rs.getString(1)));
+    }
+
+    /**
+     * Stream every registered IMEI to the consumer without materializing them. Needs a transaction
+     * for the fetch size to take effect.
+     */
+    public void forEachImei(Consumer<String> consumer) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("SELECT imei FROM serial_unit");
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)));
+    }
+
+    public long countSerialUnits() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM serial_unit", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Register in-stock serial units with one multi-row INSERT, which also starts each unit's
+     * history. The lists are parallel; returns the new id per IMEI. IMEIs already registered are
+     * skipped rather than failing the statement, so they are the ones missing from the result.
+     */
+    public Map<String, Long> insertSerialUnits(List<Long> skuIds, List<String> imeis, LocalDate purchaseDate, String notes,
+                                               String refType, Long refId) {
+        Long[] skus = skuIds.toArray(Long[]::new);
+        String[] values = imeis.toArray(String[]::new);
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(
+                "WITH received AS (" +
+                "INSERT INTO serial_unit (sku_id, imei, status, purchase_date, notes, created_at, updated_at) " +
+                "SELECT v.sku_id, v.imei, 'IN_STOCK', ?, ?, NOW(), NOW() " +
+                "FROM unnest(?::bigint[], ?::text[]) AS v(sku_id, imei) " +
+                "ON CONFLICT (imei) DO NOTHING " +
+                "RETURNING id, imei), " +
+                "events AS (INSERT INTO serial_unit_event (serial_unit_id, to_status, ref_type, ref_id, created_at) " +
+                "SELECT id, 'IN_STOCK', ?, ?, NOW() FROM received) " +
+                "SELECT id, imei FROM received",
+                ps -> {
+                    ps.setObject(1, purchaseDate);
+                    ps.setString(2, notes);
+                    ps.setArray(3, bigintArray(ps.getConnection(), skus));
+                    ps.setArray(4, ps.getConnection().createArrayOf("text", values));
+                    ps.setString(5, refType);
+                    ps.setObject(6, refId, Types.BIGINT);
+                },
+                (RowCallbackHandler) rs -> ids.put(rs.getString(2), rs.getLong(1)));
+        return ids;
+    }
+
+    /**
+     * Write ledger rows with one multi-row INSERT. Ids and timestamps are assigned by the caller.
+     */
+    public int insertMovements(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return 0;
+        }
+        int size = movements.size();
+        Long[] ids = new Long[size];
+        Long[] skuIds = new Long[size];
+        Long[] serialUnitIds = new Long[size];
+        Long[] locationIds = new Long[size];
+        String[] movementTypes = new String[size];
+        Integer[] quantities = new Integer[size];
+        BigDecimal[] unitCosts = new BigDecimal[size];
+        String[] reasons = new String[size];
+        String[] refTypes = new String[size];
+        Long[] refIds = new Long[size];
+        String[] notes = new String[size];
+        Long[] createdBy = new Long[size];
+        Timestamp[] createdAt = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            StockMovement movement = movements.get(i);
+            ids[i] = movement.getId();
+            skuIds[i] = movement.getSku().getId();
+            serialUnitIds[i] = movement.getSerialUnit() != null ? movement.getSerialUnit().getId() : null;
+            locationIds[i] = movement.getLocation() != null ? movement.getLocation().getId() : null;
+            movementTypes[i] = movement.getMovementType().name();
+            quantities[i] = movement.getQuantity();
+            unitCosts[i] = movement.getUnitCost();
+            reasons[i] = movement.getReason().name();
+            refTypes[i] = movement.getRefType();
+            refIds[i] = movement.getRefId();
+            notes[i] = movement.getNotes();
+            createdBy[i] = movement.getCreatedBy() != null ? movement.getCreatedBy().getId() : null;
+            createdAt[i] = Timestamp.valueOf(movement.getCreatedAt());
+        }
+        return jdbcTemplate.update(
+                "INSERT INTO stock_movement (id, sku_id, serial_unit_id, location_id, movement_type, quantity, unit_cost, reason, " +
+                "ref_type, ref_id, notes, created_by, created_at) " +
+                "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::bigint[], ?::text[], ?::int[], ?::numeric[], " +
+                "?::text[], ?::text[], ?::bigint[], ?::text[], ?::bigint[], ?::timestamp[])",
+                ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setArray(1, bigintArray(connection, ids));
+                    ps.setArray(2, bigintArray(connection, skuIds));
+                    ps.setArray(3, bigintArray(connection, serialUnitIds));
+                    ps.setArray(4, bigintArray(connection, locationIds));
+                    ps.setArray(5, connection.createArrayOf("text", movementTypes));
+                    ps.setArray(6, intArray(connection, quantities));
+                    ps.setArray(7, connection.createArrayOf("numeric", unitCosts));
+                    ps.setArray(8, connection.createArrayOf("text", reasons));
+                    ps.setArray(9, connection.createArrayOf("text", refTypes));
+                    ps.setArray(10, bigintArray(connection, refIds));
+                    ps.setArray(11, connection.createArrayOf("text", notes));
+                    ps.setArray(12, bigintArray(connection, createdBy));
+                    ps.setArray(13, connection.createArrayOf("timestamp", createdAt));
+                });
+    }
+
+    /**
+     * Draw values from the stock_movement id sequence, one per block of ids.
+     */
+    public List<Long> nextMovementIdBlocks(int blocks) {
+        return jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('stock_movement', 'id')) FROM generate_series(1, ?)",
+                Long.class, blocks);
+    }
+
+    /**
+     * Make each value of the stock_movement id sequence stand for a block of ids, and return the
+     * block size now in effect. Column-default inserts still work; each just uses the first id of a block.
+     */
+    public int useMovementIdBlocks(int blockSize) {
+        String sequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('stock_movement', 'id')", String.class);
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + blockSize);
+        return jdbcTemplate.queryForObject("SELECT seqincrement FROM pg_sequence WHERE seqrelid = ?::regclass",
+                Integer.class, sequence);
+    }
+
+    /**
+     * Block range index on the ledger's insert time. Rows arrive roughly in created_at order, so it
+     * stays a few pages in size where a B-tree grows with every row.
+     */
+    public void createMovementCreatedAtBrinIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_stock_movement_created_at_brin " +
+                "ON stock_movement USING BRIN (created_at)");
+    }
+
+    /**
+     * Give every SKU that has stock but no location row yet a row at the location holding its
+     * whole quantity and reservations, i.e. place stock from before locations there.
+     */
+    public int seedLocation(long locationId) {
+        return jdbcTemplate.update(
+                "INSERT INTO location_stock (location_id, sku_id, quantity, reserved_qty, updated_at) " +
+                "SELECT ?, si.sku_id, si.quantity, si.reserved_qty, NOW() FROM stock_item si " +
+                "WHERE NOT EXISTS (SELECT 1 FROM location_stock ls WHERE ls.sku_id = si.sku_id) " +
+                "ON CONFLICT (location_id, sku_id) DO NOTHING",
+                locationId);
+    }
+
+    /**
+     * Index of the rows that have something free, so "which locations have it" reads only those.
+     */
+    public void createLocationStockAvailableIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_location_stock_sku_available " +
+                "ON location_stock (sku_id) WHERE quantity > reserved_qty");
+    }
+
+    /**
+     * Quantity and reserved_qty of the given SKUs at the location, as {quantity, reserved} per SKU
+     * with a row there.
+     */
+    public Map<Long, int[]> findLocationLevels(long locationId, Collection<Long> skuIds) {
+        Long[] ids = skuIds.stream().distinct().toArray(Long[]::new);
+        Map<Long, int[]> levels = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT sku_id, quantity, reserved_qty FROM location_stock WHERE location_id = ? AND sku_id = ANY(?)",
+                ps -> {
+                    ps.setLong(1, locationId);
+                    ps.setArray(2, bigintArray(ps.getConnection(), ids));
+                },
+                (RowCallbackHandler) rs -> levels.put(rs.getLong(1), new int[]{rs.getInt(2), rs.getInt(3)}));
+        return levels;
+    }
+
+    /**
+     * Quantity and reserved_qty of the given SKUs at every location holding them, as
+     * {quantity, reserved} per location per SKU.
+     */
+    public Map<Long, Map<Long, int[]>> findLocationLevelsBySkuIds(Collection<Long> skuIds) {
+        Long[] ids = skuIds.stream().distinct().toArray(Long[]::new);
+        Map<Long, Map<Long, int[]>> levels = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT sku_id, location_id, quantity, reserved_qty FROM location_stock WHERE sku_id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)),
+                (RowCallbackHandler) rs -> levels.computeIfAbsent(rs.getLong(1), id -> new HashMap<>())
+                        .put(rs.getLong(2), new int[]{rs.getInt(3), rs.getInt(4)}));
+        return levels;
+    }
+
+    /**
+     * Stream quantity and reserved_qty of every location_stock row.
+     */
+    public void forEachLocationLevel(LocationLevelHandler handler) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            "SELECT sku_id, location_id, quantity, reserved_qty FROM location_stock");
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4)));
+    }
+
+    /**
+     * Quantity, reserved_qty and min_stock of the given SKUs, as {quantity, reserved, minStock} per
+     * SKU with a stock row.
+     */
+    public Map<Long, int[]> findLevels(Collection<Long> skuIds) {
+        Long[] ids = skuIds.stream().distinct().toArray(Long[]::new);
+        Map<Long, int[]> levels = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT sku_id, quantity, reserved_qty, min_stock FROM stock_item WHERE sku_id = ANY(?)",
+                ps -> ps.setArray(1, bigintArray(ps.getConnection(), ids)),
+                (RowCallbackHandler) rs -> levels.put(rs.getLong(1), new int[]{rs.getInt(2), rs.getInt(3), rs.getInt(4)}));
+        return levels;
+    }
+
+    /**
+     * Stream quantity, reserved_qty and min_stock of every stock row.
+     */
+    public void forEachLevel(StockLevelHandler handler) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("SELECT sku_id, quantity, reserved_qty, min_stock FROM stock_item");
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)));
+    }
+
+    @FunctionalInterface
+    public interface StockLevelHandler {
+        void accept(long skuId, int quantity, int reserved, int minStock);
+    }
+
+    @FunctionalInterface
+    public interface LocationLevelHandler {
+        void accept(long skuId, long locationId, int quantity, int reserved);
+    }
+
+    private int updateWithQuantities(String sql, long locationId, SortedMap<Long, Integer> quantitiesBySku) {
+        Long[] skuIds = quantitiesBySku.keySet().toArray(Long[]::new);
+        Integer[] quantities = quantitiesBySku.values().toArray(Integer[]::new);
+        return jdbcTemplate.update(sql, ps -> {
+            ps.setArray(1, bigintArray(ps.getConnection(), skuIds));
+            ps.setArray(2, intArray(ps.getConnection(), quantities));
+            ps.setLong(3, locationId);
+        });
+    }
+
+    private static Array bigintArray(Connection connection, Long[] values) throws SQLException {
+        return connection.createArrayOf("bigint", values);
+    }
+
+    private static Array intArray(Connection connection, Integer[] values) throws SQLException {
+        return connection.createArrayOf("integer", values);
+    }
+}
@@ -19,6 +19,33 @@ public interface StockItemRepository extends JpaRepository<StockItem, Long> {
 
     Optional<StockItem> findBySku(SKU sku);
 
+    @Modifying
+    @Query(value = "UPDATE stock_item SET min_stock = COALESCE(CAST(:minStock AS integer), min_stock), " +
+                   "max_stock = COALESCE(CAST(:maxStock AS integer), max_stock), updated_at = NOW() " +
+                   "WHERE sku_id = :skuId", nativeQuery = true)
+    int updateLimits(@Param("skuId") Long skuId, @Param("minStock") Integer minStock, @Param("maxStock") Integer maxStock);
+
+    @Modifying
+    @Query(value = "UPDATE stock_item SET min_stock = CAST(:minStock AS integer), max_stock = CAST(:maxStock AS integer), updated_at = NOW() " +
+                   "WHERE sku_id = :skuId", nativeQuery = true)
+    int setLimits(@Param("skuId") Long skuId, @Param("minStock") Integer minStock, @Param("maxStock") Integer maxStock);
+
+    // Valuation: average cost, falling back to the SKU cost price for stock received before costing
+    @Query(value = "SELECT COALESCE(SUM(si.quantity), 0), COALESCE(SUM(si.quantity * COALESCE(si.avg_cost, s.cost_price, 0)), 0) " +
+                   "FROM stock_item si JOIN sku s ON s.id = si.sku_id WHERE si.quantity > 0", nativeQuery = true)
+    List<Object[]> getInventoryValuation();
+
+    @Query(value = "SELECT b.id, b.name, SUM(si.quantity), SUM(si.quantity * COALESCE(si.avg_cost, s.cost_price, 0)) AS value " +
+                   "FROM stock_item si JOIN sku s ON s.id = si.sku_id " +
+                   "JOIN product_model m ON m.id = s.model_id JOIN brand b ON b.id = m.brand_id " +
+                   "WHERE si.quantity > 0 GROUP BY b.id, b.name ORDER BY value DESC", nativeQuery = true)
+    List<Object[]> getInventoryValuationByBrand();
+
+    @Query(value = "SELECT m.category, SUM(si.quantity), SUM(si.quantity * COALESCE(si.avg_cost, s.cost_price, 0)) AS value " +
+                   "FROM stock_item si JOIN sku s ON s.id = si.sku_id JOIN product_model m ON m.id = s.model_id " +
+                   "WHERE si.quantity > 0 GROUP BY m.category ORDER BY value DESC", nativeQuery = true)
+    List<Object[]> getInventoryValuationByCategory();
+
     @Query("SELECT si FROM StockItem si WHERE si.quantity <= si.minStock")
     List<StockItem> findLowStockItems();
 
@@ -34,22 +61,6 @@ public interface StockItemRepository extends JpaRepository<StockItem, Long> {
     @Query("SELECT si FROM StockItem si WHERE (si.quantity - si.reservedQty) >= :requiredQty")
     List<StockItem> findItemsWithAvailableQuantity(@Param("requiredQty") Integer requiredQty);
 
-    @Modifying
-    @Query("UPDATE StockItem si SET si.quantity = si.quantity + :quantity WHERE si.sku.id = :skuId")
-    void increaseStock(@Param("skuId") Long skuId, @Param("quantity") Integer quantity);
-
-    @Modifying
-    @Query("UPDATE StockItem si SET si.quantity = si.quantity - :quantity WHERE si.sku.id = :skuId AND si.quantity >= :quantity")
-    int decreaseStock(@Param("skuId") Long skuId, @Param("quantity") Integer quantity);
-
-    @Modifying
-    @Query("UPDATE StockItem si SET si.reservedQty = si.reservedQty + :quantity WHERE si.sku.id = :skuId AND (si.quantity - si.reservedQty) >= :quantity")
-    int reserveStock(@Param("skuId") Long skuId, @Param("quantity") Integer quantity);
-
-    @Modifying
-    @Query("UPDATE StockItem si SET si.reservedQty = si.reservedQty - :quantity WHERE si.sku.id = :skuId AND si.reservedQty >= :quantity")
-    int releaseReservation(@Param("skuId") Long skuId, @Param("quantity") Integer quantity);
-
     @Query("SELECT SUM(si.quantity) FROM StockItem si")
     Long getTotalStockQuantity();
 
@@ -58,4 +69,7 @@ public interface StockItemRepository extends JpaRepository<StockItem, Long> {
 
     @Query("SELECT COUNT(si) FROM StockItem si WHERE si.quantity <= si.minStock")
     long countLowStockItems();
+
+    @Query("SELECT COUNT(si) FROM StockItem si WHERE si.quantity = 0")
+    long countOutOfStockItems();
 }
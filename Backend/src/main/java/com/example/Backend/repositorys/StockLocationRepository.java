@@ -0,0 +1,19 @@
+package com.example.Backend.repositorys;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.StockLocation;
+
+@Repository
+public interface StockLocationRepository extends JpaRepository<StockLocation, Long> {
+
+    Optional<StockLocation> findByCode(String code);
+
+    boolean existsByCode(String code);
+
+    List<StockLocation> findByActiveTrueOrderByName();
+}
@@ -1,5 +1,6 @@
 package com.example.Backend.repositorys;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,19 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
 
     Page<StockMovement> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
+    @Query("SELECT sm FROM StockMovement sm ORDER BY sm.createdAt DESC, sm.id DESC")
+    List<StockMovement> findFirstPageByKeyset(Pageable limit);
+
+    @Query("SELECT sm FROM StockMovement sm WHERE sm.createdAt <= :createdAt AND " +
+           "(sm.createdAt < :createdAt OR sm.id < :id) " +
+           "ORDER BY sm.createdAt DESC, sm.id DESC")
+    List<StockMovement> findPageAfterKeyset(@Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable limit);
+
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('stock_movement' AS regclass)", nativeQuery = true)
+    long estimateRowCount();
+
     List<StockMovement> findByMovementType(StockMovement.MovementType movementType);
 
     List<StockMovement> findByReason(StockMovement.MovementReason reason);
@@ -0,0 +1,39 @@
+package com.example.Backend.repositorys;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.StockReservation;
+import com.example.Backend.models.StockReservation.ReservationStatus;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    boolean existsByOrder_Id(Long orderId);
+
+    long countByStatus(ReservationStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.order.id = :orderId AND r.status = 'ACTIVE' ORDER BY r.sku.id")
+    List<StockReservation> lockActiveByOrderId(@Param("orderId") Long orderId);
+
+    @Query(value = "SELECT * FROM stock_reservation WHERE status = 'ACTIVE' AND expires_at < :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<StockReservation> lockExpiredHolds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :status, r.releasedAt = :releasedAt WHERE r.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("status") ReservationStatus status,
+                     @Param("releasedAt") LocalDateTime releasedAt);
+}
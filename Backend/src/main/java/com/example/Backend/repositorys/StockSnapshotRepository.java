@@ -0,0 +1,67 @@
+package com.example.Backend.repositorys;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.StockSnapshot;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    // Claims the day; a second node blocks here until the first commits and then inserts nothing
+    @Modifying
+    @Query(value = "INSERT INTO stock_snapshot_run (snapshot_date, sku_count, taken_at) " +
+                   "VALUES (:snapshotDate, 0, NOW()) ON CONFLICT (snapshot_date) DO NOTHING", nativeQuery = true)
+    int claimRun(@Param("snapshotDate") LocalDate snapshotDate);
+
+    @Modifying
+    @Query(value = "UPDATE stock_snapshot_run SET sku_count = :skuCount WHERE snapshot_date = :snapshotDate", nativeQuery = true)
+    int completeRun(@Param("snapshotDate") LocalDate snapshotDate, @Param("skuCount") int skuCount);
+
+    @Query(value = "SELECT MAX(snapshot_date) FROM stock_snapshot_run", nativeQuery = true)
+    Optional<LocalDate> findLatestSnapshotDate();
+
+    @Query(value = "SELECT MAX(snapshot_date) FROM stock_snapshot_run WHERE snapshot_date <= :date", nativeQuery = true)
+    Optional<LocalDate> findLatestSnapshotDateOnOrBefore(@Param("date") LocalDate date);
+
+    /**
+     * One day's snapshot as the previous snapshot plus the movements between the two cutoffs.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_snapshot (snapshot_date, sku_id, quantity) " +
+                   "SELECT :snapshotDate, t.sku_id, SUM(t.qty) FROM (" +
+                   "  SELECT sku_id, quantity AS qty FROM stock_snapshot WHERE snapshot_date = :previousDate " +
+                   "  UNION ALL " +
+                   "  SELECT sku_id, CASE WHEN movement_type = 'IN' THEN quantity ELSE -quantity END " +
+                   "  FROM stock_movement WHERE created_at >= :fromTime AND created_at < :cutoff" +
+                   ") t GROUP BY t.sku_id HAVING SUM(t.qty) <> 0", nativeQuery = true)
+    int insertSnapshot(@Param("snapshotDate") LocalDate snapshotDate,
+                       @Param("previousDate") LocalDate previousDate,
+                       @Param("fromTime") LocalDateTime fromTime,
+                       @Param("cutoff") LocalDateTime cutoff);
+
+    @Query(value = "SELECT sku_id, quantity FROM stock_snapshot " +
+                   "WHERE snapshot_date = :snapshotDate AND sku_id BETWEEN :fromSkuId AND :toSkuId", nativeQuery = true)
+    List<Object[]> findQuantitiesInRange(@Param("snapshotDate") LocalDate snapshotDate,
+                                         @Param("fromSkuId") Long fromSkuId,
+                                         @Param("toSkuId") Long toSkuId);
+
+    @Query(value = "SELECT sku_id, SUM(CASE WHEN movement_type = 'IN' THEN quantity ELSE -quantity END) " +
+                   "FROM stock_movement WHERE created_at >= :fromTime AND created_at < :toTime " +
+                   "AND sku_id BETWEEN :fromSkuId AND :toSkuId GROUP BY sku_id", nativeQuery = true)
+    List<Object[]> sumMovementsInRange(@Param("fromTime") LocalDateTime fromTime,
+                                       @Param("toTime") LocalDateTime toTime,
+                                       @Param("fromSkuId") Long fromSkuId,
+                                       @Param("toSkuId") Long toSkuId);
+
+    @Query(value = "SELECT MIN(id), MAX(id) FROM sku", nativeQuery = true)
+    List<Object[]> findSkuIdBounds();
+}
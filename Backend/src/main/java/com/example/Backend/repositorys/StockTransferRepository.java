@@ -0,0 +1,10 @@
+package com.example.Backend.repositorys;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.Backend.models.StockTransfer;
+
+@Repository
+public interface StockTransferRepository extends JpaRepository<StockTransfer, Long> {
+}
@@ -0,0 +1,293 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.pricing.PriceQuoteResponse;
+import com.example.Backend.dtos.salesorder.CheckoutRequest;
+import com.example.Backend.dtos.salesorder.ReceiptResponse;
+import com.example.Backend.exceptions.OrderException;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.*;
+import com.example.Backend.models.OrderEvent.EventType;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.repositorys.*;
+import com.example.Backend.repositorys.SalesBatchRepository.AllocatedSerial;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Till checkout: create, price, pay and decrease stock for a basket in one transaction. Order
+ * lines, serial updates and ledger rows are each written with a single set-based statement, and
+ * the stock rows are locked last so they are held only until commit.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutService {
+
+    private static final String REF_TYPE = "sales_order";
+
+    private final CustomerRepository customerRepository;
+    private final SKURepository skuRepository;
+    private final SalesOrderRepository salesOrderRepository;
+    private final PaymentRepository paymentRepository;
+    private final SalesBatchRepository salesBatchRepository;
+    private final StockLedgerWriter stockLedgerWriter;
+    private final StockReservationService stockReservationService;
+    private final StockLocationService stockLocationService;
+    private final SerialUnitService serialUnitService;
+    private final PricingEngine pricingEngine;
+    private final OrderEventService orderEventService;
+    private final AuthService authService;
+    private final SalesRollupService salesRollupService;
+    private final CodeAllocator codeAllocator;
+
+    public ReceiptResponse checkout(CheckoutRequest request) {
+        Customer customer = customerRepository.findById(request.getCustomerId())
+                .orElseThrow(() -> new OrderException("Customer not found with id: " + request.getCustomerId()));
+        User cashier = authService.getCurrentUser();
+        StockLocation location = stockLocationService.resolve(request.getLocationId());
+
+        Map<Long, SKU> skus = loadSkus(request.getItems());
+        validateSerials(request.getItems());
+        checkAvailability(location.getId(), request.getItems());
+
+        List<PricingEngine.CartLine> cartLines = request.getItems().stream()
+                .map(item -> {
+                    SKU sku = skus.get(item.getSkuId());
+                    return PricingEngine.CartLine.of(sku, item.getQuantity(), sku.getPrice());
+                })
+                .collect(Collectors.toList());
+        PriceQuoteResponse quote = pricingEngine.price(customer, cartLines, request.getDiscount());
+
+        if (request.getAmountTendered() != null && request.getAmountTendered().compareTo(quote.getTotal()) < 0) {
+            throw new OrderException("Amount tendered " + request.getAmountTendered() + " is less than total " + quote.getTotal());
+        }
+
+        SalesOrder order = salesOrderRepository.save(SalesOrder.builder()
+                .orderNumber(codeAllocator.next(CodeAllocator.CodeType.SALES_ORDER))
+                .customer(customer)
+                .user(cashier)
+                .location(location)
+                .status(OrderStatus.PAID)
+                .paymentMethod(request.getPaymentMethod())
+                .subtotal(quote.getSubtotal())
+                .discount(quote.getOrderDiscount())
+                .taxAmount(quote.getTaxAmount())
+                .total(quote.getTotal())
+                .notes(request.getNotes())
+                .build());
+
+        Map<String, Long> serialIds = assignSerials(order, request.getItems());
+        Map<Long, Deque<AllocatedSerial>> allocated = serialUnitService.allocateForSale(
+                unscannedSerialDemand(request.getItems(), skus), REF_TYPE, order.getId());
+        OrderRows rows = new OrderRows();
+        List<SalesOrderItem> items = new ArrayList<>();
+        List<ReceiptResponse.Line> receiptLines = new ArrayList<>();
+
+        for (int i = 0; i < request.getItems().size(); i++) {
+            CheckoutRequest.Item requested = request.getItems().get(i);
+            PriceQuoteResponse.Line priced = quote.getLines().get(i);
+            SKU sku = skus.get(requested.getSkuId());
+
+            List<String> serialNumbers = requested.getSerialNumbers();
+            List<Long> serialUnitIds = null;
+            if (serialNumbers != null && !serialNumbers.isEmpty()) {
+                serialUnitIds = serialNumbers.stream().map(serialIds::get).collect(Collectors.toList());
+            } else if (allocated.containsKey(sku.getId())) {
+                serialNumbers = new ArrayList<>();
+                serialUnitIds = new ArrayList<>();
+                for (int unit = 0; unit < requested.getQuantity(); unit++) {
+                    AllocatedSerial serial = allocated.get(sku.getId()).poll();
+                    serialNumbers.add(serial.imei());
+                    serialUnitIds.add(serial.serialUnitId());
+                }
+            }
+
+            rows.add(sku.getId(), serialUnitIds, priced);
+            items.add(SalesOrderItem.builder()
+                    .order(order)
+                    .sku(sku)
+                    .quantity(requested.getQuantity())
+                    .unitPrice(priced.getUnitPrice())
+                    .discount(priced.getDiscount())
+                    .lineTotal(priced.getLineTotal())
+                    .build());
+            receiptLines.add(ReceiptResponse.Line.builder()
+                    .skuId(sku.getId())
+                    .productName(sku.getModel().getName())
+                    .variantName(sku.getVariantName())
+                    .quantity(requested.getQuantity())
+                    .unitPrice(priced.getUnitPrice())
+                    .discount(priced.getDiscount())
+                    .taxAmount(priced.getTaxAmount())
+                    .lineTotal(priced.getLineTotal())
+                    .serialNumbers(serialNumbers)
+                    .build());
+        }
+
+        salesBatchRepository.insertOrderItems(order.getId(), rows.skuIds, rows.serialUnitIds, rows.quantities,
+                rows.unitPrices, rows.discounts, rows.lineTotals);
+
+        Payment payment = null;
+        if (quote.getTotal().signum() > 0) {
+            payment = paymentRepository.save(Payment.builder()
+                    .order(order)
+                    .customerId(order.getCustomer().getId())
+                    .amount(quote.getTotal())
+                    .method(request.getPaymentMethod())
+                    .status(Payment.PaymentStatus.COMPLETED)
+                    .paidAt(LocalDateTime.now())
+                    .build());
+        }
+
+        stockLedgerWriter.append(StockMovement.MovementType.OUT, StockMovement.MovementReason.SALE,
+                REF_TYPE, order.getId(), cashier != null ? cashier.getId() : null, location.getId(),
+                rows.skuIds, rows.quantities, rows.serialUnitIds);
+        orderEventService.append(order, EventType.ORDER_PAID, OrderStatus.DRAFT, items);
+        salesRollupService.record(order, null, null);
+        salesRollupService.recordItems(order, null, items);
+
+        // Last, so the hot stock_item rows stay locked only until commit
+        stockReservationService.sell(location.getId(), items);
+
+        log.info("Checked out order {} with {} lines, total {}", order.getId(), items.size(), quote.getTotal());
+
+        return ReceiptResponse.builder()
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .paymentId(payment != null ? payment.getId() : null)
+                .customerId(customer.getId())
+                .customerName(customer.getFullName())
+                .cashierName(cashier != null ? cashier.getFullName() : null)
+                .paymentMethod(request.getPaymentMethod())
+                .paidAt(payment != null ? payment.getPaidAt() : LocalDateTime.now())
+                .lines(receiptLines)
+                .subtotal(quote.getSubtotal())
+                .discount(quote.getOrderDiscount())
+                .taxAmount(quote.getTaxAmount())
+                .total(quote.getTotal())
+                .amountTendered(request.getAmountTendered())
+                .change(request.getAmountTendered() != null ? request.getAmountTendered().subtract(quote.getTotal()) : null)
+                .build();
+    }
+
+    private Map<Long, SKU> loadSkus(List<CheckoutRequest.Item> items) {
+        Set<Long> skuIds = items.stream().map(CheckoutRequest.Item::getSkuId).collect(Collectors.toSet());
+        Map<Long, SKU> skus = skuRepository.findAllWithModelByIdIn(skuIds).stream()
+                .collect(Collectors.toMap(SKU::getId, Function.identity()));
+        for (Long skuId : skuIds) {
+            SKU sku = skus.get(skuId);
+            if (sku == null) {
+                throw new OrderException("SKU not found with id: " + skuId);
+            }
+            if (!Boolean.TRUE.equals(sku.getIsActive())) {
+                throw new OrderException("SKU is not active: " + skuId);
+            }
+        }
+        return skus;
+    }
+
+    // Fail fast at the till's location; the stock UPDATE at the end still decides
+    private void checkAvailability(Long locationId, List<CheckoutRequest.Item> items) {
+        Map<Long, Integer> demand = items.stream()
+                .collect(Collectors.toMap(CheckoutRequest.Item::getSkuId, CheckoutRequest.Item::getQuantity, Integer::sum));
+        List<Long> shortages = stockLocationService.findShortages(locationId, demand);
+        if (!shortages.isEmpty()) {
+            throw new StockException("Insufficient stock for SKU: " + shortages);
+        }
+    }
+
+    private void validateSerials(List<CheckoutRequest.Item> items) {
+        Set<String> seen = new HashSet<>();
+        for (CheckoutRequest.Item item : items) {
+            List<String> serials = item.getSerialNumbers();
+            if (serials == null || serials.isEmpty()) {
+                continue;
+            }
+            if (serials.size() != item.getQuantity()) {
+                throw new OrderException("SKU " + item.getSkuId() + " needs " + item.getQuantity()
+                        + " serial numbers, got " + serials.size());
+            }
+            for (String serial : serials) {
+                if (!seen.add(serial)) {
+                    throw new OrderException("Serial number scanned twice: " + serial);
+                }
+            }
+        }
+    }
+
+    private Map<String, Long> assignSerials(SalesOrder order, List<CheckoutRequest.Item> items) {
+        List<String> imeis = new ArrayList<>();
+        List<Long> skuIds = new ArrayList<>();
+        for (CheckoutRequest.Item item : items) {
+            if (item.getSerialNumbers() != null) {
+                for (String imei : item.getSerialNumbers()) {
+                    imeis.add(imei);
+                    skuIds.add(item.getSkuId());
+                }
+            }
+        }
+        Map<String, Long> sold = salesBatchRepository.markSerialsSold(imeis, skuIds, REF_TYPE, order.getId());
+        if (sold.size() != imeis.size()) {
+            List<String> unavailable = imeis.stream().filter(imei -> !sold.containsKey(imei)).collect(Collectors.toList());
+            throw new StockException("Serial units not available for sale: " + unavailable);
+        }
+        serialUnitService.evictTraces(sold.keySet());
+        return sold;
+    }
+
+    // Serialized lines the cashier did not scan get their units allocated oldest first
+    private SortedMap<Long, Integer> unscannedSerialDemand(List<CheckoutRequest.Item> items, Map<Long, SKU> skus) {
+        return items.stream()
+                .filter(item -> item.getSerialNumbers() == null || item.getSerialNumbers().isEmpty())
+                .filter(item -> Boolean.TRUE.equals(skus.get(item.getSkuId()).getIsSerialized()))
+                .collect(Collectors.toMap(CheckoutRequest.Item::getSkuId, CheckoutRequest.Item::getQuantity,
+                        Integer::sum, TreeMap::new));
+    }
+
+    /**
+     * Column-wise order line rows. A line with serials becomes one row per unit so each row
+     * can reference its serial unit; the line discount is spread over those rows to the cent.
+     */
+    private static class OrderRows {
+        final List<Long> skuIds = new ArrayList<>();
+        final List<Long> serialUnitIds = new ArrayList<>();
+        final List<Integer> quantities = new ArrayList<>();
+        final List<BigDecimal> unitPrices = new ArrayList<>();
+        final List<BigDecimal> discounts = new ArrayList<>();
+        final List<BigDecimal> lineTotals = new ArrayList<>();
+
+        void add(Long skuId, List<Long> serials, PriceQuoteResponse.Line priced) {
+            if (serials == null || serials.isEmpty()) {
+                append(skuId, null, priced.getQuantity(), priced.getUnitPrice(), priced.getDiscount(), priced.getLineTotal());
+                return;
+            }
+            long discountCents = priced.getDiscount().movePointRight(2).longValueExact();
+            long perUnit = discountCents / serials.size();
+            long remainder = discountCents % serials.size();
+            for (int i = 0; i < serials.size(); i++) {
+                BigDecimal discount = BigDecimal.valueOf(perUnit + (i < remainder ? 1 : 0), 2);
+                append(skuId, serials.get(i), 1, priced.getUnitPrice(), discount,
+                        priced.getUnitPrice().subtract(discount));
+            }
+        }
+
+        private void append(Long skuId, Long serialUnitId, int quantity, BigDecimal unitPrice,
+                            BigDecimal discount, BigDecimal lineTotal) {
+            skuIds.add(skuId);
+            serialUnitIds.add(serialUnitId);
+            quantities.add(quantity);
+            unitPrices.add(unitPrice);
+            discounts.add(discount);
+            lineTotals.add(lineTotal);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.Backend.services;
+
+import com.example.Backend.repositorys.CodeSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Hands out unique business codes such as WR20260101000123. Each code type has its own database
+ * sequence whose values stand for blocks of {@code code.allocator.block-size} numbers (hi/lo):
+ * a node reserves a block with one nextval and numbers codes from it in memory, so codes cost no
+ * round trip most of the time and two nodes never get the same number. Numbers left in a block
+ * when a node stops are skipped, so codes are unique and increasing per node but not gapless.
+ */
+@Slf4j
+@Component
+public class CodeAllocator {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    public enum CodeType {
+        WARRANTY("warranty_code_seq", "WR", "warranty"),
+        REPAIR_TICKET("repair_ticket_number_seq", "RPR", "repair_ticket"),
+        SALES_ORDER("sales_order_number_seq", "SO", "sales_order");
+
+        private final String sequence;
+        private final String prefix;
+        private final String table;
+
+        CodeType(String sequence, String prefix, String table) {
+            this.sequence = sequence;
+            this.prefix = prefix;
+            this.table = table;
+        }
+    }
+
+    private final CodeSequenceRepository codeSequenceRepository;
+    private final TransactionTemplate newTransactionTemplate;
+    private final Map<CodeType, Block> blocks = new EnumMap<>(CodeType.class);
+
+    // Only applies when a sequence is created; an existing sequence keeps its increment
+    @Value("${code.allocator.block-size:50}")
+    private int blockSize;
+
+    public CodeAllocator(CodeSequenceRepository codeSequenceRepository, PlatformTransactionManager transactionManager) {
+        this.codeSequenceRepository = codeSequenceRepository;
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (CodeType type : CodeType.values()) {
+            blocks.put(type, new Block());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareSequences() {
+        for (CodeType type : CodeType.values()) {
+            try {
+                Block block = blocks.get(type);
+                synchronized (block) {
+                    prepare(type, block);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not prepare code sequence {}: {}", type.sequence, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The next code of the type: prefix, today's date and a number of at least six digits.
+     */
+    public String next(CodeType type) {
+        long number;
+        Block block = blocks.get(type);
+        synchronized (block) {
+            if (block.next >= block.end) {
+                prepare(type, block);
+                long[] drawn = codeSequenceRepository.nextBlock(type.sequence);
+                block.next = drawn[0];
+                block.end = drawn[0] + drawn[1];
+            }
+            number = block.next++;
+        }
+        return type.prefix + LocalDate.now().format(DATE) + String.format("%06d", number);
+    }
+
+    // In its own transaction, so a caller's rollback cannot undo the sequence it relies on
+    private void prepare(CodeType type, Block block) {
+        if (!block.prepared) {
+            newTransactionTemplate.executeWithoutResult(status ->
+                    codeSequenceRepository.createIfMissing(type.sequence, blockSize, type.table));
+            block.prepared = true;
+        }
+    }
+
+    // Guarded by itself
+    private static final class Block {
+        private boolean prepared;
+        private long next;
+        private long end;
+    }
+}
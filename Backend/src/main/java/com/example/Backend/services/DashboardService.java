@@ -0,0 +1,196 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.report.DashboardStatsDto;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.repositorys.CustomerRepository;
+import com.example.Backend.repositorys.ProductModelRepository;
+import com.example.Backend.repositorys.StockItemRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Dashboard statistics. Every figure is an independent query run concurrently, each on its own
+ * virtual thread; the assembled snapshot is cached for {@code dashboard.cache-ttl-ms}, and
+ * concurrent requests for an expired snapshot share a single computation. At most one computation
+ * runs per node, so the queries never hold more than ten pool connections, and they do not queue
+ * behind report jobs on the bounded report executor.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    private static final LocalDate FIRST_SALES_DATE = LocalDate.of(2000, 1, 1);
+
+    private final CustomerRepository customerRepository;
+    private final ProductModelRepository productModelRepository;
+    private final StockItemRepository stockItemRepository;
+    private final SalesRollupService salesRollupService;
+    private final ExecutorService queries = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("DashboardQuery-", 0).factory());
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<DashboardStatsDto>> inFlight = new AtomicReference<>();
+
+    @Value("${dashboard.cache-ttl-ms:15000}")
+    private long cacheTtlMs;
+
+    @Value("${dashboard.timeout-ms:10000}")
+    private long timeoutMs;
+
+    public DashboardService(CustomerRepository customerRepository,
+                            ProductModelRepository productModelRepository,
+                            StockItemRepository stockItemRepository,
+                            SalesRollupService salesRollupService) {
+        this.customerRepository = customerRepository;
+        this.productModelRepository = productModelRepository;
+        this.stockItemRepository = stockItemRepository;
+        this.salesRollupService = salesRollupService;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queries.shutdownNow();
+    }
+
+    public DashboardStatsDto getStats() {
+        DashboardStatsDto cached = freshSnapshot();
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<DashboardStatsDto> mine = new CompletableFuture<>();
+        CompletableFuture<DashboardStatsDto> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // Another caller may have refreshed the snapshot between the check and the claim
+            DashboardStatsDto stats = freshSnapshot();
+            if (stats == null) {
+                stats = compute();
+                snapshot.set(new Snapshot(stats, System.currentTimeMillis()));
+            }
+            mine.complete(stats);
+            return stats;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private DashboardStatsDto freshSnapshot() {
+        Snapshot current = snapshot.get();
+        return current != null && System.currentTimeMillis() - current.computedAt < cacheTtlMs ? current.stats : null;
+    }
+
+    private DashboardStatsDto compute() {
+        LocalDate today = LocalDate.now();
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate previousMonthStart = monthStart.minusMonths(1);
+        // Compare month-to-date with the same number of days of the previous month
+        LocalDate previousMonthSameDay = previousMonthStart.plusDays(ChronoUnit.DAYS.between(monthStart, today));
+        LocalDate previousMonthEnd = previousMonthSameDay.isBefore(monthStart) ? previousMonthSameDay : monthStart.minusDays(1);
+
+        CompletableFuture<Long> totalCustomers = async(customerRepository::count);
+        CompletableFuture<Long> activeCustomers = async(customerRepository::countActiveCustomers);
+        CompletableFuture<Long> totalProducts = async(productModelRepository::count);
+        CompletableFuture<Long> lowStockProducts = async(stockItemRepository::countLowStockItems);
+        CompletableFuture<Map<OrderStatus, Long>> orderCounts = async(salesRollupService::getOrderCountsByStatus);
+        CompletableFuture<BigDecimal> totalRevenue = async(() -> salesRollupService.getTotalSales(FIRST_SALES_DATE, today));
+        CompletableFuture<BigDecimal> monthlyRevenue = async(() -> salesRollupService.getTotalSales(monthStart, today));
+        CompletableFuture<BigDecimal> previousRevenue = async(() ->
+                salesRollupService.getTotalSales(previousMonthStart, previousMonthEnd));
+        CompletableFuture<Long> newCustomers = async(() -> customerRepository.countCustomersCreatedBetween(
+                monthStart.atStartOfDay(), today.plusDays(1).atStartOfDay()));
+        CompletableFuture<Long> previousNewCustomers = async(() -> customerRepository.countCustomersCreatedBetween(
+                previousMonthStart.atStartOfDay(), previousMonthEnd.plusDays(1).atStartOfDay()));
+
+        try {
+            CompletableFuture.allOf(totalCustomers, activeCustomers, totalProducts, lowStockProducts, orderCounts,
+                    totalRevenue, monthlyRevenue, previousRevenue, newCustomers, previousNewCustomers)
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Dashboard statistics timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing dashboard statistics");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not compute dashboard statistics: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        Map<OrderStatus, Long> counts = orderCounts.join();
+        long completedOrders = counts.getOrDefault(OrderStatus.PAID, 0L);
+        BigDecimal revenue = totalRevenue.join();
+
+        return DashboardStatsDto.builder()
+                .totalCustomers(totalCustomers.join())
+                .activeCustomers(activeCustomers.join())
+                .totalProducts(totalProducts.join())
+                .lowStockProducts(lowStockProducts.join())
+                .totalOrders(counts.values().stream().mapToLong(Long::longValue).sum())
+                .pendingOrders(counts.getOrDefault(OrderStatus.DRAFT, 0L)
+                        + counts.getOrDefault(OrderStatus.PENDING, 0L)
+                        + counts.getOrDefault(OrderStatus.CONFIRMED, 0L))
+                .completedOrders(completedOrders)
+                .cancelledOrders(counts.getOrDefault(OrderStatus.CANCELLED, 0L))
+                .totalRevenue(revenue)
+                .monthlyRevenue(monthlyRevenue.join())
+                .averageOrderValue(completedOrders > 0
+                        ? revenue.divide(BigDecimal.valueOf(completedOrders), 2, RoundingMode.HALF_UP).doubleValue()
+                        : 0.0)
+                .customerGrowthRate(growthRate(BigDecimal.valueOf(newCustomers.join()), BigDecimal.valueOf(previousNewCustomers.join())))
+                .revenueGrowthRate(growthRate(monthlyRevenue.join(), previousRevenue.join()))
+                .build();
+    }
+
+    private DashboardStatsDto await(CompletableFuture<DashboardStatsDto> running) {
+        try {
+            return running.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Dashboard statistics timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for dashboard statistics");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not compute dashboard statistics: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, queries);
+    }
+
+    // Percentage change, null when there is nothing to compare against
+    private static Integer growthRate(BigDecimal current, BigDecimal previous) {
+        if (previous == null || previous.signum() == 0) {
+            return null;
+        }
+        return current.subtract(previous)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(previous, 0, RoundingMode.HALF_UP)
+                .intValue();
+    }
+
+    private static class Snapshot {
+        final DashboardStatsDto stats;
+        final long computedAt;
+
+        Snapshot(DashboardStatsDto stats, long computedAt) {
+            this.stats = stats;
+            this.computedAt = computedAt;
+        }
+    }
+}
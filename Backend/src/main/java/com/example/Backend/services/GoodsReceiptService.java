@@ -0,0 +1,241 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.stock.GoodsReceiptRequest;
+import com.example.Backend.dtos.stock.GoodsReceiptResponse;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SerialUnit;
+import com.example.Backend.models.StockLocation;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.StockBatchRepository;
+import com.example.Backend.repositorys.UserRepository;
+import com.example.Backend.utils.Imei;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Receives a whole supplier shipment into one location in one transaction. SKUs are checked with
+ * one query and IMEIs with at most one (only those the existence filter cannot rule out), stock
+ * rows are incremented by a single upsert, and serial units and ledger rows are written with
+ * multi-row INSERTs. Every line gets its own result; unless the document asks for a partial
+ * receipt, one bad line rejects the whole document and nothing is written.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GoodsReceiptService {
+
+    private final StockBatchRepository stockBatchRepository;
+    private final UserRepository userRepository;
+    private final StockLedgerWriter stockLedgerWriter;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final StockLocationService stockLocationService;
+    private final ImeiIntakeService imeiIntakeService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${stock.receipt.serial-insert-chunk-size:2000}")
+    private int serialInsertChunkSize;
+
+    @Transactional
+    public GoodsReceiptResponse receive(GoodsReceiptRequest request, String username) {
+        StockLocation location = stockLocationService.resolve(request.getLocationId());
+        List<GoodsReceiptRequest.Line> lines = request.getLines();
+        List<List<String>> errors = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            errors.add(new ArrayList<>());
+        }
+
+        Set<Long> skuIds = new HashSet<>();
+        Set<String> imeis = new HashSet<>();
+        Set<String> repeated = new HashSet<>();
+        for (GoodsReceiptRequest.Line line : lines) {
+            skuIds.add(line.getSkuId());
+            for (String imei : imeisOf(line)) {
+                if (!imeis.add(imei)) {
+                    repeated.add(imei);
+                }
+            }
+        }
+        Map<Long, BigDecimal> costPrices = stockBatchRepository.findSkuCostPrices(skuIds);
+        Set<String> registered = imeis.isEmpty() ? Set.of() : imeiIntakeService.findRegistered(imeis);
+
+        for (int i = 0; i < lines.size(); i++) {
+            GoodsReceiptRequest.Line line = lines.get(i);
+            List<String> lineErrors = errors.get(i);
+            List<String> lineImeis = imeisOf(line);
+            if (!costPrices.containsKey(line.getSkuId())) {
+                lineErrors.add("SKU not found: " + line.getSkuId());
+            }
+            if (lineImeis.isEmpty() && line.getQuantity() == null) {
+                lineErrors.add("Quantity or IMEIs are required");
+            }
+            if (!lineImeis.isEmpty() && line.getQuantity() != null && line.getQuantity() != lineImeis.size()) {
+                lineErrors.add("Quantity " + line.getQuantity() + " does not match " + lineImeis.size() + " IMEIs");
+            }
+            for (String imei : lineImeis) {
+                if (!Imei.isValid(imei)) {
+                    lineErrors.add("Invalid IMEI: " + imei);
+                } else if (registered.contains(imei)) {
+                    lineErrors.add("IMEI already exists: " + imei);
+                } else if (repeated.contains(imei)) {
+                    lineErrors.add("IMEI appears more than once in the receipt: " + imei);
+                }
+            }
+        }
+
+        boolean anyRejected = errors.stream().anyMatch(lineErrors -> !lineErrors.isEmpty());
+        boolean apply = !anyRejected || request.isAcceptPartial();
+        List<GoodsReceiptResponse.LineResult> results = new ArrayList<>(lines.size());
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, BigDecimal> receiptCosts = new HashMap<>();
+        Map<Long, Integer> costedQuantities = new HashMap<>();
+        long unitsReceived = 0;
+        int linesReceived = 0;
+
+        for (int i = 0; i < lines.size(); i++) {
+            GoodsReceiptRequest.Line line = lines.get(i);
+            int quantity = line.getQuantity() != null ? line.getQuantity() : imeisOf(line).size();
+            boolean received = apply && errors.get(i).isEmpty();
+            results.add(GoodsReceiptResponse.LineResult.builder()
+                    .index(i)
+                    .skuId(line.getSkuId())
+                    .quantity(quantity)
+                    .received(received)
+                    .errors(errors.get(i))
+                    .build());
+            if (!received) {
+                continue;
+            }
+            BigDecimal unitCost = line.getUnitCost() != null ? line.getUnitCost() : costPrices.get(line.getSkuId());
+            if (unitCost != null) {
+                // Several lines for one SKU fold into one quantity-weighted cost
+                receiptCosts.merge(line.getSkuId(), unitCost.multiply(BigDecimal.valueOf(quantity)), BigDecimal::add);
+                costedQuantities.merge(line.getSkuId(), quantity, Integer::sum);
+            }
+            quantities.merge(line.getSkuId(), quantity, Integer::sum);
+            unitsReceived += quantity;
+            linesReceived++;
+        }
+
+        GoodsReceiptResponse.GoodsReceiptResponseBuilder response = GoodsReceiptResponse.builder()
+                .linesReceived(linesReceived)
+                .linesRejected(lines.size() - linesReceived)
+                .unitsReceived(unitsReceived)
+                .lines(results);
+        if (quantities.isEmpty()) {
+            return response.applied(false).serialsCreated(0).build();
+        }
+
+        // SKUs received without any cost leave their average alone
+        Map<Long, BigDecimal> unitCosts = new HashMap<>();
+        receiptCosts.forEach((skuId, cost) -> unitCosts.put(skuId,
+                cost.divide(BigDecimal.valueOf(costedQuantities.get(skuId)), 4, RoundingMode.HALF_UP)));
+
+        // An IMEI registered since the check (a concurrent receipt, or one the filter has not heard of yet) rolls it all back
+        stockBatchRepository.lockBySkuIds(quantities.keySet());
+        stockBatchRepository.receive(location.getId(), quantities, unitCosts);
+        int serialsCreated = writeSerialsAndLedger(request, location, lines, results, unitCosts, findUser(username));
+        stockAvailabilityCache.onIncreased(location.getId(), quantities);
+        log.info("Goods receipt {} {}: {} units of {} SKUs, {} serials",
+                request.getRefType(), request.getRefId(), unitsReceived, quantities.size(), serialsCreated);
+        return response.applied(true).serialsCreated(serialsCreated).build();
+    }
+
+    private int writeSerialsAndLedger(GoodsReceiptRequest request, StockLocation location, List<GoodsReceiptRequest.Line> lines,
+                                      List<GoodsReceiptResponse.LineResult> results,
+                                      Map<Long, BigDecimal> unitCosts, User user) {
+        LocalDate purchaseDate = request.getPurchaseDate() != null ? request.getPurchaseDate() : LocalDate.now();
+        List<Long> serialSkuIds = new ArrayList<>();
+        List<String> serialImeis = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (results.get(i).isReceived()) {
+                for (String imei : imeisOf(lines.get(i))) {
+                    serialSkuIds.add(lines.get(i).getSkuId());
+                    serialImeis.add(imei);
+                }
+            }
+        }
+        Map<String, Long> serialIds = new HashMap<>();
+        for (int from = 0; from < serialImeis.size(); from += serialInsertChunkSize) {
+            int to = Math.min(from + serialInsertChunkSize, serialImeis.size());
+            serialIds.putAll(stockBatchRepository.insertSerialUnits(
+                    serialSkuIds.subList(from, to), serialImeis.subList(from, to), purchaseDate, request.getNotes(),
+                    request.getRefType(), request.getRefId()));
+        }
+        if (serialIds.size() < serialImeis.size()) {
+            List<String> existing = serialImeis.stream().filter(imei -> !serialIds.containsKey(imei)).toList();
+            throw new StockException("IMEI already exists: " + existing);
+        }
+        imeiIntakeService.register(serialIds.keySet());
+
+        // One ledger row per IMEI, or per line for unserialized stock
+        List<StockMovement> movements = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (!results.get(i).isReceived()) {
+                continue;
+            }
+            GoodsReceiptRequest.Line line = lines.get(i);
+            SKU sku = entityManager.getReference(SKU.class, line.getSkuId());
+            List<String> lineImeis = imeisOf(line);
+            if (lineImeis.isEmpty()) {
+                movements.add(receiptMovement(request, location, sku, null, results.get(i).getQuantity(), unitCosts.get(line.getSkuId()), user));
+            } else {
+                for (String imei : lineImeis) {
+                    SerialUnit serialUnit = entityManager.getReference(SerialUnit.class, serialIds.get(imei));
+                    movements.add(receiptMovement(request, location, sku, serialUnit, 1, unitCosts.get(line.getSkuId()), user));
+                }
+            }
+        }
+        stockLedgerWriter.appendAll(movements);
+        return serialIds.size();
+    }
+
+    private static StockMovement receiptMovement(GoodsReceiptRequest request, StockLocation location, SKU sku,
+                                                 SerialUnit serialUnit, int quantity, BigDecimal unitCost, User user) {
+        return StockMovement.builder()
+                .sku(sku)
+                .serialUnit(serialUnit)
+                .location(location)
+                .movementType(StockMovement.MovementType.IN)
+                .quantity(quantity)
+                .unitCost(unitCost)
+                .reason(StockMovement.MovementReason.PURCHASE)
+                .refType(request.getRefType())
+                .refId(request.getRefId())
+                .notes(request.getNotes())
+                .createdBy(user)
+                .build();
+    }
+
+    private User findUser(String username) {
+        if (username == null) {
+            return null;
+        }
+        return userRepository.findByUsernameOrEmail(username, username).orElse(null);
+    }
+
+    private static List<String> imeisOf(GoodsReceiptRequest.Line line) {
+        if (line.getImeis() == null) {
+            return List.of();
+        }
+        List<String> imeis = new ArrayList<>(line.getImeis().size());
+        for (String imei : line.getImeis()) {
+            String normalized = Imei.normalize(imei);
+            imeis.add(normalized == null ? "" : normalized);
+        }
+        return imeis;
+    }
+}
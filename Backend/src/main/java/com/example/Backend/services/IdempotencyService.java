@@ -0,0 +1,289 @@
+package com.example.Backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Redis-backed store for Idempotency-Key executions. A key is first claimed with an in-flight
+ * marker (short TTL, so a crashed node cannot block it forever) and then replaced by the final
+ * response (longer TTL). Duplicates that arrive while the first execution is running wait for it:
+ * on the same node through a local future, across nodes by polling Redis.
+ * <p>
+ * Each marker carries a token of its own. The node running the request keeps renewing the marker's
+ * TTL, and completing or abandoning only touches the key while it still holds that exact marker,
+ * so an execution whose claim was lost can never overwrite or release the next one's.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final long MIN_POLL_MILLIS = 25;
+    private static final long MAX_POLL_MILLIS = 500;
+
+    // ARGV[1] is the claim's marker; the key is only changed while it still holds that marker
+    private static final DefaultRedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 " +
+            "end return 0",
+            Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CompletableFuture<IdempotencyRecord>> localExecutions = new ConcurrentHashMap<>();
+    // Markers of the claims this node is executing, by Redis key, renewed until released
+    private final Map<String, String> heldMarkers = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.in-flight-ttl-seconds:60}")
+    private long inFlightTtlSeconds;
+
+    @Value("${idempotency.result-ttl-hours:24}")
+    private long resultTtlHours;
+
+    @Value("${idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyService(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Claim the key for execution, or resolve it to a stored response. Blocks for at most
+     * {@code idempotency.wait-timeout-ms} while another execution of the same key is running.
+     */
+    public Claim acquire(String key, String fingerprint) {
+        String redisKey = KEY_PREFIX + key;
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        long pollMillis = MIN_POLL_MILLIS;
+
+        while (true) {
+            String marker = write(IdempotencyRecord.inFlight(fingerprint, UUID.randomUUID().toString()));
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(
+                    redisKey, marker, Duration.ofSeconds(inFlightTtlSeconds));
+            if (Boolean.TRUE.equals(acquired)) {
+                CompletableFuture<IdempotencyRecord> execution = new CompletableFuture<>();
+                localExecutions.put(key, execution);
+                heldMarkers.put(redisKey, marker);
+                return new Claim(ClaimOutcome.ACQUIRED, null, marker, execution);
+            }
+
+            IdempotencyRecord existing = read(stringRedisTemplate.opsForValue().get(redisKey));
+            if (existing == null) {
+                // The first execution was abandoned or its marker expired in between; try to claim again
+                continue;
+            }
+            if (!fingerprint.equals(existing.getFingerprint())) {
+                return Claim.of(ClaimOutcome.MISMATCH, existing);
+            }
+            if (existing.isCompleted()) {
+                return Claim.of(ClaimOutcome.REPLAY, existing);
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return Claim.of(ClaimOutcome.IN_PROGRESS, existing);
+            }
+
+            CompletableFuture<IdempotencyRecord> local = localExecutions.get(key);
+            if (local != null) {
+                IdempotencyRecord result = awaitLocal(local, remaining);
+                if (result != null) {
+                    return Claim.of(ClaimOutcome.REPLAY, result);
+                }
+            } else {
+                sleep(Math.min(pollMillis, remaining));
+                pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Store the final response of a claimed key and wake up local waiters. Nothing is stored if
+     * the claim expired and the key was claimed again meanwhile.
+     */
+    public void complete(String key, Claim claim, IdempotencyRecord result) {
+        String redisKey = KEY_PREFIX + key;
+        heldMarkers.remove(redisKey, claim.getMarker());
+        try {
+            Long stored = stringRedisTemplate.execute(COMPLETE_SCRIPT, List.of(redisKey), claim.getMarker(), write(result),
+                    String.valueOf(Duration.ofHours(resultTtlHours).toMillis()));
+            if (stored == null || stored == 0L) {
+                log.warn("Idempotency claim on key {} was lost before the request completed", key);
+            }
+        } catch (Exception e) {
+            log.error("Error storing idempotent result for key {}: {}", key, e.getMessage());
+        } finally {
+            localExecutions.remove(key, claim.getExecution());
+            claim.getExecution().complete(result);
+        }
+    }
+
+    /**
+     * Drop the claim so that a retry can execute the request again. A claim that was lost and
+     * taken over is left to its new owner.
+     */
+    public void abandon(String key, Claim claim) {
+        String redisKey = KEY_PREFIX + key;
+        heldMarkers.remove(redisKey, claim.getMarker());
+        // Detach the local future before the key can be claimed again, so it is never mistaken
+        // for the next execution's
+        localExecutions.remove(key, claim.getExecution());
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(redisKey), claim.getMarker());
+        } catch (Exception e) {
+            log.error("Error releasing idempotency key {}: {}", key, e.getMessage());
+        } finally {
+            claim.getExecution().complete(null);
+        }
+    }
+
+    /**
+     * Push back the expiry of the markers of requests still running on this node, so a request
+     * that outlives the in-flight TTL keeps its claim. A marker no longer in Redis is forgotten.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.renew-interval-ms:20000}")
+    public void renewClaims() {
+        String ttlMillis = String.valueOf(Duration.ofSeconds(inFlightTtlSeconds).toMillis());
+        heldMarkers.forEach((redisKey, marker) -> {
+            try {
+                Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(redisKey), marker, ttlMillis);
+                if (renewed == null || renewed == 0L) {
+                    heldMarkers.remove(redisKey, marker);
+                }
+            } catch (Exception e) {
+                log.warn("Could not renew idempotency claim {}: {}", redisKey, e.getMessage());
+            }
+        });
+    }
+
+    private IdempotencyRecord awaitLocal(CompletableFuture<IdempotencyRecord> local, long timeoutMillis) {
+        try {
+            return local.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent execution", e);
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent execution", e);
+        }
+    }
+
+    private String write(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotency record", e);
+        }
+    }
+
+    private IdempotencyRecord read(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable idempotency record: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public enum ClaimOutcome {
+        ACQUIRED,
+        REPLAY,
+        IN_PROGRESS,
+        MISMATCH
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Claim {
+        private final ClaimOutcome outcome;
+        private final IdempotencyRecord record;
+        // Set only when acquired: the in-flight marker written and the local future of the execution
+        private final String marker;
+        private final CompletableFuture<IdempotencyRecord> execution;
+
+        static Claim of(ClaimOutcome outcome, IdempotencyRecord record) {
+            return new Claim(outcome, record, null, null);
+        }
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IdempotencyRecord {
+        private boolean completed;
+        private String fingerprint;
+        private int status;
+        private String contentType;
+        private String body;
+        // Completed, but the response was too large to keep
+        private boolean bodyOmitted;
+        // In flight: identifies the claim, so only its owner can complete or release it
+        private String owner;
+
+        public static IdempotencyRecord inFlight(String fingerprint, String owner) {
+            return IdempotencyRecord.builder()
+                    .completed(false)
+                    .fingerprint(fingerprint)
+                    .owner(owner)
+                    .build();
+        }
+
+        public static IdempotencyRecord completed(String fingerprint, int status, String contentType, String body) {
+            return IdempotencyRecord.builder()
+                    .completed(true)
+                    .fingerprint(fingerprint)
+                    .status(status)
+                    .contentType(contentType)
+                    .body(body)
+                    .build();
+        }
+
+        public static IdempotencyRecord completedWithoutBody(String fingerprint, int status, String contentType) {
+            return IdempotencyRecord.builder()
+                    .completed(true)
+                    .fingerprint(fingerprint)
+                    .status(status)
+                    .contentType(contentType)
+                    .bodyOmitted(true)
+                    .build();
+        }
+    }
+}
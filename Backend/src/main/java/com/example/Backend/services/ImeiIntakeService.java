@@ -0,0 +1,255 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.serial.ImeiFilterStatsResponse;
+import com.example.Backend.dtos.serial.ImeiValidationResponse;
+import com.example.Backend.dtos.serial.ImeiValidationResponse.Status;
+import com.example.Backend.repositorys.StockBatchRepository;
+import com.example.Backend.utils.BloomFilter;
+import com.example.Backend.utils.Imei;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * IMEI intake checks for scanners, goods receipts and manual registration. IMEIs are normalized
+ * and Luhn-checked in memory; duplicates are first ruled out by a bloom filter of every registered
+ * IMEI, so only the probable hits (real duplicates plus the filter's false positives) go to the
+ * database, in one batched query. IMEIs registered on any node are announced over Redis and put
+ * into every node's filter; the periodic rebuild from serial_unit covers announcements lost while
+ * Redis was unreachable, and the unique constraint on imei remains the final guard.
+ */
+@Slf4j
+@Service
+public class ImeiIntakeService implements MessageListener {
+
+    public static final String REGISTRATION_CHANNEL = "serial:imei:registered";
+
+    private final StockBatchRepository stockBatchRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Executor reportTaskExecutor;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Counter lookups;
+    private final Counter probableHits;
+    private final Counter confirmedDuplicates;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile BloomFilter filter;
+    private volatile BloomFilter pendingFilter;
+    private volatile LocalDateTime builtAt;
+
+    @Value("${serial.imei-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${serial.imei-filter.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    public ImeiIntakeService(StockBatchRepository stockBatchRepository,
+                             StringRedisTemplate redisTemplate,
+                             RedisMessageListenerContainer listenerContainer,
+                             @Qualifier("reportTaskExecutor") Executor reportTaskExecutor,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.stockBatchRepository = stockBatchRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.reportTaskExecutor = reportTaskExecutor;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.lookups = Counter.builder("serial.imei.filter.lookups")
+                .description("IMEIs checked against the existence filter")
+                .register(meterRegistry);
+        this.probableHits = Counter.builder("serial.imei.filter.probable.hits")
+                .description("IMEIs the existence filter could not rule out")
+                .register(meterRegistry);
+        this.confirmedDuplicates = Counter.builder("serial.imei.filter.confirmed.duplicates")
+                .description("Probable hits confirmed as registered by the database")
+                .register(meterRegistry);
+        meterRegistry.gauge("serial.imei.filter.expected.fpp", this,
+                service -> service.filter != null ? service.filter.expectedFalsePositiveRate() : Double.NaN);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(REGISTRATION_CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        CompletableFuture.runAsync(this::rebuild, reportTaskExecutor).exceptionally(e -> {
+            log.warn("Could not build the IMEI filter on startup: {}", e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Build a fresh filter from serial_unit and swap it in. IMEIs registered while it loads are
+     * put into both filters, so none is lost across the swap.
+     */
+    @Scheduled(fixedDelayString = "${serial.imei-filter.rebuild-interval-ms:21600000}",
+               initialDelayString = "${serial.imei-filter.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            long registered = stockBatchRepository.countSerialUnits();
+            BloomFilter fresh = new BloomFilter(Math.max(expectedInsertions, registered * 2), falsePositiveRate);
+            pendingFilter = fresh;
+            readOnlyTransactionTemplate.executeWithoutResult(status -> stockBatchRepository.forEachImei(fresh::put));
+            filter = fresh;
+            builtAt = LocalDateTime.now();
+            log.info("Built IMEI filter over {} serial units in {} ms", registered, System.currentTimeMillis() - started);
+        } finally {
+            pendingFilter = null;
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Normalize, checksum and de-duplicate a scanned batch. Results keep the request order.
+     */
+    public ImeiValidationResponse validate(List<String> inputs) {
+        List<ImeiValidationResponse.Result> results = new ArrayList<>(inputs.size());
+        Set<String> seen = new HashSet<>();
+        List<String> candidates = new ArrayList<>();
+        for (String input : inputs) {
+            String imei = Imei.normalize(input);
+            Status status;
+            if (imei == null || imei.length() != Imei.LENGTH || !imei.chars().allMatch(Character::isDigit)) {
+                status = Status.INVALID_FORMAT;
+            } else if (!Imei.isValid(imei)) {
+                status = Status.INVALID_CHECKSUM;
+            } else if (!seen.add(imei)) {
+                status = Status.DUPLICATE_IN_BATCH;
+            } else {
+                status = Status.VALID;
+                candidates.add(imei);
+            }
+            results.add(ImeiValidationResponse.Result.builder().input(input).imei(imei).status(status).build());
+        }
+
+        Set<String> registered = findRegistered(candidates);
+        int accepted = 0;
+        for (ImeiValidationResponse.Result result : results) {
+            if (result.getStatus() == Status.VALID && registered.contains(result.getImei())) {
+                result.setStatus(Status.ALREADY_REGISTERED);
+            }
+            if (result.getStatus() == Status.VALID) {
+                accepted++;
+            }
+        }
+        return ImeiValidationResponse.builder()
+                .total(results.size())
+                .accepted(accepted)
+                .rejected(results.size() - accepted)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Which of the given normalized IMEIs are already registered. Before the first filter build
+     * every IMEI goes to the database.
+     */
+    public Set<String> findRegistered(Collection<String> imeis) {
+        if (imeis.isEmpty()) {
+            return Set.of();
+        }
+        BloomFilter current = filter;
+        List<String> probable = new ArrayList<>();
+        for (String imei : imeis) {
+            if (current == null || current.mightContain(imei)) {
+                probable.add(imei);
+            }
+        }
+        Set<String> registered = probable.isEmpty() ? Set.of() : stockBatchRepository.findExistingImeis(probable);
+        if (current != null) {
+            lookups.increment(imeis.size());
+            probableHits.increment(probable.size());
+            confirmedDuplicates.increment(registered.size());
+        }
+        return registered;
+    }
+
+    /**
+     * Add newly registered IMEIs to the filter and announce them to the other nodes. Called before
+     * commit, so peers usually hear of the IMEIs before their rows become visible; should the
+     * transaction roll back, the IMEIs only cost a needless database check later.
+     */
+    public void register(Collection<String> imeis) {
+        if (imeis.isEmpty()) {
+            return;
+        }
+        put(imeis);
+        try {
+            redisTemplate.convertAndSend(REGISTRATION_CHANNEL, String.join(",", imeis));
+        } catch (RuntimeException e) {
+            // Other nodes catch up at their next rebuild
+            log.warn("Could not announce {} registered IMEIs: {}", imeis.size(), e.getMessage());
+        }
+    }
+
+    // Every node hears its own announcements too; putting an IMEI twice changes nothing
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        put(Arrays.stream(body.split(",")).filter(imei -> !imei.isBlank()).toList());
+    }
+
+    private void put(Collection<String> imeis) {
+        BloomFilter current = filter;
+        BloomFilter pending = pendingFilter;
+        for (String imei : imeis) {
+            if (current != null) {
+                current.put(imei);
+            }
+            if (pending != null) {
+                pending.put(imei);
+            }
+        }
+    }
+
+    public ImeiFilterStatsResponse getStats() {
+        BloomFilter current = filter;
+        long lookupCount = (long) lookups.count();
+        long hitCount = (long) probableHits.count();
+        long confirmed = (long) confirmedDuplicates.count();
+        long newImeis = lookupCount - confirmed;
+        return ImeiFilterStatsResponse.builder()
+                .ready(current != null)
+                .builtAt(builtAt)
+                .bitSize(current != null ? current.getBitSize() : 0)
+                .hashFunctions(current != null ? current.getHashFunctions() : 0)
+                .approximateElements(current != null ? current.getApproximateElements() : 0)
+                .configuredFalsePositiveRate(falsePositiveRate)
+                .expectedFalsePositiveRate(current != null ? current.expectedFalsePositiveRate() : 0)
+                .lookups(lookupCount)
+                .probableHits(hitCount)
+                .confirmedDuplicates(confirmed)
+                .observedFalsePositiveRate(newImeis > 0 ? (double) (hitCount - confirmed) / newImeis : 0)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.stock.InventoryValuationResponse;
+import com.example.Backend.repositorys.StockItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Value of the stock on hand at each SKU's moving weighted-average cost, summed in the database
+ * with NUMERIC arithmetic. SKUs without an average yet (stock received before costing) are valued
+ * at their cost price.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class InventoryValuationService {
+
+    public enum GroupBy {
+        NONE, BRAND, CATEGORY
+    }
+
+    private final StockItemRepository stockItemRepository;
+
+    public InventoryValuationResponse getValuation(GroupBy groupBy) {
+        List<InventoryValuationResponse.Line> lines = new ArrayList<>();
+        long totalQuantity = 0;
+        BigDecimal totalValue = BigDecimal.ZERO;
+
+        if (groupBy == GroupBy.NONE) {
+            List<Object[]> rows = stockItemRepository.getInventoryValuation();
+            if (!rows.isEmpty()) {
+                totalQuantity = toLong(rows.get(0)[0]);
+                totalValue = toMoney(rows.get(0)[1]);
+            }
+        } else {
+            List<Object[]> rows = groupBy == GroupBy.BRAND
+                    ? stockItemRepository.getInventoryValuationByBrand()
+                    : stockItemRepository.getInventoryValuationByCategory();
+            for (Object[] row : rows) {
+                // Brand rows carry (id, name, quantity, value); category rows (category, quantity, value)
+                int offset = row.length - 2;
+                InventoryValuationResponse.Line line = InventoryValuationResponse.Line.builder()
+                        .key(String.valueOf(row[0]))
+                        .label(String.valueOf(row[offset - 1]))
+                        .quantity(toLong(row[offset]))
+                        .value(toMoney(row[offset + 1]))
+                        .build();
+                lines.add(line);
+                totalQuantity += line.getQuantity();
+                totalValue = totalValue.add(line.getValue());
+            }
+        }
+
+        return InventoryValuationResponse.builder()
+                .groupBy(groupBy.name())
+                .totalQuantity(totalQuantity)
+                .totalValue(totalValue)
+                .lines(lines)
+                .build();
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static BigDecimal toMoney(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+        return decimal.setScale(2, RoundingMode.HALF_UP);
+    }
+}
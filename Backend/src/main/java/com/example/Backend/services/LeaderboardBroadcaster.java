@@ -0,0 +1,107 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.report.LeaderboardRankChange;
+import com.example.Backend.utils.CoalescingEmitter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fans leaderboard rank changes out to the SSE subscribers of this node. Changes arrive over Redis
+ * pub/sub, because only the node that holds the relay checkpoint applies them. The listener thread
+ * only enqueues; each subscriber is drained on its own virtual thread and keeps the latest pending
+ * change per board and salesperson, with the deltas in between summed.
+ */
+@Slf4j
+@Component
+public class LeaderboardBroadcaster implements MessageListener {
+
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final Set<CoalescingEmitter<String, LeaderboardRankChange>> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("LeaderboardSender-", 0).factory());
+
+    @Value("${leaderboard.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${leaderboard.max-subscribers:200}")
+    private int maxSubscribers;
+
+    public LeaderboardBroadcaster(RedisMessageListenerContainer listenerContainer, ObjectMapper objectMapper) {
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(LeaderboardService.RANK_CHANGE_CHANNEL));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+    }
+
+    public SseEmitter register() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many leaderboard subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        CoalescingEmitter<String, LeaderboardRankChange> subscriber = new CoalescingEmitter<>(emitter, senders,
+                change -> SseEmitter.event().name("rank-change").data(change, MediaType.APPLICATION_JSON),
+                LeaderboardBroadcaster::coalesce,
+                error -> log.debug("Dropped leaderboard subscriber: {}", error.getMessage()));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        LeaderboardRankChange change;
+        try {
+            change = objectMapper.readValue(message.getBody(), LeaderboardRankChange.class);
+        } catch (IOException e) {
+            log.warn("Unreadable leaderboard rank change message: {}", e.getMessage());
+            return;
+        }
+        String key = change.getPeriod() + ":" + change.getPeriodKey() + ":" + change.getUserId();
+        for (CoalescingEmitter<String, LeaderboardRankChange> subscriber : subscribers) {
+            subscriber.offer(key, change);
+        }
+    }
+
+    // The newer rank and revenue, with the delta covering both changes
+    static LeaderboardRankChange coalesce(LeaderboardRankChange older, LeaderboardRankChange newer) {
+        return LeaderboardRankChange.builder()
+                .period(newer.getPeriod())
+                .periodKey(newer.getPeriodKey())
+                .userId(newer.getUserId())
+                .orderId(newer.getOrderId())
+                .rank(newer.getRank())
+                .revenue(newer.getRevenue())
+                .delta(older.getDelta() != null && newer.getDelta() != null
+                        ? older.getDelta().add(newer.getDelta())
+                        : newer.getDelta())
+                .build();
+    }
+}
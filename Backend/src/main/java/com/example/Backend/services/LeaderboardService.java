@@ -0,0 +1,375 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.event.OrderLifecycleEvent;
+import com.example.Backend.dtos.report.LeaderboardEntry;
+import com.example.Backend.dtos.report.LeaderboardRankChange;
+import com.example.Backend.models.OrderEvent;
+import com.example.Backend.models.OutboxCheckpoint;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.OrderEventRepository;
+import com.example.Backend.repositorys.OutboxCheckpointRepository;
+import com.example.Backend.repositorys.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Live sales leaderboards in Redis sorted sets, one per day, ISO week and month, scored by the
+ * revenue of each salesperson's PAID orders. Order events from the outbox relay move the scores;
+ * a per (event, board) marker makes redelivered events no-ops. {@link #rebuild} recomputes the
+ * boards from the sales rollups while holding the relay checkpoint, so no event is lost or
+ * counted twice across a rebuild.
+ */
+@Service
+@Slf4j
+public class LeaderboardService {
+
+    public static final String RANK_CHANGE_CHANNEL = "leaderboard:rank-changes";
+
+    private static final String KEY_PREFIX = "leaderboard:sales:";
+    private static final String APPLIED_PREFIX = "leaderboard:applied:";
+    private static final int MAX_LIMIT = 100;
+    private static final int REBUILD_ATTEMPTS = 5;
+
+    // KEYS: board1, marker1, board2, marker2, ...; ARGV: marker ttl, delta, member, board ttls...
+    private static final DefaultRedisScript<List> APPLY_SCRIPT = new DefaultRedisScript<>(
+            "local result = {} " +
+            "for i = 1, #KEYS, 2 do " +
+            "  if redis.call('SET', KEYS[i + 1], '1', 'NX', 'EX', ARGV[1]) then " +
+            "    local score = redis.call('ZINCRBY', KEYS[i], ARGV[2], ARGV[3]) " +
+            "    redis.call('EXPIRE', KEYS[i], ARGV[3 + (i + 1) / 2]) " +
+            "    local rank = redis.call('ZREVRANK', KEYS[i], ARGV[3]) " +
+            "    table.insert(result, KEYS[i]) " +
+            "    table.insert(result, tostring(rank)) " +
+            "    table.insert(result, score) " +
+            "  end " +
+            "end " +
+            "return result",
+            List.class);
+
+    public enum Period {
+        DAY(Duration.ofDays(8)),
+        WEEK(Duration.ofDays(35)),
+        MONTH(Duration.ofDays(400));
+
+        private final Duration ttl;
+
+        Period(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public String periodKey(LocalDate date) {
+            switch (this) {
+                case DAY:
+                    return date.toString();
+                case WEEK:
+                    return String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                default:
+                    return YearMonth.from(date).toString();
+            }
+        }
+
+        public String boardKey(LocalDate date) {
+            return KEY_PREFIX + name().toLowerCase() + ":" + periodKey(date);
+        }
+
+        LocalDate start(LocalDate date) {
+            switch (this) {
+                case DAY:
+                    return date;
+                case WEEK:
+                    return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                default:
+                    return date.withDayOfMonth(1);
+            }
+        }
+
+        LocalDate end(LocalDate date) {
+            switch (this) {
+                case DAY:
+                    return date;
+                case WEEK:
+                    return date.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+                default:
+                    return YearMonth.from(date).atEndOfMonth();
+            }
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final SalesRollupService salesRollupService;
+    private final UserRepository userRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final OutboxCheckpointRepository outboxCheckpointRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTransactionTemplate;
+
+    @Value("${leaderboard.applied-marker-ttl-hours:24}")
+    private long appliedMarkerTtlHours;
+
+    @Value("${leaderboard.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    public LeaderboardService(StringRedisTemplate redisTemplate,
+                              SalesRollupService salesRollupService,
+                              UserRepository userRepository,
+                              OrderEventRepository orderEventRepository,
+                              OutboxCheckpointRepository outboxCheckpointRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.redisTemplate = redisTemplate;
+        this.salesRollupService = salesRollupService;
+        this.userRepository = userRepository;
+        this.orderEventRepository = orderEventRepository;
+        this.outboxCheckpointRepository = outboxCheckpointRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Runs inside the relay transaction. A Redis failure is logged rather than rethrown so it does
+     * not hold up the other order event listeners; the next rebuild repairs the boards.
+     */
+    @EventListener
+    public void onOrderEvent(OrderLifecycleEvent event) {
+        BigDecimal delta = scoreDelta(event);
+        if (delta.signum() == 0 || event.getUserId() == null) {
+            return;
+        }
+        LocalDate date = boardDate(event);
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>(List.of(
+                String.valueOf(Duration.ofHours(appliedMarkerTtlHours).toSeconds()),
+                delta.toPlainString(),
+                event.getUserId().toString()));
+        for (Period period : Period.values()) {
+            keys.add(period.boardKey(date));
+            keys.add(appliedMarkerKey(event.getEventId(), period.boardKey(date)));
+            args.add(String.valueOf(period.ttl.toSeconds()));
+        }
+
+        try {
+            List<?> result = redisTemplate.execute(APPLY_SCRIPT, keys, args.toArray());
+            publishRankChanges(event, date, delta, result);
+        } catch (RuntimeException e) {
+            log.warn("Could not apply order event {} to the sales leaderboard: {}", event.getEventId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Top salespeople of the period containing the date, best first. O(log n + limit) in Redis.
+     */
+    public List<LeaderboardEntry> getTop(Period period, LocalDate date, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Set<ZSetOperations.TypedTuple<String>> top = redisTemplate.opsForZSet()
+                .reverseRangeWithScores(period.boardKey(date), 0, size - 1);
+        if (top == null || top.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> userIds = top.stream().map(tuple -> Long.valueOf(tuple.getValue())).collect(Collectors.toList());
+        Map<Long, String> names = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, User::getFullName, (a, b) -> a));
+
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        int rank = 1;
+        for (ZSetOperations.TypedTuple<String> tuple : top) {
+            Long userId = Long.valueOf(tuple.getValue());
+            entries.add(LeaderboardEntry.builder()
+                    .rank(rank++)
+                    .userId(userId)
+                    .fullName(names.get(userId))
+                    .revenue(toMoney(tuple.getScore()))
+                    .build());
+        }
+        return entries;
+    }
+
+    /**
+     * Recompute the day, week and month boards containing the date from the sales rollups.
+     */
+    public void rebuild(LocalDate date) {
+        transactionTemplate.executeWithoutResult(status -> outboxCheckpointRepository.createIfMissing(OrderEventRelay.CHECKPOINT_NAME));
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            Boolean rebuilt = snapshotTransactionTemplate.execute(status -> rebuildUnderCheckpoint(date));
+            if (Boolean.TRUE.equals(rebuilt)) {
+                log.info("Rebuilt sales leaderboards for {}", date);
+                return;
+            }
+            try {
+                Thread.sleep(200L * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IllegalStateException("Order event relay is busy, retry the leaderboard rebuild");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildCurrentBoards() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            rebuild(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild sales leaderboards on startup: {}", e.getMessage());
+        }
+    }
+
+    private boolean rebuildUnderCheckpoint(LocalDate date) {
+        // Holding the checkpoint pauses the relay; the repeatable-read snapshot taken here is the
+        // state the boards are rebuilt from
+        OutboxCheckpoint checkpoint = outboxCheckpointRepository.lockForRelay(OrderEventRelay.CHECKPOINT_NAME).orElse(null);
+        if (checkpoint == null) {
+            return false;
+        }
+
+        Map<Period, String> boards = new EnumMap<>(Period.class);
+        for (Period period : Period.values()) {
+            boards.put(period, period.boardKey(date));
+        }
+        markPendingEventsApplied(new HashSet<>(boards.values()));
+
+        boards.forEach((period, boardKey) -> {
+            Map<Long, Object[]> byUser = salesRollupService.getSalesPerformanceByUserId(period.start(date), period.end(date));
+            replaceBoard(boardKey, byUser, period.ttl);
+        });
+        return true;
+    }
+
+    // Committed events the relay has not delivered yet are already part of the snapshot
+    private void markPendingEventsApplied(Set<String> rebuiltBoards) {
+        Duration markerTtl = Duration.ofHours(appliedMarkerTtlHours);
+        long position = 0;
+        List<OrderEvent> batch;
+        do {
+            batch = orderEventRepository.findByRelaySeqIsNullAndIdGreaterThanOrderByIdAsc(position, PageRequest.of(0, 500));
+            for (OrderEvent event : batch) {
+                position = event.getId();
+                if (event.getEventType() != OrderEvent.EventType.ORDER_PAID
+                        && event.getEventType() != OrderEvent.EventType.ORDER_CANCELLED
+                        && event.getEventType() != OrderEvent.EventType.ORDER_REFUNDED) {
+                    continue;
+                }
+                OrderLifecycleEvent message = readMessage(event);
+                if (message == null) {
+                    continue;
+                }
+                LocalDate date = boardDate(message);
+                for (Period period : Period.values()) {
+                    String boardKey = period.boardKey(date);
+                    if (rebuiltBoards.contains(boardKey)) {
+                        redisTemplate.opsForValue().set(appliedMarkerKey(event.getId(), boardKey), "1", markerTtl);
+                    }
+                }
+            }
+        } while (!batch.isEmpty());
+    }
+
+    private void replaceBoard(String boardKey, Map<Long, Object[]> byUser, Duration ttl) {
+        Set<ZSetOperations.TypedTuple<String>> scores = byUser.entrySet().stream()
+                .filter(entry -> ((BigDecimal) entry.getValue()[2]).signum() != 0)
+                .map(entry -> ZSetOperations.TypedTuple.of(entry.getKey().toString(), ((BigDecimal) entry.getValue()[2]).doubleValue()))
+                .collect(Collectors.toSet());
+        if (scores.isEmpty()) {
+            redisTemplate.delete(boardKey);
+            return;
+        }
+        String stagingKey = boardKey + ":rebuild";
+        redisTemplate.delete(stagingKey);
+        redisTemplate.opsForZSet().add(stagingKey, scores);
+        redisTemplate.rename(stagingKey, boardKey);
+        redisTemplate.expire(boardKey, ttl);
+    }
+
+    private void publishRankChanges(OrderLifecycleEvent event, LocalDate date, BigDecimal delta, List<?> result) {
+        if (result == null || result.isEmpty()) {
+            return;
+        }
+        Map<String, Period> periodsByKey = Arrays.stream(Period.values())
+                .collect(Collectors.toMap(period -> period.boardKey(date), Function.identity()));
+        for (int i = 0; i + 2 < result.size(); i += 3) {
+            Period period = periodsByKey.get(String.valueOf(result.get(i)));
+            LeaderboardRankChange change = LeaderboardRankChange.builder()
+                    .period(period.name())
+                    .periodKey(period.periodKey(date))
+                    .userId(event.getUserId())
+                    .orderId(event.getOrderId())
+                    .rank(Integer.parseInt(String.valueOf(result.get(i + 1))) + 1)
+                    .revenue(toMoney(Double.valueOf(String.valueOf(result.get(i + 2)))))
+                    .delta(delta)
+                    .build();
+            try {
+                redisTemplate.convertAndSend(RANK_CHANGE_CHANNEL, objectMapper.writeValueAsString(change));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize leaderboard rank change: {}", e.getMessage());
+            }
+        }
+    }
+
+    private OrderLifecycleEvent readMessage(OrderEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), OrderLifecycleEvent.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable payload for order event {}: {}", event.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Boards hold the total of orders currently PAID, the same figure the rollups report
+    private static BigDecimal scoreDelta(OrderLifecycleEvent event) {
+        BigDecimal total = event.getTotal() != null ? event.getTotal() : BigDecimal.ZERO;
+        BigDecimal delta = BigDecimal.ZERO;
+        if (event.getStatus() == OrderStatus.PAID) {
+            delta = delta.add(total);
+        }
+        if (event.getPreviousStatus() == OrderStatus.PAID) {
+            delta = delta.subtract(total);
+        }
+        return delta;
+    }
+
+    private static LocalDate boardDate(OrderLifecycleEvent event) {
+        if (event.getOrderDate() != null) {
+            return event.getOrderDate();
+        }
+        return event.getOccurredAt() != null ? event.getOccurredAt().toLocalDate() : LocalDate.now();
+    }
+
+    private static String appliedMarkerKey(Long eventId, String boardKey) {
+        return APPLIED_PREFIX + eventId + ":" + boardKey.substring(KEY_PREFIX.length());
+    }
+
+    private static BigDecimal toMoney(Double score) {
+        return score != null ? BigDecimal.valueOf(score).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.event.OrderLifecycleEvent;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.OrderEvent.EventType;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.repositorys.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Sends the order confirmation email once the relay has committed the ORDER_CONFIRMED event, or
+ * the ORDER_PAID event of a till checkout, which skips the confirmed state.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderConfirmationMailer {
+
+    private final CustomerRepository customerRepository;
+    private final EmailService emailService;
+
+    @Async("emailTaskExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderEvent(OrderLifecycleEvent event) {
+        boolean directCheckout = event.getEventType() == EventType.ORDER_PAID
+                && event.getPreviousStatus() == OrderStatus.DRAFT;
+        if ((event.getEventType() != EventType.ORDER_CONFIRMED && !directCheckout)
+                || event.getCustomerId() == null || !emailService.isEmailConfigured()) {
+            return;
+        }
+        Customer customer = customerRepository.findById(event.getCustomerId()).orElse(null);
+        if (customer == null || customer.getEmail() == null || customer.getEmail().isBlank()) {
+            return;
+        }
+        try {
+            emailService.sendOrderConfirmationEmail(customer.getEmail(), customer.getFullName(),
+                    event.getOrderNumber() != null ? event.getOrderNumber() : String.valueOf(event.getOrderId()), event);
+        } catch (Exception e) {
+            log.error("Order confirmation email for order {} failed: {}", event.getOrderId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.Backend.services;
+
+import com.example.Backend.models.OrderEvent;
+import com.example.Backend.models.OutboxCheckpoint;
+import com.example.Backend.repositorys.OrderEventRepository;
+import com.example.Backend.repositorys.OutboxCheckpointRepository;
+import com.example.Backend.repositorys.SalesBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Publishes order_event rows to in-process listeners, stamping each with its position in relay
+ * order (relay_seq) and advancing the checkpoint to the last position in the same transaction.
+ * Plain {@code @EventListener}s therefore run inside that transaction and see each event exactly
+ * once; listeners with external side effects should use {@code @TransactionalEventListener} (plus
+ * {@code @Async}) so they only fire once the relay has committed.
+ * <p>
+ * Unpublished events are the rows without a position, taken in id order. Ids are assigned at
+ * insert, not at commit, so an event of a long transaction can become visible after higher ids
+ * were published; the next run picks it up, and ids of rolled-back transactions never show up at
+ * all. Events of one order come from transactions that lock the order, so they still go out in
+ * the order they happened. Followers that read the outbox themselves go by relay_seq up to the
+ * checkpoint, below which nothing can appear later.
+ * <p>
+ * A failed delivery rolls the batch back and is counted on the event row, so retries survive
+ * restarts and are shared by all nodes. After {@code order-events.relay.max-attempts} failures the
+ * event gets its position without being published.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderEventRelay {
+
+    public static final String CHECKPOINT_NAME = "order-event-relay";
+
+    private final OrderEventRepository orderEventRepository;
+    private final OutboxCheckpointRepository outboxCheckpointRepository;
+    private final OrderEventService orderEventService;
+    private final SalesBatchRepository salesBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile boolean positionsBackfilled;
+
+    @Value("${order-events.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order-events.relay.max-attempts:5}")
+    private int maxAttempts;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareUnrelayedIndex() {
+        try {
+            salesBatchRepository.createUnrelayedOrderEventIndex();
+        } catch (RuntimeException e) {
+            log.warn("Could not create the unrelayed order event index: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order-events.relay.interval-ms:1000}")
+    public void relay() {
+        if (!positionsBackfilled) {
+            if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> backfillPositions()))) {
+                return;
+            }
+            positionsBackfilled = true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> relayBatch());
+        } catch (DeliveryFailure failure) {
+            recordFailure(failure.eventId, failure.getCause());
+        }
+    }
+
+    private void relayBatch() {
+        OutboxCheckpoint checkpoint = outboxCheckpointRepository.lockForRelay(CHECKPOINT_NAME).orElse(null);
+        if (checkpoint == null) {
+            return;
+        }
+        List<OrderEvent> batch = orderEventRepository.findByRelaySeqIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long position = checkpoint.getLastEventId();
+        LocalDateTime now = LocalDateTime.now();
+        for (OrderEvent event : batch) {
+            deliver(event);
+            event.setRelaySeq(++position);
+            event.setRelayedAt(now);
+        }
+        checkpoint.setLastEventId(position);
+        checkpoint.setUpdatedAt(now);
+        log.debug("Order event relay published {} events up to position {}", batch.size(), position);
+    }
+
+    private void deliver(OrderEvent event) {
+        if (event.getDeliveryAttempts() >= maxAttempts) {
+            log.error("Giving up on order event {} ({} for order {}) after {} failed deliveries, last error: {}",
+                    event.getId(), event.getEventType(), event.getOrderId(), event.getDeliveryAttempts(), event.getLastError());
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(orderEventService.toMessage(event));
+        } catch (RuntimeException e) {
+            // Roll the whole batch back; it is retried on the next run
+            log.warn("Delivery of order event {} failed: {}", event.getId(), e.getMessage());
+            throw new DeliveryFailure(event.getId(), e);
+        }
+    }
+
+    private void recordFailure(long eventId, Throwable cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    orderEventRepository.recordFailedDelivery(eventId, cause.toString()));
+        } catch (RuntimeException e) {
+            log.warn("Could not record the failed delivery of order event {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    // Under the checkpoint lock, so no node relays while positions are handed out
+    private boolean backfillPositions() {
+        outboxCheckpointRepository.createIfMissing(CHECKPOINT_NAME);
+        OutboxCheckpoint checkpoint = outboxCheckpointRepository.lockForRelay(CHECKPOINT_NAME).orElse(null);
+        if (checkpoint == null) {
+            return false;
+        }
+        int backfilled = orderEventRepository.backfillRelayPositions(checkpoint.getLastEventId());
+        if (backfilled > 0) {
+            log.info("Gave {} previously relayed order events their relay position", backfilled);
+        }
+        return true;
+    }
+
+    private static class DeliveryFailure extends RuntimeException {
+
+        private final long eventId;
+
+        DeliveryFailure(long eventId, RuntimeException cause) {
+            super(cause);
+            this.eventId = eventId;
+        }
+    }
+}
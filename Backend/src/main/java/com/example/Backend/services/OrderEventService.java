@@ -0,0 +1,88 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.event.OrderLifecycleEvent;
+import com.example.Backend.models.OrderEvent;
+import com.example.Backend.models.OrderEvent.EventType;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.models.SalesOrderItem;
+import com.example.Backend.repositorys.OrderEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class OrderEventService {
+
+    private final OrderEventRepository orderEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Record a state change of the order. Must run inside the transaction that makes the change,
+     * so the event exists exactly when the change does.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OrderEvent append(SalesOrder order, EventType eventType, OrderStatus previousStatus,
+                             List<SalesOrderItem> items) {
+        OrderLifecycleEvent message = OrderLifecycleEvent.builder()
+                .eventType(eventType)
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .customerId(order.getCustomer() != null ? order.getCustomer().getId() : null)
+                .userId(order.getUser() != null ? order.getUser().getId() : null)
+                .previousStatus(previousStatus)
+                .status(order.getStatus())
+                .total(order.getTotal())
+                .orderDate(order.getOrderDate())
+                .items(items.stream()
+                        .map(item -> OrderLifecycleEvent.Line.builder()
+                                .skuId(item.getSku().getId())
+                                .quantity(item.getQuantity())
+                                .unitPrice(item.getUnitPrice())
+                                .lineTotal(item.getLineTotal())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+
+        return orderEventRepository.save(OrderEvent.builder()
+                .orderId(message.getOrderId())
+                .customerId(message.getCustomerId())
+                .eventType(eventType)
+                .total(message.getTotal())
+                .payload(writePayload(message))
+                .build());
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderLifecycleEvent> getEventsForOrder(Long orderId) {
+        return orderEventRepository.findByOrderIdOrderByIdAsc(orderId).stream()
+                .map(this::toMessage)
+                .collect(Collectors.toList());
+    }
+
+    public OrderLifecycleEvent toMessage(OrderEvent event) {
+        try {
+            OrderLifecycleEvent message = objectMapper.readValue(event.getPayload(), OrderLifecycleEvent.class);
+            message.setEventId(event.getId());
+            message.setOccurredAt(event.getCreatedAt());
+            return message;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload for order event " + event.getId(), e);
+        }
+    }
+
+    private String writePayload(OrderLifecycleEvent message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event for order " + message.getOrderId(), e);
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.Backend.services;
 
+import com.example.Backend.dtos.CursorPage;
+import com.example.Backend.dtos.CursorPage.TotalMode;
 import com.example.Backend.dtos.payment.PaymentCreateDTO;
 import com.example.Backend.dtos.payment.PaymentResponseDTO;
 import com.example.Backend.exceptions.UserException;
 import com.example.Backend.models.*;
 import com.example.Backend.repositorys.*;
+import com.example.Backend.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -27,9 +34,36 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final SalesOrderRepository salesOrderRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SalesRollupService salesRollupService;
+    private final SalesOrderItemRepository salesOrderItemRepository;
+    private final OrderEventService orderEventService;
+    private final SerialUnitService serialUnitService;
+    private final SalesBatchRepository salesBatchRepository;
 
     private static final String PAYMENT_CACHE_PREFIX = "payment:";
     private static final long CACHE_TTL = 1; // 1 hour
+    private static final int CUSTOMER_BACKFILL_CHUNK = 5000;
+
+    /**
+     * Give payments written before payment.customer_id existed their customer, in short chunks so
+     * live writes are never held up for long.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillCustomers() {
+        try {
+            long total = 0;
+            int updated;
+            while ((updated = salesBatchRepository.backfillPaymentCustomers(CUSTOMER_BACKFILL_CHUNK)) > 0) {
+                total += updated;
+            }
+            if (total > 0) {
+                log.info("Copied the customer onto {} older payments", total);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not backfill payment customers: {}", e.getMessage());
+        }
+    }
 
     public PaymentResponseDTO createPayment(PaymentCreateDTO createDTO) {
         log.info("Creating payment for order ID: {} with amount: {}",
@@ -46,6 +80,7 @@ public class PaymentService {
 
         Payment payment = Payment.builder()
                 .order(order)
+                .customerId(order.getCustomer().getId())
                 .amount(createDTO.getAmount())
                 .method(createDTO.getMethod())
                 .status(Payment.PaymentStatus.PENDING)
@@ -113,6 +148,7 @@ public class PaymentService {
         // Create refund payment record
         Payment refundPayment = Payment.builder()
                 .order(payment.getOrder())
+                .customerId(payment.getOrder().getCustomer().getId())
                 .amount(refundAmount.negate()) // Negative amount for refund
                 .method(payment.getMethod())
                 .status(Payment.PaymentStatus.COMPLETED)
@@ -174,10 +210,29 @@ public class PaymentService {
 
     @Transactional(readOnly = true)
     public Page<PaymentResponseDTO> getPaymentsByCustomer(Long customerId, Pageable pageable) {
-        Page<Payment> payments = paymentRepository.findByOrder_Customer_Id(customerId, pageable);
+        Page<Payment> payments = paymentRepository.findByCustomerId(customerId, pageable);
         return payments.map(this::convertToResponseDTO);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<PaymentResponseDTO> getPaymentsByCustomerCursor(Long customerId, String cursor, int size,
+                                                                      TotalMode totalMode) {
+        int pageSize = CursorPage.clampSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Payment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = paymentRepository.findFirstPageByCustomerKeyset(customerId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = paymentRepository.findPageByCustomerAfterKeyset(customerId, after.getTimestamp(), after.getId(), limit);
+        }
+        // Table statistics say nothing about one customer, so an estimate falls back to the exact count
+        return CursorPage.of(rows, pageSize,
+                        payment -> new KeysetCursor(payment.getPaidAt(), payment.getId()),
+                        this::convertToResponseDTO)
+                .withTotal(totalMode, () -> -1L, () -> paymentRepository.countByCustomerId(customerId));
+    }
+
     @Transactional(readOnly = true)
     public Page<PaymentResponseDTO> getPaymentsByOrder(Long orderId, Pageable pageable) {
         Page<Payment> payments = paymentRepository.findByOrderId(orderId, pageable);
@@ -210,21 +265,39 @@ public class PaymentService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         // Update order payment status based on total paid amount
+        SalesOrder.OrderStatus previousStatus = order.getStatus();
         if (totalPaid.compareTo(order.getTotal()) >= 0) {
             order.setStatus(SalesOrder.OrderStatus.PAID);
         } else if (totalPaid.compareTo(BigDecimal.ZERO) > 0) {
             // Set to CONFIRMED if partially paid
             order.setStatus(SalesOrder.OrderStatus.CONFIRMED);
+        } else if (previousStatus == SalesOrder.OrderStatus.PAID) {
+            // Everything paid has been refunded
+            order.setStatus(SalesOrder.OrderStatus.REFUNDED);
         }
 
         salesOrderRepository.save(order);
+        salesRollupService.record(order, previousStatus, order.getTotal());
+
+        if (order.getStatus() != previousStatus && (order.getStatus() == SalesOrder.OrderStatus.PAID
+                || previousStatus == SalesOrder.OrderStatus.PAID)) {
+            OrderEvent.EventType eventType = order.getStatus() == SalesOrder.OrderStatus.PAID
+                    ? OrderEvent.EventType.ORDER_PAID
+                    : OrderEvent.EventType.ORDER_REFUNDED;
+            List<SalesOrderItem> items = salesOrderItemRepository.findByOrder_Id(order.getId());
+            orderEventService.append(order, eventType, previousStatus, items);
+            salesRollupService.recordItems(order, previousStatus, items);
+            serialUnitService.evictOrderTraces(items);
+        }
     }
 
     private PaymentResponseDTO convertToResponseDTO(Payment payment) {
         return PaymentResponseDTO.builder()
                 .id(payment.getId())
                 .orderId(payment.getOrder().getId())
-                .orderNo(payment.getOrder().getId().toString()) // Use order ID as orderNo since getOrderNumber() doesn't exist
+                .orderNo(payment.getOrder().getOrderNumber() != null
+                        ? payment.getOrder().getOrderNumber()
+                        : payment.getOrder().getId().toString())
                 .method(payment.getMethod().getValue())
                 .status(payment.getStatus().getValue())
                 .amount(payment.getAmount())
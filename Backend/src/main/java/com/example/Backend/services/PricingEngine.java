@@ -0,0 +1,401 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.pricing.PriceQuoteResponse;
+import com.example.Backend.exceptions.OrderException;
+import com.example.Backend.models.Campaign;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Customer.CustomerTier;
+import com.example.Backend.models.PricingRule;
+import com.example.Backend.models.PricingRule.RuleType;
+import com.example.Backend.models.ProductModel.ProductCategory;
+import com.example.Backend.models.SKU;
+import com.example.Backend.repositorys.PricingRuleRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Prices carts against the active pricing rules. The rules are compiled into an immutable index
+ * (by SKU, by category, global) whenever they change, so pricing a cart is a single pass over its
+ * lines without touching the database.
+ * <p>
+ * Money is handled as long cents. Every amount is bounded by the NUMERIC(12,2) columns it ends up
+ * in and rates by 100%, so cents times basis points cannot overflow; lines beyond that bound are
+ * rejected instead of silently wrapping.
+ */
+@Slf4j
+@Service
+public class PricingEngine {
+
+    private static final long MAX_AMOUNT_CENTS = 999_999_999_999L;
+    private static final long BASIS_POINTS = 10_000L;
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final long defaultTaxBasisPoints;
+
+    private volatile CompiledRules compiledRules;
+    private volatile String compiledVersion;
+
+    public PricingEngine(PricingRuleRepository pricingRuleRepository,
+                         @Value("${pricing.default-tax-percent:10.00}") BigDecimal defaultTaxPercent) {
+        this.pricingRuleRepository = pricingRuleRepository;
+        this.defaultTaxBasisPoints = toBasisPoints(defaultTaxPercent);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void compileOnStartup() {
+        reload();
+    }
+
+    /**
+     * Pick up rule or campaign changes made on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${pricing.refresh-interval-ms:60000}")
+    public void refreshIfChanged() {
+        if (!pricingRuleRepository.ruleSetVersion().equals(compiledVersion)) {
+            reload();
+        }
+    }
+
+    public synchronized void reload() {
+        // Read the version first: a change racing with compilation triggers another reload later
+        String version = pricingRuleRepository.ruleSetVersion();
+        CompiledRules rules = CompiledRules.compile(
+                pricingRuleRepository.findAllActiveForCompilation(), defaultTaxBasisPoints, LocalDate.now());
+        compiledRules = rules;
+        compiledVersion = version;
+        log.info("Compiled {} pricing rules", rules.getRuleCount());
+    }
+
+    public PriceQuoteResponse price(Customer customer, List<CartLine> lines, BigDecimal orderDiscount) {
+        CompiledRules rules = currentRules();
+        LocalDate today = LocalDate.now();
+        CustomerTier tier = customer != null ? customer.getTier() : null;
+
+        long grossTotal = 0;
+        long discountTotal = 0;
+        long taxTotal = 0;
+        List<PriceQuoteResponse.Line> pricedLines = new ArrayList<>(lines.size());
+
+        for (CartLine line : lines) {
+            long unitCents = toCents(line.getUnitPrice());
+            long gross = lineGross(line, unitCents);
+            List<String> appliedRules = new ArrayList<>(2);
+
+            long discount = rules.discount(line, tier, today, unitCents, gross, appliedRules);
+            long net = gross - discount;
+            long taxBasisPoints = rules.taxBasisPoints(line, tier, today, appliedRules);
+            long tax = applyRate(net, taxBasisPoints);
+
+            grossTotal = add(grossTotal, gross);
+            discountTotal = add(discountTotal, discount);
+            taxTotal = add(taxTotal, tax);
+
+            pricedLines.add(PriceQuoteResponse.Line.builder()
+                    .skuId(line.getSkuId())
+                    .quantity(line.getQuantity())
+                    .unitPrice(fromCents(unitCents))
+                    .grossAmount(fromCents(gross))
+                    .discount(fromCents(discount))
+                    .taxRate(BigDecimal.valueOf(taxBasisPoints, 2))
+                    .taxAmount(fromCents(tax))
+                    .lineTotal(fromCents(net))
+                    .appliedRules(appliedRules)
+                    .build());
+        }
+
+        long subtotal = grossTotal - discountTotal;
+        long orderDiscountCents = orderDiscount != null ? toCents(orderDiscount) : 0;
+        long total = Math.max(0, add(subtotal, taxTotal) - orderDiscountCents);
+
+        return PriceQuoteResponse.builder()
+                .customerId(customer != null ? customer.getId() : null)
+                .customerTier(tier)
+                .lines(pricedLines)
+                .grossAmount(fromCents(grossTotal))
+                .lineDiscount(fromCents(discountTotal))
+                .subtotal(fromCents(subtotal))
+                .orderDiscount(fromCents(orderDiscountCents))
+                .taxAmount(fromCents(taxTotal))
+                .total(fromCents(total))
+                .build();
+    }
+
+    private CompiledRules currentRules() {
+        CompiledRules rules = compiledRules;
+        if (rules == null) {
+            reload();
+            rules = compiledRules;
+        }
+        return rules;
+    }
+
+    private static long lineGross(CartLine line, long unitCents) {
+        if (line.getQuantity() < 1) {
+            throw new OrderException("Quantity must be at least 1 for SKU: " + line.getSkuId());
+        }
+        if (unitCents > MAX_AMOUNT_CENTS / line.getQuantity()) {
+            throw new OrderException("Line amount too large for SKU: " + line.getSkuId());
+        }
+        return unitCents * line.getQuantity();
+    }
+
+    private static long applyRate(long cents, long basisPoints) {
+        return (cents * basisPoints + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        if (sum > MAX_AMOUNT_CENTS) {
+            throw new OrderException("Order amount too large");
+        }
+        return sum;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null || amount.signum() < 0) {
+            throw new OrderException("Invalid amount: " + amount);
+        }
+        if (amount.compareTo(BigDecimal.valueOf(MAX_AMOUNT_CENTS, 2)) > 0) {
+            throw new OrderException("Amount too large: " + amount);
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long toBasisPoints(BigDecimal percent) {
+        return percent.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CartLine {
+        private final Long skuId;
+        private final ProductCategory category;
+        private final BigDecimal unitPrice;
+        private final int quantity;
+
+        public static CartLine of(SKU sku, int quantity, BigDecimal unitPrice) {
+            return new CartLine(sku.getId(),
+                    sku.getModel() != null ? sku.getModel().getCategory() : null,
+                    unitPrice, quantity);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the active rules, indexed by scope. Within one scope the newest rule
+     * comes first, which is the one a tax lookup uses.
+     */
+    private static final class CompiledRules {
+
+        private static final CompiledRule[] NONE = new CompiledRule[0];
+
+        private final Map<Long, CompiledRule[]> taxBySku;
+        private final Map<ProductCategory, CompiledRule[]> taxByCategory;
+        private final CompiledRule[] globalTax;
+        private final Map<Long, CompiledRule[]> discountBySku;
+        private final Map<ProductCategory, CompiledRule[]> discountByCategory;
+        private final CompiledRule[] globalDiscount;
+        private final long defaultTaxBasisPoints;
+        private final int ruleCount;
+
+        private CompiledRules(Map<Long, CompiledRule[]> taxBySku, Map<ProductCategory, CompiledRule[]> taxByCategory,
+                              CompiledRule[] globalTax, Map<Long, CompiledRule[]> discountBySku,
+                              Map<ProductCategory, CompiledRule[]> discountByCategory, CompiledRule[] globalDiscount,
+                              long defaultTaxBasisPoints, int ruleCount) {
+            this.taxBySku = taxBySku;
+            this.taxByCategory = taxByCategory;
+            this.globalTax = globalTax;
+            this.discountBySku = discountBySku;
+            this.discountByCategory = discountByCategory;
+            this.globalDiscount = globalDiscount;
+            this.defaultTaxBasisPoints = defaultTaxBasisPoints;
+            this.ruleCount = ruleCount;
+        }
+
+        int getRuleCount() {
+            return ruleCount;
+        }
+
+        static CompiledRules compile(List<PricingRule> rules, long defaultTaxBasisPoints, LocalDate today) {
+            Map<Long, List<CompiledRule>> taxBySku = new HashMap<>();
+            Map<ProductCategory, List<CompiledRule>> taxByCategory = new EnumMap<>(ProductCategory.class);
+            List<CompiledRule> globalTax = new ArrayList<>();
+            Map<Long, List<CompiledRule>> discountBySku = new HashMap<>();
+            Map<ProductCategory, List<CompiledRule>> discountByCategory = new EnumMap<>(ProductCategory.class);
+            List<CompiledRule> globalDiscount = new ArrayList<>();
+            int count = 0;
+
+            for (PricingRule rule : rules) {
+                CompiledRule compiled = CompiledRule.of(rule);
+                if (compiled == null || (compiled.getValidTo() != null && compiled.getValidTo().isBefore(today))) {
+                    continue;
+                }
+                boolean tax = rule.getRuleType() == RuleType.TAX;
+                if (rule.getSku() != null) {
+                    (tax ? taxBySku : discountBySku).computeIfAbsent(rule.getSku().getId(), id -> new ArrayList<>()).add(compiled);
+                } else if (rule.getCategory() != null) {
+                    (tax ? taxByCategory : discountByCategory).computeIfAbsent(rule.getCategory(), c -> new ArrayList<>()).add(compiled);
+                } else {
+                    (tax ? globalTax : globalDiscount).add(compiled);
+                }
+                count++;
+            }
+
+            return new CompiledRules(freeze(taxBySku), freeze(taxByCategory), toArray(globalTax),
+                    freeze(discountBySku), freeze(discountByCategory), toArray(globalDiscount),
+                    defaultTaxBasisPoints, count);
+        }
+
+        /**
+         * Best tiered discount plus best promotion for the line, capped at the line amount.
+         */
+        long discount(CartLine line, CustomerTier tier, LocalDate today, long unitCents, long gross,
+                      List<String> appliedRules) {
+            CompiledRule bestTiered = null;
+            CompiledRule bestPromotion = null;
+            long tieredAmount = 0;
+            long promotionAmount = 0;
+
+            for (CompiledRule[] scope : discountScopes(line)) {
+                for (CompiledRule rule : scope) {
+                    if (!rule.matches(line.getQuantity(), tier, today)) {
+                        continue;
+                    }
+                    long amount = rule.discountFor(unitCents, line.getQuantity(), gross);
+                    if (rule.isPromotion()) {
+                        if (amount > promotionAmount) {
+                            promotionAmount = amount;
+                            bestPromotion = rule;
+                        }
+                    } else if (amount > tieredAmount) {
+                        tieredAmount = amount;
+                        bestTiered = rule;
+                    }
+                }
+            }
+
+            if (bestTiered != null) {
+                appliedRules.add(bestTiered.getName());
+            }
+            if (bestPromotion != null) {
+                appliedRules.add(bestPromotion.getName());
+            }
+            return Math.min(gross, tieredAmount + promotionAmount);
+        }
+
+        /**
+         * Most specific tax rule that applies: SKU, then category, then global, then the default rate.
+         */
+        long taxBasisPoints(CartLine line, CustomerTier tier, LocalDate today, List<String> appliedRules) {
+            CompiledRule[][] scopes = {
+                    line.getSkuId() != null ? taxBySku.getOrDefault(line.getSkuId(), NONE) : NONE,
+                    line.getCategory() != null ? taxByCategory.getOrDefault(line.getCategory(), NONE) : NONE,
+                    globalTax
+            };
+            for (CompiledRule[] scope : scopes) {
+                for (CompiledRule rule : scope) {
+                    if (rule.matches(line.getQuantity(), tier, today)) {
+                        appliedRules.add(rule.getName());
+                        return rule.getBasisPoints();
+                    }
+                }
+            }
+            return defaultTaxBasisPoints;
+        }
+
+        private CompiledRule[][] discountScopes(CartLine line) {
+            return new CompiledRule[][] {
+                    line.getSkuId() != null ? discountBySku.getOrDefault(line.getSkuId(), NONE) : NONE,
+                    line.getCategory() != null ? discountByCategory.getOrDefault(line.getCategory(), NONE) : NONE,
+                    globalDiscount
+            };
+        }
+
+        private static <K> Map<K, CompiledRule[]> freeze(Map<K, List<CompiledRule>> rulesByKey) {
+            Map<K, CompiledRule[]> frozen = new HashMap<>();
+            rulesByKey.forEach((key, list) -> frozen.put(key, toArray(list)));
+            return Collections.unmodifiableMap(frozen);
+        }
+
+        private static CompiledRule[] toArray(List<CompiledRule> rules) {
+            return rules.stream()
+                    .sorted(Comparator.comparing(CompiledRule::getId).reversed())
+                    .toArray(CompiledRule[]::new);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class CompiledRule {
+        private final Long id;
+        private final String name;
+        private final boolean promotion;
+        private final int minQuantity;
+        private final CustomerTier customerTier;
+        private final long basisPoints;
+        private final long amountOffCents;
+        private final LocalDate validFrom;
+        private final LocalDate validTo;
+
+        /**
+         * Null when the rule cannot apply at all, e.g. its campaign is not active.
+         */
+        static CompiledRule of(PricingRule rule) {
+            LocalDate from = rule.getStartDate();
+            LocalDate to = rule.getEndDate();
+            Campaign campaign = rule.getCampaign();
+            if (campaign != null) {
+                if (campaign.getStatus() != Campaign.CampaignStatus.ACTIVE) {
+                    return null;
+                }
+                from = later(from, campaign.getStartDate());
+                to = earlier(to, campaign.getEndDate());
+            }
+            return new CompiledRule(
+                    rule.getId(),
+                    rule.getName(),
+                    rule.getRuleType() == RuleType.PROMOTION,
+                    rule.getMinQuantity() != null ? rule.getMinQuantity() : 1,
+                    rule.getCustomerTier(),
+                    rule.getPercent() != null ? toBasisPoints(rule.getPercent()) : 0,
+                    rule.getAmountOff() != null ? toCents(rule.getAmountOff()) : 0,
+                    from,
+                    to);
+        }
+
+        boolean matches(int quantity, CustomerTier tier, LocalDate today) {
+            return quantity >= minQuantity
+                    && (customerTier == null || customerTier == tier)
+                    && (validFrom == null || !validFrom.isAfter(today))
+                    && (validTo == null || !validTo.isBefore(today));
+        }
+
+        long discountFor(long unitCents, int quantity, long gross) {
+            long percentOff = applyRate(gross, basisPoints);
+            long amountOff = Math.min(amountOffCents, unitCents) * quantity;
+            return Math.min(gross, percentOff + amountOff);
+        }
+
+        private static LocalDate later(LocalDate a, LocalDate b) {
+            return a == null ? b : (b == null || a.isAfter(b) ? a : b);
+        }
+
+        private static LocalDate earlier(LocalDate a, LocalDate b) {
+            return a == null ? b : (b == null || a.isBefore(b) ? a : b);
+        }
+    }
+}
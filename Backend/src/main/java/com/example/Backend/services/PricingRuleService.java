@@ -0,0 +1,118 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.pricing.PricingRuleRequest;
+import com.example.Backend.dtos.pricing.PricingRuleResponse;
+import com.example.Backend.exceptions.ResourceNotFoundException;
+import com.example.Backend.mappers.PricingRuleMapper;
+import com.example.Backend.models.PricingRule;
+import com.example.Backend.repositorys.CampaignRepository;
+import com.example.Backend.repositorys.PricingRuleRepository;
+import com.example.Backend.repositorys.SKURepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class PricingRuleService {
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final SKURepository skuRepository;
+    private final CampaignRepository campaignRepository;
+    private final PricingRuleMapper pricingRuleMapper;
+    private final PricingEngine pricingEngine;
+
+    @Transactional(readOnly = true)
+    public List<PricingRuleResponse> getAllRules() {
+        return pricingRuleRepository.findAllByOrderByIdAsc().stream()
+                .map(pricingRuleMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public PricingRuleResponse getRuleById(Long id) {
+        return pricingRuleMapper.toResponse(findRuleById(id));
+    }
+
+    public PricingRuleResponse createRule(PricingRuleRequest request) {
+        PricingRule rule = new PricingRule();
+        applyRequest(rule, request);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        log.info("Created pricing rule {} ({})", saved.getId(), saved.getRuleType());
+        recompileAfterCommit();
+        return pricingRuleMapper.toResponse(saved);
+    }
+
+    public PricingRuleResponse updateRule(Long id, PricingRuleRequest request) {
+        PricingRule rule = findRuleById(id);
+        applyRequest(rule, request);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        log.info("Updated pricing rule {}", id);
+        recompileAfterCommit();
+        return pricingRuleMapper.toResponse(saved);
+    }
+
+    public void deleteRule(Long id) {
+        pricingRuleRepository.delete(findRuleById(id));
+        log.info("Deleted pricing rule {}", id);
+        recompileAfterCommit();
+    }
+
+    private void applyRequest(PricingRule rule, PricingRuleRequest request) {
+        validate(request);
+        rule.setName(request.getName());
+        rule.setRuleType(request.getRuleType());
+        rule.setSku(request.getSkuId() != null
+                ? skuRepository.findById(request.getSkuId())
+                        .orElseThrow(() -> new ResourceNotFoundException("SKU not found with id: " + request.getSkuId()))
+                : null);
+        rule.setCategory(request.getCategory());
+        rule.setCustomerTier(request.getCustomerTier());
+        rule.setCampaign(request.getCampaignId() != null
+                ? campaignRepository.findById(request.getCampaignId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Campaign not found with id: " + request.getCampaignId()))
+                : null);
+        rule.setMinQuantity(request.getMinQuantity() != null ? request.getMinQuantity() : 1);
+        rule.setPercent(request.getPercent());
+        rule.setAmountOff(request.getAmountOff());
+        rule.setStartDate(request.getStartDate());
+        rule.setEndDate(request.getEndDate());
+        rule.setIsActive(request.getIsActive() == null || request.getIsActive());
+    }
+
+    private void validate(PricingRuleRequest request) {
+        if (request.getRuleType() == PricingRule.RuleType.TAX) {
+            if (request.getPercent() == null || request.getAmountOff() != null) {
+                throw new IllegalArgumentException("A tax rule needs a percent and no amount off");
+            }
+        } else if (request.getPercent() == null && request.getAmountOff() == null) {
+            throw new IllegalArgumentException("A discount rule needs a percent or an amount off");
+        }
+        if (request.getStartDate() != null && request.getEndDate() != null
+                && request.getEndDate().isBefore(request.getStartDate())) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+    }
+
+    private void recompileAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pricingEngine.reload();
+            }
+        });
+    }
+
+    private PricingRule findRuleById(Long id) {
+        return pricingRuleRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Pricing rule not found with id: " + id));
+    }
+}
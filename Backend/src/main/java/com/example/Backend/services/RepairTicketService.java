@@ -33,6 +33,8 @@ public class RepairTicketService {
     private final CustomerRepository customerRepository;
     private final SerialUnitRepository serialUnitRepository;
     private final UserRepository userRepository;
+    private final SerialUnitService serialUnitService;
+    private final CodeAllocator codeAllocator;
 
     public RepairTicketResponse createRepairTicket(RepairTicketRequest request) {
         log.info("Creating repair ticket for customer: {}", request.getCustomerId());
@@ -46,8 +48,7 @@ public class RepairTicketService {
                     .orElseThrow(() -> new ResourceNotFoundException("Serial unit not found with id: " + request.getSerialUnitId()));
         }
 
-        // Generate unique ticket number
-        String ticketNumber = generateTicketNumber();
+        String ticketNumber = codeAllocator.next(CodeAllocator.CodeType.REPAIR_TICKET);
 
         RepairTicket repairTicket = RepairTicket.builder()
                 .ticketNumber(ticketNumber)
@@ -62,6 +63,7 @@ public class RepairTicketService {
                 .build();
 
         RepairTicket savedTicket = repairTicketRepository.save(repairTicket);
+        evictTrace(savedTicket);
         log.info("Repair ticket created successfully with id: {}", savedTicket.getId());
 
         return mapToResponse(savedTicket);
@@ -78,6 +80,7 @@ public class RepairTicketService {
         ticket.setEstimateCost(request.getEstimatedCost()); // Use estimateCost instead of estimatedCost
 
         RepairTicket updatedTicket = repairTicketRepository.save(ticket);
+        evictTrace(updatedTicket);
         log.info("Repair ticket updated successfully");
 
         return mapToResponse(updatedTicket);
@@ -145,6 +148,7 @@ public class RepairTicketService {
         // Model doesn't have startDate field, skip this
 
         repairTicketRepository.save(ticket);
+        evictTrace(ticket);
         log.info("Repair started successfully");
     }
 
@@ -164,6 +168,7 @@ public class RepairTicketService {
         ticket.setClosedAt(LocalDateTime.now()); // Use closedAt instead of completedDate
 
         repairTicketRepository.save(ticket);
+        evictTrace(ticket);
         log.info("Repair completed successfully");
     }
 
@@ -181,6 +186,7 @@ public class RepairTicketService {
         // Model doesn't have deliveredDate field, skip this
 
         repairTicketRepository.save(ticket);
+        evictTrace(ticket);
         log.info("Device delivered successfully");
     }
 
@@ -200,13 +206,15 @@ public class RepairTicketService {
         ticket.setDiagnosis("Cancelled: " + cancellationReason);
 
         repairTicketRepository.save(ticket);
+        evictTrace(ticket);
         log.info("Repair cancelled successfully");
     }
 
-    private String generateTicketNumber() {
-        String prefix = "RPR";
-        String timestamp = String.valueOf(System.currentTimeMillis() % 1000000);
-        return prefix + timestamp;
+    // The ticket is part of its unit's IMEI trace
+    private void evictTrace(RepairTicket ticket) {
+        if (ticket.getSerialUnit() != null) {
+            serialUnitService.evictTraces(List.of(ticket.getSerialUnit().getImei()));
+        }
     }
 
     private RepairTicketResponse mapToResponse(RepairTicket ticket) {
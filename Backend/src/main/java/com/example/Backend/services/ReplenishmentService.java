@@ -0,0 +1,229 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.stock.ReplenishmentSuggestion;
+import com.example.Backend.models.ReplenishmentForecast;
+import com.example.Backend.repositorys.ReplenishmentBatchRepository;
+import com.example.Backend.repositorys.ReplenishmentForecastRepository;
+import com.example.Backend.utils.DemandForecaster;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Reorder points from forecast demand rather than static thresholds. Weekly units sold per SKU
+ * are read from the stock movement ledger and smoothed by {@link DemandForecaster}; the reorder
+ * point covers forecast demand over the lead time plus safety stock, and the order-up-to level
+ * also covers the review period. Suggestions compare those levels with the live stock row and
+ * never order past max_stock.
+ * <p>
+ * The nightly batch splits the SKUs into chunks forecast concurrently on the report executor.
+ * It re-forecasts everything on {@code replenishment.full-run-day} and otherwise only SKUs with
+ * movements since the previous run started.
+ */
+@Service
+@Slf4j
+public class ReplenishmentService {
+
+    public enum Mode {
+        FULL, INCREMENTAL
+    }
+
+    private final ReplenishmentBatchRepository replenishmentBatchRepository;
+    private final ReplenishmentForecastRepository replenishmentForecastRepository;
+    private final Executor reportTaskExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${replenishment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${replenishment.full-run-day:MONDAY}")
+    private DayOfWeek fullRunDay;
+
+    @Value("${replenishment.history-weeks:104}")
+    private int historyWeeks;
+
+    @Value("${replenishment.season-weeks:52}")
+    private int seasonWeeks;
+
+    @Value("${replenishment.alpha:0.3}")
+    private double alpha;
+
+    @Value("${replenishment.beta:0.05}")
+    private double beta;
+
+    @Value("${replenishment.gamma:0.2}")
+    private double gamma;
+
+    @Value("${replenishment.lead-time-weeks:2}")
+    private int leadTimeWeeks;
+
+    @Value("${replenishment.review-weeks:1}")
+    private int reviewWeeks;
+
+    // z-score of the cycle service level; 1.65 is about 95%
+    @Value("${replenishment.service-level-z:1.65}")
+    private double serviceLevelZ;
+
+    @Value("${replenishment.chunk-size:500}")
+    private int chunkSize;
+
+    public ReplenishmentService(ReplenishmentBatchRepository replenishmentBatchRepository,
+                                ReplenishmentForecastRepository replenishmentForecastRepository,
+                                @Qualifier("reportTaskExecutor") Executor reportTaskExecutor,
+                                PlatformTransactionManager transactionManager) {
+        this.replenishmentBatchRepository = replenishmentBatchRepository;
+        this.replenishmentForecastRepository = replenishmentForecastRepository;
+        this.reportTaskExecutor = reportTaskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${replenishment.cron:0 30 1 * * *}")
+    public void runNightly() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Mode mode = today.getDayOfWeek() == fullRunDay ? Mode.FULL : Mode.INCREMENTAL;
+        LocalDateTime since = replenishmentForecastRepository.findLastFinishedRunStart().orElse(null);
+        LocalDateTime startedAt = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                replenishmentForecastRepository.claimRun(today, mode.name(), startedAt));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        try {
+            int forecast = run(since == null ? Mode.FULL : mode, since);
+            transactionTemplate.executeWithoutResult(status -> replenishmentForecastRepository.finishRun(today, forecast));
+        } catch (RuntimeException e) {
+            log.error("Nightly replenishment run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Re-forecast all stocked SKUs, or in incremental mode only those with movements since the
+     * given time. Returns the number of SKUs forecast.
+     */
+    public int run(Mode mode, LocalDateTime since) {
+        long started = System.currentTimeMillis();
+        List<Long> skuIds = mode == Mode.INCREMENTAL && since != null
+                ? replenishmentBatchRepository.findSkuIdsMovedSince(since)
+                : replenishmentBatchRepository.findStockedSkuIds();
+        // Only complete weeks count; the current one is still filling up
+        LocalDate to = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate from = to.minusWeeks(historyWeeks);
+        DemandForecaster forecaster = new DemandForecaster(alpha, beta, gamma, seasonWeeks);
+
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < skuIds.size(); start += chunkSize) {
+            List<Long> chunk = skuIds.subList(start, Math.min(start + chunkSize, skuIds.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> forecastChunk(chunk, from, to, forecaster), reportTaskExecutor));
+        }
+        int forecast = chunks.stream().mapToInt(CompletableFuture::join).sum();
+        log.info("Replenishment {} run forecast {} SKUs in {} ms", mode, forecast, System.currentTimeMillis() - started);
+        return forecast;
+    }
+
+    /**
+     * Manual run; incremental runs cover movements since the last finished nightly run started.
+     */
+    public int runNow(Mode mode) {
+        return run(mode, replenishmentForecastRepository.findLastFinishedRunStart().orElse(null));
+    }
+
+    public List<ReplenishmentSuggestion> getSuggestions(int limit) {
+        List<ReplenishmentSuggestion> suggestions = new ArrayList<>();
+        for (Object[] row : replenishmentForecastRepository.findSuggestions(limit)) {
+            int quantity = ((Number) row[1]).intValue();
+            int reserved = ((Number) row[2]).intValue();
+            suggestions.add(ReplenishmentSuggestion.builder()
+                    .skuId(((Number) row[0]).longValue())
+                    .quantity(quantity)
+                    .reservedQty(reserved)
+                    .availableQty(quantity - reserved)
+                    .minStock(((Number) row[3]).intValue())
+                    .maxStock(row[4] != null ? ((Number) row[4]).intValue() : null)
+                    .weeklyDemand((BigDecimal) row[5])
+                    .reorderPoint(((Number) row[6]).intValue())
+                    .orderUpTo(((Number) row[7]).intValue())
+                    .suggestedQty(((Number) row[8]).intValue())
+                    .forecastAt(toLocalDateTime(row[9]))
+                    .build());
+        }
+        return suggestions;
+    }
+
+    private int forecastChunk(List<Long> skuIds, LocalDate from, LocalDate to, DemandForecaster forecaster) {
+        int weeks = (int) ChronoUnit.WEEKS.between(from, to);
+        Map<Long, double[]> sales = new HashMap<>();
+        Map<Long, Integer> firstWeek = new HashMap<>();
+        replenishmentBatchRepository.forEachWeeklySales(skuIds, from, to, (skuId, weekStart, quantity) -> {
+            int week = (int) ChronoUnit.WEEKS.between(from, weekStart);
+            sales.computeIfAbsent(skuId, id -> new double[weeks])[week] = quantity;
+            firstWeek.putIfAbsent(skuId, week);
+        });
+        Map<Long, Integer[]> limits = replenishmentBatchRepository.findStockLimits(skuIds);
+
+        List<ReplenishmentForecast> forecasts = new ArrayList<>(skuIds.size());
+        for (Long skuId : skuIds) {
+            Integer[] limit = limits.get(skuId);
+            if (limit == null) {
+                continue;
+            }
+            double[] history = sales.containsKey(skuId)
+                    // Weeks before the first sale in the window say nothing about demand
+                    ? Arrays.copyOfRange(sales.get(skuId), firstWeek.get(skuId), weeks)
+                    : new double[0];
+            forecasts.add(toForecast(skuId, forecaster.forecast(history, leadTimeWeeks + reviewWeeks),
+                    history.length, limit[0], limit[1]));
+        }
+        if (!forecasts.isEmpty()) {
+            replenishmentBatchRepository.upsertForecasts(forecasts);
+        }
+        return forecasts.size();
+    }
+
+    ReplenishmentForecast toForecast(Long skuId, DemandForecaster.Forecast forecast, int history,
+                                     int minStock, Integer maxStock) {
+        int coverWeeks = leadTimeWeeks + reviewWeeks;
+        double safetyLead = serviceLevelZ * forecast.getStdDev() * Math.sqrt(leadTimeWeeks);
+        double safetyCover = serviceLevelZ * forecast.getStdDev() * Math.sqrt(coverWeeks);
+        int reorderPoint = Math.max(minStock, (int) Math.ceil(forecast.total(leadTimeWeeks) + safetyLead));
+        int orderUpTo = Math.max(reorderPoint, (int) Math.ceil(forecast.total(coverWeeks) + safetyCover));
+        if (maxStock != null) {
+            orderUpTo = Math.min(orderUpTo, maxStock);
+            reorderPoint = Math.min(reorderPoint, orderUpTo);
+        }
+        return ReplenishmentForecast.builder()
+                .skuId(skuId)
+                .weeklyDemand(BigDecimal.valueOf(forecast.week(1)).setScale(3, RoundingMode.HALF_UP))
+                .demandStdDev(BigDecimal.valueOf(forecast.getStdDev()).setScale(3, RoundingMode.HALF_UP))
+                .reorderPoint(reorderPoint)
+                .orderUpTo(orderUpTo)
+                .historyWeeks(history)
+                .seasonal(forecast.isSeasonal())
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
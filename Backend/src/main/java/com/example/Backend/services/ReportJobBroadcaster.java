@@ -0,0 +1,118 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.report.ReportJobStatus;
+import com.example.Backend.utils.CoalescingEmitter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams report job progress to SSE subscribers of this node. Progress arrives over Redis pub/sub
+ * because the job may run on any node; emitters are completed once their job finishes. Each
+ * subscriber is sent only the latest status not yet delivered, from its own virtual thread.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportJobBroadcaster implements MessageListener {
+
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ReportJobService reportJobService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, List<CoalescingEmitter<String, ReportJobStatus>>> emittersByJob = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ReportJobSender-", 0).factory());
+
+    @Value("${report-jobs.sse-timeout-ms:600000}")
+    private long sseTimeoutMs;
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(ReportJobService.PROGRESS_CHANNEL));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    public SseEmitter register(String jobId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        CoalescingEmitter<String, ReportJobStatus> subscriber = new CoalescingEmitter<>(emitter, senders,
+                status -> SseEmitter.event().name("progress").data(status, MediaType.APPLICATION_JSON),
+                ReportJobBroadcaster::furthest,
+                status -> status.getState().isFinished(),
+                error -> log.debug("Dropped report job subscriber: {}", error.getMessage()));
+        emitter.onCompletion(() -> remove(jobId, subscriber));
+        emitter.onTimeout(() -> remove(jobId, subscriber));
+        emitter.onError(error -> remove(jobId, subscriber));
+        emittersByJob.compute(jobId, (id, emitters) -> {
+            List<CoalescingEmitter<String, ReportJobStatus>> subscribed = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            subscribed.add(subscriber);
+            return subscribed;
+        });
+
+        // Read only once subscribed: a final state published before this is in the store, one
+        // published after reaches the emitter, and the queue keeps the further of the two
+        ReportJobStatus status = reportJobService.getStatus(jobId);
+        if (status == null) {
+            remove(jobId, subscriber);
+            throw new IllegalArgumentException("Report job not found: " + jobId);
+        }
+        subscriber.offer(jobId, status);
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ReportJobStatus status;
+        try {
+            status = objectMapper.readValue(message.getBody(), ReportJobStatus.class);
+        } catch (IOException e) {
+            log.warn("Unreadable report job progress message: {}", e.getMessage());
+            return;
+        }
+        List<CoalescingEmitter<String, ReportJobStatus>> emitters = emittersByJob.get(status.getJobId());
+        if (emitters == null) {
+            return;
+        }
+        for (CoalescingEmitter<String, ReportJobStatus> subscriber : emitters) {
+            subscriber.offer(status.getJobId(), status);
+        }
+    }
+
+    // The status read at registration may be offered after a newer one published meanwhile
+    static ReportJobStatus furthest(ReportJobStatus older, ReportJobStatus newer) {
+        if (older.getState().isFinished() != newer.getState().isFinished()) {
+            return older.getState().isFinished() ? older : newer;
+        }
+        int olderProgress = older.getProgress() != null ? older.getProgress() : 0;
+        int newerProgress = newer.getProgress() != null ? newer.getProgress() : 0;
+        return olderProgress > newerProgress ? older : newer;
+    }
+
+    private void remove(String jobId, CoalescingEmitter<String, ReportJobStatus> subscriber) {
+        emittersByJob.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(subscriber);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,452 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.report.ReportJobRequest;
+import com.example.Backend.dtos.report.ReportJobStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs long reports off the request thread. A submitted spec becomes a job on the priority
+ * report pool; job status lives in Redis so any node can answer polls, and the result is stored
+ * gzip-compressed with a TTL. While a job is queued or running, identical specs join it instead
+ * of starting another execution. Range reports run month by month, reporting progress and
+ * checking for cancellation between months.
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    public static final String PROGRESS_CHANNEL = "report-jobs:progress";
+
+    private static final String JOB_PREFIX = "report:job:";
+    private static final String RESULT_PREFIX = "report:result:";
+    private static final String SPEC_PREFIX = "report:spec:";
+
+    // Writes the status unless the stored one is already in one of the given states, so a finishing
+    // job cannot overwrite a cancel from another node, nor a cancel overwrite a finished job
+    private static final DefaultRedisScript<Long> SAVE_UNLESS_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if current then " +
+            "  local state = cjson.decode(current)['state'] " +
+            "  for i = 3, #ARGV do " +
+            "    if state == ARGV[i] then return 0 end " +
+            "  end " +
+            "end " +
+            "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    public enum ReportType {
+        DAILY_SALES(true),
+        SALES_TOTAL(true),
+        SALES_PERFORMANCE(true),
+        TOP_PRODUCTS(true),
+        WARRANTY_STATISTICS(false),
+        STOCK_STATISTICS(false);
+
+        private final boolean dateRange;
+
+        ReportType(boolean dateRange) {
+            this.dateRange = dateRange;
+        }
+
+        public boolean isDateRange() {
+            return dateRange;
+        }
+    }
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    public enum JobState {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor reportJobExecutor;
+    private final SalesRollupService salesRollupService;
+    private final TopProductService topProductService;
+    private final WarrantyService warrantyService;
+    private final StockService stockService;
+
+    private final AtomicLong submissionSequence = new AtomicLong();
+    private final Map<String, JobTask> localJobs = new ConcurrentHashMap<>();
+
+    @Value("${report-jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${report-jobs.result-ttl-minutes:60}")
+    private long resultTtlMinutes;
+
+    @Value("${report-jobs.max-range-days:3660}")
+    private long maxRangeDays;
+
+    public ReportJobService(StringRedisTemplate redisTemplate,
+                            ObjectMapper objectMapper,
+                            @Qualifier("reportJobExecutor") ThreadPoolExecutor reportJobExecutor,
+                            SalesRollupService salesRollupService,
+                            TopProductService topProductService,
+                            WarrantyService warrantyService,
+                            StockService stockService) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.reportJobExecutor = reportJobExecutor;
+        this.salesRollupService = salesRollupService;
+        this.topProductService = topProductService;
+        this.warrantyService = warrantyService;
+        this.stockService = stockService;
+    }
+
+    public ReportJobStatus submit(ReportJobRequest request, String username) {
+        validate(request);
+
+        if (reportJobExecutor.getQueue().size() >= queueCapacity) {
+            throw new IllegalStateException("Report queue is full, try again later");
+        }
+
+        String specKey = SPEC_PREFIX + specHash(request);
+        String jobId = UUID.randomUUID().toString();
+        Duration ttl = Duration.ofMinutes(resultTtlMinutes);
+
+        ReportJobStatus status = ReportJobStatus.builder()
+                .jobId(jobId)
+                .type(request.getType())
+                .startDate(request.getStartDate())
+                .endDate(request.getEndDate())
+                .limit(request.getLimit())
+                .priority(request.getPriority() != null ? request.getPriority() : Priority.NORMAL)
+                .state(JobState.QUEUED)
+                .progress(0)
+                .submittedBy(username)
+                .submittedAt(LocalDateTime.now())
+                .build();
+        // QUEUED is stored before the spec is claimed, so whoever finds the claim also finds the job
+        saveStatus(status);
+
+        Boolean claimed = redisTemplate.opsForValue().setIfAbsent(specKey, jobId, ttl);
+        if (!Boolean.TRUE.equals(claimed)) {
+            ReportJobStatus existing = getStatus(redisTemplate.opsForValue().get(specKey));
+            if (existing != null && !existing.getState().isFinished()) {
+                redisTemplate.delete(JOB_PREFIX + jobId);
+                log.info("Report {} joins running job {}", request.getType(), existing.getJobId());
+                return existing;
+            }
+            redisTemplate.opsForValue().set(specKey, jobId, ttl);
+        }
+
+        JobTask task = new JobTask(status, specKey, submissionSequence.incrementAndGet());
+        localJobs.put(jobId, task);
+        reportJobExecutor.execute(task);
+        log.info("Queued report job {} ({}, {} priority)", jobId, status.getType(), status.getPriority());
+        return status;
+    }
+
+    public ReportJobStatus getStatus(String jobId) {
+        if (jobId == null) {
+            return null;
+        }
+        String json = redisTemplate.opsForValue().get(JOB_PREFIX + jobId);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, ReportJobStatus.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable status for report job " + jobId, e);
+        }
+    }
+
+    /**
+     * The gzip-compressed JSON result, or null when the job has no result (yet, or any more).
+     */
+    public byte[] getCompressedResult(String jobId) {
+        byte[] key = (RESULT_PREFIX + jobId).getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+    }
+
+    /**
+     * Cancel a queued or running job. A running job stops at its next progress checkpoint, on
+     * whichever node it runs.
+     */
+    public ReportJobStatus cancel(String jobId) {
+        ReportJobStatus status = getStatus(jobId);
+        if (status == null) {
+            throw new IllegalArgumentException("Report job not found: " + jobId);
+        }
+        if (status.getState().isFinished()) {
+            return status;
+        }
+
+        JobTask task = localJobs.get(jobId);
+        if (task != null) {
+            task.cancelled = true;
+            if (reportJobExecutor.remove(task)) {
+                task.finish(JobState.CANCELLED, null);
+                return task.status;
+            }
+        }
+        status.setState(JobState.CANCELLED);
+        status.setFinishedAt(LocalDateTime.now());
+        if (!saveStatusUnless(status, JobState.COMPLETED, JobState.FAILED, JobState.CANCELLED)) {
+            // Finished while we were looking
+            return getStatus(jobId);
+        }
+        publish(status);
+        return status;
+    }
+
+    private Object run(JobTask task) {
+        ReportJobStatus spec = task.status;
+        switch (spec.getType()) {
+            case DAILY_SALES: {
+                List<Object[]> rows = new ArrayList<>();
+                forEachMonth(task, (from, to) -> rows.addAll(salesRollupService.getDailySalesReport(from, to)));
+                return rows;
+            }
+            case SALES_TOTAL: {
+                BigDecimal[] total = {BigDecimal.ZERO};
+                forEachMonth(task, (from, to) -> total[0] = total[0].add(salesRollupService.getTotalSales(from, to)));
+                return total[0];
+            }
+            case SALES_PERFORMANCE: {
+                // An order falls in one month, so per-month counts and revenue add up per user
+                Map<Long, Object[]> byUser = new HashMap<>();
+                forEachMonth(task, (from, to) -> salesRollupService.getSalesPerformanceByUserId(from, to)
+                        .forEach((userId, row) -> byUser.merge(userId, row, (a, b) -> new Object[]{
+                                a[0], (Long) a[1] + (Long) b[1], ((BigDecimal) a[2]).add((BigDecimal) b[2])})));
+                List<Object[]> report = new ArrayList<>(byUser.values());
+                report.sort(Comparator.comparing((Object[] row) -> (BigDecimal) row[2]).reversed());
+                return report;
+            }
+            case TOP_PRODUCTS:
+                return topProductService.getTopProducts(spec.getStartDate(), spec.getEndDate(),
+                        spec.getLimit() != null ? spec.getLimit() : 10,
+                        TopProductService.Metric.QUANTITY, task::progress);
+            case WARRANTY_STATISTICS:
+                return warrantyService.getWarrantyStatistics();
+            default:
+                return stockService.getStockStatistics();
+        }
+    }
+
+    private void forEachMonth(JobTask task, MonthChunk chunk) {
+        LocalDate start = task.status.getStartDate();
+        LocalDate end = task.status.getEndDate();
+        long months = YearMonth.from(start).until(YearMonth.from(end), ChronoUnit.MONTHS) + 1;
+        long done = 0;
+        for (YearMonth month = YearMonth.from(start); !month.isAfter(YearMonth.from(end)); month = month.plusMonths(1)) {
+            LocalDate from = month.atDay(1).isBefore(start) ? start : month.atDay(1);
+            LocalDate to = month.atEndOfMonth().isAfter(end) ? end : month.atEndOfMonth();
+            chunk.accept(from, to);
+            task.progress(++done, months);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MonthChunk {
+        void accept(LocalDate from, LocalDate to);
+    }
+
+    private void validate(ReportJobRequest request) {
+        if (!request.getType().isDateRange()) {
+            request.setStartDate(null);
+            request.setEndDate(null);
+            return;
+        }
+        if (request.getStartDate() == null || request.getEndDate() == null) {
+            throw new IllegalArgumentException("Start date and end date are required for " + request.getType());
+        }
+        if (request.getStartDate().isAfter(request.getEndDate())) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+        if (request.getStartDate().plusDays(maxRangeDays).isBefore(request.getEndDate())) {
+            throw new IllegalArgumentException("Date range cannot exceed " + maxRangeDays + " days");
+        }
+    }
+
+    // Priority only orders the queue, so it is not part of the spec identity
+    private String specHash(ReportJobRequest request) {
+        String spec = request.getType() + "|" + request.getStartDate() + "|" + request.getEndDate() + "|" + request.getLimit();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(spec.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void saveStatus(ReportJobStatus status) {
+        try {
+            redisTemplate.opsForValue().set(JOB_PREFIX + status.getJobId(), objectMapper.writeValueAsString(status),
+                    Duration.ofMinutes(resultTtlMinutes));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize report job status", e);
+        }
+    }
+
+    private boolean saveStatusUnless(ReportJobStatus status, JobState... blocking) {
+        List<String> args = new ArrayList<>();
+        try {
+            args.add(objectMapper.writeValueAsString(status));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize report job status", e);
+        }
+        args.add(String.valueOf(Duration.ofMinutes(resultTtlMinutes).toMillis()));
+        for (JobState state : blocking) {
+            args.add(state.name());
+        }
+        Long saved = redisTemplate.execute(SAVE_UNLESS_SCRIPT, List.of(JOB_PREFIX + status.getJobId()), args.toArray());
+        return saved != null && saved == 1L;
+    }
+
+    private void publish(ReportJobStatus status) {
+        try {
+            redisTemplate.convertAndSend(PROGRESS_CHANNEL, objectMapper.writeValueAsString(status));
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.debug("Could not publish progress of report job {}: {}", status.getJobId(), e.getMessage());
+        }
+    }
+
+    private byte[] compress(Object result) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            objectMapper.writeValue(gzip, result);
+        }
+        return buffer.toByteArray();
+    }
+
+    private class JobTask implements Runnable, Comparable<JobTask> {
+
+        final ReportJobStatus status;
+        final String specKey;
+        final long sequence;
+        volatile boolean cancelled;
+
+        JobTask(ReportJobStatus status, String specKey, long sequence) {
+            this.status = status;
+            this.specKey = specKey;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            try {
+                checkCancelled();
+                status.setState(JobState.RUNNING);
+                status.setStartedAt(LocalDateTime.now());
+                if (!saveStatusUnless(status, JobState.CANCELLED)) {
+                    throw new CancellationException();
+                }
+                publish(status);
+
+                byte[] result = compress(run(this));
+                redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(
+                        (RESULT_PREFIX + status.getJobId()).getBytes(StandardCharsets.UTF_8), result,
+                        Expiration.from(Duration.ofMinutes(resultTtlMinutes)), SetOption.upsert()));
+                status.setResultBytes((long) result.length);
+                status.setProgress(100);
+                if (finish(JobState.COMPLETED, null)) {
+                    log.info("Report job {} completed ({} bytes compressed)", status.getJobId(), result.length);
+                } else {
+                    redisTemplate.delete(RESULT_PREFIX + status.getJobId());
+                    log.info("Report job {} cancelled as it completed", status.getJobId());
+                }
+            } catch (CancellationException e) {
+                finish(JobState.CANCELLED, null);
+                log.info("Report job {} cancelled", status.getJobId());
+            } catch (Exception e) {
+                finish(JobState.FAILED, e.getMessage());
+                log.error("Report job {} failed: {}", status.getJobId(), e.getMessage());
+            }
+        }
+
+        void progress(long done, long total) {
+            int percent = (int) (done * 100 / Math.max(total, 1));
+            if (percent != status.getProgress()) {
+                status.setProgress(percent);
+                checkCancelled();
+                if (!saveStatusUnless(status, JobState.CANCELLED)) {
+                    throw new CancellationException();
+                }
+                publish(status);
+            }
+        }
+
+        void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            ReportJobStatus stored = getStatus(status.getJobId());
+            if (stored != null && stored.getState() == JobState.CANCELLED) {
+                throw new CancellationException();
+            }
+        }
+
+        /**
+         * Store the final state unless the job was cancelled meanwhile, in which case the cancel
+         * stands and false is returned.
+         */
+        boolean finish(JobState state, String error) {
+            status.setState(state);
+            status.setError(error);
+            status.setFinishedAt(LocalDateTime.now());
+            boolean saved = saveStatusUnless(status, JobState.CANCELLED);
+            if (saved) {
+                publish(status);
+            } else {
+                status.setState(JobState.CANCELLED);
+                status.setError(null);
+                status.setResultBytes(null);
+            }
+            localJobs.remove(status.getJobId());
+            // Later identical specs start a fresh execution
+            if (status.getJobId().equals(redisTemplate.opsForValue().get(specKey))) {
+                redisTemplate.delete(specKey);
+            }
+            return saved;
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            int byPriority = status.getPriority().compareTo(other.status.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.event.OrderLifecycleEvent;
+import com.example.Backend.dtos.report.SalesCubeResult;
+import com.example.Backend.dtos.report.SalesCubeRow;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Customer.CustomerTier;
+import com.example.Backend.models.OrderEvent;
+import com.example.Backend.models.OutboxCheckpoint;
+import com.example.Backend.models.ProductModel.ProductCategory;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.CustomerRepository;
+import com.example.Backend.repositorys.OrderEventRepository;
+import com.example.Backend.repositorys.OutboxCheckpointRepository;
+import com.example.Backend.repositorys.SKURepository;
+import com.example.Backend.repositorys.SalesBatchRepository;
+import com.example.Backend.repositorys.UserRepository;
+import com.example.Backend.utils.SalesCube;
+import com.example.Backend.utils.SalesCube.Dimension;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ad-hoc revenue and units sliced by brand, category, SKU, staff member, customer tier and day in
+ * any combination, answered from an in-memory {@link SalesCube} instead of a GROUP BY over the
+ * order tables. The cube holds the lines of orders currently PAID, the same figure the rollups
+ * report; revenue is the sum of line totals, before order-level discount and tax.
+ * <p>
+ * The cube is loaded from a repeatable-read snapshot and then follows the order event outbox in
+ * relay order up to the relay checkpoint, so every node keeps its own copy current without
+ * relaying. Events already committed but not yet relayed when the snapshot was taken are skipped
+ * when they come through. Each batch of events is staged in full before any of it is appended,
+ * and the applied position only moves once it is, so a failed batch is retried from scratch and
+ * never counted twice. A line moved in or out of PAID keeps the customer tier the customer has
+ * when the event is applied.
+ */
+@Service
+@Slf4j
+public class SalesCubeService {
+
+    private static final int EVENT_BATCH_SIZE = 500;
+    private static final int MAX_LIMIT = 10000;
+
+    private final SalesBatchRepository salesBatchRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final OutboxCheckpointRepository outboxCheckpointRepository;
+    private final OrderEventService orderEventService;
+    private final SKURepository skuRepository;
+    private final CustomerRepository customerRepository;
+    private final UserRepository userRepository;
+    private final Executor reportTaskExecutor;
+    private final TransactionTemplate snapshotTransactionTemplate;
+    private final ForkJoinPool queryPool;
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    // Replaced together under the service lock by a reload
+    private volatile SalesCube cube;
+    private Map<Long, int[]> skuCodes = new HashMap<>();
+    private Set<Long> eventsInSnapshot = new HashSet<>();
+    private long appliedUpTo;
+
+    @Value("${sales-cube.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    public SalesCubeService(SalesBatchRepository salesBatchRepository,
+                            OrderEventRepository orderEventRepository,
+                            OutboxCheckpointRepository outboxCheckpointRepository,
+                            OrderEventService orderEventService,
+                            SKURepository skuRepository,
+                            CustomerRepository customerRepository,
+                            UserRepository userRepository,
+                            @Qualifier("reportTaskExecutor") Executor reportTaskExecutor,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${sales-cube.parallelism:0}") int parallelism) {
+        this.salesBatchRepository = salesBatchRepository;
+        this.orderEventRepository = orderEventRepository;
+        this.outboxCheckpointRepository = outboxCheckpointRepository;
+        this.orderEventService = orderEventService;
+        this.skuRepository = skuRepository;
+        this.customerRepository = customerRepository;
+        this.userRepository = userRepository;
+        this.reportTaskExecutor = reportTaskExecutor;
+        this.snapshotTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransactionTemplate.setReadOnly(true);
+        this.queryPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queryPool.shutdownNow();
+    }
+
+    public SalesCubeResult query(LocalDate startDate, LocalDate endDate, List<Dimension> groupBy,
+                                 Collection<Long> brandIds, Collection<ProductCategory> categories,
+                                 Collection<Long> skuIds, Collection<Long> userIds,
+                                 Collection<CustomerTier> tiers, int limit) {
+        SalesCube current = cube;
+        if (current == null) {
+            throw new IllegalStateException("Sales cube is still loading, try again shortly");
+        }
+        long started = System.nanoTime();
+
+        SalesCube.Query query = new SalesCube.Query((int) startDate.toEpochDay(), (int) endDate.toEpochDay(), groupBy);
+        filter(current, query, Dimension.BRAND, brandIds, Function.identity());
+        filter(current, query, Dimension.CATEGORY, categories, category -> (long) category.ordinal());
+        filter(current, query, Dimension.SKU, skuIds, Function.identity());
+        filter(current, query, Dimension.STAFF, userIds, Function.identity());
+        filter(current, query, Dimension.CUSTOMER_TIER, tiers, tier -> (long) tier.ordinal());
+
+        // Groups whose orders were all refunded or cancelled net out to nothing
+        List<SalesCube.Group> groups = current.query(query, queryPool).stream()
+                .filter(group -> group.getQuantity() != 0 || group.getRevenueCents() != 0)
+                .collect(Collectors.toList());
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Dimension[] dimensions = query.getGroupBy();
+        List<SalesCubeRow> rows = groups.stream()
+                .sorted(Comparator.comparingLong(SalesCube.Group::getRevenueCents).reversed()
+                        .thenComparing(Comparator.comparingLong(SalesCube.Group::getQuantity).reversed()))
+                .limit(size)
+                .map(group -> toRow(current, dimensions, group))
+                .collect(Collectors.toList());
+
+        return SalesCubeResult.builder()
+                .groupBy(Arrays.stream(dimensions).map(Enum::name).collect(Collectors.toList()))
+                .rows(rows)
+                .totalGroups(groups.size())
+                .cubeRows(current.size())
+                .elapsedMs((System.nanoTime() - started) / 1_000_000)
+                .build();
+    }
+
+    /**
+     * Rebuild the cube from the order tables and swap it in. Returns the number of lines loaded.
+     */
+    public int reload() {
+        if (!loading.compareAndSet(false, true)) {
+            throw new IllegalStateException("Sales cube is already loading");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            SalesCube fresh = new SalesCube();
+            Map<Long, int[]> freshSkuCodes = new HashMap<>();
+            long[] checkpoint = new long[1];
+            List<Long> pending = new ArrayList<>();
+
+            snapshotTransactionTemplate.executeWithoutResult(status -> {
+                // The first read fixes the snapshot: relayed events are in it, and so are the
+                // committed ones still pending, which must not be applied again
+                checkpoint[0] = outboxCheckpointRepository.findById(OrderEventRelay.CHECKPOINT_NAME)
+                        .map(OutboxCheckpoint::getLastEventId).orElse(0L);
+                pending.addAll(orderEventRepository.findUnrelayedIds());
+                salesBatchRepository.forEachPaidOrderLine((skuId, skuCode, brandId, brandName, category, userId,
+                                                           userName, customerTier, orderDate, quantity, revenueCents) -> {
+                    int[] codes = freshSkuCodes.computeIfAbsent(skuId, id -> new int[]{
+                            fresh.encode(Dimension.BRAND, brandId, brandName),
+                            fresh.encode(Dimension.CATEGORY, ProductCategory.valueOf(category).ordinal(), category),
+                            fresh.encode(Dimension.SKU, id, skuCode)});
+                    fresh.append(codes[0], codes[1], codes[2],
+                            fresh.encode(Dimension.STAFF, userId, userName),
+                            fresh.encode(Dimension.CUSTOMER_TIER, CustomerTier.valueOf(customerTier).ordinal(), customerTier),
+                            (int) orderDate.toEpochDay(), quantity, revenueCents);
+                });
+            });
+
+            synchronized (this) {
+                cube = fresh;
+                skuCodes = freshSkuCodes;
+                eventsInSnapshot = new HashSet<>(pending);
+                appliedUpTo = checkpoint[0];
+            }
+            log.info("Loaded sales cube with {} lines in {} ms", fresh.size(), System.currentTimeMillis() - started);
+            return fresh.size();
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!loadOnStartup) {
+            return;
+        }
+        CompletableFuture.runAsync(this::reload, reportTaskExecutor).exceptionally(e -> {
+            log.warn("Could not load sales cube on startup: {}", e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Append the lines of orders that entered or left PAID, for events the relay has delivered.
+     */
+    @Scheduled(fixedDelayString = "${sales-cube.poll-interval-ms:2000}")
+    public synchronized void applyNewEvents() {
+        if (cube == null) {
+            return;
+        }
+        long upTo = outboxCheckpointRepository.findById(OrderEventRelay.CHECKPOINT_NAME)
+                .map(OutboxCheckpoint::getLastEventId).orElse(0L);
+        try {
+            List<OrderEvent> batch;
+            do {
+                batch = orderEventRepository.findByRelaySeqGreaterThanAndRelaySeqLessThanEqualOrderByRelaySeqAsc(
+                        appliedUpTo, upTo, PageRequest.of(0, EVENT_BATCH_SIZE));
+                // Staging may fail part way; appending a staged batch cannot
+                SalesCube.Batch rows = stage(batch);
+                cube.append(rows);
+                if (!batch.isEmpty()) {
+                    appliedUpTo = batch.get(batch.size() - 1).getRelaySeq();
+                    batch.forEach(event -> eventsInSnapshot.remove(event.getId()));
+                }
+            } while (batch.size() == EVENT_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("Could not apply order events to the sales cube: {}", e.getMessage());
+        }
+    }
+
+    private SalesCube.Batch stage(List<OrderEvent> batch) {
+        SalesCube.Batch rows = new SalesCube.Batch();
+        List<OrderLifecycleEvent> changes = new ArrayList<>();
+        for (OrderEvent event : batch) {
+            if (eventsInSnapshot.contains(event.getId())) {
+                continue;
+            }
+            OrderLifecycleEvent message = orderEventService.toMessage(event);
+            if (sign(message) != 0 && message.getItems() != null) {
+                changes.add(message);
+            }
+        }
+        if (changes.isEmpty()) {
+            return rows;
+        }
+
+        loadSkuCodes(changes.stream().flatMap(change -> change.getItems().stream())
+                .map(OrderLifecycleEvent.Line::getSkuId).collect(Collectors.toSet()));
+        Map<Long, CustomerTier> tiers = customerRepository.findAllById(changes.stream()
+                        .map(OrderLifecycleEvent::getCustomerId).filter(Objects::nonNull).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Customer::getId, Customer::getTier));
+        Map<Long, String> staffNames = userRepository.findAllById(changes.stream()
+                        .map(OrderLifecycleEvent::getUserId).filter(Objects::nonNull).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(User::getId, User::getFullName));
+
+        SalesCube current = cube;
+        for (OrderLifecycleEvent change : changes) {
+            int sign = sign(change);
+            CustomerTier tier = tiers.getOrDefault(change.getCustomerId(), CustomerTier.REGULAR);
+            int tierCode = current.encode(Dimension.CUSTOMER_TIER, tier.ordinal(), tier.name());
+            int staffCode = current.encode(Dimension.STAFF, change.getUserId(), staffNames.get(change.getUserId()));
+            LocalDate day = change.getOrderDate() != null ? change.getOrderDate() : change.getOccurredAt().toLocalDate();
+            for (OrderLifecycleEvent.Line line : change.getItems()) {
+                int[] codes = skuCodes.get(line.getSkuId());
+                if (codes == null) {
+                    log.warn("SKU {} of order {} no longer exists, skipped in the sales cube", line.getSkuId(), change.getOrderId());
+                    continue;
+                }
+                long revenueCents = line.getLineTotal() != null ? line.getLineTotal().movePointRight(2).longValue() : 0L;
+                rows.add(codes[0], codes[1], codes[2], staffCode, tierCode, (int) day.toEpochDay(),
+                        sign * (long) line.getQuantity(), sign * revenueCents);
+            }
+        }
+        return rows;
+    }
+
+    private void loadSkuCodes(Set<Long> skuIds) {
+        skuIds.removeAll(skuCodes.keySet());
+        if (skuIds.isEmpty()) {
+            return;
+        }
+        SalesCube current = cube;
+        for (SKU sku : skuRepository.findAllWithModelAndBrandByIdIn(skuIds)) {
+            ProductCategory category = sku.getModel().getCategory();
+            skuCodes.put(sku.getId(), new int[]{
+                    current.encode(Dimension.BRAND, sku.getModel().getBrand().getId(), sku.getModel().getBrand().getName()),
+                    current.encode(Dimension.CATEGORY, category.ordinal(), category.name()),
+                    current.encode(Dimension.SKU, sku.getId(), sku.getCode())});
+        }
+    }
+
+    private <T> void filter(SalesCube current, SalesCube.Query query, Dimension dimension,
+                            Collection<T> values, Function<T, Long> toKey) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        query.filter(dimension, values.stream().mapToInt(value -> current.code(dimension, toKey.apply(value))).toArray());
+    }
+
+    private SalesCubeRow toRow(SalesCube current, Dimension[] dimensions, SalesCube.Group group) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        Map<String, Long> ids = new LinkedHashMap<>();
+        for (int i = 0; i < dimensions.length; i++) {
+            Dimension dimension = dimensions[i];
+            int value = group.value(i);
+            if (dimension == Dimension.DAY) {
+                labels.put(dimension.name(), LocalDate.ofEpochDay(value).toString());
+                continue;
+            }
+            labels.put(dimension.name(), current.label(dimension, value));
+            if (dimension == Dimension.BRAND || dimension == Dimension.SKU || dimension == Dimension.STAFF) {
+                ids.put(dimension.name(), current.key(dimension, value));
+            }
+        }
+        return SalesCubeRow.builder()
+                .dimensions(labels)
+                .ids(ids)
+                .quantity(group.getQuantity())
+                .revenue(BigDecimal.valueOf(group.getRevenueCents(), 2))
+                .build();
+    }
+
+    // +1 for an order entering PAID, -1 for one leaving it
+    private static int sign(OrderLifecycleEvent event) {
+        int sign = 0;
+        if (event.getStatus() == OrderStatus.PAID) {
+            sign++;
+        }
+        if (event.getPreviousStatus() == OrderStatus.PAID) {
+            sign--;
+        }
+        return sign;
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.Backend.services;
 
+import com.example.Backend.dtos.CursorPage;
+import com.example.Backend.dtos.CursorPage.TotalMode;
+import com.example.Backend.dtos.pricing.PriceQuoteResponse;
 import com.example.Backend.dtos.salesorder.SalesOrderRequest;
 import com.example.Backend.dtos.salesorder.SalesOrderResponse;
 import com.example.Backend.dtos.salesorder.SalesOrderItemRequest;
@@ -7,11 +10,15 @@ import com.example.Backend.exceptions.OrderException;
 import com.example.Backend.exceptions.StockException;
 import com.example.Backend.mappers.SalesOrderMapper;
 import com.example.Backend.models.*;
+import com.example.Backend.models.OrderEvent.EventType;
 import com.example.Backend.models.SalesOrder.OrderStatus;
 import com.example.Backend.repositorys.*;
+import com.example.Backend.repositorys.SalesBatchRepository.AllocatedSerial;
+import com.example.Backend.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +26,11 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,10 +43,17 @@ public class SalesOrderService {
     private final SalesOrderItemRepository salesOrderItemRepository;
     private final CustomerRepository customerRepository;
     private final SKURepository skuRepository;
-    private final StockItemRepository stockItemRepository;
-    private final StockMovementRepository stockMovementRepository;
     private final SalesOrderMapper salesOrderMapper;
     private final AuthService authService;
+    private final StockReservationService stockReservationService;
+    private final StockLedgerWriter stockLedgerWriter;
+    private final OrderEventService orderEventService;
+    private final PricingEngine pricingEngine;
+    private final SalesRollupService salesRollupService;
+    private final StockLocationService stockLocationService;
+    private final SerialUnitService serialUnitService;
+    private final SerialUnitRepository serialUnitRepository;
+    private final CodeAllocator codeAllocator;
 
     public SalesOrderResponse createOrder(SalesOrderRequest request) {
         try {
@@ -43,8 +61,10 @@ public class SalesOrderService {
             User user = authService.getCurrentUser();
 
             SalesOrder order = SalesOrder.builder()
+                    .orderNumber(codeAllocator.next(CodeAllocator.CodeType.SALES_ORDER))
                     .customer(customer)
                     .user(user)
+                    .location(stockLocationService.resolve(request.getLocationId()))
                     .status(OrderStatus.DRAFT)
                     .paymentMethod(request.getPaymentMethod())
                     .subtotal(BigDecimal.ZERO)
@@ -58,12 +78,13 @@ public class SalesOrderService {
             // Add order items if provided
             if (request.getItems() != null && !request.getItems().isEmpty()) {
 
-                addItemsToOrder(savedOrder, request.getItems());
+                List<SalesOrderItem> items = addItemsToOrder(savedOrder, request.getItems());
 
-                calculateOrderTotals(savedOrder);
+                calculateOrderTotals(savedOrder, items);
 
                 savedOrder = salesOrderRepository.save(savedOrder);
             }
+            salesRollupService.record(savedOrder, null, null);
 
             return salesOrderMapper.toResponse(savedOrder);
         } catch (Exception e) {
@@ -88,14 +109,16 @@ public class SalesOrderService {
             order.setNotes(request.getNotes());
 
             // Update order items if provided
-            if (request.getItems() != null) {
-                updateOrderItems(order, request.getItems());
-            }
+            List<SalesOrderItem> items = request.getItems() != null
+                    ? updateOrderItems(order, request.getItems())
+                    : getOrderItems(order.getId());
 
             // Recalculate totals after items update
-            calculateOrderTotals(order);
+            BigDecimal previousTotal = order.getTotal();
+            calculateOrderTotals(order, items);
 
             SalesOrder savedOrder = salesOrderRepository.save(order);
+            salesRollupService.record(savedOrder, savedOrder.getStatus(), previousTotal);
             log.info("Successfully updated sales order ID: {}", id);
             return salesOrderMapper.toResponse(savedOrder);
         } catch (Exception e) {
@@ -114,6 +137,23 @@ public class SalesOrderService {
                 .map(salesOrderMapper::toResponse);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<SalesOrderResponse> getOrdersByCursor(String cursor, int size, TotalMode totalMode) {
+        int pageSize = CursorPage.clampSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<SalesOrder> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = salesOrderRepository.findFirstPageByKeyset(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = salesOrderRepository.findPageAfterKeyset(after.getTimestamp(), after.getId(), limit);
+        }
+        return CursorPage.of(rows, pageSize,
+                        order -> new KeysetCursor(order.getCreatedAt(), order.getId()),
+                        salesOrderMapper::toResponse)
+                .withTotal(totalMode, salesOrderRepository::estimateRowCount, salesOrderRepository::count);
+    }
+
     public Page<SalesOrderResponse> getOrdersByStatus(OrderStatus status, Pageable pageable) {
         return salesOrderRepository.findByStatus(status, pageable)
                 .map(salesOrderMapper::toResponse);
@@ -139,10 +179,15 @@ public class SalesOrderService {
         }
 
         // Reserve stock for all items
-        reserveStockForOrder(order);
+        List<SalesOrderItem> items = getOrderItems(order.getId());
+        stockReservationService.reserve(order, items);
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CONFIRMED);
         SalesOrder savedOrder = salesOrderRepository.save(order);
+        orderEventService.append(savedOrder, EventType.ORDER_CONFIRMED, previousStatus, items);
+        serialUnitService.evictOrderTraces(items);
+        salesRollupService.record(savedOrder, previousStatus, savedOrder.getTotal());
 
         return salesOrderMapper.toResponse(savedOrder);
     }
@@ -155,10 +200,15 @@ public class SalesOrderService {
         }
 
         // Process stock movements
-        processStockMovements(order);
+        List<SalesOrderItem> items = allocateSerialUnits(order, getOrderItems(order.getId()));
+        processStockMovements(order, items);
 
         order.setStatus(OrderStatus.PAID);
         SalesOrder savedOrder = salesOrderRepository.save(order);
+        orderEventService.append(savedOrder, EventType.ORDER_PAID, OrderStatus.CONFIRMED, items);
+        serialUnitService.evictOrderTraces(items);
+        salesRollupService.record(savedOrder, OrderStatus.CONFIRMED, savedOrder.getTotal());
+        salesRollupService.recordItems(savedOrder, OrderStatus.CONFIRMED, items);
 
         return salesOrderMapper.toResponse(savedOrder);
     }
@@ -171,15 +221,19 @@ public class SalesOrderService {
         }
 
         // Release reserved stock
-        releaseReservedStockForOrder(order);
+        List<SalesOrderItem> items = getOrderItems(order.getId());
+        stockReservationService.release(order, items);
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
-        salesOrderRepository.save(order);
+        SalesOrder savedOrder = salesOrderRepository.save(order);
+        orderEventService.append(savedOrder, EventType.ORDER_CANCELLED, previousStatus, items);
+        serialUnitService.evictOrderTraces(items);
+        salesRollupService.record(savedOrder, previousStatus, savedOrder.getTotal());
     }
 
     public BigDecimal getTotalSales(LocalDate startDate, LocalDate endDate) {
-        BigDecimal total = salesOrderRepository.getTotalSalesBetween(startDate, endDate);
-        return total != null ? total : BigDecimal.ZERO;
+        return salesRollupService.getTotalSales(startDate, endDate);
     }
 
     public long getOrderCountByStatus(OrderStatus status) {
@@ -191,21 +245,47 @@ public class SalesOrderService {
     }
 
     public List<Object[]> getDailySalesReport(LocalDate startDate, LocalDate endDate) {
-        return salesOrderRepository.getDailySalesReport(startDate, endDate);
+        return salesRollupService.getDailySalesReport(startDate, endDate);
     }
 
     public List<Object[]> getSalesPerformanceByUser(LocalDate startDate, LocalDate endDate) {
-        return salesOrderRepository.getSalesPerformanceByUser(startDate, endDate);
+        return salesRollupService.getSalesPerformanceByUser(startDate, endDate);
     }
 
-    private void addItemsToOrder(SalesOrder order, List<SalesOrderItemRequest> itemRequests) {
-        for (SalesOrderItemRequest itemRequest : itemRequests) {
+    /**
+     * Price a prospective order without saving anything.
+     */
+    @Transactional(readOnly = true)
+    public PriceQuoteResponse quoteOrder(SalesOrderRequest request) {
+        // Checked before any lookup, so a bad line is a validation error rather than a failed unboxing
+        List<SalesOrderItemRequest> items = request.getItems() != null ? request.getItems() : List.of();
+        for (SalesOrderItemRequest itemRequest : items) {
+            if (itemRequest.getQuantity() == null || itemRequest.getQuantity() < 1) {
+                throw new OrderException("Quantity must be at least 1 for SKU: " + itemRequest.getSkuId());
+            }
+        }
+
+        Customer customer = findCustomerById(request.getCustomerId());
+        List<PricingEngine.CartLine> lines = new ArrayList<>();
+        for (SalesOrderItemRequest itemRequest : items) {
             SKU sku = findSkuById(itemRequest.getSkuId());
+            lines.add(PricingEngine.CartLine.of(sku, itemRequest.getQuantity(), sku.getPrice()));
+        }
+        return pricingEngine.price(customer, lines, request.getDiscount());
+    }
 
-            // Check stock availability
-            if (!checkStockAvailability(sku.getId(), itemRequest.getQuantity())) {
-                throw new StockException("Insufficient stock for SKU: " + sku.getId());
-            }
+    private List<SalesOrderItem> addItemsToOrder(SalesOrder order, List<SalesOrderItemRequest> itemRequests) {
+        // Check stock availability for the whole cart at once, lines of the same SKU together
+        Map<Long, Integer> demand = itemRequests.stream()
+                .collect(Collectors.toMap(SalesOrderItemRequest::getSkuId, SalesOrderItemRequest::getQuantity, Integer::sum));
+        List<Long> shortages = stockLocationService.findShortages(stockLocationService.locationIdOf(order.getLocation()), demand);
+        if (!shortages.isEmpty()) {
+            throw new StockException("Insufficient stock for SKU: " + shortages);
+        }
+
+        List<SalesOrderItem> items = new ArrayList<>();
+        for (SalesOrderItemRequest itemRequest : itemRequests) {
+            SKU sku = findSkuById(itemRequest.getSkuId());
 
             SalesOrderItem item = SalesOrderItem.builder()
                     .order(order)
@@ -215,110 +295,103 @@ public class SalesOrderService {
                     .build();
 
             item.updateLineTotal();
-
+            items.add(item);
         }
+        return salesOrderItemRepository.saveAll(items);
     }
 
-    private void updateOrderItems(SalesOrder order, List<SalesOrderItemRequest> itemRequests) {
-        // Get all existing items for this order
-        List<SalesOrderItem> existingItems = getOrderItems(order.getId());
-
+    private List<SalesOrderItem> updateOrderItems(SalesOrder order, List<SalesOrderItemRequest> itemRequests) {
         // Clear existing items
-        for (SalesOrderItem existingItem : existingItems) {
-            salesOrderItemRepository.delete(existingItem);
-        }
+        salesOrderItemRepository.deleteAll(getOrderItems(order.getId()));
 
         // Add new items
-        if (itemRequests != null && !itemRequests.isEmpty()) {
-            for (SalesOrderItemRequest itemRequest : itemRequests) {
-                SKU sku = findSkuById(itemRequest.getSkuId());
-
-                // Check stock availability
-                if (!checkStockAvailability(sku.getId(), itemRequest.getQuantity())) {
-                    throw new StockException("Insufficient stock for SKU: " + sku.getId());
-                }
-
-                SalesOrderItem item = SalesOrderItem.builder()
-                        .order(order)
-                        .sku(sku)
-                        .quantity(itemRequest.getQuantity())
-                        .unitPrice(sku.getPrice())
-                        .build();
-
-                item.updateLineTotal();
-                salesOrderItemRepository.save(item);
-            }
+        if (itemRequests == null || itemRequests.isEmpty()) {
+            return new ArrayList<>();
         }
+        return addItemsToOrder(order, itemRequests);
     }
 
-    private void calculateOrderTotals(SalesOrder order) {
-        try {
-            List<SalesOrderItem> items = getOrderItems(order.getId());
-
-            BigDecimal subtotal = items.stream()
-                    .map(SalesOrderItem::getLineTotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add); // Fix ambiguous reference
-
-            order.setSubtotal(subtotal);
-
-            // Calculate tax (assuming 10% VAT)
-            BigDecimal taxAmount = subtotal.multiply(new BigDecimal("0.10"));
-            order.setTaxAmount(taxAmount);
-
-            // Calculate total
-            BigDecimal total = subtotal.add(taxAmount).subtract(order.getDiscount());
-            order.setTotal(total);
-        } catch (Exception e) {
-            log.error("Error calculating order totals for order ID {}: {}", order.getId(), e.getMessage());
+    /**
+     * Price the items with the active pricing rules; line discounts land on the items and the
+     * order keeps its manual discount, applied after tax.
+     */
+    private void calculateOrderTotals(SalesOrder order, List<SalesOrderItem> items) {
+        List<PricingEngine.CartLine> lines = items.stream()
+                .map(item -> PricingEngine.CartLine.of(item.getSku(), item.getQuantity(), item.getUnitPrice()))
+                .collect(Collectors.toList());
+        PriceQuoteResponse quote = pricingEngine.price(order.getCustomer(), lines, order.getDiscount());
 
-            order.setSubtotal(BigDecimal.ZERO);
-            order.setTaxAmount(BigDecimal.ZERO);
-            order.setTotal(BigDecimal.ZERO);
+        for (int i = 0; i < items.size(); i++) {
+            SalesOrderItem item = items.get(i);
+            item.setDiscount(quote.getLines().get(i).getDiscount());
+            item.setLineTotal(quote.getLines().get(i).getLineTotal());
         }
+
+        order.setSubtotal(quote.getSubtotal());
+        order.setTaxAmount(quote.getTaxAmount());
+        order.setTotal(quote.getTotal());
     }
 
-    private void reserveStockForOrder(SalesOrder order) {
-        List<SalesOrderItem> items = getOrderItems(order.getId());
-        for (SalesOrderItem item : items) {
-            int reserved = stockItemRepository.reserveStock(item.getSku().getId(), item.getQuantity());
-            if (reserved == 0) {
-                throw new StockException("Failed to reserve stock for SKU: " + item.getSku().getId());
-            }
-        }
+    private void processStockMovements(SalesOrder order, List<SalesOrderItem> items) {
+        // Turn the reservation holds into stock decreases for all SKUs at once
+        stockReservationService.consume(order, items);
+
+        // Ledger rows are written together at commit
+        stockLedgerWriter.append(StockMovement.MovementType.OUT, StockMovement.MovementReason.SALE,
+                "sales_order", order.getId(), order.getUser() != null ? order.getUser().getId() : null,
+                stockLocationService.locationIdOf(order.getLocation()),
+                items.stream().map(item -> item.getSku().getId()).collect(Collectors.toList()),
+                items.stream().map(SalesOrderItem::getQuantity).collect(Collectors.toList()),
+                items.stream().map(item -> item.getSerialUnit() != null ? item.getSerialUnit().getId() : null)
+                        .collect(Collectors.toList()));
     }
 
-    private void releaseReservedStockForOrder(SalesOrder order) {
-        List<SalesOrderItem> items = getOrderItems(order.getId());
-        for (SalesOrderItem item : items) {
-            stockItemRepository.releaseReservation(item.getSku().getId(), item.getQuantity());
+    /**
+     * Give every serialized line that has no unit yet the oldest in-stock units of its SKU. A line
+     * for several units is split into one line per unit with the discount spread to the cent, so
+     * each line references its serial unit the same way a till checkout does.
+     */
+    private List<SalesOrderItem> allocateSerialUnits(SalesOrder order, List<SalesOrderItem> items) {
+        SortedMap<Long, Integer> demand = items.stream()
+                .filter(SalesOrderService::needsSerialUnit)
+                .collect(Collectors.toMap(item -> item.getSku().getId(), SalesOrderItem::getQuantity,
+                        Integer::sum, TreeMap::new));
+        if (demand.isEmpty()) {
+            return items;
         }
-    }
+        Map<Long, Deque<AllocatedSerial>> allocated = serialUnitService.allocateForSale(demand, "sales_order", order.getId());
 
-    private void processStockMovements(SalesOrder order) {
-        List<SalesOrderItem> items = getOrderItems(order.getId());
+        List<SalesOrderItem> linked = new ArrayList<>(items.size());
+        List<SalesOrderItem> changed = new ArrayList<>();
         for (SalesOrderItem item : items) {
-            // Release reservation
-            stockItemRepository.releaseReservation(item.getSku().getId(), item.getQuantity());
-
-            // Decrease actual stock
-            int decreased = stockItemRepository.decreaseStock(item.getSku().getId(), item.getQuantity());
-            if (decreased == 0) {
-                throw new StockException("Failed to decrease stock for SKU: " + item.getSku().getId());
+            if (!needsSerialUnit(item)) {
+                linked.add(item);
+                continue;
+            }
+            Deque<AllocatedSerial> units = allocated.get(item.getSku().getId());
+            int quantity = item.getQuantity();
+            long discountCents = item.getDiscount().movePointRight(2).longValueExact();
+            for (int i = 0; i < quantity; i++) {
+                BigDecimal discount = BigDecimal.valueOf(discountCents / quantity + (i < discountCents % quantity ? 1 : 0), 2);
+                SalesOrderItem unitLine = i == 0 ? item : SalesOrderItem.builder()
+                        .order(item.getOrder())
+                        .sku(item.getSku())
+                        .unitPrice(item.getUnitPrice())
+                        .build();
+                unitLine.setSerialUnit(serialUnitRepository.getReferenceById(units.poll().serialUnitId()));
+                unitLine.setQuantity(1);
+                unitLine.setDiscount(discount);
+                unitLine.setLineTotal(item.getUnitPrice().subtract(discount));
+                linked.add(unitLine);
+                changed.add(unitLine);
             }
-
-            // Create stock movement record
-            StockMovement movement = StockMovement.builder()
-                    .sku(item.getSku())
-                    .movementType(StockMovement.MovementType.OUT)
-                    .quantity(item.getQuantity())
-                    .reason(StockMovement.MovementReason.SALE)
-                    .refType("sales_order")
-                    .refId(order.getId())
-                    .createdBy(order.getUser())
-                    .build();
-
-            stockMovementRepository.save(movement);
         }
+        salesOrderItemRepository.saveAll(changed);
+        return linked;
+    }
+
+    private static boolean needsSerialUnit(SalesOrderItem item) {
+        return item.getSerialUnit() == null && Boolean.TRUE.equals(item.getSku().getIsSerialized());
     }
 
     private List<SalesOrderItem> getOrderItems(Long orderId) {
@@ -330,12 +403,6 @@ public class SalesOrderService {
         return items;
     }
 
-    private boolean checkStockAvailability(Long skuId, Integer requiredQuantity) {
-        return stockItemRepository.findBySkuId(skuId)
-                .map(stockItem -> stockItem.canReserve(requiredQuantity))
-                .orElse(false);
-    }
-
     private SalesOrder findOrderById(Long id) {
         return salesOrderRepository.findById(id)
                 .orElseThrow(() -> new OrderException("Order not found with id: " + id));
@@ -0,0 +1,249 @@
+package com.example.Backend.services;
+
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.models.SalesOrderItem;
+import com.example.Backend.repositorys.DailySalesRollupRepository;
+import com.example.Backend.repositorys.DailySkuSalesRepository;
+import com.example.Backend.repositorys.SalesBatchRepository;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Daily sales rollups. Every order creation, status change or total change applies its delta to
+ * daily_sales_rollup in the caller's transaction, so closed days can be reported from the rollup
+ * alone. Today is still read from sales_order, where the rows are hot and few. Orders entering or
+ * leaving PAID also move their lines in daily_sku_sales.
+ */
+@Service
+@Transactional
+@Slf4j
+public class SalesRollupService {
+
+    private static final int MONTH_LOCK_CLASS = 0x524F4C4C;
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final SalesOrderRepository salesOrderRepository;
+    private final DailySkuSalesRepository dailySkuSalesRepository;
+    private final SalesBatchRepository salesBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor reportTaskExecutor;
+
+    @Value("${reports.rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public SalesRollupService(DailySalesRollupRepository rollupRepository,
+                              SalesOrderRepository salesOrderRepository,
+                              DailySkuSalesRepository dailySkuSalesRepository,
+                              SalesBatchRepository salesBatchRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("reportTaskExecutor") Executor reportTaskExecutor) {
+        this.rollupRepository = rollupRepository;
+        this.salesOrderRepository = salesOrderRepository;
+        this.dailySkuSalesRepository = dailySkuSalesRepository;
+        this.salesBatchRepository = salesBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reportTaskExecutor = reportTaskExecutor;
+    }
+
+    /**
+     * Move the order from (previousStatus, previousTotal) to its current status and total. Pass a
+     * null previousStatus for a newly created order.
+     */
+    public void record(SalesOrder order, OrderStatus previousStatus, BigDecimal previousTotal) {
+        BigDecimal total = order.getTotal() != null ? order.getTotal() : BigDecimal.ZERO;
+        BigDecimal oldTotal = previousTotal != null ? previousTotal : BigDecimal.ZERO;
+        if (previousStatus == order.getStatus() && total.compareTo(oldTotal) == 0) {
+            return;
+        }
+
+        LocalDate salesDate = order.getOrderDate();
+        rollupRepository.lockMonthShared(MONTH_LOCK_CLASS, monthKey(YearMonth.from(salesDate)));
+
+        if (previousStatus == order.getStatus()) {
+            rollupRepository.applyDelta(salesDate, order.getUser().getId(), order.getStatus().name(), 0, total.subtract(oldTotal));
+            return;
+        }
+
+        // Touch the two rows in enum order so opposite transitions cannot deadlock
+        SortedMap<OrderStatus, Object[]> deltas = new TreeMap<>();
+        deltas.put(order.getStatus(), new Object[]{1L, total});
+        if (previousStatus != null) {
+            deltas.put(previousStatus, new Object[]{-1L, oldTotal.negate()});
+        }
+        deltas.forEach((status, delta) -> rollupRepository.applyDelta(
+                salesDate, order.getUser().getId(), status.name(), (Long) delta[0], (BigDecimal) delta[1]));
+    }
+
+    /**
+     * Move the order's lines into or out of the per-SKU daily counters when it enters or leaves PAID.
+     */
+    public void recordItems(SalesOrder order, OrderStatus previousStatus, List<SalesOrderItem> items) {
+        int sign = (order.getStatus() == OrderStatus.PAID ? 1 : 0) - (previousStatus == OrderStatus.PAID ? 1 : 0);
+        if (sign == 0 || items.isEmpty()) {
+            return;
+        }
+
+        SortedMap<Long, long[]> quantities = new TreeMap<>();
+        SortedMap<Long, BigDecimal> revenues = new TreeMap<>();
+        for (SalesOrderItem item : items) {
+            Long skuId = item.getSku().getId();
+            quantities.computeIfAbsent(skuId, id -> new long[1])[0] += (long) sign * item.getQuantity();
+            BigDecimal lineTotal = item.getLineTotal() != null ? item.getLineTotal() : BigDecimal.ZERO;
+            revenues.merge(skuId, sign > 0 ? lineTotal : lineTotal.negate(), BigDecimal::add);
+        }
+
+        rollupRepository.lockMonthShared(MONTH_LOCK_CLASS, monthKey(YearMonth.from(order.getOrderDate())));
+        salesBatchRepository.upsertDailySkuSales(order.getOrderDate(),
+                new ArrayList<>(quantities.keySet()),
+                quantities.values().stream().map(quantity -> quantity[0]).collect(Collectors.toList()),
+                new ArrayList<>(revenues.values()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Object[]> getDailySalesReport(LocalDate startDate, LocalDate endDate) {
+        List<Object[]> report = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        if (startDate.isBefore(today)) {
+            report.addAll(rollupRepository.getDailySales(startDate, min(endDate, today.minusDays(1))));
+        }
+        if (!endDate.isBefore(today)) {
+            report.addAll(salesOrderRepository.getDailySalesReport(max(startDate, today), endDate));
+        }
+        return report;
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalSales(LocalDate startDate, LocalDate endDate) {
+        BigDecimal total = BigDecimal.ZERO;
+        LocalDate today = LocalDate.now();
+        if (startDate.isBefore(today)) {
+            total = total.add(orZero(rollupRepository.getTotalSales(startDate, min(endDate, today.minusDays(1)))));
+        }
+        if (!endDate.isBefore(today)) {
+            total = total.add(orZero(salesOrderRepository.getTotalSalesBetween(max(startDate, today), endDate)));
+        }
+        return total;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<OrderStatus, Long> getOrderCountsByStatus() {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : rollupRepository.countOrdersByStatus()) {
+            counts.put((OrderStatus) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Rows of (full name, order count, total), best seller first.
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> getSalesPerformanceByUser(LocalDate startDate, LocalDate endDate) {
+        List<Object[]> report = new ArrayList<>(getSalesPerformanceByUserId(startDate, endDate).values());
+        report.sort(Comparator.comparing((Object[] row) -> (BigDecimal) row[2]).reversed());
+        return report;
+    }
+
+    /**
+     * Same rows as {@link #getSalesPerformanceByUser}, keyed by user id.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Object[]> getSalesPerformanceByUserId(LocalDate startDate, LocalDate endDate) {
+        Map<Long, Object[]> byUser = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        if (startDate.isBefore(today)) {
+            mergeByUser(byUser, rollupRepository.getSalesPerformanceByUser(startDate, min(endDate, today.minusDays(1))));
+        }
+        if (!endDate.isBefore(today)) {
+            mergeByUser(byUser, salesOrderRepository.getSalesPerformanceByUserId(max(startDate, today), endDate));
+        }
+        return byUser;
+    }
+
+    /**
+     * Rebuild the rollups of every month touching [startDate, endDate] from sales_order, one
+     * transaction per month on the report executor. Returns the number of months rebuilt.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int backfill(LocalDate startDate, LocalDate endDate) {
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+
+        List<CompletableFuture<Integer>> rebuilds = months.stream()
+                .map(month -> CompletableFuture.supplyAsync(() -> rebuildMonth(month), reportTaskExecutor))
+                .toList();
+        int rows = CompletableFuture.allOf(rebuilds.toArray(CompletableFuture[]::new))
+                .thenApply(done -> rebuilds.stream().mapToInt(CompletableFuture::join).sum())
+                .join();
+
+        log.info("Rebuilt daily sales and SKU rollups for {} months ({} rows)", months.size(), rows);
+        return months.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup || (rollupRepository.count() > 0 && dailySkuSalesRepository.count() > 0)) {
+            return;
+        }
+        LocalDate firstOrderDate = rollupRepository.findFirstOrderDate();
+        if (firstOrderDate != null) {
+            log.info("Daily sales rollup is empty, backfilling from {}", firstOrderDate);
+            backfill(firstOrderDate, LocalDate.now());
+        }
+    }
+
+    private int rebuildMonth(YearMonth month) {
+        return transactionTemplate.execute(status -> {
+            rollupRepository.lockMonthExclusive(MONTH_LOCK_CLASS, monthKey(month));
+            rollupRepository.deleteBetween(month.atDay(1), month.atEndOfMonth());
+            dailySkuSalesRepository.deleteBetween(month.atDay(1), month.atEndOfMonth());
+            return rollupRepository.rebuildBetween(month.atDay(1), month.atEndOfMonth())
+                    + dailySkuSalesRepository.rebuildBetween(month.atDay(1), month.atEndOfMonth());
+        });
+    }
+
+    private void mergeByUser(Map<Long, Object[]> byUser, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            byUser.merge((Long) row[0],
+                    new Object[]{row[1], ((Number) row[2]).longValue(), orZero((BigDecimal) row[3])},
+                    (a, b) -> new Object[]{a[0], (Long) a[1] + (Long) b[1], ((BigDecimal) a[2]).add((BigDecimal) b[2])});
+        }
+    }
+
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -1,22 +1,47 @@
 package com.example.Backend.services;
 
+import com.example.Backend.dtos.serial.SerialTraceResponse;
 import com.example.Backend.dtos.serial.SerialUnitRequest;
 import com.example.Backend.dtos.serial.SerialUnitResponse;
 import com.example.Backend.exceptions.StockException;
 import com.example.Backend.mappers.SerialUnitMapper;
 import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrderItem;
 import com.example.Backend.models.SerialUnit;
+import com.example.Backend.models.SerialUnitEvent;
 import com.example.Backend.repositorys.SKURepository;
+import com.example.Backend.repositorys.SalesBatchRepository;
+import com.example.Backend.repositorys.SalesBatchRepository.AllocatedSerial;
+import com.example.Backend.repositorys.SerialTraceRepository;
+import com.example.Backend.repositorys.SerialTraceRepository.TraceRow;
+import com.example.Backend.repositorys.SerialUnitEventRepository;
 import com.example.Backend.repositorys.SerialUnitRepository;
+import com.example.Backend.utils.Imei;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Serial units (IMEIs). Every status change is appended to serial_unit_event, and the IMEI trace
+ * the service counter looks up is cached in Redis until the unit's history changes.
+ */
+@Slf4j
 @Service
 @Transactional
 @RequiredArgsConstructor
@@ -25,23 +50,50 @@ public class SerialUnitService {
     private final SerialUnitRepository serialUnitRepository;
     private final SKURepository skuRepository;
     private final SerialUnitMapper serialUnitMapper;
+    private final SalesBatchRepository salesBatchRepository;
+    private final SerialUnitEventRepository serialUnitEventRepository;
+    private final SerialTraceRepository serialTraceRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ImeiIntakeService imeiIntakeService;
+
+    private static final String TRACE_PREFIX = "serial:trace:";
+
+    @Value("${serial.trace.cache-ttl-minutes:30}")
+    private long traceTtlMinutes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void prepareAllocationIndex() {
+        try {
+            salesBatchRepository.createSerialInStockIndex();
+        } catch (RuntimeException e) {
+            log.warn("Could not create the in-stock serial unit index: {}", e.getMessage());
+        }
+    }
 
     public SerialUnitResponse createSerialUnit(SerialUnitRequest request) {
         SKU sku = findSkuById(request.getSkuId());
 
-        if (serialUnitRepository.existsByImei(request.getImei())) {
-            throw new StockException("IMEI already exists: " + request.getImei());
+        String imei = Imei.normalize(request.getImei());
+        if (!Imei.isValid(imei)) {
+            throw new StockException("Invalid IMEI: " + request.getImei());
+        }
+        if (!imeiIntakeService.findRegistered(List.of(imei)).isEmpty()) {
+            throw new StockException("IMEI already exists: " + imei);
         }
 
         SerialUnit serialUnit = SerialUnit.builder()
                 .sku(sku)
-                .imei(request.getImei())
+                .imei(imei)
                 .status(SerialUnit.SerialStatus.IN_STOCK)
                 .purchaseDate(request.getPurchaseDate())
                 .notes(request.getNotes())
                 .build();
 
         SerialUnit saved = serialUnitRepository.save(serialUnit);
+        imeiIntakeService.register(List.of(imei));
+        recordStatusChange(saved, null, null, null);
         return serialUnitMapper.toResponse(saved);
     }
 
@@ -76,16 +128,115 @@ public class SerialUnitService {
     }
 
     public void updateStatus(Long id, String status) {
-        SerialUnit serialUnit = findSerialUnitById(id);
-        SerialUnit.SerialStatus newStatus = SerialUnit.SerialStatus.valueOf(status.toUpperCase());
-        serialUnit.setStatus(newStatus);
-        serialUnitRepository.save(serialUnit);
+        changeStatus(findSerialUnitById(id), SerialUnit.SerialStatus.valueOf(status.toUpperCase()));
     }
 
     public void markAsSold(Long id) {
-        SerialUnit serialUnit = findSerialUnitById(id);
-        serialUnit.setStatus(SerialUnit.SerialStatus.SOLD);
-        serialUnitRepository.save(serialUnit);
+        changeStatus(findSerialUnitById(id), SerialUnit.SerialStatus.SOLD);
+    }
+
+    /**
+     * Full story of the unit with the given IMEI: its status changes, the sale, warranties and
+     * repair tickets, oldest first. Read with one query and cached until the unit's history changes.
+     */
+    @Transactional(readOnly = true)
+    public SerialTraceResponse traceByImei(String imei) {
+        SerialTraceResponse cached = readCachedTrace(imei);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<TraceRow> rows = serialTraceRepository.findTimelineByImei(imei);
+        TraceRow unit = rows.stream().filter(row -> "UNIT".equals(row.kind())).findFirst()
+                .orElseThrow(() -> new StockException("Serial unit not found with IMEI: " + imei));
+        SerialTraceResponse trace = SerialTraceResponse.builder()
+                .serialUnitId(unit.unitId())
+                .imei(imei)
+                .skuId(unit.refId())
+                .skuCode(unit.detail())
+                .status(unit.status())
+                .receivedAt(unit.at())
+                .timeline(rows.stream()
+                        .filter(row -> row != unit)
+                        .map(row -> SerialTraceResponse.Entry.builder()
+                                .kind(row.kind())
+                                .at(row.at())
+                                .status(row.status())
+                                .refType(row.refType())
+                                .refId(row.refId())
+                                .detail(row.detail())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+
+        try {
+            redisTemplate.opsForValue().set(TRACE_PREFIX + imei, objectMapper.writeValueAsString(trace),
+                    Duration.ofMinutes(traceTtlMinutes));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not cache serial trace for {}: {}", imei, e.getMessage());
+        }
+        return trace;
+    }
+
+    /**
+     * Drop the cached traces of the given IMEIs once the current transaction commits, e.g. after a
+     * warranty or repair ticket for the unit was written.
+     */
+    public void evictTraces(Collection<String> imeis) {
+        if (imeis.isEmpty()) {
+            return;
+        }
+        List<String> keys = imeis.stream().map(imei -> TRACE_PREFIX + imei).collect(Collectors.toList());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteTraces(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteTraces(keys);
+            }
+        });
+    }
+
+    /**
+     * Drop the cached traces of the units on an order's lines once the current transaction
+     * commits. A trace shows the status of the order that sold the unit, so confirming, paying,
+     * cancelling or refunding the order makes it stale.
+     */
+    public void evictOrderTraces(Collection<SalesOrderItem> items) {
+        evictTraces(items.stream()
+                .map(SalesOrderItem::getSerialUnit)
+                .filter(Objects::nonNull)
+                .map(SerialUnit::getImei)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Sell the oldest in-stock units of each SKU, first in first out, for the given quantities.
+     * Units held by a concurrent sale are skipped, never waited for; if that leaves a SKU short the
+     * whole allocation fails and the units claimed so far go back with the rollback. Returns the
+     * claimed units per SKU, oldest first.
+     */
+    public Map<Long, Deque<AllocatedSerial>> allocateForSale(SortedMap<Long, Integer> demand, String refType, Long refId) {
+        Map<Long, Deque<AllocatedSerial>> allocated = new HashMap<>();
+        if (demand.isEmpty()) {
+            return allocated;
+        }
+        List<AllocatedSerial> units = salesBatchRepository.allocateSerials(
+                new ArrayList<>(demand.keySet()), new ArrayList<>(demand.values()), refType, refId);
+        for (AllocatedSerial unit : units) {
+            allocated.computeIfAbsent(unit.skuId(), skuId -> new ArrayDeque<>()).add(unit);
+        }
+        List<Long> shortages = demand.entrySet().stream()
+                .filter(entry -> allocated.getOrDefault(entry.getKey(), new ArrayDeque<>()).size() < entry.getValue())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        if (!shortages.isEmpty()) {
+            throw new StockException("Not enough serial units in stock for SKU: " + shortages);
+        }
+        evictTraces(units.stream().map(AllocatedSerial::imei).collect(Collectors.toList()));
+        return allocated;
     }
 
     public Page<SerialUnitResponse> getAllSerialUnits(Pageable pageable) {
@@ -93,6 +244,45 @@ public class SerialUnitService {
                 .map(serialUnitMapper::toResponse);
     }
 
+    private void changeStatus(SerialUnit serialUnit, SerialUnit.SerialStatus newStatus) {
+        SerialUnit.SerialStatus previous = serialUnit.getStatus();
+        if (previous == newStatus) {
+            return;
+        }
+        serialUnit.setStatus(newStatus);
+        serialUnitRepository.save(serialUnit);
+        recordStatusChange(serialUnit, previous, null, null);
+    }
+
+    private void recordStatusChange(SerialUnit serialUnit, SerialUnit.SerialStatus previous, String refType, Long refId) {
+        serialUnitEventRepository.save(SerialUnitEvent.builder()
+                .serialUnitId(serialUnit.getId())
+                .fromStatus(previous)
+                .toStatus(serialUnit.getStatus())
+                .refType(refType)
+                .refId(refId)
+                .build());
+        evictTraces(List.of(serialUnit.getImei()));
+    }
+
+    private SerialTraceResponse readCachedTrace(String imei) {
+        try {
+            String json = redisTemplate.opsForValue().get(TRACE_PREFIX + imei);
+            return json != null ? objectMapper.readValue(json, SerialTraceResponse.class) : null;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not read cached serial trace for {}: {}", imei, e.getMessage());
+            return null;
+        }
+    }
+
+    private void deleteTraces(List<String> keys) {
+        try {
+            redisTemplate.delete(keys);
+        } catch (RuntimeException e) {
+            log.warn("Could not evict serial traces {}: {}", keys, e.getMessage());
+        }
+    }
+
     private SerialUnit findSerialUnitById(Long id) {
         return serialUnitRepository.findById(id)
                 .orElseThrow(() -> new StockException("Serial unit not found with id: " + id));
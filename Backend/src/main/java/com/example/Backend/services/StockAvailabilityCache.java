@@ -0,0 +1,349 @@
+package com.example.Backend.services;
+
+import com.example.Backend.repositorys.StockBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Quantity and reserved counters of stock_item per SKU and of location_stock per SKU and
+ * location, held in memory so availability checks on carts and quotes need no I/O. The
+ * conditional UPDATEs stay the source of truth at commit; this cache only answers "is there
+ * enough right now".
+ * <p>
+ * Writers report their deltas with the location they hit; these are applied to both counters
+ * once their transaction commits and announced over Redis. Every node, the writer included, then
+ * re-reads the announced SKUs on a single refresher thread, so concurrent deltas and reloads converge on the committed values. A periodic
+ * full resync covers messages lost while Redis was unreachable.
+ */
+@Slf4j
+@Component
+public class StockAvailabilityCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "stock:availability:invalidate";
+
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private final StockBatchRepository stockBatchRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // Quantity in the high 32 bits and reserved in the low 32, so both change in one atomic step
+    private final Map<Long, AtomicLong> levels = new ConcurrentHashMap<>();
+    // Packed the same way, per location, for every SKU in levels; no entry means no row there
+    private final Map<Long, Map<Long, AtomicLong>> locationLevels = new ConcurrentHashMap<>();
+    private final Set<Long> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("StockCache-"));
+    private volatile boolean hydrated;
+
+    @Value("${stock.availability-cache.enabled:true}")
+    private boolean enabled;
+
+    public StockAvailabilityCache(StockBatchRepository stockBatchRepository,
+                                  StringRedisTemplate redisTemplate,
+                                  RedisMessageListenerContainer listenerContainer) {
+        this.stockBatchRepository = stockBatchRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void hydrateOnStartup() {
+        if (enabled) {
+            refresher.execute(this::resync);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.availability-cache.resync-interval-ms:300000}",
+            initialDelayString = "${stock.availability-cache.resync-interval-ms:300000}")
+    public void scheduleResync() {
+        if (enabled && hydrated) {
+            refresher.execute(this::resync);
+        }
+    }
+
+    /**
+     * Reload everything, for writes that bypass the deltas such as placing legacy stock at a location.
+     */
+    public void requestResync() {
+        if (enabled) {
+            refresher.execute(this::resync);
+        }
+    }
+
+    /**
+     * Quantity minus reserved, or 0 for a SKU without a stock row.
+     */
+    public int getAvailableQuantity(Long skuId) {
+        AtomicLong level = hydrated ? levels.get(skuId) : null;
+        if (level != null) {
+            return available(level.get());
+        }
+        int[] loaded = stockBatchRepository.findLevels(List.of(skuId)).get(skuId);
+        if (loaded == null) {
+            return 0;
+        }
+        if (hydrated) {
+            levels.putIfAbsent(skuId, new AtomicLong(pack(loaded[0], loaded[1])));
+        }
+        return loaded[0] - loaded[1];
+    }
+
+    /**
+     * SKUs of the demand the location cannot cover right now, sorted. Answered from the location
+     * counters; SKUs the cache does not hold yet are read from the database, all in one query.
+     */
+    public List<Long> findShortages(long locationId, Map<Long, Integer> demand) {
+        List<Long> shortages = new ArrayList<>();
+        List<Long> misses = new ArrayList<>();
+        demand.forEach((skuId, quantity) -> {
+            Map<Long, AtomicLong> atLocations = hydrated ? locationLevels.get(skuId) : null;
+            if (atLocations == null) {
+                misses.add(skuId);
+                return;
+            }
+            AtomicLong level = atLocations.get(locationId);
+            if (level == null || available(level.get()) < quantity) {
+                shortages.add(skuId);
+            }
+        });
+        if (!misses.isEmpty()) {
+            Map<Long, int[]> loaded = stockBatchRepository.findLocationLevels(locationId, misses);
+            for (Long skuId : misses) {
+                int[] level = loaded.get(skuId);
+                if (level == null || level[0] - level[1] < demand.get(skuId)) {
+                    shortages.add(skuId);
+                }
+            }
+        }
+        Collections.sort(shortages);
+        return shortages;
+    }
+
+    public void onReserved(long locationId, Map<Long, Integer> quantities) {
+        afterCommit(Map.of(locationId, deltas(quantities, 0, 1)));
+    }
+
+    public void onReleased(long locationId, Map<Long, Integer> quantities) {
+        afterCommit(Map.of(locationId, deltas(quantities, 0, -1)));
+    }
+
+    /**
+     * Stock at the location decreased by the demand, of which {@code held} had been reserved.
+     */
+    public void onDecreased(long locationId, Map<Long, Integer> demand, Map<Long, Integer> held) {
+        Map<Long, int[]> deltas = deltas(demand, -1, 0);
+        held.forEach((skuId, quantity) -> {
+            if (deltas.containsKey(skuId)) {
+                deltas.get(skuId)[1] -= quantity;
+            }
+        });
+        afterCommit(Map.of(locationId, deltas));
+    }
+
+    public void onIncreased(long locationId, Map<Long, Integer> quantities) {
+        afterCommit(Map.of(locationId, deltas(quantities, 1, 0)));
+    }
+
+    /**
+     * Quantities moved between locations; the SKU totals come out unchanged.
+     */
+    public void onTransferred(long fromLocationId, long toLocationId, Map<Long, Integer> quantities) {
+        afterCommit(Map.of(fromLocationId, deltas(quantities, -1, 0), toLocationId, deltas(quantities, 1, 0)));
+    }
+
+    public void onQuantityChanged(Long skuId, long locationId, int quantityDelta) {
+        Map<Long, int[]> deltas = new HashMap<>();
+        deltas.put(skuId, new int[]{quantityDelta, 0});
+        afterCommit(Map.of(locationId, deltas));
+    }
+
+    /**
+     * Only the SKU's limits changed; announced so subscribers see it move in or out of low stock.
+     */
+    public void onLimitsChanged(Long skuId) {
+        afterCommit(Map.of(), Set.of(skuId));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            Arrays.stream(body.split(",")).filter(id -> !id.isBlank()).map(Long::valueOf).forEach(pendingRefresh::add);
+        } catch (NumberFormatException e) {
+            log.warn("Ignored malformed stock invalidation message: {}", body);
+            return;
+        }
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refresher.execute(this::refreshPending);
+        }
+    }
+
+    // {quantity, reserved} deltas per SKU, per location
+    private void afterCommit(Map<Long, Map<Long, int[]>> deltasByLocation) {
+        Set<Long> skuIds = new TreeSet<>();
+        deltasByLocation.values().forEach(deltas -> skuIds.addAll(deltas.keySet()));
+        afterCommit(deltasByLocation, skuIds);
+    }
+
+    // Announced even with the cache disabled: the announcements also drive StockEventBroadcaster
+    private void afterCommit(Map<Long, Map<Long, int[]>> deltasByLocation, Set<Long> skuIds) {
+        if (skuIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyAndAnnounce(deltasByLocation, skuIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyAndAnnounce(deltasByLocation, skuIds);
+            }
+        });
+    }
+
+    private void applyAndAnnounce(Map<Long, Map<Long, int[]>> deltasByLocation, Set<Long> skuIds) {
+        deltasByLocation.forEach((locationId, deltas) -> deltas.forEach((skuId, delta) -> {
+            apply(levels.get(skuId), delta);
+            Map<Long, AtomicLong> atLocations = locationLevels.get(skuId);
+            if (atLocations == null) {
+                return;
+            }
+            // Stock arriving where the SKU had no row created that row with the arriving quantity
+            AtomicLong level = delta[0] > 0
+                    ? atLocations.computeIfAbsent(locationId, id -> new AtomicLong())
+                    : atLocations.get(locationId);
+            apply(level, delta);
+        }));
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                    skuIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (RuntimeException e) {
+            // Other nodes catch up at the next full resync
+            log.warn("Could not announce stock changes for SKUs {}: {}", skuIds, e.getMessage());
+        }
+    }
+
+    private static void apply(AtomicLong level, int[] delta) {
+        if (level != null) {
+            level.updateAndGet(packed -> pack(quantity(packed) + delta[0], Math.max(0, reserved(packed) + delta[1])));
+        }
+    }
+
+    // Runs on the refresher thread only, so reloads are applied in the order they were read
+    private void refreshPending() {
+        refreshScheduled.set(false);
+        if (!hydrated || pendingRefresh.isEmpty()) {
+            return;
+        }
+        List<Long> skuIds = new ArrayList<>(pendingRefresh);
+        pendingRefresh.removeAll(skuIds);
+        try {
+            for (int from = 0; from < skuIds.size(); from += REFRESH_BATCH_SIZE) {
+                List<Long> batch = skuIds.subList(from, Math.min(from + REFRESH_BATCH_SIZE, skuIds.size()));
+                Map<Long, int[]> loaded = stockBatchRepository.findLevels(batch);
+                Map<Long, Map<Long, int[]>> loadedAtLocations = stockBatchRepository.findLocationLevelsBySkuIds(batch);
+                for (Long skuId : batch) {
+                    int[] level = loaded.get(skuId);
+                    if (level == null) {
+                        levels.remove(skuId);
+                        locationLevels.remove(skuId);
+                    } else {
+                        levels.computeIfAbsent(skuId, id -> new AtomicLong()).set(pack(level[0], level[1]));
+                        Map<Long, Long> atLocations = new HashMap<>();
+                        loadedAtLocations.getOrDefault(skuId, Map.of())
+                                .forEach((locationId, row) -> atLocations.put(locationId, pack(row[0], row[1])));
+                        setLocations(skuId, atLocations);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            pendingRefresh.addAll(skuIds);
+            log.warn("Could not refresh stock availability for {} SKUs: {}", skuIds.size(), e.getMessage());
+        }
+    }
+
+    private void resync() {
+        long started = System.currentTimeMillis();
+        try {
+            Map<Long, Long> snapshot = new HashMap<>();
+            stockBatchRepository.forEachLevel((skuId, quantity, reserved, minStock) -> snapshot.put(skuId, pack(quantity, reserved)));
+            Map<Long, Map<Long, Long>> atLocations = new HashMap<>();
+            stockBatchRepository.forEachLocationLevel((skuId, locationId, quantity, reserved) ->
+                    atLocations.computeIfAbsent(skuId, id -> new HashMap<>()).put(locationId, pack(quantity, reserved)));
+            levels.keySet().retainAll(snapshot.keySet());
+            locationLevels.keySet().retainAll(snapshot.keySet());
+            snapshot.forEach((skuId, packed) -> {
+                levels.computeIfAbsent(skuId, id -> new AtomicLong()).set(packed);
+                setLocations(skuId, atLocations.getOrDefault(skuId, Map.of()));
+            });
+            hydrated = true;
+            log.info("Stock availability cache synced {} SKUs in {} ms", snapshot.size(), System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.warn("Could not sync stock availability cache: {}", e.getMessage());
+        }
+    }
+
+    // In place, so deltas applied meanwhile land on the counters kept
+    private void setLocations(Long skuId, Map<Long, Long> packedByLocation) {
+        Map<Long, AtomicLong> atLocations = locationLevels.computeIfAbsent(skuId, id -> new ConcurrentHashMap<>());
+        atLocations.keySet().retainAll(packedByLocation.keySet());
+        packedByLocation.forEach((locationId, packed) -> atLocations.computeIfAbsent(locationId, id -> new AtomicLong()).set(packed));
+    }
+
+    private static Map<Long, int[]> deltas(Map<Long, Integer> quantities, int quantitySign, int reservedSign) {
+        Map<Long, int[]> deltas = new HashMap<>();
+        quantities.forEach((skuId, quantity) -> deltas.put(skuId, new int[]{quantitySign * quantity, reservedSign * quantity}));
+        return deltas;
+    }
+
+    private static long pack(int quantity, int reserved) {
+        return ((long) quantity << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int quantity(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    private static int reserved(long packed) {
+        return (int) packed;
+    }
+
+    private static int available(long packed) {
+        return quantity(packed) - reserved(packed);
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.stock.StockLevelEvent;
+import com.example.Backend.dtos.stock.StockLevelEvent.StockStatus;
+import com.example.Backend.repositorys.StockBatchRepository;
+import com.example.Backend.utils.CoalescingEmitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Pushes stock level changes and low/out-of-stock threshold crossings to SSE subscribers of this
+ * node, replacing polling of the low-stock lists.
+ * <p>
+ * Stock writers already announce changed SKU ids over Redis after commit (see
+ * {@link StockAvailabilityCache}). Ids collected here are re-read once per flush interval with one
+ * query per batch and compared with the last known level of each SKU, held in memory, to detect
+ * crossings. Each subscriber keeps only the latest pending event per SKU and is drained on its own
+ * virtual thread ({@link CoalescingEmitter}), so a slow client gets coalesced updates and never
+ * holds up the others; idle subscribers hold no thread at all.
+ */
+@Slf4j
+@Component
+public class StockEventBroadcaster implements MessageListener {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final StockBatchRepository stockBatchRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // {quantity, reserved, minStock} per SKU as last published
+    private final Map<Long, int[]> levels = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("StockEvents-"));
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("StockEventSender-", 0).factory());
+    private volatile boolean hydrated;
+
+    @Value("${stock.events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stock.events.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    @Value("${stock.events.heartbeat-interval-ms:30000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${stock.events.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    public StockEventBroadcaster(StockBatchRepository stockBatchRepository,
+                                 RedisMessageListenerContainer listenerContainer) {
+        this.stockBatchRepository = stockBatchRepository;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(StockAvailabilityCache.INVALIDATION_CHANNEL));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.events.getEmitter().complete());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher.execute(this::hydrate);
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribe to level changes, optionally only of some SKUs and only threshold crossings. The
+     * stream opens with a snapshot of the SKUs currently low or out of stock.
+     */
+    public SseEmitter register(Collection<Long> skuIds, boolean crossingsOnly) {
+        if (!enabled) {
+            throw new IllegalStateException("Stock events are disabled");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many stock event subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, skuIds == null || skuIds.isEmpty() ? null : Set.copyOf(skuIds), crossingsOnly);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        List<StockLevelEvent> snapshot = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        levels.forEach((skuId, level) -> {
+            StockStatus status = StockStatus.of(level[0], level[2]);
+            if (status != StockStatus.IN_STOCK && subscriber.wants(skuId)) {
+                snapshot.add(toEvent(skuId, level, status, status, now));
+            }
+        });
+        snapshot.sort(Comparator.comparing(StockLevelEvent::getSkuId));
+        subscriber.events.offerFirst(SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (!enabled) {
+            return;
+        }
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            Arrays.stream(body.split(",")).filter(id -> !id.isBlank()).map(Long::valueOf).forEach(dirty::add);
+        } catch (NumberFormatException e) {
+            log.warn("Ignored malformed stock change message: {}", body);
+        }
+    }
+
+    private void hydrate() {
+        try {
+            stockBatchRepository.forEachLevel((skuId, quantity, reserved, minStock) ->
+                    levels.put(skuId, new int[]{quantity, reserved, minStock}));
+            hydrated = true;
+            log.info("Stock event broadcaster tracking {} SKUs", levels.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not load stock levels for stock events, retrying: {}", e.getMessage());
+            flusher.schedule(this::hydrate, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    // Runs on the flusher thread only
+    private void flush() {
+        if (!hydrated || dirty.isEmpty()) {
+            return;
+        }
+        List<Long> skuIds = new ArrayList<>(dirty);
+        dirty.removeAll(skuIds);
+        Collections.sort(skuIds);
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (int from = 0; from < skuIds.size(); from += LOAD_BATCH_SIZE) {
+                List<Long> batch = skuIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, skuIds.size()));
+                Map<Long, int[]> loaded = stockBatchRepository.findLevels(batch);
+                for (Long skuId : batch) {
+                    int[] level = loaded.get(skuId);
+                    if (level == null) {
+                        levels.remove(skuId);
+                        continue;
+                    }
+                    int[] previous = levels.put(skuId, level);
+                    if (previous != null && Arrays.equals(previous, level)) {
+                        continue;
+                    }
+                    StockStatus previousStatus = previous != null ? StockStatus.of(previous[0], previous[2]) : null;
+                    publish(toEvent(skuId, level, StockStatus.of(level[0], level[2]), previousStatus, now));
+                }
+            }
+        } catch (RuntimeException e) {
+            dirty.addAll(skuIds);
+            log.warn("Could not load stock levels for {} changed SKUs: {}", skuIds.size(), e.getMessage());
+        }
+    }
+
+    private void publish(StockLevelEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.wants(event.getSkuId()) && (!subscriber.crossingsOnly || event.isThresholdCrossed())) {
+                subscriber.events.offer(event.getSkuId(), event);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.events.offerHeartbeat());
+    }
+
+    private static StockLevelEvent toEvent(Long skuId, int[] level, StockStatus status, StockStatus previousStatus,
+                                           LocalDateTime at) {
+        return StockLevelEvent.builder()
+                .skuId(skuId)
+                .quantity(level[0])
+                .reservedQty(level[1])
+                .availableQty(level[0] - level[1])
+                .minStock(level[2])
+                .status(status)
+                .previousStatus(previousStatus)
+                .thresholdCrossed(previousStatus != null && previousStatus != status)
+                .at(at)
+                .build();
+    }
+
+    // The copy spans both changes: the older event's previous status, the newer one's level
+    private static StockLevelEvent coalesce(StockLevelEvent older, StockLevelEvent newer) {
+        StockStatus previousStatus = older.getPreviousStatus();
+        return StockLevelEvent.builder()
+                .skuId(newer.getSkuId())
+                .quantity(newer.getQuantity())
+                .reservedQty(newer.getReservedQty())
+                .availableQty(newer.getAvailableQty())
+                .minStock(newer.getMinStock())
+                .status(newer.getStatus())
+                .previousStatus(previousStatus)
+                .thresholdCrossed(previousStatus != null && previousStatus != newer.getStatus())
+                .at(newer.getAt())
+                .build();
+    }
+
+    private static SseEmitter.SseEventBuilder render(StockLevelEvent event) {
+        return SseEmitter.event()
+                .name(event.isThresholdCrossed() ? "threshold" : "level")
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private final class Subscriber {
+        private final Set<Long> skuIds;
+        private final boolean crossingsOnly;
+        private final CoalescingEmitter<Long, StockLevelEvent> events;
+
+        private Subscriber(SseEmitter emitter, Set<Long> skuIds, boolean crossingsOnly) {
+            this.skuIds = skuIds;
+            this.crossingsOnly = crossingsOnly;
+            this.events = new CoalescingEmitter<>(emitter, senders, StockEventBroadcaster::render,
+                    StockEventBroadcaster::coalesce, error -> {
+                        subscribers.remove(this);
+                        log.debug("Dropped stock event subscriber: {}", error.getMessage());
+                    });
+        }
+
+        boolean wants(Long skuId) {
+            return skuIds == null || skuIds.contains(skuId);
+        }
+    }
+}
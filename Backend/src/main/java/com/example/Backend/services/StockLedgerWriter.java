@@ -0,0 +1,198 @@
+package com.example.Backend.services;
+
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SerialUnit;
+import com.example.Backend.models.StockLocation;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.StockBatchRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write-behind for the stock movement ledger. Movements appended inside a transaction are
+ * buffered and written just before it commits, with one multi-row INSERT per chunk; outside a
+ * transaction they are written straight away.
+ * <p>
+ * Ids are handed out in memory from blocks of the stock_movement id sequence (pooled-lo: each
+ * sequence value is the first id of a block of {@code stock.ledger.id-block-size}), so appending
+ * needs no round trip per row and the returned movements already carry their ids.
+ */
+@Slf4j
+@Component
+public class StockLedgerWriter {
+
+    private final StockBatchRepository stockBatchRepository;
+    private final Timer flushTimer;
+    private final DistributionSummary flushRows;
+    private final Object bufferKey = new Object();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${stock.ledger.id-block-size:50}")
+    private int idBlockSize;
+
+    @Value("${stock.ledger.insert-chunk-size:5000}")
+    private int insertChunkSize;
+
+    // Guarded by this. Until the sequence is switched to blocks, one id per sequence value is all that is safe
+    private int blockSize = 1;
+    private long nextId;
+    private long blockEnd;
+
+    public StockLedgerWriter(StockBatchRepository stockBatchRepository, MeterRegistry meterRegistry) {
+        this.stockBatchRepository = stockBatchRepository;
+        this.flushTimer = Timer.builder("stock.ledger.flush")
+                .description("Time spent writing buffered stock movements at commit")
+                .register(meterRegistry);
+        this.flushRows = DistributionSummary.builder("stock.ledger.flush.rows")
+                .description("Stock movements written per flush")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareLedger() {
+        try {
+            int effective = stockBatchRepository.useMovementIdBlocks(idBlockSize);
+            synchronized (this) {
+                // The current block was drawn at the old size; start a fresh one
+                blockSize = effective;
+                blockEnd = nextId;
+            }
+            stockBatchRepository.createMovementCreatedAtBrinIndex();
+            log.info("Stock ledger ids are allocated in blocks of {}", effective);
+        } catch (RuntimeException e) {
+            log.warn("Could not prepare the stock ledger, ids stay one per sequence value: {}", e.getMessage());
+        }
+    }
+
+    public StockMovement append(StockMovement movement) {
+        return appendAll(List.of(movement)).get(0);
+    }
+
+    /**
+     * Queue movements for the current transaction. They get their id and timestamp now and reach
+     * the table when the transaction commits.
+     */
+    public List<StockMovement> appendAll(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return movements;
+        }
+        long[] ids = allocateIds(movements.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < movements.size(); i++) {
+            StockMovement movement = movements.get(i);
+            movement.setId(ids[i]);
+            if (movement.getCreatedAt() == null) {
+                movement.setCreatedAt(now);
+            }
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(movements);
+        } else {
+            buffer().addAll(movements);
+        }
+        return movements;
+    }
+
+    /**
+     * Queue one movement per line of a reference (e.g. a sales order) at one location. The lists
+     * are parallel; serial unit ids may contain nulls.
+     */
+    public void append(StockMovement.MovementType movementType, StockMovement.MovementReason reason,
+                       String refType, Long refId, Long createdBy, Long locationId,
+                       List<Long> skuIds, List<Integer> quantities, List<Long> serialUnitIds) {
+        User user = createdBy != null ? entityManager.getReference(User.class, createdBy) : null;
+        StockLocation location = locationId != null ? entityManager.getReference(StockLocation.class, locationId) : null;
+        List<StockMovement> movements = new ArrayList<>(skuIds.size());
+        for (int i = 0; i < skuIds.size(); i++) {
+            Long serialUnitId = serialUnitIds.get(i);
+            movements.add(StockMovement.builder()
+                    .sku(entityManager.getReference(SKU.class, skuIds.get(i)))
+                    .serialUnit(serialUnitId != null ? entityManager.getReference(SerialUnit.class, serialUnitId) : null)
+                    .location(location)
+                    .movementType(movementType)
+                    .quantity(quantities.get(i))
+                    .reason(reason)
+                    .refType(refType)
+                    .refId(refId)
+                    .createdBy(user)
+                    .build());
+        }
+        appendAll(movements);
+    }
+
+    private List<StockMovement> buffer() {
+        @SuppressWarnings("unchecked")
+        List<StockMovement> buffered = (List<StockMovement>) TransactionSynchronizationManager.getResource(bufferKey);
+        if (buffered != null) {
+            return buffered;
+        }
+        List<StockMovement> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(bufferKey, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Rows the ledger references (e.g. new serial units) must be in the table first
+                entityManager.flush();
+                write(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(bufferKey);
+            }
+        });
+        return created;
+    }
+
+    private void write(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> {
+            for (int from = 0; from < movements.size(); from += insertChunkSize) {
+                stockBatchRepository.insertMovements(movements.subList(from, Math.min(from + insertChunkSize, movements.size())));
+            }
+        });
+        flushRows.record(movements.size());
+    }
+
+    private synchronized long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        int assigned = 0;
+        while (assigned < count) {
+            if (nextId >= blockEnd) {
+                // Draw every block still needed in one round trip
+                int blocks = (count - assigned + blockSize - 1) / blockSize;
+                List<Long> starts = stockBatchRepository.nextMovementIdBlocks(blocks);
+                for (int i = 0; i < starts.size() - 1; i++) {
+                    long start = starts.get(i);
+                    for (int j = 0; j < blockSize && assigned < count; j++) {
+                        ids[assigned++] = start + j;
+                    }
+                }
+                nextId = starts.get(starts.size() - 1);
+                blockEnd = nextId + blockSize;
+            }
+            ids[assigned++] = nextId++;
+        }
+        return ids;
+    }
+}
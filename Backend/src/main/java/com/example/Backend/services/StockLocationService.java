@@ -0,0 +1,183 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.stock.LocationAvailabilityResponse;
+import com.example.Backend.dtos.stock.StockLocationRequest;
+import com.example.Backend.dtos.stock.StockLocationResponse;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.LocationStock;
+import com.example.Backend.models.StockLocation;
+import com.example.Backend.repositorys.LocationStockRepository;
+import com.example.Backend.repositorys.StockBatchRepository;
+import com.example.Backend.repositorys.StockLocationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Stock locations (the warehouse and the branch stores). Requests that name no location act on
+ * the default one, {@code stock.location.default-code}, which also takes over all stock recorded
+ * before stock had locations.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class StockLocationService {
+
+    private final StockLocationRepository stockLocationRepository;
+    private final LocationStockRepository locationStockRepository;
+    private final StockBatchRepository stockBatchRepository;
+    private final StockAvailabilityCache stockAvailabilityCache;
+
+    @Value("${stock.location.default-code:MAIN}")
+    private String defaultCode;
+
+    @Value("${stock.location.default-name:Main warehouse}")
+    private String defaultName;
+
+    private volatile Long defaultLocationId;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void prepareLocations() {
+        try {
+            if (!stockLocationRepository.existsByCode(defaultCode)) {
+                try {
+                    stockLocationRepository.save(StockLocation.builder()
+                            .code(defaultCode)
+                            .name(defaultName)
+                            .type(StockLocation.LocationType.WAREHOUSE)
+                            .build());
+                } catch (DataIntegrityViolationException e) {
+                    // Another node created it first
+                }
+            }
+            int seeded = stockBatchRepository.seedLocation(getDefaultLocation().getId());
+            stockBatchRepository.createLocationStockAvailableIndex();
+            if (seeded > 0) {
+                log.info("Placed the stock of {} SKUs at default location {}", seeded, defaultCode);
+                stockAvailabilityCache.requestResync();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not prepare stock locations: {}", e.getMessage());
+        }
+    }
+
+    public StockLocation getDefaultLocation() {
+        Long id = defaultLocationId;
+        if (id != null) {
+            return stockLocationRepository.getReferenceById(id);
+        }
+        StockLocation location = stockLocationRepository.findByCode(defaultCode)
+                .orElseThrow(() -> new StockException("Default stock location not found: " + defaultCode));
+        defaultLocationId = location.getId();
+        return location;
+    }
+
+    /**
+     * The active location with the given id, or the default location when the id is null.
+     */
+    public StockLocation resolve(Long locationId) {
+        if (locationId == null) {
+            return getDefaultLocation();
+        }
+        StockLocation location = stockLocationRepository.findById(locationId)
+                .orElseThrow(() -> new StockException("Stock location not found with id: " + locationId));
+        if (!Boolean.TRUE.equals(location.getActive())) {
+            throw new StockException("Stock location is inactive: " + location.getCode());
+        }
+        return location;
+    }
+
+    /**
+     * Id of the location an order's stock is held at; orders from before locations use the default.
+     */
+    public long locationIdOf(StockLocation location) {
+        return location != null ? location.getId() : getDefaultLocation().getId();
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockLocationResponse> getLocations() {
+        Long defaultId = getDefaultLocation().getId();
+        return stockLocationRepository.findByActiveTrueOrderByName().stream()
+                .map(location -> toResponse(location, defaultId))
+                .collect(Collectors.toList());
+    }
+
+    public StockLocationResponse createLocation(StockLocationRequest request) {
+        String code = request.getCode().trim().toUpperCase();
+        if (stockLocationRepository.existsByCode(code)) {
+            throw new StockException("Stock location code already exists: " + code);
+        }
+        StockLocation location = stockLocationRepository.save(StockLocation.builder()
+                .code(code)
+                .name(request.getName().trim())
+                .type(request.getType() != null ? request.getType() : StockLocation.LocationType.STORE)
+                .address(request.getAddress())
+                .build());
+        return toResponse(location, getDefaultLocation().getId());
+    }
+
+    /**
+     * Which locations can sell the SKU right now. The total comes from the per-SKU aggregate held
+     * by the availability cache, so a SKU that is out of stock everywhere is answered without
+     * reading any location rows; otherwise only the rows with something free are read.
+     */
+    @Transactional(readOnly = true)
+    public LocationAvailabilityResponse getAvailability(Long skuId) {
+        int available = stockAvailabilityCache.getAvailableQuantity(skuId);
+        List<LocationAvailabilityResponse.Location> locations = available <= 0
+                ? List.of()
+                : locationStockRepository.findAvailableBySkuId(skuId).stream()
+                        .map(StockLocationService::toAvailability)
+                        .collect(Collectors.toList());
+        return LocationAvailabilityResponse.builder()
+                .skuId(skuId)
+                .availableQty(Math.max(available, 0))
+                .locations(locations)
+                .build();
+    }
+
+    /**
+     * SKUs of the demand the location cannot cover right now, sorted, answered from the
+     * availability cache's per-location counters. The stock UPDATE at commit still decides.
+     */
+    public List<Long> findShortages(long locationId, Map<Long, Integer> demand) {
+        return stockAvailabilityCache.findShortages(locationId, demand);
+    }
+
+    private static LocationAvailabilityResponse.Location toAvailability(LocationStock stock) {
+        StockLocation location = stock.getLocation();
+        return LocationAvailabilityResponse.Location.builder()
+                .locationId(location.getId())
+                .code(location.getCode())
+                .name(location.getName())
+                .type(location.getType())
+                .quantity(stock.getQuantity())
+                .reservedQty(stock.getReservedQty())
+                .availableQty(stock.getAvailableQuantity())
+                .build();
+    }
+
+    private static StockLocationResponse toResponse(StockLocation location, Long defaultId) {
+        return StockLocationResponse.builder()
+                .id(location.getId())
+                .code(location.getCode())
+                .name(location.getName())
+                .type(location.getType())
+                .address(location.getAddress())
+                .active(location.getActive())
+                .isDefault(location.getId().equals(defaultId))
+                .build();
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.Backend.services;
+
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrderItem;
+import com.example.Backend.models.StockLocation;
+import com.example.Backend.models.StockReservation;
+import com.example.Backend.models.StockReservation.ReservationStatus;
+import com.example.Backend.repositorys.StockBatchRepository;
+import com.example.Backend.repositorys.StockReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reservation engine for sales orders. Each order reserves all of its SKUs at its selling
+ * location with one batched UPDATE after locking the stock rows in ascending sku_id order, and
+ * records a hold per SKU that expires after {@code stock.reservation.hold-minutes}. Expired holds
+ * are swept in bulk.
+ */
+@Service
+@Transactional
+@Slf4j
+public class StockReservationService {
+
+    private final StockReservationRepository stockReservationRepository;
+    private final StockBatchRepository stockBatchRepository;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final StockLocationService stockLocationService;
+
+    private final Timer lockWaitTimer;
+    private final Counter holdsCreated;
+    private final Counter holdsConsumed;
+    private final Counter holdsReleased;
+    private final Counter holdsExpired;
+    private final Counter reservationsRejected;
+    private final AtomicLong activeHolds = new AtomicLong();
+
+    @Value("${stock.reservation.hold-minutes:30}")
+    private long holdMinutes;
+
+    @Value("${stock.reservation.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    public StockReservationService(StockReservationRepository stockReservationRepository,
+                                   StockBatchRepository stockBatchRepository,
+                                   StockAvailabilityCache stockAvailabilityCache,
+                                   StockLocationService stockLocationService,
+                                   MeterRegistry meterRegistry) {
+        this.stockReservationRepository = stockReservationRepository;
+        this.stockBatchRepository = stockBatchRepository;
+        this.stockAvailabilityCache = stockAvailabilityCache;
+        this.stockLocationService = stockLocationService;
+        this.lockWaitTimer = Timer.builder("stock.reservation.lock.wait")
+                .description("Time spent waiting for stock_item row locks")
+                .register(meterRegistry);
+        this.holdsCreated = holdCounter(meterRegistry, "created");
+        this.holdsConsumed = holdCounter(meterRegistry, "consumed");
+        this.holdsReleased = holdCounter(meterRegistry, "released");
+        this.holdsExpired = holdCounter(meterRegistry, "expired");
+        this.reservationsRejected = Counter.builder("stock.reservation.rejected")
+                .description("Reservations rejected for insufficient stock")
+                .register(meterRegistry);
+        meterRegistry.gauge("stock.reservation.holds.active", activeHolds);
+    }
+
+    /**
+     * Reserve every line of the order at its location or nothing at all.
+     */
+    public void reserve(SalesOrder order, List<SalesOrderItem> items) {
+        SortedMap<Long, Integer> demand = aggregateBySku(items);
+        if (demand.isEmpty()) {
+            return;
+        }
+        StockLocation location = order.getLocation() != null ? order.getLocation() : stockLocationService.getDefaultLocation();
+
+        lockInCanonicalOrder(demand.keySet());
+
+        List<Long> shortages = stockBatchRepository.findShortages(location.getId(), demand, Map.of());
+        if (!shortages.isEmpty() || stockBatchRepository.reserve(location.getId(), demand) != demand.size()) {
+            reservationsRejected.increment();
+            throw new StockException("Failed to reserve stock for SKU: " +
+                    (shortages.isEmpty() ? demand.keySet() : shortages));
+        }
+        stockAvailabilityCache.onReserved(location.getId(), demand);
+
+        Map<Long, SKU> skus = items.stream()
+                .collect(Collectors.toMap(item -> item.getSku().getId(), SalesOrderItem::getSku, (a, b) -> a));
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(holdMinutes);
+
+        List<StockReservation> holds = demand.entrySet().stream()
+                .map(entry -> StockReservation.builder()
+                        .order(order)
+                        .sku(skus.get(entry.getKey()))
+                        .location(location)
+                        .quantity(entry.getValue())
+                        .status(ReservationStatus.ACTIVE)
+                        .expiresAt(expiresAt)
+                        .build())
+                .collect(Collectors.toList());
+
+        stockReservationRepository.saveAll(holds);
+        holdsCreated.increment(holds.size());
+        activeHolds.addAndGet(holds.size());
+    }
+
+    /**
+     * Give back whatever the order still holds, e.g. when it is cancelled.
+     */
+    public void release(SalesOrder order, List<SalesOrderItem> items) {
+        List<StockReservation> holds = stockReservationRepository.lockActiveByOrderId(order.getId());
+        SortedMap<Long, Integer> held = isLegacyReservation(order, holds)
+                ? aggregateBySku(items)
+                : aggregateHolds(holds);
+        if (held.isEmpty()) {
+            return;
+        }
+
+        lockInCanonicalOrder(held.keySet());
+        long locationId = stockLocationService.locationIdOf(order.getLocation());
+        stockBatchRepository.release(locationId, held);
+        stockAvailabilityCache.onReleased(locationId, held);
+
+        markHolds(holds, ReservationStatus.RELEASED);
+        holdsReleased.increment(holds.size());
+    }
+
+    /**
+     * Convert the order's holds into stock decreases. SKUs whose hold already expired are taken
+     * from the free quantity instead, and fail the whole order if that is no longer enough.
+     */
+    public void consume(SalesOrder order, List<SalesOrderItem> items) {
+        SortedMap<Long, Integer> demand = aggregateBySku(items);
+        if (demand.isEmpty()) {
+            return;
+        }
+
+        List<StockReservation> holds = stockReservationRepository.lockActiveByOrderId(order.getId());
+        Map<Long, Integer> held = isLegacyReservation(order, holds) ? demand : aggregateHolds(holds);
+
+        long locationId = stockLocationService.locationIdOf(order.getLocation());
+        lockInCanonicalOrder(demand.keySet());
+
+        List<Long> shortages = stockBatchRepository.findShortages(locationId, demand, held);
+        if (!shortages.isEmpty() || stockBatchRepository.consume(locationId, demand, held) != demand.size()) {
+            reservationsRejected.increment();
+            throw new StockException("Failed to decrease stock for SKU: " +
+                    (shortages.isEmpty() ? demand.keySet() : shortages));
+        }
+        stockAvailabilityCache.onDecreased(locationId, demand, held);
+
+        markHolds(holds, ReservationStatus.CONSUMED);
+        holdsConsumed.increment(holds.size());
+    }
+
+    /**
+     * Decrease stock at the location straight from the free quantity, for sales that never held a
+     * reservation (e.g. a till checkout). Happy path is one lock statement and one UPDATE.
+     */
+    public void sell(long locationId, List<SalesOrderItem> items) {
+        SortedMap<Long, Integer> demand = aggregateBySku(items);
+        if (demand.isEmpty()) {
+            return;
+        }
+
+        lockInCanonicalOrder(demand.keySet());
+
+        if (stockBatchRepository.consume(locationId, demand, Map.of()) != demand.size()) {
+            reservationsRejected.increment();
+            List<Long> shortages = stockBatchRepository.findShortages(locationId, demand, Map.of());
+            throw new StockException("Insufficient stock for SKU: " + (shortages.isEmpty() ? demand.keySet() : shortages));
+        }
+        stockAvailabilityCache.onDecreased(locationId, demand, Map.of());
+    }
+
+    /**
+     * Release expired holds in bulk. Holds that a paying or cancelling order has locked are skipped
+     * and picked up by a later sweep if they are still active.
+     */
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredHolds() {
+        List<StockReservation> expired = stockReservationRepository.lockExpiredHolds(LocalDateTime.now(), sweepBatchSize);
+        if (!expired.isEmpty()) {
+            SortedMap<Long, Integer> held = aggregateHolds(expired);
+            lockInCanonicalOrder(held.keySet());
+            expired.stream()
+                    .collect(Collectors.groupingBy(hold -> stockLocationService.locationIdOf(hold.getLocation())))
+                    .forEach((locationId, holds) -> {
+                        SortedMap<Long, Integer> released = aggregateHolds(holds);
+                        stockBatchRepository.release(locationId, released);
+                        stockAvailabilityCache.onReleased(locationId, released);
+                    });
+
+            markHolds(expired, ReservationStatus.EXPIRED);
+            holdsExpired.increment(expired.size());
+            log.info("Released {} expired stock holds across {} SKUs", expired.size(), held.size());
+        }
+        activeHolds.set(stockReservationRepository.countByStatus(ReservationStatus.ACTIVE));
+    }
+
+    private void lockInCanonicalOrder(Collection<Long> skuIds) {
+        Timer.Sample sample = Timer.start();
+        try {
+            stockBatchRepository.lockBySkuIds(skuIds);
+        } finally {
+            sample.stop(lockWaitTimer);
+        }
+    }
+
+    private void markHolds(List<StockReservation> holds, ReservationStatus status) {
+        if (holds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = holds.stream().map(StockReservation::getId).collect(Collectors.toList());
+        stockReservationRepository.updateStatus(ids, status, LocalDateTime.now());
+        activeHolds.updateAndGet(current -> Math.max(0, current - holds.size()));
+    }
+
+    // Orders confirmed before holds were recorded reserved stock without any hold rows
+    private boolean isLegacyReservation(SalesOrder order, List<StockReservation> activeHolds) {
+        return activeHolds.isEmpty()
+                && order.getStatus() == SalesOrder.OrderStatus.CONFIRMED
+                && !stockReservationRepository.existsByOrder_Id(order.getId());
+    }
+
+    private SortedMap<Long, Integer> aggregateBySku(List<SalesOrderItem> items) {
+        return items.stream()
+                .collect(Collectors.toMap(item -> item.getSku().getId(), SalesOrderItem::getQuantity,
+                        Integer::sum, TreeMap::new));
+    }
+
+    private SortedMap<Long, Integer> aggregateHolds(List<StockReservation> holds) {
+        return holds.stream()
+                .collect(Collectors.toMap(hold -> hold.getSku().getId(), StockReservation::getQuantity,
+                        Integer::sum, TreeMap::new));
+    }
+
+    private static Counter holdCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("stock.reservation.holds")
+                .description("Stock reservation holds by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.Backend.services;
 
+import com.example.Backend.dtos.CursorPage;
+import com.example.Backend.dtos.CursorPage.TotalMode;
 import com.example.Backend.dtos.stock.StockItemResponse;
 import com.example.Backend.dtos.stock.StockMovementRequest;
 import com.example.Backend.dtos.stock.StockMovementResponse;
@@ -8,13 +10,30 @@ import com.example.Backend.mappers.StockItemMapper;
 import com.example.Backend.mappers.StockMovementMapper;
 import com.example.Backend.models.*;
 import com.example.Backend.repositorys.*;
+import com.example.Backend.utils.ContentionRetry;
+import com.example.Backend.utils.KeysetCursor;
+import com.example.Backend.utils.StripedLocks;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +48,28 @@ public class StockService {
     private final SerialUnitRepository serialUnitRepository;
     private final StockItemMapper stockItemMapper;
     private final StockMovementMapper stockMovementMapper;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final StockLedgerWriter stockLedgerWriter;
+    private final InventoryValuationService inventoryValuationService;
+    private final StockBatchRepository stockBatchRepository;
+    private final StockLocationService stockLocationService;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedLocks skuLocks = new StripedLocks(256);
+    private ContentionRetry contentionRetry;
+
+    @Value("${stock.mutation.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${stock.mutation.backoff-ms:5}")
+    private long backoffMs;
+
+    @Value("${stock.mutation.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    @PostConstruct
+    void initRetry() {
+        contentionRetry = new ContentionRetry(maxAttempts, backoffMs, maxBackoffMs);
+    }
 
     public StockItemResponse getStockBySkuId(Long skuId) {
         StockItem stockItem = stockItemRepository.findBySkuId(skuId)
@@ -36,12 +77,31 @@ public class StockService {
         return stockItemMapper.toResponse(stockItem);
     }
 
+    /**
+     * Free quantity of the SKU from the availability cache, without touching stock_item.
+     */
+    @Transactional(readOnly = true)
+    public int getAvailableQuantity(Long skuId) {
+        return stockAvailabilityCache.getAvailableQuantity(skuId);
+    }
+
     public List<StockItemResponse> getAllStockItems() {
         return stockItemRepository.findAll().stream()
                 .map(stockItemMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    public Map<String, Object> getStockStatistics() {
+        long totalItems = stockItemRepository.count();
+        long outOfStockItems = stockItemRepository.countOutOfStockItems();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("totalItems", totalItems);
+        statistics.put("lowStockItems", stockItemRepository.countLowStockItems());
+        statistics.put("outOfStockItems", outOfStockItems);
+        statistics.put("inStockItems", totalItems - outOfStockItems);
+        return statistics;
+    }
+
     public List<StockItemResponse> getLowStockItems() {
         return stockItemRepository.findLowStockItems().stream()
                 .map(stockItemMapper::toResponse)
@@ -60,35 +120,55 @@ public class StockService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Receive stock at the request's location (default if none) with one atomic upsert; see
+     * {@link #mutate} for concurrency.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public StockMovementResponse addStock(StockMovementRequest request, Long userId) {
-        SKU sku = findSkuById(request.getSkuId());
-        User user = findUserById(userId);
+        return mutate(request.getSkuId(), () -> doAddStock(request, userId));
+    }
 
-        // Update or create stock item
-        StockItem stockItem = stockItemRepository.findBySkuId(request.getSkuId())
-                .orElse(StockItem.builder()
-                        .sku(sku)
-                        .quantity(0)
-                        .reservedQty(0)
-                        .minStock(request.getMinStock() != null ? request.getMinStock() : 0)
-                        .maxStock(request.getMaxStock())
-                        .build());
-
-        stockItem.setQuantity(stockItem.getQuantity() + request.getQuantity());
-        if (request.getMinStock() != null) {
-            stockItem.setMinStock(request.getMinStock());
-        }
-        if (request.getMaxStock() != null) {
-            stockItem.setMaxStock(request.getMaxStock());
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public StockMovementResponse removeStock(StockMovementRequest request, Long userId) {
+        return mutate(request.getSkuId(), () -> doRemoveStock(request, userId));
+    }
+
+    /**
+     * Set the quantity on hand at a location (default if null) to a counted value, recording the
+     * difference as an adjustment. Applied as a compare-and-set against the quantity read, retried
+     * when another write got in between.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public StockItemResponse adjustStock(Long skuId, Long locationId, Integer newQuantity, String reason, Long userId) {
+        if (newQuantity == null || newQuantity < 0) {
+            throw new StockException("Quantity must be non-negative");
         }
+        return mutate(skuId, () -> doAdjustStock(skuId, locationId, newQuantity, reason, userId));
+    }
 
-        stockItemRepository.save(stockItem);
+    private StockMovementResponse doAddStock(StockMovementRequest request, Long userId) {
+        SKU sku = findSkuById(request.getSkuId());
+        User user = findUserById(userId);
+        StockLocation location = stockLocationService.resolve(request.getLocationId());
+
+        BigDecimal unitCost = request.getUnitCost() != null ? request.getUnitCost() : sku.getCostPrice();
+        Map<Long, BigDecimal> unitCosts = new HashMap<>();
+        unitCosts.put(sku.getId(), unitCost);
+        stockBatchRepository.lockBySkuIds(List.of(sku.getId()));
+        stockBatchRepository.receive(location.getId(), new TreeMap<>(Map.of(sku.getId(), request.getQuantity())), unitCosts);
+        if (request.getMinStock() != null || request.getMaxStock() != null) {
+            stockItemRepository.updateLimits(sku.getId(), request.getMinStock(), request.getMaxStock());
+        }
+        stockAvailabilityCache.onQuantityChanged(sku.getId(), location.getId(), request.getQuantity());
 
         // Create stock movement record
         StockMovement movement = StockMovement.builder()
                 .sku(sku)
+                .location(location)
                 .movementType(StockMovement.MovementType.IN)
                 .quantity(request.getQuantity())
+                .unitCost(unitCost)
                 .reason(request.getReason())
                 .refType(request.getRefType())
                 .refId(request.getRefId())
@@ -96,28 +176,30 @@ public class StockService {
                 .createdBy(user)
                 .build();
 
-        StockMovement savedMovement = stockMovementRepository.save(movement);
+        StockMovement savedMovement = stockLedgerWriter.append(movement);
         return stockMovementMapper.toResponse(savedMovement);
     }
 
-    public StockMovementResponse removeStock(StockMovementRequest request, Long userId) {
+    private StockMovementResponse doRemoveStock(StockMovementRequest request, Long userId) {
         SKU sku = findSkuById(request.getSkuId());
         User user = findUserById(userId);
-
-        StockItem stockItem = stockItemRepository.findBySkuId(request.getSkuId())
-                .orElseThrow(() -> new StockException("Stock item not found for SKU: " + request.getSkuId()));
-
-        if (stockItem.getAvailableQuantity() < request.getQuantity()) {
+        StockLocation location = stockLocationService.resolve(request.getLocationId());
+
+        stockBatchRepository.lockBySkuIds(List.of(sku.getId()));
+        if (stockBatchRepository.consume(location.getId(), new TreeMap<>(Map.of(sku.getId(), request.getQuantity())), Map.of()) == 0) {
+            int[] level = stockBatchRepository.findLocationLevels(location.getId(), List.of(sku.getId())).get(sku.getId());
+            if (level == null) {
+                throw new StockException("Stock item not found for SKU: " + request.getSkuId() + " at " + location.getCode());
+            }
             throw new StockException("Insufficient available stock. Available: " +
-                    stockItem.getAvailableQuantity() + ", Requested: " + request.getQuantity());
+                    (level[0] - level[1]) + ", Requested: " + request.getQuantity());
         }
-
-        stockItem.setQuantity(stockItem.getQuantity() - request.getQuantity());
-        stockItemRepository.save(stockItem);
+        stockAvailabilityCache.onQuantityChanged(sku.getId(), location.getId(), -request.getQuantity());
 
         // Create stock movement record
         StockMovement movement = StockMovement.builder()
                 .sku(sku)
+                .location(location)
                 .movementType(StockMovement.MovementType.OUT)
                 .quantity(request.getQuantity())
                 .reason(request.getReason())
@@ -127,45 +209,80 @@ public class StockService {
                 .createdBy(user)
                 .build();
 
-        StockMovement savedMovement = stockMovementRepository.save(movement);
+        StockMovement savedMovement = stockLedgerWriter.append(movement);
         return stockMovementMapper.toResponse(savedMovement);
     }
 
-    public StockItemResponse adjustStock(Long skuId, Integer newQuantity, String reason, Long userId) {
-        StockItem stockItem = stockItemRepository.findBySkuId(skuId)
-                .orElseThrow(() -> new StockException("Stock item not found for SKU: " + skuId));
-
-        int difference = newQuantity - stockItem.getQuantity();
-        if (difference == 0) {
-            return stockItemMapper.toResponse(stockItem);
+    private StockItemResponse doAdjustStock(Long skuId, Long locationId, Integer newQuantity, String reason, Long userId) {
+        StockLocation location = stockLocationService.resolve(locationId);
+        stockBatchRepository.lockBySkuIds(List.of(skuId));
+        int[] level = stockBatchRepository.findLocationLevels(location.getId(), List.of(skuId)).get(skuId);
+        if (level == null) {
+            throw new StockException("Stock item not found for SKU: " + skuId + " at " + location.getCode());
         }
+        int difference = newQuantity - level[0];
+        if (difference != 0) {
+            if (newQuantity < level[1]) {
+                throw new StockException("Cannot adjust below the reserved quantity. Reserved: " + level[1] +
+                        ", Requested: " + newQuantity);
+            }
+            if (stockBatchRepository.compareAndSetQuantity(location.getId(), skuId, level[0], newQuantity) == 0) {
+                throw new OptimisticLockingFailureException("Stock of SKU " + skuId + " changed during adjustment");
+            }
+            stockAvailabilityCache.onQuantityChanged(skuId, location.getId(), difference);
+
+            stockLedgerWriter.append(StockMovement.builder()
+                    .sku(findSkuById(skuId))
+                    .location(location)
+                    .movementType(difference > 0 ? StockMovement.MovementType.IN : StockMovement.MovementType.OUT)
+                    .quantity(Math.abs(difference))
+                    .reason(StockMovement.MovementReason.ADJUSTMENT)
+                    .notes(reason)
+                    .createdBy(userId != null ? findUserById(userId) : null)
+                    .build());
+        }
+        return stockItemMapper.toResponse(stockItemRepository.findBySkuId(skuId)
+                .orElseThrow(() -> new StockException("Stock item not found for SKU: " + skuId)));
+    }
 
-        // Create adjustment movement
-        StockMovementRequest request = StockMovementRequest.builder()
-                .skuId(skuId)
-                .quantity(Math.abs(difference))
-                .reason(StockMovement.MovementReason.ADJUSTMENT)
-                .notes(reason)
-                .build();
-
-        if (difference > 0) {
-            return stockItemMapper.toResponse(
-                    stockItemRepository.findBySkuId(skuId).get()
-            );
-        } else {
-            return stockItemMapper.toResponse(
-                    stockItemRepository.findBySkuId(skuId).get()
-            );
+    /**
+     * Run a single-SKU stock mutation. Called on its own, it holds the SKU's in-process stripe
+     * lock across a transaction of its own, so writers on this node queue instead of colliding in
+     * the database, and a lost compare-and-set, lock timeout or deadlock re-runs the transaction
+     * with jittered backoff. Inside a caller's transaction it simply joins it: a failed statement
+     * has already doomed that transaction, so retrying here would not help.
+     */
+    private <T> T mutate(Long skuId, Supplier<T> mutation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> mutation.get());
+        }
+        Lock lock = skuLocks.forKey(skuId);
+        lock.lock();
+        try {
+            return contentionRetry.run(() -> transactionTemplate.execute(status -> mutation.get()));
+        } finally {
+            lock.unlock();
         }
     }
 
+    // At the default location; orders reserve at their own location through StockReservationService
     public boolean reserveStock(Long skuId, Integer quantity) {
-        int reserved = stockItemRepository.reserveStock(skuId, quantity);
+        stockBatchRepository.lockBySkuIds(List.of(skuId));
+        long locationId = stockLocationService.getDefaultLocation().getId();
+        int reserved = stockBatchRepository.reserve(locationId, new TreeMap<>(Map.of(skuId, quantity)));
+        if (reserved > 0) {
+            stockAvailabilityCache.onReserved(locationId, Map.of(skuId, quantity));
+        }
         return reserved > 0;
     }
 
     public boolean releaseReservation(Long skuId, Integer quantity) {
-        int released = stockItemRepository.releaseReservation(skuId, quantity);
+        stockBatchRepository.lockBySkuIds(List.of(skuId));
+        long locationId = stockLocationService.getDefaultLocation().getId();
+        int released = stockBatchRepository.release(locationId, new TreeMap<>(Map.of(skuId, quantity)));
+        if (released > 0) {
+            stockAvailabilityCache.onReleased(locationId, Map.of(skuId, quantity));
+        }
         return released > 0;
     }
 
@@ -174,21 +291,32 @@ public class StockService {
                 .map(stockMovementMapper::toResponse);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<StockMovementResponse> getStockMovementsByCursor(String cursor, int size, TotalMode totalMode) {
+        int pageSize = CursorPage.clampSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<StockMovement> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = stockMovementRepository.findFirstPageByKeyset(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = stockMovementRepository.findPageAfterKeyset(after.getTimestamp(), after.getId(), limit);
+        }
+        return CursorPage.of(rows, pageSize,
+                        movement -> new KeysetCursor(movement.getCreatedAt(), movement.getId()),
+                        stockMovementMapper::toResponse)
+                .withTotal(totalMode, stockMovementRepository::estimateRowCount, stockMovementRepository::count);
+    }
+
     public List<StockMovementResponse> getStockMovementsBySkuId(Long skuId) {
         return stockMovementRepository.findBySkuIdOrderByCreatedAtDesc(skuId).stream()
                 .map(stockMovementMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
-    public Long getTotalStockValue() {
-        return stockItemRepository.findAll().stream()
-                .mapToLong(stockItem -> {
-                    if (stockItem.getSku().getCostPrice() != null) {
-                        return stockItem.getQuantity() * stockItem.getSku().getCostPrice().longValue();
-                    }
-                    return 0L;
-                })
-                .sum();
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalStockValue() {
+        return inventoryValuationService.getValuation(InventoryValuationService.GroupBy.NONE).getTotalValue();
     }
 
     public Long getTotalStockQuantity() {
@@ -206,12 +334,12 @@ public class StockService {
     }
 
     public void updateStockLevels(Long skuId, Integer minStock, Integer maxStock) {
-        StockItem stockItem = stockItemRepository.findBySkuId(skuId)
-                .orElseThrow(() -> new StockException("Stock item not found for SKU: " + skuId));
-
-        stockItem.setMinStock(minStock);
-        stockItem.setMaxStock(maxStock);
-        stockItemRepository.save(stockItem);
+        // Only the limits are written, so a concurrent quantity change is not overwritten
+        if (stockItemRepository.setLimits(skuId, minStock, maxStock) == 0) {
+            throw new StockException("Stock item not found for SKU: " + skuId);
+        }
+        // A new threshold can move the SKU in or out of low stock
+        stockAvailabilityCache.onLimitsChanged(skuId);
     }
 
     private SKU findSkuById(Long id) {
@@ -0,0 +1,178 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.stock.StockAsOfResponse;
+import com.example.Backend.repositorys.StockSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Daily snapshots of the quantity on hand per SKU, and point-in-time stock rebuilt from them.
+ * <p>
+ * A snapshot for day D holds what was on hand at the end of D: the previous snapshot plus the
+ * movements in between, written by one INSERT ... SELECT. An as-of query starts from the latest
+ * snapshot at or before the requested time and replays only the later movements, split into SKU id
+ * ranges that are summed concurrently.
+ */
+@Service
+@Slf4j
+public class StockSnapshotService {
+
+    // Cutoff used before the first snapshot exists, i.e. replay the whole ledger
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDate NO_SNAPSHOT = LEDGER_START.toLocalDate();
+
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final Executor reportTaskExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stock.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stock.snapshot.replay-partitions:8}")
+    private int replayPartitions;
+
+    public StockSnapshotService(StockSnapshotRepository stockSnapshotRepository,
+                                @Qualifier("reportTaskExecutor") Executor reportTaskExecutor,
+                                PlatformTransactionManager transactionManager) {
+        this.stockSnapshotRepository = stockSnapshotRepository;
+        this.reportTaskExecutor = reportTaskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs shortly after midnight so movements appended just before it have committed. Days missed
+     * while the application was down are taken in order.
+     */
+    @Scheduled(cron = "${stock.snapshot.cron:0 15 0 * * *}")
+    public void takeDailySnapshots() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int taken = takeSnapshotsThrough(LocalDate.now().minusDays(1));
+            if (taken > 0) {
+                log.info("Took {} daily stock snapshot(s)", taken);
+            }
+        } catch (RuntimeException e) {
+            log.error("Daily stock snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Take every missing snapshot up to and including the given day. Returns how many were taken.
+     */
+    public int takeSnapshotsThrough(LocalDate lastDay) {
+        Optional<LocalDate> latest = stockSnapshotRepository.findLatestSnapshotDate();
+        // Without any snapshot yet, the first one replays the whole ledger
+        LocalDate day = latest.map(date -> date.plusDays(1)).orElse(lastDay);
+        int taken = 0;
+        for (; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            if (takeSnapshot(day)) {
+                taken++;
+            }
+        }
+        return taken;
+    }
+
+    private boolean takeSnapshot(LocalDate day) {
+        Boolean taken = transactionTemplate.execute(status -> {
+            if (stockSnapshotRepository.claimRun(day) == 0) {
+                return false;
+            }
+            LocalDate previous = stockSnapshotRepository.findLatestSnapshotDateOnOrBefore(day.minusDays(1)).orElse(null);
+            LocalDateTime from = previous != null ? cutoffOf(previous) : LEDGER_START;
+            int rows = stockSnapshotRepository.insertSnapshot(day, previous != null ? previous : NO_SNAPSHOT,
+                    from, cutoffOf(day));
+            stockSnapshotRepository.completeRun(day, rows);
+            log.debug("Stock snapshot for {} holds {} SKUs", day, rows);
+            return true;
+        });
+        return Boolean.TRUE.equals(taken);
+    }
+
+    /**
+     * Quantity on hand per SKU at the given time, optionally for a single SKU.
+     */
+    public StockAsOfResponse getStockAsOf(LocalDateTime asOf, Long skuId) {
+        // The snapshot of day D covers up to the start of D + 1
+        LocalDate snapshotDate = stockSnapshotRepository
+                .findLatestSnapshotDateOnOrBefore(asOf.toLocalDate().minusDays(1))
+                .orElse(null);
+        LocalDateTime replayFrom = snapshotDate != null ? cutoffOf(snapshotDate) : LEDGER_START;
+
+        long[][] ranges = skuId != null ? new long[][]{{skuId, skuId}} : skuRanges();
+        List<CompletableFuture<Map<Long, Integer>>> parts = new ArrayList<>(ranges.length);
+        for (long[] range : ranges) {
+            parts.add(CompletableFuture.supplyAsync(
+                    () -> replayRange(snapshotDate, replayFrom, asOf, range[0], range[1]), reportTaskExecutor));
+        }
+
+        List<StockAsOfResponse.Line> items = new ArrayList<>();
+        long totalQuantity = 0;
+        // Ranges are disjoint and ascending, so concatenating them keeps SKU order
+        for (CompletableFuture<Map<Long, Integer>> part : parts) {
+            for (Map.Entry<Long, Integer> entry : part.join().entrySet()) {
+                items.add(StockAsOfResponse.Line.builder().skuId(entry.getKey()).quantity(entry.getValue()).build());
+                totalQuantity += entry.getValue();
+            }
+        }
+
+        return StockAsOfResponse.builder()
+                .asOf(asOf)
+                .snapshotDate(snapshotDate)
+                .replayedFrom(replayFrom)
+                .totalQuantity(totalQuantity)
+                .items(items)
+                .build();
+    }
+
+    private Map<Long, Integer> replayRange(LocalDate snapshotDate, LocalDateTime from, LocalDateTime to,
+                                           long fromSkuId, long toSkuId) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        if (snapshotDate != null) {
+            for (Object[] row : stockSnapshotRepository.findQuantitiesInRange(snapshotDate, fromSkuId, toSkuId)) {
+                quantities.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        }
+        if (from.isBefore(to)) {
+            for (Object[] row : stockSnapshotRepository.sumMovementsInRange(from, to, fromSkuId, toSkuId)) {
+                quantities.merge(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), Integer::sum);
+            }
+        }
+        quantities.values().removeIf(quantity -> quantity == 0);
+        return quantities;
+    }
+
+    private long[][] skuRanges() {
+        List<Object[]> bounds = stockSnapshotRepository.findSkuIdBounds();
+        if (bounds.isEmpty() || bounds.get(0)[0] == null) {
+            return new long[0][];
+        }
+        long min = ((Number) bounds.get(0)[0]).longValue();
+        long max = ((Number) bounds.get(0)[1]).longValue();
+        long span = max - min + 1;
+        long width = (span + Math.max(1, replayPartitions) - 1) / Math.max(1, replayPartitions);
+        int partitions = (int) ((span + width - 1) / width);
+        long[][] ranges = new long[partitions][];
+        for (int i = 0; i < partitions; i++) {
+            long start = min + i * width;
+            ranges[i] = new long[]{start, Math.min(max, start + width - 1)};
+        }
+        return ranges;
+    }
+
+    private static LocalDateTime cutoffOf(LocalDate snapshotDate) {
+        return snapshotDate.plusDays(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.stock.StockTransferRequest;
+import com.example.Backend.dtos.stock.StockTransferResponse;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.StockLocation;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.models.StockTransfer;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.StockBatchRepository;
+import com.example.Backend.repositorys.StockTransferRepository;
+import com.example.Backend.repositorys.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Moves stock between locations. All lines are debited at the source and credited at the
+ * destination by one statement after the SKUs' stock rows are locked, so a transfer applies
+ * completely or not at all and never races a sale at either end. The per-SKU totals are unchanged;
+ * the ledger gets an OUT at the source and an IN at the destination per SKU.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockTransferService {
+
+    private static final String REF_TYPE = "stock_transfer";
+
+    private final StockBatchRepository stockBatchRepository;
+    private final StockTransferRepository stockTransferRepository;
+    private final StockLocationService stockLocationService;
+    private final StockLedgerWriter stockLedgerWriter;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional
+    public StockTransferResponse transfer(StockTransferRequest request, String username) {
+        if (request.getFromLocationId().equals(request.getToLocationId())) {
+            throw new StockException("Source and destination location must differ");
+        }
+        StockLocation from = stockLocationService.resolve(request.getFromLocationId());
+        StockLocation to = stockLocationService.resolve(request.getToLocationId());
+        SortedMap<Long, Integer> quantities = request.getLines().stream()
+                .collect(Collectors.toMap(StockTransferRequest.Line::getSkuId, StockTransferRequest.Line::getQuantity,
+                        Integer::sum, TreeMap::new));
+
+        stockBatchRepository.lockBySkuIds(quantities.keySet());
+        if (stockBatchRepository.transfer(from.getId(), to.getId(), quantities) != quantities.size()) {
+            List<Long> shortages = stockBatchRepository.findShortages(from.getId(), quantities, Map.of());
+            throw new StockException("Insufficient stock at " + from.getCode() + " for SKU: " +
+                    (shortages.isEmpty() ? quantities.keySet() : shortages));
+        }
+        stockAvailabilityCache.onTransferred(from.getId(), to.getId(), quantities);
+
+        User user = username != null ? userRepository.findByUsernameOrEmail(username, username).orElse(null) : null;
+        StockTransfer transfer = stockTransferRepository.save(StockTransfer.builder()
+                .fromLocation(from)
+                .toLocation(to)
+                .notes(request.getNotes())
+                .createdBy(user)
+                .build());
+
+        List<StockMovement> movements = new ArrayList<>(quantities.size() * 2);
+        quantities.forEach((skuId, quantity) -> {
+            SKU sku = entityManager.getReference(SKU.class, skuId);
+            movements.add(transferMovement(transfer, sku, from, StockMovement.MovementType.OUT, quantity, user));
+            movements.add(transferMovement(transfer, sku, to, StockMovement.MovementType.IN, quantity, user));
+        });
+        stockLedgerWriter.appendAll(movements);
+
+        log.info("Transferred {} SKUs from {} to {} (transfer {})", quantities.size(), from.getCode(), to.getCode(), transfer.getId());
+        return StockTransferResponse.builder()
+                .transferId(transfer.getId())
+                .fromLocationId(from.getId())
+                .toLocationId(to.getId())
+                .quantities(quantities)
+                .notes(transfer.getNotes())
+                .createdAt(transfer.getCreatedAt())
+                .build();
+    }
+
+    private static StockMovement transferMovement(StockTransfer transfer, SKU sku, StockLocation location,
+                                                  StockMovement.MovementType movementType, int quantity, User user) {
+        return StockMovement.builder()
+                .sku(sku)
+                .location(location)
+                .movementType(movementType)
+                .quantity(quantity)
+                .reason(StockMovement.MovementReason.TRANSFER)
+                .refType(REF_TYPE)
+                .refId(transfer.getId())
+                .notes(transfer.getNotes())
+                .createdBy(user)
+                .build();
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.Backend.services;
+
+import com.example.Backend.dtos.report.TopProductDto;
+import com.example.Backend.models.SKU;
+import com.example.Backend.repositorys.DailySkuSalesRepository;
+import com.example.Backend.repositorys.SKURepository;
+import com.example.Backend.repositorys.SalesBatchRepository;
+import com.example.Backend.utils.CountMinSketch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Top-selling products over any date range, answered from the per-day SKU counters in
+ * daily_sku_sales. Revenue is the sum of line totals, before order-level discount and tax.
+ * <ul>
+ *   <li>COUNTERS: exact; daily counters are merged per SKU and a bounded heap keeps the top K.</li>
+ *   <li>SKETCH: for very large catalogs; counters stream through a count-min sketch that tracks
+ *       K heavy-hitter candidates in fixed memory, whose exact totals are then read back.</li>
+ *   <li>ORDERS: exact baseline aggregated straight from the order tables.</li>
+ * </ul>
+ * All modes rank by the metric descending, ties by SKU id ascending.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+@Slf4j
+public class TopProductService {
+
+    private static final int MAX_LIMIT = 100;
+
+    public enum Metric { QUANTITY, REVENUE }
+
+    public enum Mode { COUNTERS, SKETCH, ORDERS }
+
+    private final SalesBatchRepository salesBatchRepository;
+    private final DailySkuSalesRepository dailySkuSalesRepository;
+    private final SKURepository skuRepository;
+
+    @Value("${reports.top-products.sketch-width:4096}")
+    private int sketchWidth;
+
+    @Value("${reports.top-products.sketch-depth:5}")
+    private int sketchDepth;
+
+    public List<TopProductDto> getTopProducts(LocalDate startDate, LocalDate endDate, int limit, Metric metric, Mode mode) {
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<SkuTotal> top;
+        switch (mode) {
+            case SKETCH:
+                top = topFromSketch(startDate, endDate, k, metric);
+                break;
+            case ORDERS:
+                top = topFromOrders(startDate, endDate, k, metric);
+                break;
+            default:
+                top = topFromCounters(startDate, endDate, k, metric);
+        }
+        return toDtos(top);
+    }
+
+    /**
+     * Exact COUNTERS ranking read one month at a time, for report jobs. {@code monthDone} is told
+     * the months done and the month count after each month, and may throw to abandon the ranking.
+     */
+    public List<TopProductDto> getTopProducts(LocalDate startDate, LocalDate endDate, int limit, Metric metric,
+                                              BiConsumer<Long, Long> monthDone) {
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Map<Long, SkuTotal> totals = new HashMap<>();
+        long months = YearMonth.from(startDate).until(YearMonth.from(endDate), ChronoUnit.MONTHS) + 1;
+        long done = 0;
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            LocalDate from = month.atDay(1).isBefore(startDate) ? startDate : month.atDay(1);
+            LocalDate to = month.atEndOfMonth().isAfter(endDate) ? endDate : month.atEndOfMonth();
+            addCounters(totals, from, to);
+            monthDone.accept(++done, months);
+        }
+        return toDtos(selectTop(totals.values(), k, metric));
+    }
+
+    private List<SkuTotal> topFromCounters(LocalDate startDate, LocalDate endDate, int k, Metric metric) {
+        Map<Long, SkuTotal> totals = new HashMap<>();
+        addCounters(totals, startDate, endDate);
+        return selectTop(totals.values(), k, metric);
+    }
+
+    private void addCounters(Map<Long, SkuTotal> totals, LocalDate startDate, LocalDate endDate) {
+        salesBatchRepository.forEachDailySkuSales(startDate, endDate, (skuId, quantity, revenueCents) -> {
+            SkuTotal total = totals.computeIfAbsent(skuId, SkuTotal::new);
+            total.quantity += quantity;
+            total.revenueCents += revenueCents;
+        });
+    }
+
+    private List<SkuTotal> topFromSketch(LocalDate startDate, LocalDate endDate, int k, Metric metric) {
+        CountMinSketch sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        Map<Long, Long> candidates = new HashMap<>();
+        // Weakest candidate first: lowest estimate, then highest SKU id
+        TreeSet<long[]> byEstimate = new TreeSet<>(Comparator.<long[]>comparingLong(entry -> entry[0])
+                .thenComparing(entry -> entry[1], Comparator.reverseOrder()));
+
+        salesBatchRepository.forEachDailySkuSales(startDate, endDate, (skuId, quantity, revenueCents) -> {
+            long value = metric == Metric.REVENUE ? revenueCents : quantity;
+            if (value <= 0) {
+                return;
+            }
+            long estimate = sketch.add(skuId, value);
+            Long current = candidates.get(skuId);
+            if (current != null) {
+                byEstimate.remove(new long[]{current, skuId});
+            } else if (candidates.size() >= k) {
+                long[] weakest = byEstimate.first();
+                if (estimate < weakest[0] || (estimate == weakest[0] && skuId > weakest[1])) {
+                    return;
+                }
+                byEstimate.pollFirst();
+                candidates.remove(weakest[1]);
+            }
+            candidates.put(skuId, estimate);
+            byEstimate.add(new long[]{estimate, skuId});
+        });
+
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<SkuTotal> exact = dailySkuSalesRepository.sumBySkuIds(candidates.keySet(), startDate, endDate).stream()
+                .map(row -> new SkuTotal((Long) row[0], ((Number) row[1]).longValue(), toCents((BigDecimal) row[2])))
+                .collect(Collectors.toList());
+        return selectTop(exact, k, metric);
+    }
+
+    private List<SkuTotal> topFromOrders(LocalDate startDate, LocalDate endDate, int k, Metric metric) {
+        return dailySkuSalesRepository.findTopSkusFromOrders(startDate, endDate, metric == Metric.REVENUE, k).stream()
+                .map(row -> new SkuTotal(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), toCents((BigDecimal) row[2])))
+                .collect(Collectors.toList());
+    }
+
+    private List<SkuTotal> selectTop(Collection<SkuTotal> totals, int k, Metric metric) {
+        Comparator<SkuTotal> ranking = Comparator.comparingLong((SkuTotal total) -> total.value(metric)).reversed()
+                .thenComparingLong(total -> total.skuId);
+        // Min-heap of the best k seen so far, weakest at the head
+        PriorityQueue<SkuTotal> heap = new PriorityQueue<>(k + 1, ranking.reversed());
+        for (SkuTotal total : totals) {
+            if (total.quantity == 0 && total.revenueCents == 0) {
+                continue;
+            }
+            heap.offer(total);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<SkuTotal> top = new ArrayList<>(heap);
+        top.sort(ranking);
+        return top;
+    }
+
+    private List<TopProductDto> toDtos(List<SkuTotal> top) {
+        if (top.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, SKU> skus = skuRepository.findAllWithModelAndBrandByIdIn(
+                        top.stream().map(total -> total.skuId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(SKU::getId, Function.identity()));
+
+        List<TopProductDto> result = new ArrayList<>();
+        int ranking = 1;
+        for (SkuTotal total : top) {
+            SKU sku = skus.get(total.skuId);
+            result.add(TopProductDto.builder()
+                    .productId(sku != null ? sku.getModel().getId() : null)
+                    .productName(sku != null ? productName(sku) : null)
+                    .sku(sku != null ? sku.getCode() : String.valueOf(total.skuId))
+                    .brand(sku != null ? sku.getModel().getBrand().getName() : null)
+                    .quantitySold((int) Math.min(total.quantity, Integer.MAX_VALUE))
+                    .revenue(BigDecimal.valueOf(total.revenueCents, 2))
+                    .ranking(ranking++)
+                    .build());
+        }
+        return result;
+    }
+
+    private static String productName(SKU sku) {
+        return sku.getVariantName() != null ? sku.getModel().getName() + " " + sku.getVariantName() : sku.getModel().getName();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).longValue() : 0L;
+    }
+
+    private static class SkuTotal {
+        final long skuId;
+        long quantity;
+        long revenueCents;
+
+        SkuTotal(long skuId) {
+            this.skuId = skuId;
+        }
+
+        SkuTotal(long skuId, long quantity, long revenueCents) {
+            this.skuId = skuId;
+            this.quantity = quantity;
+            this.revenueCents = revenueCents;
+        }
+
+        long value(Metric metric) {
+            return metric == Metric.REVENUE ? revenueCents : quantity;
+        }
+    }
+}
@@ -28,6 +28,8 @@ public class WarrantyService {
     private final SalesOrderItemRepository salesOrderItemRepository;
     private final SerialUnitRepository serialUnitRepository;
     private final WarrantyMapper warrantyMapper;
+    private final SerialUnitService serialUnitService;
+    private final CodeAllocator codeAllocator;
 
     public WarrantyResponse createWarranty(WarrantyRequest request) {
         Customer customer = findCustomerById(request.getCustomerId());
@@ -35,7 +37,7 @@ public class WarrantyService {
         SerialUnit serialUnit = request.getSerialUnitId() != null ?
             findSerialUnitById(request.getSerialUnitId()) : null;
 
-        String warrantyCode = generateWarrantyCode();
+        String warrantyCode = codeAllocator.next(CodeAllocator.CodeType.WARRANTY);
         LocalDate endDate = request.getStartDate().plusMonths(request.getMonths());
 
         Warranty warranty = Warranty.builder()
@@ -51,6 +53,7 @@ public class WarrantyService {
                 .build();
 
         Warranty savedWarranty = warrantyRepository.save(warranty);
+        evictTrace(savedWarranty);
         return warrantyMapper.toResponse(savedWarranty);
     }
 
@@ -109,6 +112,7 @@ public class WarrantyService {
         warranty.setNotes((warranty.getNotes() != null ? warranty.getNotes() + "\n" : "") +
                 "Voided: " + reason);
         warrantyRepository.save(warranty);
+        evictTrace(warranty);
     }
 
     public void claimWarranty(Long id, String claimReason) {
@@ -120,6 +124,7 @@ public class WarrantyService {
         warranty.setNotes((warranty.getNotes() != null ? warranty.getNotes() + "\n" : "") +
                 "Claimed: " + claimReason);
         warrantyRepository.save(warranty);
+        evictTrace(warranty);
     }
 
     public Page<WarrantyResponse> searchWarranties(String keyword, Pageable pageable) {
@@ -156,13 +161,6 @@ public class WarrantyService {
         private Long expiringWithin30Days;
     }
 
-    private String generateWarrantyCode() {
-        String prefix = "WR";
-        String date = LocalDate.now().toString().replace("-", "");
-        long count = warrantyRepository.count() + 1;
-        return String.format("%s%s%06d", prefix, date, count);
-    }
-
     private Warranty findWarrantyById(Long id) {
         return warrantyRepository.findById(id)
                 .orElseThrow(() -> new WarrantyException("Warranty not found with id: " + id));
@@ -178,6 +176,13 @@ public class WarrantyService {
                 .orElseThrow(() -> new WarrantyException("Sales order item not found with id: " + id));
     }
 
+    // The warranty is part of its unit's IMEI trace
+    private void evictTrace(Warranty warranty) {
+        if (warranty.getSerialUnit() != null) {
+            serialUnitService.evictTraces(List.of(warranty.getSerialUnit().getImei()));
+        }
+    }
+
     private SerialUnit findSerialUnitById(Long id) {
         return serialUnitRepository.findById(id)
                 .orElseThrow(() -> new WarrantyException("Serial unit not found with id: " + id));
@@ -0,0 +1,149 @@
+package com.example.Backend.utils;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * One SSE subscriber behind a queue holding only the latest undelivered event per key. Publishers
+ * only enqueue; the queue is drained on a task of the sender executor, meant to start a virtual
+ * thread per task, while anything is pending. A slow client therefore gets coalesced updates and
+ * never holds up the publisher or other subscribers, and an idle one holds no thread.
+ * <p>
+ * A failed send completes the emitter with the error and hands the error to the drop callback.
+ * After an event matching the final predicate is sent the emitter is completed and later offers
+ * are ignored.
+ */
+public class CoalescingEmitter<K, E> {
+
+    private final SseEmitter emitter;
+    private final Executor senders;
+    private final Function<E, SseEmitter.SseEventBuilder> render;
+    private final BinaryOperator<E> coalesce;
+    private final Predicate<E> last;
+    private final Consumer<Exception> onDrop;
+
+    // Guarded by pending
+    private final Map<K, E> pending = new LinkedHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private SseEmitter.SseEventBuilder lead;
+    private boolean heartbeatDue;
+    private volatile boolean closed;
+
+    /**
+     * @param coalesce merges an undelivered event with a newer one of the same key, (older, newer)
+     */
+    public CoalescingEmitter(SseEmitter emitter, Executor senders, Function<E, SseEmitter.SseEventBuilder> render,
+                             BinaryOperator<E> coalesce, Consumer<Exception> onDrop) {
+        this(emitter, senders, render, coalesce, event -> false, onDrop);
+    }
+
+    public CoalescingEmitter(SseEmitter emitter, Executor senders, Function<E, SseEmitter.SseEventBuilder> render,
+                             BinaryOperator<E> coalesce, Predicate<E> last, Consumer<Exception> onDrop) {
+        this.emitter = emitter;
+        this.senders = senders;
+        this.render = render;
+        this.coalesce = coalesce;
+        this.last = last;
+        this.onDrop = onDrop;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Queue an event to go out before any pending one, such as the snapshot a stream opens with.
+     */
+    public void offerFirst(SseEmitter.SseEventBuilder event) {
+        synchronized (pending) {
+            lead = event;
+        }
+        scheduleDrain();
+    }
+
+    public void offer(K key, E event) {
+        if (closed) {
+            return;
+        }
+        synchronized (pending) {
+            pending.merge(key, event, coalesce);
+        }
+        scheduleDrain();
+    }
+
+    public void offerHeartbeat() {
+        synchronized (pending) {
+            heartbeatDue = true;
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!closed && draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        while (!closed) {
+            List<E> events;
+            SseEmitter.SseEventBuilder first;
+            boolean heartbeat;
+            synchronized (pending) {
+                events = new ArrayList<>(pending.values());
+                pending.clear();
+                first = lead;
+                lead = null;
+                heartbeat = heartbeatDue;
+                heartbeatDue = false;
+            }
+            if (events.isEmpty() && first == null && !heartbeat) {
+                draining.set(false);
+                // An offer may have slipped in after the check; claim the drain again if so
+                synchronized (pending) {
+                    if ((pending.isEmpty() && lead == null && !heartbeatDue) || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            try {
+                if (first != null) {
+                    emitter.send(first);
+                }
+                for (E event : events) {
+                    emitter.send(render.apply(event));
+                    if (last.test(event)) {
+                        closed = true;
+                        emitter.complete();
+                        return;
+                    }
+                }
+                if (heartbeat) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                onDrop.accept(e);
+                emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.Backend.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+/**
+ * Re-runs an attempt that lost a race: a compare-and-set that matched no row, a lock timeout or
+ * a deadlock victim, all surfacing as {@link ConcurrencyFailureException}. Waits between attempts
+ * grow exponentially with full jitter, so threads colliding on a hot row spread out instead of
+ * colliding again in step. Each attempt must be a whole transaction of its own.
+ */
+public class ContentionRetry {
+
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    public ContentionRetry(int maxAttempts, long baseBackoffMs, long maxBackoffMs) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = Math.max(0, baseBackoffMs);
+        this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+    }
+
+    public <T> T run(Supplier<T> attempt) {
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempts >= maxAttempts) {
+                    throw e;
+                }
+                backOff(attempts);
+            }
+        }
+    }
+
+    private void backOff(int attempts) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempts - 1, 20));
+        if (ceiling <= 0) {
+            Thread.onSpinWait();
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
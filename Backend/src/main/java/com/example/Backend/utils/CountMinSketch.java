@@ -0,0 +1,58 @@
+package com.example.Backend.utils;
+
+/**
+ * Count-min sketch over long keys. Estimates never undercount; with width w and depth d they
+ * overcount by at most 2N/w (N = total added) with probability 1 - 2^-d. Only non-negative
+ * increments are supported.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final long[][] counts;
+    private final long[] seeds;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.counts = new long[depth][width];
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = 0x9E3779B97F4A7C15L * (row + 1);
+        }
+    }
+
+    /**
+     * Add the count to the key and return the key's new estimate.
+     */
+    public long add(long key, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count-min sketch counts cannot decrease");
+        }
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            int column = column(key, row);
+            counts[row][column] += count;
+            estimate = Math.min(estimate, counts[row][column]);
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            estimate = Math.min(estimate, counts[row][column(key, row)]);
+        }
+        return estimate;
+    }
+
+    private int column(long key, int row) {
+        // SplitMix64 finalizer, salted per row
+        long hash = key + seeds[row];
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash = hash ^ (hash >>> 31);
+        return (int) Math.floorMod(hash, (long) width);
+    }
+}
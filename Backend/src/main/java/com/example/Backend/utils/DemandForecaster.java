@@ -0,0 +1,141 @@
+package com.example.Backend.utils;
+
+/**
+ * Exponential smoothing over weekly demand buckets. With at least two full seasons of history the
+ * forecast is additive Holt-Winters (level, trend, seasonal index per week of the season); with
+ * less it falls back to Holt's level and trend. Forecasts are clamped at zero, since a falling
+ * trend cannot turn into negative sales.
+ */
+public class DemandForecaster {
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final int seasonLength;
+
+    public DemandForecaster(double alpha, double beta, double gamma, int seasonLength) {
+        if (!inUnitInterval(alpha) || !inUnitInterval(beta) || !inUnitInterval(gamma)) {
+            throw new IllegalArgumentException("Smoothing factors must be between 0 and 1");
+        }
+        if (seasonLength < 2) {
+            throw new IllegalArgumentException("Season length must be at least 2");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.seasonLength = seasonLength;
+    }
+
+    /**
+     * Fit the weekly history (oldest first) and forecast the following weeks.
+     */
+    public Forecast forecast(double[] history, int horizon) {
+        if (history.length == 0) {
+            return new Forecast(new double[horizon], 0, 0, false);
+        }
+        boolean seasonal = history.length >= 2 * seasonLength;
+        double level;
+        double trend;
+        double[] season = new double[seasonLength];
+        int start;
+
+        if (seasonal) {
+            double firstMean = mean(history, 0, seasonLength);
+            double secondMean = mean(history, seasonLength, 2 * seasonLength);
+            level = firstMean;
+            trend = (secondMean - firstMean) / seasonLength;
+            for (int i = 0; i < seasonLength; i++) {
+                season[i] = history[i] - firstMean;
+            }
+            start = seasonLength;
+        } else {
+            level = history[0];
+            trend = history.length > 1 ? history[1] - history[0] : 0;
+            start = 1;
+        }
+
+        double squaredErrors = 0;
+        int errors = 0;
+        for (int t = start; t < history.length; t++) {
+            double seasonalT = seasonal ? season[t % seasonLength] : 0;
+            double predicted = Math.max(0, level + trend + seasonalT);
+            double error = history[t] - predicted;
+            squaredErrors += error * error;
+            errors++;
+
+            double previousLevel = level;
+            level = alpha * (history[t] - seasonalT) + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+            if (seasonal) {
+                season[t % seasonLength] = gamma * (history[t] - level) + (1 - gamma) * seasonalT;
+            }
+        }
+
+        double[] weeks = new double[horizon];
+        for (int h = 1; h <= horizon; h++) {
+            double seasonalH = seasonal ? season[(history.length + h - 1) % seasonLength] : 0;
+            weeks[h - 1] = Math.max(0, level + h * trend + seasonalH);
+        }
+        double stdDev = errors > 0 ? Math.sqrt(squaredErrors / errors) : 0;
+        return new Forecast(weeks, Math.max(0, level), stdDev, seasonal);
+    }
+
+    private static double mean(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    private static boolean inUnitInterval(double value) {
+        return value >= 0 && value <= 1;
+    }
+
+    public static final class Forecast {
+        private final double[] weeks;
+        private final double level;
+        private final double stdDev;
+        private final boolean seasonal;
+
+        private Forecast(double[] weeks, double level, double stdDev, boolean seasonal) {
+            this.weeks = weeks;
+            this.level = level;
+            this.stdDev = stdDev;
+            this.seasonal = seasonal;
+        }
+
+        /**
+         * Forecast demand of the h-th week ahead (1-based).
+         */
+        public double week(int h) {
+            return weeks[h - 1];
+        }
+
+        /**
+         * Total forecast demand over the first {@code weeks} weeks ahead.
+         */
+        public double total(int weeks) {
+            double total = 0;
+            for (int h = 1; h <= weeks; h++) {
+                total += week(h);
+            }
+            return total;
+        }
+
+        public double getLevel() {
+            return level;
+        }
+
+        /**
+         * Root mean squared one-week-ahead error over the fitted history.
+         */
+        public double getStdDev() {
+            return stdDev;
+        }
+
+        public boolean isSeasonal() {
+            return seasonal;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.Backend.utils;
+
+/**
+ * IMEI normalization and check-digit validation. An IMEI is 15 digits whose last digit is the
+ * Luhn check digit of the first 14.
+ */
+public final class Imei {
+
+    public static final int LENGTH = 15;
+
+    private Imei() {
+    }
+
+    /**
+     * The IMEI with the separators scanners and people type (spaces, '-', '/', '.') removed, or
+     * null when nothing is left.
+     */
+    public static String normalize(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(LENGTH);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (!Character.isWhitespace(c) && c != '-' && c != '/' && c != '.') {
+                digits.append(c);
+            }
+        }
+        return digits.length() == 0 ? null : digits.toString();
+    }
+
+    /**
+     * Whether a normalized value is 15 digits with a correct Luhn check digit.
+     */
+    public static boolean isValid(String imei) {
+        if (imei == null || imei.length() != LENGTH) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = imei.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+}
@@ -0,0 +1,608 @@
+package com.example.Backend.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Append-only, in-memory columnar store of sold order lines. Every line is one row of primitive
+ * columns: a dictionary code per dimension, the epoch day, quantity and revenue in cents. Queries
+ * filter by day range and dimension codes and group by any combination of dimensions, scanning
+ * row ranges in parallel on a fork-join pool. When the packed group keys fit a modest array, each
+ * scan sums straight into an array slot per key; otherwise into a hash table per row range.
+ * <p>
+ * A single writer appends at a time; readers work on the row count published when their query
+ * started and never block appends. A {@link Batch} is published as a whole.
+ */
+public class SalesCube {
+
+    public enum Dimension { BRAND, CATEGORY, SKU, STAFF, CUSTOMER_TIER, DAY }
+
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+    private static final int DAY = Dimension.DAY.ordinal();
+    private static final int INITIAL_CAPACITY = 1 << 14;
+    private static final int LEAF_ROWS = 1 << 16;
+    private static final int MAX_KEY_BITS = 62;
+    private static final int MAX_DENSE_KEY_BITS = 20;
+
+    private final Dictionary[] dictionaries = new Dictionary[DIMENSIONS.length];
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+    public SalesCube() {
+        for (Dimension dimension : DIMENSIONS) {
+            if (dimension != Dimension.DAY) {
+                dictionaries[dimension.ordinal()] = new Dictionary();
+            }
+        }
+    }
+
+    /**
+     * The dictionary code for the key, adding it with the label when new.
+     */
+    public int encode(Dimension dimension, long key, String label) {
+        return dictionary(dimension).encode(key, label);
+    }
+
+    /**
+     * The dictionary code for the key, or -1 when no row has used it.
+     */
+    public int code(Dimension dimension, long key) {
+        return dictionary(dimension).code(key);
+    }
+
+    public long key(Dimension dimension, int code) {
+        return dictionary(dimension).key(code);
+    }
+
+    public String label(Dimension dimension, int code) {
+        return dictionary(dimension).label(code);
+    }
+
+    /**
+     * Append one row. Codes must come from {@link #encode}; refunds and cancellations are appended
+     * as rows with negative quantity and revenue.
+     */
+    public synchronized void append(int brand, int category, int sku, int staff, int customerTier, int epochDay,
+                                    long quantity, long revenueCents) {
+        Columns current = columns;
+        int row = current.size;
+        Columns target = row < current.quantity.length ? current : current.grow();
+        target.dims[Dimension.BRAND.ordinal()][row] = brand;
+        target.dims[Dimension.CATEGORY.ordinal()][row] = category;
+        target.dims[Dimension.SKU.ordinal()][row] = sku;
+        target.dims[Dimension.STAFF.ordinal()][row] = staff;
+        target.dims[Dimension.CUSTOMER_TIER.ordinal()][row] = customerTier;
+        target.dims[DAY][row] = epochDay;
+        target.quantity[row] = quantity;
+        target.revenueCents[row] = revenueCents;
+        // Publishing the new size makes the row visible to queries started from now on
+        columns = target.withSize(row + 1);
+    }
+
+    /**
+     * Append every row of the batch and publish them together, so a query sees all of them or none.
+     */
+    public synchronized void append(Batch batch) {
+        if (batch.size == 0) {
+            return;
+        }
+        Columns current = columns;
+        int row = current.size;
+        Columns target = current;
+        while (row + batch.size > target.quantity.length) {
+            target = target.grow();
+        }
+        for (int dim = 0; dim < DIMENSIONS.length; dim++) {
+            System.arraycopy(batch.dims[dim], 0, target.dims[dim], row, batch.size);
+        }
+        System.arraycopy(batch.quantity, 0, target.quantity, row, batch.size);
+        System.arraycopy(batch.revenueCents, 0, target.revenueCents, row, batch.size);
+        columns = target.withSize(row + batch.size);
+    }
+
+    public int size() {
+        return columns.size;
+    }
+
+    public List<Group> query(Query query, ForkJoinPool pool) {
+        Columns snapshot = columns;
+        // Read after the snapshot, so every code in its rows is below the dictionary sizes
+        KeyLayout layout = new KeyLayout(query, dictionarySizes());
+        RowFilter filter = new RowFilter(query, query.filterMasks(dictionarySizes()));
+
+        if (layout.totalBits <= MAX_DENSE_KEY_BITS) {
+            // A couple of ranges per worker, each summing into its own array
+            int leafRows = Math.max(LEAF_ROWS, snapshot.size / (pool.getParallelism() * 2) + 1);
+            DenseSums sums = snapshot.size == 0
+                    ? new DenseSums(1 << layout.totalBits)
+                    : pool.invoke(new DenseScanTask(snapshot, layout, filter, 0, snapshot.size, leafRows));
+            List<Group> groups = new ArrayList<>();
+            for (int slot = 0; slot < sums.seen.length; slot++) {
+                if (sums.seen[slot]) {
+                    groups.add(new Group(layout.decode(slot), sums.quantity[slot], sums.revenueCents[slot]));
+                }
+            }
+            return groups;
+        }
+
+        Aggregator aggregate = snapshot.size == 0
+                ? new Aggregator(16)
+                : pool.invoke(new ScanTask(snapshot, layout, filter, 0, snapshot.size));
+
+        List<Group> groups = new ArrayList<>(aggregate.size);
+        for (int slot = 0; slot < aggregate.keys.length; slot++) {
+            if (aggregate.keys[slot] != 0) {
+                long key = aggregate.keys[slot] - 1;
+                groups.add(new Group(layout.decode(key), aggregate.quantity[slot], aggregate.revenueCents[slot]));
+            }
+        }
+        return groups;
+    }
+
+    private int[] dictionarySizes() {
+        int[] sizes = new int[DIMENSIONS.length];
+        for (Dimension dimension : DIMENSIONS) {
+            if (dimension != Dimension.DAY) {
+                sizes[dimension.ordinal()] = dictionaries[dimension.ordinal()].size();
+            }
+        }
+        return sizes;
+    }
+
+    private Dictionary dictionary(Dimension dimension) {
+        if (dimension == Dimension.DAY) {
+            throw new IllegalArgumentException("Days are stored as epoch days, not dictionary codes");
+        }
+        return dictionaries[dimension.ordinal()];
+    }
+
+    /**
+     * Day range, dimension filters and grouping of a cube query. Filters are sets of dictionary
+     * codes; a filter naming no known code matches nothing.
+     */
+    public static class Query {
+        private final int fromDay;
+        private final int toDay;
+        private final Dimension[] groupBy;
+        private final Map<Dimension, int[]> filters = new EnumMap<>(Dimension.class);
+
+        public Query(int fromDay, int toDay, List<Dimension> groupBy) {
+            if (fromDay > toDay) {
+                throw new IllegalArgumentException("Start day cannot be after end day");
+            }
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.groupBy = groupBy.stream().distinct().toArray(Dimension[]::new);
+        }
+
+        public Query filter(Dimension dimension, int[] codes) {
+            if (dimension == Dimension.DAY) {
+                throw new IllegalArgumentException("Filter days with the query range");
+            }
+            filters.put(dimension, codes);
+            return this;
+        }
+
+        public Dimension[] getGroupBy() {
+            return groupBy.clone();
+        }
+
+        private boolean[][] filterMasks(int[] dictionarySizes) {
+            boolean[][] masks = new boolean[DIMENSIONS.length][];
+            filters.forEach((dimension, codes) -> {
+                boolean[] mask = new boolean[dictionarySizes[dimension.ordinal()]];
+                for (int code : codes) {
+                    if (code >= 0 && code < mask.length) {
+                        mask[code] = true;
+                    }
+                }
+                masks[dimension.ordinal()] = mask;
+            });
+            return masks;
+        }
+    }
+
+    /**
+     * Rows staged outside the cube, for appending in one step with {@link #append(Batch)}.
+     */
+    public static class Batch {
+        private int[][] dims = new int[DIMENSIONS.length][16];
+        private long[] quantity = new long[16];
+        private long[] revenueCents = new long[16];
+        private int size;
+
+        public void add(int brand, int category, int sku, int staff, int customerTier, int epochDay,
+                        long quantity, long revenueCents) {
+            if (size == this.quantity.length) {
+                int capacity = size * 2;
+                for (int dim = 0; dim < dims.length; dim++) {
+                    dims[dim] = Arrays.copyOf(dims[dim], capacity);
+                }
+                this.quantity = Arrays.copyOf(this.quantity, capacity);
+                this.revenueCents = Arrays.copyOf(this.revenueCents, capacity);
+            }
+            dims[Dimension.BRAND.ordinal()][size] = brand;
+            dims[Dimension.CATEGORY.ordinal()][size] = category;
+            dims[Dimension.SKU.ordinal()][size] = sku;
+            dims[Dimension.STAFF.ordinal()][size] = staff;
+            dims[Dimension.CUSTOMER_TIER.ordinal()][size] = customerTier;
+            dims[DAY][size] = epochDay;
+            this.quantity[size] = quantity;
+            this.revenueCents[size] = revenueCents;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * One result group. Values follow the query's group-by order: dictionary codes, or the epoch
+     * day for {@link Dimension#DAY}.
+     */
+    public static class Group {
+        private final int[] values;
+        private final long quantity;
+        private final long revenueCents;
+
+        Group(int[] values, long quantity, long revenueCents) {
+            this.values = values;
+            this.quantity = quantity;
+            this.revenueCents = revenueCents;
+        }
+
+        public int value(int index) {
+            return values[index];
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public long getRevenueCents() {
+            return revenueCents;
+        }
+    }
+
+    private static class Columns {
+        final int[][] dims;
+        final long[] quantity;
+        final long[] revenueCents;
+        final int size;
+
+        Columns(int capacity) {
+            this(new int[DIMENSIONS.length][capacity], new long[capacity], new long[capacity], 0);
+        }
+
+        private Columns(int[][] dims, long[] quantity, long[] revenueCents, int size) {
+            this.dims = dims;
+            this.quantity = quantity;
+            this.revenueCents = revenueCents;
+            this.size = size;
+        }
+
+        // Readers of the old arrays only look below their own size, so the copy can be filled in place
+        Columns grow() {
+            int capacity = quantity.length * 2;
+            int[][] grownDims = new int[dims.length][];
+            for (int i = 0; i < dims.length; i++) {
+                grownDims[i] = Arrays.copyOf(dims[i], capacity);
+            }
+            return new Columns(grownDims, Arrays.copyOf(quantity, capacity), Arrays.copyOf(revenueCents, capacity), size);
+        }
+
+        Columns withSize(int newSize) {
+            return new Columns(dims, quantity, revenueCents, newSize);
+        }
+    }
+
+    /**
+     * Packs the group-by values of a row into one long, a fixed bit field per dimension.
+     */
+    private static class KeyLayout {
+        final int[] dims;
+        final int[] shifts;
+        final int[] bits;
+        final int dayOffset;
+        final int[] offsets;
+        final int totalBits;
+
+        KeyLayout(Query query, int[] dictionarySizes) {
+            dims = new int[query.groupBy.length];
+            shifts = new int[dims.length];
+            bits = new int[dims.length];
+            offsets = new int[dims.length];
+            dayOffset = query.fromDay;
+            int shift = 0;
+            for (int i = 0; i < dims.length; i++) {
+                dims[i] = query.groupBy[i].ordinal();
+                offsets[i] = dims[i] == DAY ? dayOffset : 0;
+                long cardinality = dims[i] == DAY ? (long) query.toDay - query.fromDay + 1 : dictionarySizes[dims[i]];
+                bits[i] = Math.max(1, 64 - Long.numberOfLeadingZeros(Math.max(cardinality - 1, 1)));
+                shifts[i] = shift;
+                shift += bits[i];
+            }
+            if (shift > MAX_KEY_BITS) {
+                throw new IllegalArgumentException("Too many distinct groups, narrow the date range or the group-by");
+            }
+            totalBits = shift;
+        }
+
+        long encode(int[][] columns, int row) {
+            long key = 0;
+            for (int i = 0; i < dims.length; i++) {
+                key |= (long) (columns[dims[i]][row] - offsets[i]) << shifts[i];
+            }
+            return key;
+        }
+
+        int[] decode(long key) {
+            int[] values = new int[dims.length];
+            for (int i = 0; i < dims.length; i++) {
+                int value = (int) ((key >>> shifts[i]) & ((1L << bits[i]) - 1));
+                values[i] = dims[i] == DAY ? value + dayOffset : value;
+            }
+            return values;
+        }
+    }
+
+    /**
+     * The day range and dimension filters of a query, with only the filtered dimensions to check.
+     */
+    private static class RowFilter {
+        final int fromDay;
+        final int toDay;
+        final int[] dims;
+        final boolean[][] masks;
+
+        RowFilter(Query query, boolean[][] filterMasks) {
+            fromDay = query.fromDay;
+            toDay = query.toDay;
+            int count = 0;
+            for (boolean[] mask : filterMasks) {
+                if (mask != null) {
+                    count++;
+                }
+            }
+            dims = new int[count];
+            masks = new boolean[count][];
+            for (int dim = 0, i = 0; dim < filterMasks.length; dim++) {
+                if (filterMasks[dim] != null) {
+                    dims[i] = dim;
+                    masks[i++] = filterMasks[dim];
+                }
+            }
+        }
+
+        boolean matches(int[][] columns, int row) {
+            int day = columns[DAY][row];
+            if (day < fromDay || day > toDay) {
+                return false;
+            }
+            for (int i = 0; i < dims.length; i++) {
+                if (!masks[i][columns[dims[i]][row]]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class ScanTask extends RecursiveTask<Aggregator> {
+        private final Columns columns;
+        private final KeyLayout layout;
+        private final RowFilter filter;
+        private final int from;
+        private final int to;
+
+        ScanTask(Columns columns, KeyLayout layout, RowFilter filter, int from, int to) {
+            this.columns = columns;
+            this.layout = layout;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Aggregator compute() {
+            if (to - from <= LEAF_ROWS) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(columns, layout, filter, from, middle);
+            left.fork();
+            Aggregator right = new ScanTask(columns, layout, filter, middle, to).compute();
+            Aggregator merged = left.join();
+            return merged.size >= right.size ? merged.mergeFrom(right) : right.mergeFrom(merged);
+        }
+
+        private Aggregator scan() {
+            int[][] dims = columns.dims;
+            Aggregator aggregate = new Aggregator(64);
+            for (int row = from; row < to; row++) {
+                if (filter.matches(dims, row)) {
+                    aggregate.add(layout.encode(dims, row), columns.quantity[row], columns.revenueCents[row]);
+                }
+            }
+            return aggregate;
+        }
+    }
+
+    private static class DenseScanTask extends RecursiveTask<DenseSums> {
+        private final Columns columns;
+        private final KeyLayout layout;
+        private final RowFilter filter;
+        private final int from;
+        private final int to;
+        private final int leafRows;
+
+        DenseScanTask(Columns columns, KeyLayout layout, RowFilter filter, int from, int to, int leafRows) {
+            this.columns = columns;
+            this.layout = layout;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+        }
+
+        @Override
+        protected DenseSums compute() {
+            if (to - from <= leafRows) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            DenseScanTask left = new DenseScanTask(columns, layout, filter, from, middle, leafRows);
+            left.fork();
+            DenseSums right = new DenseScanTask(columns, layout, filter, middle, to, leafRows).compute();
+            return left.join().mergeFrom(right);
+        }
+
+        private DenseSums scan() {
+            int[][] dims = columns.dims;
+            DenseSums sums = new DenseSums(1 << layout.totalBits);
+            for (int row = from; row < to; row++) {
+                if (filter.matches(dims, row)) {
+                    int slot = (int) layout.encode(dims, row);
+                    sums.seen[slot] = true;
+                    sums.quantity[slot] += columns.quantity[row];
+                    sums.revenueCents[slot] += columns.revenueCents[row];
+                }
+            }
+            return sums;
+        }
+    }
+
+    /**
+     * Sums indexed directly by packed group key, for key spaces small enough to allocate whole.
+     */
+    private static class DenseSums {
+        final boolean[] seen;
+        final long[] quantity;
+        final long[] revenueCents;
+
+        DenseSums(int slots) {
+            seen = new boolean[slots];
+            quantity = new long[slots];
+            revenueCents = new long[slots];
+        }
+
+        DenseSums mergeFrom(DenseSums other) {
+            for (int slot = 0; slot < seen.length; slot++) {
+                if (other.seen[slot]) {
+                    seen[slot] = true;
+                    quantity[slot] += other.quantity[slot];
+                    revenueCents[slot] += other.revenueCents[slot];
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Open-addressing long-keyed sums. Keys are stored plus one so zero marks an empty slot.
+     */
+    private static class Aggregator {
+        long[] keys;
+        long[] quantity;
+        long[] revenueCents;
+        int size;
+
+        Aggregator(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1);
+        }
+
+        void add(long key, long quantityDelta, long revenueDelta) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash();
+            }
+            long stored = key + 1;
+            int mask = keys.length - 1;
+            int slot = (int) (mix(stored) & mask);
+            while (keys[slot] != 0 && keys[slot] != stored) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = stored;
+                size++;
+            }
+            quantity[slot] += quantityDelta;
+            revenueCents[slot] += revenueDelta;
+        }
+
+        Aggregator mergeFrom(Aggregator other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.keys[slot] != 0) {
+                    add(other.keys[slot] - 1, other.quantity[slot], other.revenueCents[slot]);
+                }
+            }
+            return this;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            long[] oldQuantity = quantity;
+            long[] oldRevenue = revenueCents;
+            allocate(oldKeys.length * 2);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    add(oldKeys[slot] - 1, oldQuantity[slot], oldRevenue[slot]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            quantity = new long[capacity];
+            revenueCents = new long[capacity];
+            size = 0;
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 32);
+        }
+    }
+
+    private static class Dictionary {
+        private final Map<Long, Integer> codes = new HashMap<>();
+        private final List<Long> keys = new ArrayList<>();
+        private final List<String> labels = new ArrayList<>();
+
+        synchronized int encode(long key, String label) {
+            Integer code = codes.get(key);
+            if (code != null) {
+                if (label != null) {
+                    labels.set(code, label);
+                }
+                return code;
+            }
+            codes.put(key, keys.size());
+            keys.add(key);
+            labels.add(label);
+            return keys.size() - 1;
+        }
+
+        synchronized int code(long key) {
+            Integer code = codes.get(key);
+            return code != null ? code : -1;
+        }
+
+        synchronized long key(int code) {
+            return keys.get(code);
+        }
+
+        synchronized String label(int code) {
+            return labels.get(code);
+        }
+
+        synchronized int size() {
+            return keys.size();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.Backend.utils;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by hashing keys onto them, so per-key mutual exclusion costs a
+ * bounded amount of memory. Two keys may share a stripe; that only serializes them needlessly.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLocks(int minStripes) {
+        if (minStripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is required");
+        }
+        int size = 1;
+        while (size < minStripes) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock forKey(long key) {
+        // Spread the bits so sequential ids do not walk the stripes in lockstep with another table
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash ^ (hash >>> 32)) & mask];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
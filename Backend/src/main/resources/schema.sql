@@ -4,17 +4,31 @@
 -- ==============================================
 
 -- Drop existing tables in reverse dependency order if they exist
+DROP TABLE IF EXISTS pricing_rule CASCADE;
 DROP TABLE IF EXISTS campaign_target CASCADE;
 DROP TABLE IF EXISTS campaign CASCADE;
 DROP TABLE IF EXISTS interaction CASCADE;
 DROP TABLE IF EXISTS repair_ticket CASCADE;
 DROP TABLE IF EXISTS warranty CASCADE;
+DROP TABLE IF EXISTS replenishment_run CASCADE;
+DROP TABLE IF EXISTS replenishment_forecast CASCADE;
+DROP TABLE IF EXISTS stock_snapshot_run CASCADE;
+DROP TABLE IF EXISTS stock_snapshot CASCADE;
+DROP TABLE IF EXISTS daily_sku_sales CASCADE;
+DROP TABLE IF EXISTS daily_sales_rollup CASCADE;
+DROP TABLE IF EXISTS outbox_checkpoint CASCADE;
+DROP TABLE IF EXISTS order_event CASCADE;
 DROP TABLE IF EXISTS payment CASCADE;
 DROP TABLE IF EXISTS sales_order_item CASCADE;
 DROP TABLE IF EXISTS sales_order CASCADE;
+DROP TABLE IF EXISTS stock_reservation CASCADE;
 DROP TABLE IF EXISTS stock_movement CASCADE;
+DROP TABLE IF EXISTS serial_unit_event CASCADE;
 DROP TABLE IF EXISTS serial_unit CASCADE;
+DROP TABLE IF EXISTS stock_transfer CASCADE;
+DROP TABLE IF EXISTS location_stock CASCADE;
 DROP TABLE IF EXISTS stock_item CASCADE;
+DROP TABLE IF EXISTS stock_location CASCADE;
 DROP TABLE IF EXISTS spec_value CASCADE;
 DROP TABLE IF EXISTS spec_field CASCADE;
 DROP TABLE IF EXISTS spec_group CASCADE;
@@ -237,6 +251,20 @@ CREATE TABLE spec_value (
 -- INVENTORY MANAGEMENT
 -- ==============================================
 
+-- Warehouse and branch stores; MAIN is the default location
+CREATE TABLE stock_location (
+    id         BIGSERIAL PRIMARY KEY,
+    code       VARCHAR(32) NOT NULL UNIQUE,
+    name       TEXT NOT NULL,
+    type       TEXT NOT NULL DEFAULT 'STORE' CHECK (type IN ('WAREHOUSE','STORE')),
+    address    TEXT,
+    active     BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO stock_location (code, name, type) VALUES ('MAIN', 'Main warehouse', 'WAREHOUSE');
+
+-- Per-SKU totals over all locations, moved in the same statement as location_stock
 CREATE TABLE stock_item (
     id            BIGSERIAL PRIMARY KEY,
     sku_id        BIGINT NOT NULL REFERENCES sku(id) ON DELETE CASCADE,
@@ -244,12 +272,35 @@ CREATE TABLE stock_item (
     reserved_qty  INTEGER NOT NULL DEFAULT 0 CHECK (reserved_qty >= 0),
     min_stock     INTEGER NOT NULL DEFAULT 0 CHECK (min_stock >= 0),
     max_stock     INTEGER CHECK (max_stock IS NULL OR max_stock >= min_stock),
+    avg_cost      NUMERIC(14,4) CHECK (avg_cost >= 0),
     updated_at    TIMESTAMPTZ NOT NULL DEFAULT NOW(),
 
     UNIQUE (sku_id),
     CONSTRAINT stock_item_reserved_check CHECK (reserved_qty <= quantity)
 );
 
+CREATE TABLE location_stock (
+    id            BIGSERIAL PRIMARY KEY,
+    location_id   BIGINT NOT NULL REFERENCES stock_location(id) ON DELETE RESTRICT,
+    sku_id        BIGINT NOT NULL REFERENCES sku(id) ON DELETE CASCADE,
+    quantity      INTEGER NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+    reserved_qty  INTEGER NOT NULL DEFAULT 0 CHECK (reserved_qty >= 0),
+    updated_at    TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT uk_location_stock_location_sku UNIQUE (location_id, sku_id),
+    CONSTRAINT location_stock_reserved_check CHECK (reserved_qty <= quantity)
+);
+
+CREATE TABLE stock_transfer (
+    id               BIGSERIAL PRIMARY KEY,
+    from_location_id BIGINT NOT NULL REFERENCES stock_location(id) ON DELETE RESTRICT,
+    to_location_id   BIGINT NOT NULL REFERENCES stock_location(id) ON DELETE RESTRICT,
+    notes            TEXT,
+    created_by       BIGINT REFERENCES users(id),
+    created_at       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT stock_transfer_locations_check CHECK (from_location_id <> to_location_id)
+);
+
 CREATE TABLE serial_unit (
     id            BIGSERIAL PRIMARY KEY,
     sku_id        BIGINT NOT NULL REFERENCES sku(id) ON DELETE CASCADE,
@@ -262,12 +313,26 @@ CREATE TABLE serial_unit (
     updated_at    TIMESTAMPTZ NOT NULL DEFAULT NOW()
 );
 
+-- Append-only status history of serial units; from_status is NULL when the unit was received
+CREATE TABLE serial_unit_event (
+    id             BIGSERIAL PRIMARY KEY,
+    serial_unit_id BIGINT NOT NULL REFERENCES serial_unit(id) ON DELETE CASCADE,
+    from_status    TEXT,
+    to_status      TEXT NOT NULL,
+    ref_type       TEXT,
+    ref_id         BIGINT,
+    notes          TEXT,
+    created_at     TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
 CREATE TABLE stock_movement (
     id             BIGSERIAL PRIMARY KEY,
     sku_id         BIGINT NOT NULL REFERENCES sku(id) ON DELETE CASCADE,
     serial_unit_id BIGINT REFERENCES serial_unit(id) ON DELETE SET NULL,
+    location_id    BIGINT REFERENCES stock_location(id),
     movement_type  TEXT NOT NULL CHECK (movement_type IN ('in','out')),
     quantity       INTEGER NOT NULL DEFAULT 1 CHECK (quantity > 0),
+    unit_cost      NUMERIC(14,4) CHECK (unit_cost >= 0),
     reason         TEXT NOT NULL CHECK (reason IN ('purchase','sale','return','repair','adjustment','transfer','damaged')),
     ref_type       TEXT,
     ref_id         BIGINT,
@@ -276,14 +341,51 @@ CREATE TABLE stock_movement (
     created_at     TIMESTAMPTZ NOT NULL DEFAULT NOW()
 );
 
+-- Quantity on hand per SKU at the end of each day; a missing row means zero
+CREATE TABLE stock_snapshot (
+    id            BIGSERIAL PRIMARY KEY,
+    snapshot_date DATE NOT NULL,
+    sku_id        BIGINT NOT NULL,
+    quantity      INTEGER NOT NULL,
+    CONSTRAINT uk_stock_snapshot_key UNIQUE (snapshot_date, sku_id)
+);
+
+CREATE TABLE stock_snapshot_run (
+    snapshot_date DATE PRIMARY KEY,
+    sku_count     INTEGER NOT NULL DEFAULT 0,
+    taken_at      TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Latest demand forecast per SKU from the nightly replenishment batch
+CREATE TABLE replenishment_forecast (
+    sku_id         BIGINT PRIMARY KEY,
+    weekly_demand  NUMERIC(12,3) NOT NULL,
+    demand_std_dev NUMERIC(12,3) NOT NULL,
+    reorder_point  INTEGER NOT NULL,
+    order_up_to    INTEGER NOT NULL,
+    history_weeks  INTEGER NOT NULL,
+    seasonal       BOOLEAN NOT NULL,
+    computed_at    TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE replenishment_run (
+    run_date    DATE PRIMARY KEY,
+    mode        TEXT NOT NULL,
+    started_at  TIMESTAMPTZ NOT NULL,
+    finished_at TIMESTAMPTZ,
+    sku_count   INTEGER
+);
+
 -- ==============================================
 -- SALES SYSTEM
 -- ==============================================
 
 CREATE TABLE sales_order (
     id             BIGSERIAL PRIMARY KEY,
+    order_number   TEXT UNIQUE,
     customer_id    BIGINT NOT NULL REFERENCES customer(id) ON DELETE RESTRICT,
     user_id        BIGINT NOT NULL REFERENCES users(id) ON DELETE RESTRICT,
+    location_id    BIGINT REFERENCES stock_location(id),
     status         TEXT NOT NULL DEFAULT 'draft' CHECK (status IN ('draft','pending','confirmed','paid','cancelled','refunded')),
     payment_method TEXT CHECK (payment_method IN ('cash','card','transfer','other')),
     subtotal       NUMERIC(12,2) NOT NULL DEFAULT 0 CHECK (subtotal >= 0),
@@ -310,6 +412,7 @@ CREATE TABLE sales_order_item (
 CREATE TABLE payment (
     id             BIGSERIAL PRIMARY KEY,
     order_id       BIGINT NOT NULL REFERENCES sales_order(id) ON DELETE CASCADE,
+    customer_id    BIGINT REFERENCES customer(id),
     payment_number TEXT NOT NULL UNIQUE,
     amount         NUMERIC(12,2) NOT NULL CHECK (amount > 0),
     method         TEXT NOT NULL CHECK (method IN ('cash','card','transfer','other')),
@@ -320,6 +423,60 @@ CREATE TABLE payment (
     created_by     BIGINT REFERENCES users(id)
 );
 
+CREATE TABLE stock_reservation (
+    id          BIGSERIAL PRIMARY KEY,
+    order_id    BIGINT NOT NULL REFERENCES sales_order(id) ON DELETE CASCADE,
+    sku_id      BIGINT NOT NULL REFERENCES sku(id) ON DELETE CASCADE,
+    location_id BIGINT REFERENCES stock_location(id),
+    quantity    INTEGER NOT NULL CHECK (quantity > 0),
+    status      TEXT NOT NULL DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE','CONSUMED','RELEASED','EXPIRED')),
+    expires_at  TIMESTAMPTZ NOT NULL,
+    released_at TIMESTAMPTZ,
+    created_at  TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Append-only outbox of order state changes, relayed to in-process listeners
+CREATE TABLE order_event (
+    id          BIGSERIAL PRIMARY KEY,
+    order_id    BIGINT NOT NULL,
+    customer_id BIGINT,
+    event_type  TEXT NOT NULL,
+    total       NUMERIC(12,2),
+    payload     TEXT NOT NULL,
+    created_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    relay_seq   BIGINT UNIQUE,
+    relayed_at  TIMESTAMPTZ,
+    delivery_attempts INTEGER NOT NULL DEFAULT 0,
+    last_error  TEXT
+);
+
+CREATE TABLE outbox_checkpoint (
+    name          VARCHAR(100) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL DEFAULT 0,
+    updated_at    TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE daily_sales_rollup (
+    id           BIGSERIAL PRIMARY KEY,
+    sales_date   DATE NOT NULL,
+    user_id      BIGINT NOT NULL,
+    status       TEXT NOT NULL,
+    order_count  BIGINT NOT NULL DEFAULT 0,
+    total_amount NUMERIC(14,2) NOT NULL DEFAULT 0,
+    updated_at   TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT uk_daily_sales_rollup_key UNIQUE (sales_date, user_id, status)
+);
+
+CREATE TABLE daily_sku_sales (
+    id         BIGSERIAL PRIMARY KEY,
+    sales_date DATE NOT NULL,
+    sku_id     BIGINT NOT NULL,
+    quantity   BIGINT NOT NULL DEFAULT 0,
+    revenue    NUMERIC(14,2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT uk_daily_sku_sales_key UNIQUE (sales_date, sku_id)
+);
+
 -- ==============================================
 -- WARRANTY & REPAIR
 -- ==============================================
@@ -406,6 +563,25 @@ CREATE TABLE campaign_target (
     PRIMARY KEY (campaign_id, customer_id)
 );
 
+-- Tax, tiered discount and promotion rules compiled by the pricing engine
+CREATE TABLE pricing_rule (
+    id            BIGSERIAL PRIMARY KEY,
+    name          TEXT NOT NULL,
+    rule_type     TEXT NOT NULL CHECK (rule_type IN ('TAX','TIERED_DISCOUNT','PROMOTION')),
+    sku_id        BIGINT REFERENCES sku(id) ON DELETE CASCADE,
+    category      TEXT,
+    customer_tier TEXT,
+    campaign_id   BIGINT REFERENCES campaign(id) ON DELETE CASCADE,
+    min_quantity  INTEGER NOT NULL DEFAULT 1 CHECK (min_quantity > 0),
+    percent       NUMERIC(5,2) CHECK (percent BETWEEN 0 AND 100),
+    amount_off    NUMERIC(12,2) CHECK (amount_off >= 0),
+    start_date    DATE,
+    end_date      DATE,
+    is_active     BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at    TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at    TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
 -- ==============================================
 -- INDEXES FOR PERFORMANCE
 -- ==============================================
@@ -434,23 +610,45 @@ CREATE INDEX idx_product_model_category ON product_model(category);
 CREATE INDEX idx_serial_unit_sku_id ON serial_unit(sku_id);
 CREATE INDEX idx_serial_unit_imei ON serial_unit(imei);
 CREATE INDEX idx_serial_unit_status ON serial_unit(status);
+CREATE INDEX idx_serial_unit_sku_in_stock ON serial_unit(sku_id, purchase_date, id) WHERE status = 'IN_STOCK';
+CREATE INDEX idx_serial_unit_event_unit ON serial_unit_event(serial_unit_id, created_at);
+CREATE INDEX idx_location_stock_sku_id ON location_stock(sku_id);
+CREATE INDEX idx_location_stock_sku_available ON location_stock(sku_id) WHERE quantity > reserved_qty;
 CREATE INDEX idx_stock_movement_sku_id ON stock_movement(sku_id);
-CREATE INDEX idx_stock_movement_created_at ON stock_movement(created_at);
+CREATE INDEX idx_stock_movement_created_at_id ON stock_movement(created_at DESC, id DESC);
+CREATE INDEX idx_stock_movement_created_at_brin ON stock_movement USING BRIN (created_at);
+-- StockLedgerWriter hands out ids in blocks of 50 per sequence value
+ALTER SEQUENCE stock_movement_id_seq INCREMENT BY 50;
+
+-- Business code numbers; each value reserves a block of 50 for the application's code allocator
+CREATE SEQUENCE IF NOT EXISTS sales_order_number_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS warranty_code_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS repair_ticket_number_seq INCREMENT BY 50;
 
 -- Sales indexes
 CREATE INDEX idx_sales_order_customer_id ON sales_order(customer_id);
 CREATE INDEX idx_sales_order_user_id ON sales_order(user_id);
 CREATE INDEX idx_sales_order_status ON sales_order(status);
 CREATE INDEX idx_sales_order_date ON sales_order(order_date);
+CREATE INDEX idx_sales_order_created_at_id ON sales_order(created_at DESC, id DESC);
 CREATE INDEX idx_sales_order_item_order_id ON sales_order_item(order_id);
+CREATE INDEX idx_sales_order_item_serial_unit_id ON sales_order_item(serial_unit_id) WHERE serial_unit_id IS NOT NULL;
 CREATE INDEX idx_payment_order_id ON payment(order_id);
+CREATE INDEX idx_payment_paid_at_id ON payment(paid_at DESC, id DESC);
+CREATE INDEX idx_payment_customer_paid_at_id ON payment(customer_id, paid_at DESC, id DESC);
+CREATE INDEX idx_stock_reservation_order_id ON stock_reservation(order_id);
+CREATE INDEX idx_stock_reservation_status_expires ON stock_reservation(status, expires_at);
+CREATE INDEX idx_order_event_order_id ON order_event(order_id);
+CREATE INDEX idx_order_event_unrelayed ON order_event(id) WHERE relay_seq IS NULL;
 
 -- Warranty & Repair indexes
 CREATE INDEX idx_warranty_customer_id ON warranty(customer_id);
 CREATE INDEX idx_warranty_code ON warranty(warranty_code);
 CREATE INDEX idx_warranty_status ON warranty(status);
+CREATE INDEX idx_warranty_serial_unit_id ON warranty(serial_unit_id);
 CREATE INDEX idx_repair_ticket_customer_id ON repair_ticket(customer_id);
 CREATE INDEX idx_repair_ticket_status ON repair_ticket(status);
+CREATE INDEX idx_repair_ticket_serial_unit_id ON repair_ticket(serial_unit_id);
 
 -- CRM indexes
 CREATE INDEX idx_interaction_customer_id ON interaction(customer_id);
@@ -474,6 +672,7 @@ $$ LANGUAGE plpgsql;
 -- Apply update triggers to relevant tables
 CREATE TRIGGER trigger_users_updated_at BEFORE UPDATE ON users FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER trigger_customer_updated_at BEFORE UPDATE ON customer FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER trigger_pricing_rule_updated_at BEFORE UPDATE ON pricing_rule FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER trigger_brand_updated_at BEFORE UPDATE ON brand FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER trigger_product_model_updated_at BEFORE UPDATE ON product_model FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER trigger_sku_updated_at BEFORE UPDATE ON sku FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
@@ -483,19 +682,19 @@ CREATE TRIGGER trigger_warranty_updated_at BEFORE UPDATE ON warranty FOR EACH RO
 CREATE TRIGGER trigger_repair_ticket_updated_at BEFORE UPDATE ON repair_ticket FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER trigger_campaign_updated_at BEFORE UPDATE ON campaign FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
--- Function to generate order numbers
+-- Function to generate order numbers; same format as the application's code allocator, but each call spends a whole block
 CREATE OR REPLACE FUNCTION generate_order_number()
 RETURNS TEXT AS $$
 BEGIN
-    RETURN 'SO' || TO_CHAR(NOW(), 'YYYYMMDD') || LPAD(NEXTVAL('sales_order_id_seq')::TEXT, 6, '0');
+    RETURN 'SO' || TO_CHAR(NOW(), 'YYYYMMDD') || LPAD(NEXTVAL('sales_order_number_seq')::TEXT, 6, '0');
 END;
 $$ LANGUAGE plpgsql;
 
--- Function to generate warranty codes
+-- Function to generate warranty codes; same caveat as above
 CREATE OR REPLACE FUNCTION generate_warranty_code()
 RETURNS TEXT AS $$
 BEGIN
-    RETURN 'WR' || TO_CHAR(NOW(), 'YYYYMMDD') || LPAD(NEXTVAL('warranty_id_seq')::TEXT, 6, '0');
+    RETURN 'WR' || TO_CHAR(NOW(), 'YYYYMMDD') || LPAD(NEXTVAL('warranty_code_seq')::TEXT, 6, '0');
 END;
 $$ LANGUAGE plpgsql;
 
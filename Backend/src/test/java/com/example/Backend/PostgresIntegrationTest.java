@@ -0,0 +1,184 @@
+package com.example.Backend;
+
+import com.example.Backend.dtos.stock.StockMovementRequest;
+import com.example.Backend.models.Brand;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.ProductModel;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.User;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.repositorys.BrandRepository;
+import com.example.Backend.repositorys.CustomerRepository;
+import com.example.Backend.repositorys.ProductModelRepository;
+import com.example.Backend.repositorys.SKURepository;
+import com.example.Backend.repositorys.UserRepository;
+import com.example.Backend.services.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base for tests that need the real database and Redis. One PostgreSQL and one Redis container
+ * are started per JVM and shared by every subclass, so the Spring context is cached across test
+ * classes. Fixtures get unique names, so tests never depend on each other's rows. Skipped when no
+ * Docker daemon is available.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        "logging.level.org.springframework.web=INFO",
+        "logging.level.org.springframework.security=INFO",
+        "logging.level.com.example.Backend=INFO",
+        "stock.reservation.sweep-interval-ms=3600000",
+        "order-events.relay.interval-ms=200",
+        "reports.rollup.backfill-on-startup=false",
+        "leaderboard.rebuild-on-startup=false",
+        "sales-cube.load-on-startup=false",
+        "stock.snapshot.enabled=false",
+        "replenishment.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @ServiceConnection(name = "redis")
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    static {
+        POSTGRES.start();
+        REDIS.start();
+    }
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000);
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected StockService stockService;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ProductModelRepository productModelRepository;
+
+    @Autowired
+    private SKURepository skuRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    protected static long uniqueNumber() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * A valid IMEI no other fixture uses: 14 unique digits plus their Luhn check digit.
+     */
+    protected static String uniqueImei() {
+        String body = String.format("35%012d", uniqueNumber());
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            int digit = body.charAt(i) - '0';
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+
+    protected SKU createSku(String price, boolean serialized) {
+        long n = uniqueNumber();
+        Brand brand = brandRepository.save(Brand.builder().name("Brand " + n).build());
+        ProductModel model = productModelRepository.save(ProductModel.builder()
+                .brand(brand)
+                .name("Model " + n)
+                .build());
+        return skuRepository.save(SKU.builder()
+                .model(model)
+                .variantName("Variant " + n)
+                .code("SKU-" + n)
+                .price(new BigDecimal(price))
+                .costPrice(new BigDecimal(price).divide(BigDecimal.valueOf(2)))
+                .isSerialized(serialized)
+                .build());
+    }
+
+    protected User createUser() {
+        long n = uniqueNumber();
+        return userRepository.save(User.builder()
+                .fullName("Staff " + n)
+                .username("staff" + n)
+                .email("staff" + n + "@example.com")
+                .build());
+    }
+
+    protected Customer createCustomer() {
+        long n = uniqueNumber();
+        return customerRepository.save(Customer.builder()
+                .fullName("Customer " + n)
+                .phone(String.format("09%08d", n % 100_000_000))
+                .gender(Customer.Gender.KHAC)
+                .build());
+    }
+
+    /**
+     * Authenticate the current thread as the user, for services that record who acted.
+     */
+    protected static void signIn(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Receive stock for the SKU at the default location.
+     */
+    protected void receiveStock(SKU sku, int quantity, User user) {
+        stockService.addStock(StockMovementRequest.builder()
+                .skuId(sku.getId())
+                .quantity(quantity)
+                .reason(StockMovement.MovementReason.PURCHASE)
+                .build(), user.getId());
+    }
+
+    /**
+     * Quantity and reserved quantity of the SKU summed over locations in stock_item, and the same
+     * two numbers summed from location_stock, as {quantity, reserved, locationQuantity, locationReserved}.
+     */
+    protected int[] stockLevels(long skuId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT si.quantity, si.reserved_qty, " +
+                "       (SELECT COALESCE(SUM(quantity), 0) FROM location_stock WHERE sku_id = si.sku_id), " +
+                "       (SELECT COALESCE(SUM(reserved_qty), 0) FROM location_stock WHERE sku_id = si.sku_id) " +
+                "FROM stock_item si WHERE si.sku_id = ?",
+                (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)},
+                skuId);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.Backend.configs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Races between retries of one Idempotency-Key, run through the filter against a real Redis.
+ */
+class IdempotencyFilterTest extends PostgresIntegrationTest {
+
+    private static final String BODY = "{\"customerId\":1,\"items\":[{\"skuId\":7,\"quantity\":1}]}";
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
+    @Test
+    void concurrentRetriesExecuteOnceAndReplayTheFirstResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            int execution = executions.incrementAndGet();
+            sleep(300);
+            ((HttpServletResponse) response).setStatus(201);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"orderId\":" + execution + "}");
+        };
+
+        List<MockHttpServletResponse> responses = sendConcurrently(12, key, BODY, chain);
+
+        assertEquals(1, executions.get());
+        int replayed = 0;
+        for (MockHttpServletResponse response : responses) {
+            assertEquals(201, response.getStatus());
+            assertEquals("{\"orderId\":1}", response.getContentAsString());
+            if ("true".equals(response.getHeader(IdempotencyFilter.REPLAYED_HEADER))) {
+                replayed++;
+            }
+        }
+        assertEquals(11, replayed);
+    }
+
+    @Test
+    void waitersTakeOverWhenTheFirstAttemptFails() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            int execution = executions.incrementAndGet();
+            sleep(200);
+            ((HttpServletResponse) response).setStatus(execution == 1 ? 409 : 200);
+            response.getWriter().write("{\"attempt\":" + execution + "}");
+        };
+
+        List<MockHttpServletResponse> responses = sendConcurrently(8, key, BODY, chain);
+
+        // The failed attempt releases the key, one waiter runs the request again, the rest replay it
+        assertEquals(2, executions.get());
+        assertEquals(1, responses.stream().filter(response -> response.getStatus() == 409).count());
+        assertEquals(7, responses.stream()
+                .filter(response -> response.getStatus() == 200)
+                .filter(response -> readBody(response).equals("{\"attempt\":2}"))
+                .count());
+    }
+
+    @Test
+    void retryOfAResponseTooLargeToStoreIsNotExecutedAgain() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        String largeBody = "x".repeat(70_000);
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            response.getWriter().write(largeBody);
+        };
+
+        MockHttpServletResponse first = send(key, BODY, chain);
+        MockHttpServletResponse retry = send(key, BODY, chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(largeBody, first.getContentAsString());
+        assertEquals(200, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.BODY_OMITTED_HEADER));
+        assertEquals("", retry.getContentAsString());
+    }
+
+    @Test
+    void failedAttemptCanBeRetriedWithTheSameKey() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> ((HttpServletResponse) response)
+                .setStatus(executions.incrementAndGet() == 1 ? 500 : 200);
+
+        assertEquals(500, send(key, BODY, chain).getStatus());
+        MockHttpServletResponse retry = send(key, BODY, chain);
+
+        assertEquals(200, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void sameKeyWithADifferentBodyIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> executions.incrementAndGet();
+
+        send(key, BODY, chain);
+        MockHttpServletResponse other = send(key, BODY.replace("\"quantity\":1", "\"quantity\":2"), chain);
+
+        assertEquals(422, other.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void oversizedBodiesAreRefusedBeforeTheyAreBuffered() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        FilterChain chain = (request, response) -> executions.incrementAndGet();
+        String largeBody = "{\"notes\":\"" + "x".repeat(1_100_000) + "\"}";
+
+        MockHttpServletResponse declared = send(UUID.randomUUID().toString(), largeBody, chain);
+
+        // Chunked upload: no Content-Length, so only the capped read can tell
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/api/sales-orders") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, UUID.randomUUID().toString());
+        chunked.setContent(largeBody.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse undeclared = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(chunked, undeclared, chain);
+
+        assertEquals(413, declared.getStatus());
+        assertEquals(413, undeclared.getStatus());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void nonBlockingReadersGetTheBufferedBody() throws Exception {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+        FilterChain chain = (request, response) -> {
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[16];
+                    while (input.isReady() && !input.isFinished()) {
+                        int read = input.read(buffer, 0, buffer.length);
+                        received.write(buffer, 0, read);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+        };
+
+        send(UUID.randomUUID().toString(), BODY, chain);
+
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), received.toByteArray());
+        assertTrue(allDataRead.get());
+    }
+
+    private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/sales-orders");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private List<MockHttpServletResponse> sendConcurrently(int clients, String key, String body, FilterChain chain)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return send(key, body, chain);
+                }));
+            }
+            start.countDown();
+            List<MockHttpServletResponse> responses = new ArrayList<>();
+            for (Future<MockHttpServletResponse> future : futures) {
+                responses.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return responses;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String readBody(MockHttpServletResponse response) {
+        try {
+            return response.getContentAsString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.salesorder.CheckoutRequest;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Payment;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a five-line till checkout with several tills selling the same SKUs, against the
+ * target of p99 under 50 ms. The budget can be raised for slow machines with
+ * {@code -Dcheckout.p99-budget-ms}; the percentiles are logged either way.
+ */
+@Slf4j
+class CheckoutLoadTest extends PostgresIntegrationTest {
+
+    private static final int TILLS = 4;
+    private static final int WARMUP_CHECKOUTS = 100;
+    private static final int MEASURED_CHECKOUTS = 1000;
+    private static final int LINES = 5;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Test
+    void fiveLineBasketCheckoutP99StaysWithinBudget() throws Exception {
+        User cashier = createUser();
+        Customer customer = createCustomer();
+        List<SKU> skus = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            SKU sku = createSku((i + 1) + "50000.00", false);
+            receiveStock(sku, WARMUP_CHECKOUTS + MEASURED_CHECKOUTS, cashier);
+            skus.add(sku);
+        }
+
+        run(WARMUP_CHECKOUTS, cashier, customer, skus);
+        long[] latencies = run(MEASURED_CHECKOUTS, cashier, customer, skus);
+
+        Arrays.sort(latencies);
+        double p50 = millis(percentile(latencies, 50));
+        double p95 = millis(percentile(latencies, 95));
+        double p99 = millis(percentile(latencies, 99));
+        log.info("Checkout of a {}-line basket, {} tills, {} checkouts: p50 {} ms, p95 {} ms, p99 {} ms, max {} ms",
+                LINES, TILLS, MEASURED_CHECKOUTS, p50, p95, p99, millis(latencies[latencies.length - 1]));
+
+        for (SKU sku : skus) {
+            assertArrayEquals(new int[]{0, 0, 0, 0}, stockLevels(sku.getId()));
+        }
+        long budget = Long.getLong("checkout.p99-budget-ms", 50);
+        assertTrue(p99 < budget, "p99 " + p99 + " ms is over the " + budget + " ms budget");
+    }
+
+    // Latency of each checkout in nanoseconds
+    private long[] run(int checkouts, User cashier, Customer customer, List<SKU> skus) throws Exception {
+        long[] latencies = new long[checkouts];
+        ExecutorService pool = Executors.newFixedThreadPool(TILLS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int till = 0; till < TILLS; till++) {
+                int first = till;
+                results.add(pool.submit(() -> {
+                    signIn(cashier);
+                    start.await();
+                    for (int i = first; i < checkouts; i += TILLS) {
+                        CheckoutRequest request = basket(customer, skus);
+                        long started = System.nanoTime();
+                        checkoutService.checkout(request);
+                        latencies[i] = System.nanoTime() - started;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return latencies;
+    }
+
+    private static CheckoutRequest basket(Customer customer, List<SKU> skus) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCustomerId(customer.getId());
+        request.setPaymentMethod(Payment.PaymentMethod.CARD);
+        List<CheckoutRequest.Item> items = new ArrayList<>();
+        for (SKU sku : skus) {
+            CheckoutRequest.Item item = new CheckoutRequest.Item();
+            item.setSkuId(sku.getId());
+            item.setQuantity(1);
+            items.add(item);
+        }
+        request.setItems(items);
+        return request;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
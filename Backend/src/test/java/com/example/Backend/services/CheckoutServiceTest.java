@@ -0,0 +1,295 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.salesorder.CheckoutRequest;
+import com.example.Backend.dtos.salesorder.ReceiptResponse;
+import com.example.Backend.dtos.serial.SerialTraceResponse;
+import com.example.Backend.dtos.serial.SerialUnitRequest;
+import com.example.Backend.dtos.stock.StockLocationRequest;
+import com.example.Backend.dtos.stock.StockMovementRequest;
+import com.example.Backend.exceptions.OrderException;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Payment;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SerialUnit;
+import com.example.Backend.models.StockLocation;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import com.example.Backend.repositorys.SerialUnitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The single-transaction till checkout against PostgreSQL: what one call writes, what makes it
+ * write nothing, and the last units of a SKU sold to concurrent tills.
+ */
+class CheckoutServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private SerialUnitService serialUnitService;
+
+    @Autowired
+    private StockLocationService stockLocationService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    @Autowired
+    private SerialUnitRepository serialUnitRepository;
+
+    private User cashier;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        cashier = createUser();
+        customer = createCustomer();
+        signIn(cashier);
+    }
+
+    @Test
+    void checkoutWritesOrderLinesPaymentLedgerAndStockInOneCall() {
+        List<SKU> skus = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            SKU sku = createSku((i + 1) + "00.00", false);
+            receiveStock(sku, 10, cashier);
+            skus.add(sku);
+        }
+        CheckoutRequest request = request(Payment.PaymentMethod.CASH);
+        for (int i = 0; i < 5; i++) {
+            request.getItems().add(item(skus.get(i), i + 1));
+        }
+
+        ReceiptResponse receipt = checkoutService.checkout(request);
+
+        SalesOrder order = salesOrderRepository.findById(receipt.getOrderId()).orElseThrow();
+        assertEquals(SalesOrder.OrderStatus.PAID, order.getStatus());
+        assertEquals(0, receipt.getTotal().compareTo(order.getTotal()));
+        assertEquals(0, receipt.getTotal().compareTo(
+                receipt.getSubtotal().add(receipt.getTaxAmount()).subtract(receipt.getDiscount()).max(BigDecimal.ZERO)));
+        assertEquals(5, receipt.getLines().size());
+        assertEquals(0, receipt.getSubtotal().compareTo(receipt.getLines().stream()
+                .map(ReceiptResponse.Line::getLineTotal).reduce(BigDecimal.ZERO, BigDecimal::add)));
+
+        assertEquals(5, count("SELECT COUNT(*) FROM sales_order_item WHERE order_id = ?", order.getId()));
+        assertEquals(5, count("SELECT COUNT(*) FROM stock_movement WHERE ref_type = 'sales_order' AND ref_id = ?", order.getId()));
+        assertEquals(1, count("SELECT COUNT(*) FROM order_event WHERE order_id = ?", order.getId()));
+        BigDecimal paid = jdbcTemplate.queryForObject(
+                "SELECT amount FROM payment WHERE id = ?", BigDecimal.class, receipt.getPaymentId());
+        assertEquals(0, receipt.getTotal().compareTo(paid));
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(new int[]{10 - (i + 1), 0, 10 - (i + 1), 0}, stockLevels(skus.get(i).getId()));
+        }
+    }
+
+    @Test
+    void scannedSerialsAreSoldAndUnscannedOnesAllocated() {
+        SKU phone = createSku("5000000.00", true);
+        receiveStock(phone, 3, cashier);
+        List<String> imeis = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String imei = uniqueImei();
+            serialUnitService.createSerialUnit(SerialUnitRequest.builder().skuId(phone.getId()).imei(imei).build());
+            imeis.add(imei);
+        }
+
+        CheckoutRequest scanned = request(Payment.PaymentMethod.CARD);
+        CheckoutRequest.Item scannedItem = item(phone, 1);
+        scannedItem.setSerialNumbers(List.of(imeis.get(2)));
+        scanned.getItems().add(scannedItem);
+        ReceiptResponse first = checkoutService.checkout(scanned);
+
+        CheckoutRequest unscanned = request(Payment.PaymentMethod.CARD);
+        unscanned.getItems().add(item(phone, 2));
+        ReceiptResponse second = checkoutService.checkout(unscanned);
+
+        assertEquals(List.of(imeis.get(2)), first.getLines().get(0).getSerialNumbers());
+        // Oldest units first
+        assertEquals(imeis.subList(0, 2), second.getLines().get(0).getSerialNumbers());
+        for (String imei : imeis) {
+            assertEquals(SerialUnit.SerialStatus.SOLD, serialUnitRepository.findByImei(imei).orElseThrow().getStatus());
+        }
+        assertEquals(2, count("SELECT COUNT(*) FROM sales_order_item WHERE order_id = ?", second.getOrderId()));
+        assertArrayEquals(new int[]{0, 0, 0, 0}, stockLevels(phone.getId()));
+    }
+
+    @Test
+    void refundIsVisibleInACachedTrace() {
+        SKU phone = createSku("5000000.00", true);
+        receiveStock(phone, 1, cashier);
+        String imei = uniqueImei();
+        serialUnitService.createSerialUnit(SerialUnitRequest.builder().skuId(phone.getId()).imei(imei).build());
+        CheckoutRequest request = request(Payment.PaymentMethod.CARD);
+        CheckoutRequest.Item scannedItem = item(phone, 1);
+        scannedItem.setSerialNumbers(List.of(imei));
+        request.getItems().add(scannedItem);
+        ReceiptResponse receipt = checkoutService.checkout(request);
+        assertEquals("PAID", saleStatus(serialUnitService.traceByImei(imei)));
+
+        paymentService.refundPayment(receipt.getPaymentId(), receipt.getTotal());
+
+        assertEquals("REFUNDED", saleStatus(serialUnitService.traceByImei(imei)));
+    }
+
+    @Test
+    void rejectedCheckoutsLeaveNothingBehind() {
+        SKU sku = createSku("100.00", false);
+        receiveStock(sku, 2, cashier);
+
+        CheckoutRequest tooMany = request(Payment.PaymentMethod.CASH);
+        tooMany.getItems().add(item(sku, 3));
+        assertThrows(StockException.class, () -> checkoutService.checkout(tooMany));
+
+        CheckoutRequest underpaid = request(Payment.PaymentMethod.CASH);
+        underpaid.getItems().add(item(sku, 1));
+        underpaid.setAmountTendered(new BigDecimal("1.00"));
+        assertThrows(OrderException.class, () -> checkoutService.checkout(underpaid));
+
+        SKU phone = createSku("100.00", true);
+        receiveStock(phone, 2, cashier);
+        String imei = uniqueImei();
+        serialUnitService.createSerialUnit(SerialUnitRequest.builder().skuId(phone.getId()).imei(imei).build());
+        CheckoutRequest scannedTwice = request(Payment.PaymentMethod.CASH);
+        CheckoutRequest.Item twice = item(phone, 2);
+        twice.setSerialNumbers(List.of(imei, imei));
+        scannedTwice.getItems().add(twice);
+        assertThrows(OrderException.class, () -> checkoutService.checkout(scannedTwice));
+
+        CheckoutRequest unknownSerial = request(Payment.PaymentMethod.CASH);
+        CheckoutRequest.Item unknown = item(phone, 1);
+        unknown.setSerialNumbers(List.of(uniqueImei()));
+        unknownSerial.getItems().add(unknown);
+        assertThrows(StockException.class, () -> checkoutService.checkout(unknownSerial));
+
+        assertTrue(salesOrderRepository.findByCustomerId(customer.getId()).isEmpty());
+        assertArrayEquals(new int[]{2, 0, 2, 0}, stockLevels(sku.getId()));
+        assertArrayEquals(new int[]{2, 0, 2, 0}, stockLevels(phone.getId()));
+        assertEquals(SerialUnit.SerialStatus.IN_STOCK, serialUnitRepository.findByImei(imei).orElseThrow().getStatus());
+    }
+
+    @Test
+    void stockAtAnotherLocationDoesNotCoverTheTill() {
+        SKU sku = createSku("100.00", false);
+        long n = uniqueNumber();
+        Long warehouse = stockLocationService.createLocation(StockLocationRequest.builder()
+                .code("WH" + n)
+                .name("Warehouse " + n)
+                .type(StockLocation.LocationType.WAREHOUSE)
+                .build()).getId();
+        stockService.addStock(StockMovementRequest.builder()
+                .skuId(sku.getId())
+                .locationId(warehouse)
+                .quantity(5)
+                .reason(StockMovement.MovementReason.PURCHASE)
+                .build(), cashier.getId());
+        receiveStock(sku, 1, cashier);
+
+        // Six across locations, one at the till
+        CheckoutRequest request = request(Payment.PaymentMethod.CASH);
+        request.getItems().add(item(sku, 2));
+        StockException refused = assertThrows(StockException.class, () -> checkoutService.checkout(request));
+        assertTrue(refused.getMessage().contains(String.valueOf(sku.getId())));
+
+        CheckoutRequest atWarehouse = request(Payment.PaymentMethod.CASH);
+        atWarehouse.setLocationId(warehouse);
+        atWarehouse.getItems().add(item(sku, 2));
+        checkoutService.checkout(atWarehouse);
+
+        assertArrayEquals(new int[]{4, 0, 4, 0}, stockLevels(sku.getId()));
+    }
+
+    @Test
+    void concurrentTillsSellEachOfTheLastUnitsOnce() throws Exception {
+        int stock = 10;
+        int tills = 25;
+        SKU sku = createSku("100.00", false);
+        receiveStock(sku, stock, cashier);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < tills; i++) {
+                results.add(pool.submit(() -> {
+                    signIn(cashier);
+                    start.await();
+                    CheckoutRequest request = request(Payment.PaymentMethod.CASH);
+                    request.getItems().add(item(sku, 1));
+                    try {
+                        checkoutService.checkout(request);
+                        sold.incrementAndGet();
+                    } catch (StockException e) {
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(stock, sold.get());
+        assertEquals(tills - stock, refused.get());
+        assertArrayEquals(new int[]{0, 0, 0, 0}, stockLevels(sku.getId()));
+        assertEquals(stock, salesOrderRepository.findByCustomerId(customer.getId()).size());
+    }
+
+    private static String saleStatus(SerialTraceResponse trace) {
+        return trace.getTimeline().stream()
+                .filter(entry -> "SALE".equals(entry.getKind()))
+                .map(SerialTraceResponse.Entry::getStatus)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private int count(String sql, Object... args) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return count != null ? count : 0;
+    }
+
+    private CheckoutRequest request(Payment.PaymentMethod method) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCustomerId(customer.getId());
+        request.setPaymentMethod(method);
+        request.setItems(new ArrayList<>());
+        return request;
+    }
+
+    private static CheckoutRequest.Item item(SKU sku, int quantity) {
+        CheckoutRequest.Item item = new CheckoutRequest.Item();
+        item.setSkuId(sku.getId());
+        item.setQuantity(quantity);
+        return item;
+    }
+}
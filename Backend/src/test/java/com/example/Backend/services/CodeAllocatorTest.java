@@ -0,0 +1,172 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.Backend.repositorys.CodeSequenceRepository;
+import com.example.Backend.services.CodeAllocator.CodeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Block arithmetic of the hi/lo code allocator, with the sequence stubbed: which numbers a block
+ * hands out, when the next one is drawn, and that codes stay unique across threads.
+ */
+class CodeAllocatorTest {
+
+    private final CodeSequenceRepository codeSequenceRepository = mock(CodeSequenceRepository.class);
+    private CodeAllocator codeAllocator;
+
+    @BeforeEach
+    void setUp() {
+        codeAllocator = new CodeAllocator(codeSequenceRepository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(codeAllocator, "blockSize", 50);
+    }
+
+    @Test
+    void blockIsUsedUpBeforeTheNextIsDrawn() {
+        when(codeSequenceRepository.nextBlock("warranty_code_seq"))
+                .thenReturn(new long[]{101, 50}, new long[]{1001, 50});
+
+        List<Long> numbers = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            numbers.add(number(codeAllocator.next(CodeType.WARRANTY), "WR"));
+        }
+
+        assertEquals(101L, numbers.get(0));
+        assertEquals(150L, numbers.get(49));
+        assertEquals(1001L, numbers.get(50));
+        verify(codeSequenceRepository, times(2)).nextBlock("warranty_code_seq");
+        verify(codeSequenceRepository).createIfMissing("warranty_code_seq", 50, "warranty");
+    }
+
+    @Test
+    void blockSizeComesFromTheSequenceNotTheSetting() {
+        // A sequence created with another block size keeps its increment
+        when(codeSequenceRepository.nextBlock("repair_ticket_number_seq"))
+                .thenReturn(new long[]{7, 3}, new long[]{10, 3});
+
+        List<Long> numbers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            numbers.add(number(codeAllocator.next(CodeType.REPAIR_TICKET), "RPR"));
+        }
+
+        assertEquals(List.of(7L, 8L, 9L, 10L), numbers);
+        verify(codeSequenceRepository, times(2)).nextBlock("repair_ticket_number_seq");
+    }
+
+    @Test
+    void typesDrawFromTheirOwnSequences() {
+        when(codeSequenceRepository.nextBlock("sales_order_number_seq")).thenReturn(new long[]{1, 50});
+        when(codeSequenceRepository.nextBlock("warranty_code_seq")).thenReturn(new long[]{1, 50});
+
+        assertEquals(1L, number(codeAllocator.next(CodeType.SALES_ORDER), "SO"));
+        assertEquals(1L, number(codeAllocator.next(CodeType.WARRANTY), "WR"));
+        assertEquals(2L, number(codeAllocator.next(CodeType.SALES_ORDER), "SO"));
+    }
+
+    @Test
+    void numbersArePaddedToSixDigitsAndMayGrowPastThem() {
+        when(codeSequenceRepository.nextBlock("sales_order_number_seq"))
+                .thenReturn(new long[]{42, 1}, new long[]{1_234_567, 1});
+
+        String padded = codeAllocator.next(CodeType.SALES_ORDER);
+        String wide = codeAllocator.next(CodeType.SALES_ORDER);
+
+        assertTrue(padded.matches("SO\\d{8}000042"), padded);
+        assertTrue(wide.matches("SO\\d{8}1234567"), wide);
+    }
+
+    @Test
+    void sequenceIsPreparedAgainAfterAFailure() {
+        doThrow(new DataAccessResourceFailureException("database down"))
+                .doNothing()
+                .when(codeSequenceRepository).createIfMissing(anyString(), anyInt(), anyString());
+        when(codeSequenceRepository.nextBlock("warranty_code_seq")).thenReturn(new long[]{1, 50});
+
+        codeAllocator.prepareSequences();
+        verify(codeSequenceRepository, never()).nextBlock(anyString());
+
+        // The warranty sequence failed at startup, the other two were prepared then
+        assertEquals(1L, number(codeAllocator.next(CodeType.WARRANTY), "WR"));
+        verify(codeSequenceRepository, times(2)).createIfMissing("warranty_code_seq", 50, "warranty");
+        verify(codeSequenceRepository, times(1)).createIfMissing("sales_order_number_seq", 50, "sales_order");
+    }
+
+    @Test
+    void failedDrawHandsOutNothingAndIsRetried() {
+        when(codeSequenceRepository.nextBlock("warranty_code_seq"))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenReturn(new long[]{51, 50});
+
+        assertThrows(DataAccessResourceFailureException.class, () -> codeAllocator.next(CodeType.WARRANTY));
+
+        assertEquals(51L, number(codeAllocator.next(CodeType.WARRANTY), "WR"));
+    }
+
+    @Test
+    void concurrentCallersNeverShareANumber() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        when(codeSequenceRepository.nextBlock("sales_order_number_seq"))
+                .thenAnswer(invocation -> new long[]{sequence.getAndAdd(50), 50});
+
+        int threads = 8;
+        int codesPerThread = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> numbers = new HashSet<>();
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    List<Long> drawn = new ArrayList<>(codesPerThread);
+                    for (int i = 0; i < codesPerThread; i++) {
+                        drawn.add(number(codeAllocator.next(CodeType.SALES_ORDER), "SO"));
+                    }
+                    return drawn;
+                }));
+            }
+            start.countDown();
+            for (Future<List<Long>> result : results) {
+                numbers.addAll(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Every block used up exactly, so the numbers are 1..n without gaps
+        assertEquals(threads * codesPerThread, numbers.size());
+        assertEquals(threads * codesPerThread, numbers.stream().mapToLong(Long::longValue).max().orElseThrow());
+        verify(codeSequenceRepository, times(threads * codesPerThread / 50)).nextBlock("sales_order_number_seq");
+    }
+
+    // The number after the prefix and the eight-digit date
+    private static long number(String code, String prefix) {
+        assertTrue(code.startsWith(prefix), code);
+        return Long.parseLong(code.substring(prefix.length() + 8));
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.Backend.dtos.report.DashboardStatsDto;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.repositorys.CustomerRepository;
+import com.example.Backend.repositorys.ProductModelRepository;
+import com.example.Backend.repositorys.StockItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DashboardServiceTest {
+
+    private final CustomerRepository customerRepository = mock(CustomerRepository.class);
+    private final ProductModelRepository productModelRepository = mock(ProductModelRepository.class);
+    private final StockItemRepository stockItemRepository = mock(StockItemRepository.class);
+    private final SalesRollupService salesRollupService = mock(SalesRollupService.class);
+    private final AtomicInteger computations = new AtomicInteger();
+    private final Set<Boolean> queryThreadsVirtual = ConcurrentHashMap.newKeySet();
+
+    private DashboardService dashboardService;
+    private volatile long queryDelayMs;
+
+    @BeforeEach
+    void setUp() {
+        dashboardService = new DashboardService(customerRepository, productModelRepository, stockItemRepository,
+                salesRollupService);
+        ReflectionTestUtils.setField(dashboardService, "cacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(dashboardService, "timeoutMs", 10_000L);
+
+        when(customerRepository.count()).thenAnswer(invocation -> {
+            computations.incrementAndGet();
+            return slow(120L);
+        });
+        when(customerRepository.countActiveCustomers()).thenAnswer(invocation -> slow(100L));
+        when(customerRepository.countCustomersCreatedBetween(any(), any())).thenAnswer(invocation ->
+                slow(invocation.getArgument(0, LocalDateTime.class).toLocalDate()
+                        .equals(LocalDate.now().withDayOfMonth(1)) ? 15L : 10L));
+        when(productModelRepository.count()).thenAnswer(invocation -> slow(40L));
+        when(stockItemRepository.countLowStockItems()).thenAnswer(invocation -> slow(3L));
+        when(salesRollupService.getOrderCountsByStatus()).thenAnswer(invocation -> slow(Map.of(
+                OrderStatus.DRAFT, 1L, OrderStatus.PENDING, 2L, OrderStatus.CONFIRMED, 3L,
+                OrderStatus.PAID, 8L, OrderStatus.CANCELLED, 4L)));
+        when(salesRollupService.getTotalSales(any(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(0);
+            LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+            if (start.equals(monthStart)) {
+                return slow(new BigDecimal("300.00"));
+            }
+            return slow(start.equals(monthStart.minusMonths(1)) ? new BigDecimal("200.00") : new BigDecimal("1000.00"));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        dashboardService.shutdown();
+    }
+
+    @Test
+    void assemblesTheFigures() {
+        DashboardStatsDto stats = dashboardService.getStats();
+
+        assertEquals(120L, stats.getTotalCustomers());
+        assertEquals(100L, stats.getActiveCustomers());
+        assertEquals(40L, stats.getTotalProducts());
+        assertEquals(3L, stats.getLowStockProducts());
+        assertEquals(18L, stats.getTotalOrders());
+        assertEquals(6L, stats.getPendingOrders());
+        assertEquals(8L, stats.getCompletedOrders());
+        assertEquals(4L, stats.getCancelledOrders());
+        assertEquals(new BigDecimal("1000.00"), stats.getTotalRevenue());
+        assertEquals(new BigDecimal("300.00"), stats.getMonthlyRevenue());
+        assertEquals(125.0, stats.getAverageOrderValue());
+        assertEquals(50, stats.getRevenueGrowthRate());
+        assertEquals(50, stats.getCustomerGrowthRate());
+    }
+
+    @Test
+    void growthIsNullWithoutAPreviousPeriod() {
+        doReturn(BigDecimal.ZERO).when(salesRollupService).getTotalSales(any(), any());
+        doReturn(Map.of()).when(salesRollupService).getOrderCountsByStatus();
+        doReturn(0L).when(customerRepository).countCustomersCreatedBetween(any(), any());
+
+        DashboardStatsDto stats = dashboardService.getStats();
+
+        assertNull(stats.getRevenueGrowthRate());
+        assertNull(stats.getCustomerGrowthRate());
+        assertEquals(0.0, stats.getAverageOrderValue());
+    }
+
+    @Test
+    void queriesRunConcurrentlyOnVirtualThreads() {
+        queryDelayMs = 200;
+
+        long started = System.nanoTime();
+        dashboardService.getStats();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        // Ten queries of 200 ms each take 2 s one after another
+        assertTrue(elapsedMs < 1000, "dashboard took " + elapsedMs + " ms");
+        assertEquals(Set.of(true), queryThreadsVirtual);
+    }
+
+    @Test
+    void burstOfRequestsSharesOneComputation() throws Exception {
+        queryDelayMs = 300;
+        int callers = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<DashboardStatsDto>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return dashboardService.getStats();
+                }));
+            }
+            start.countDown();
+            DashboardStatsDto first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<DashboardStatsDto> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void snapshotIsCachedUntilItExpires() throws Exception {
+        DashboardStatsDto first = dashboardService.getStats();
+        assertSame(first, dashboardService.getStats());
+        assertEquals(1, computations.get());
+
+        ReflectionTestUtils.setField(dashboardService, "cacheTtlMs", 1L);
+        Thread.sleep(5);
+        DashboardStatsDto refreshed = dashboardService.getStats();
+
+        assertEquals(2, computations.get());
+        assertEquals(first, refreshed);
+    }
+
+    @Test
+    void failedComputationIsNotCachedAndIsRetried() {
+        doThrow(new IllegalStateException("database down")).doReturn(3L).when(stockItemRepository).countLowStockItems();
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, dashboardService::getStats);
+        assertTrue(failure.getMessage().contains("database down"));
+
+        assertEquals(3L, dashboardService.getStats().getLowStockProducts());
+        verify(stockItemRepository, times(2)).countLowStockItems();
+    }
+
+    @Test
+    void slowQueriesTimeOut() {
+        queryDelayMs = 2_000;
+        ReflectionTestUtils.setField(dashboardService, "timeoutMs", 200L);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, dashboardService::getStats);
+        assertTrue(failure.getMessage().contains("timed out"));
+    }
+
+    private <T> T slow(T value) throws InterruptedException {
+        queryThreadsVirtual.add(Thread.currentThread().isVirtual());
+        if (queryDelayMs > 0) {
+            Thread.sleep(queryDelayMs);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.stock.GoodsReceiptRequest;
+import com.example.Backend.dtos.stock.GoodsReceiptResponse;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Throughput of a 500-SKU goods receipt through the batched ledger writer: 400 bulk lines and 100
+ * serialized lines of five IMEIs, so each receipt writes 900 ledger rows and 500 serial units.
+ * Timings are logged; the median has to stay under {@code -Dgoods-receipt.budget-ms} (1 s).
+ */
+@Slf4j
+class GoodsReceiptLoadTest extends PostgresIntegrationTest {
+
+    private static final int BULK_SKUS = 400;
+    private static final int SERIALIZED_SKUS = 100;
+    private static final int IMEIS_PER_LINE = 5;
+    private static final int WARMUP_RECEIPTS = 3;
+    private static final int MEASURED_RECEIPTS = 10;
+
+    @Autowired
+    private GoodsReceiptService goodsReceiptService;
+
+    @Test
+    void fiveHundredSkuReceiptThroughput() {
+        User receiver = createUser();
+        List<SKU> bulk = new ArrayList<>();
+        for (int i = 0; i < BULK_SKUS; i++) {
+            bulk.add(createSku("100.00", false));
+        }
+        List<SKU> serialized = new ArrayList<>();
+        for (int i = 0; i < SERIALIZED_SKUS; i++) {
+            serialized.add(createSku("5000000.00", true));
+        }
+
+        for (int i = 0; i < WARMUP_RECEIPTS; i++) {
+            receive(bulk, serialized, receiver);
+        }
+        long[] elapsed = new long[MEASURED_RECEIPTS];
+        for (int i = 0; i < MEASURED_RECEIPTS; i++) {
+            long started = System.nanoTime();
+            GoodsReceiptResponse response = receive(bulk, serialized, receiver);
+            elapsed[i] = System.nanoTime() - started;
+            assertTrue(response.isApplied());
+            assertEquals(BULK_SKUS + SERIALIZED_SKUS, response.getLinesReceived());
+            assertEquals(SERIALIZED_SKUS * IMEIS_PER_LINE, response.getSerialsCreated());
+        }
+
+        int receipts = WARMUP_RECEIPTS + MEASURED_RECEIPTS;
+        for (SKU sku : List.of(bulk.get(0), bulk.get(BULK_SKUS - 1))) {
+            assertEquals(receipts * 3, stockLevels(sku.getId())[0]);
+        }
+        assertEquals(receipts * IMEIS_PER_LINE, stockLevels(serialized.get(0).getId())[0]);
+        assertEquals(receipts * (BULK_SKUS + SERIALIZED_SKUS * IMEIS_PER_LINE), count(
+                "SELECT COUNT(*) FROM stock_movement WHERE ref_type = 'GOODS_RECEIPT' AND created_by = ?", receiver.getId()));
+
+        Arrays.sort(elapsed);
+        double median = elapsed[elapsed.length / 2] / 1_000_000.0;
+        int ledgerRows = BULK_SKUS + SERIALIZED_SKUS * IMEIS_PER_LINE;
+        log.info("Goods receipt of {} SKUs ({} ledger rows, {} serials): median {} ms, max {} ms, {} ledger rows/s",
+                BULK_SKUS + SERIALIZED_SKUS, ledgerRows, SERIALIZED_SKUS * IMEIS_PER_LINE, median,
+                elapsed[elapsed.length - 1] / 1_000_000.0, Math.round(ledgerRows * 1000 / median));
+        long budget = Long.getLong("goods-receipt.budget-ms", 1000);
+        assertTrue(median < budget, "median " + median + " ms is over the " + budget + " ms budget");
+    }
+
+    private GoodsReceiptResponse receive(List<SKU> bulk, List<SKU> serialized, User receiver) {
+        List<GoodsReceiptRequest.Line> lines = new ArrayList<>();
+        for (SKU sku : bulk) {
+            lines.add(GoodsReceiptRequest.Line.builder()
+                    .skuId(sku.getId())
+                    .quantity(3)
+                    .unitCost(new BigDecimal("60.00"))
+                    .build());
+        }
+        for (SKU sku : serialized) {
+            List<String> imeis = new ArrayList<>();
+            for (int i = 0; i < IMEIS_PER_LINE; i++) {
+                imeis.add(uniqueImei());
+            }
+            lines.add(GoodsReceiptRequest.Line.builder().skuId(sku.getId()).imeis(imeis).build());
+        }
+        return goodsReceiptService.receive(GoodsReceiptRequest.builder()
+                .refType("GOODS_RECEIPT")
+                .refId(uniqueNumber())
+                .lines(lines)
+                .build(), receiver.getUsername());
+    }
+
+    private int count(String sql, Object... args) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.services.IdempotencyService.Claim;
+import com.example.Backend.services.IdempotencyService.ClaimOutcome;
+import com.example.Backend.services.IdempotencyService.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ownership of Idempotency-Key claims against a real Redis: a claim that expired and was taken
+ * over by a retry stays with the retry, and a running request keeps its claim alive.
+ */
+class IdempotencyServiceTest extends PostgresIntegrationTest {
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Test
+    void expiredClaimCannotReleaseOrOverwriteItsSuccessor() {
+        String key = UUID.randomUUID().toString();
+        Claim first = idempotencyService.acquire(key, FINGERPRINT);
+        // The first request outlived its marker
+        redisTemplate.delete("idempotency:" + key);
+        Claim retry = idempotencyService.acquire(key, FINGERPRINT);
+        assertEquals(ClaimOutcome.ACQUIRED, retry.getOutcome());
+
+        idempotencyService.abandon(key, first);
+        assertEquals(retry.getMarker(), redisTemplate.opsForValue().get("idempotency:" + key));
+        idempotencyService.complete(key, first, IdempotencyRecord.completed(FINGERPRINT, 201, "application/json", "{\"attempt\":1}"));
+        assertEquals(retry.getMarker(), redisTemplate.opsForValue().get("idempotency:" + key));
+
+        idempotencyService.complete(key, retry, IdempotencyRecord.completed(FINGERPRINT, 201, "application/json", "{\"attempt\":2}"));
+        Claim replay = idempotencyService.acquire(key, FINGERPRINT);
+        assertEquals(ClaimOutcome.REPLAY, replay.getOutcome());
+        assertEquals("{\"attempt\":2}", replay.getRecord().getBody());
+    }
+
+    @Test
+    void runningRequestKeepsItsClaimAlive() {
+        String key = UUID.randomUUID().toString();
+        Claim claim = idempotencyService.acquire(key, FINGERPRINT);
+        redisTemplate.expire("idempotency:" + key, Duration.ofSeconds(2));
+
+        idempotencyService.renewClaims();
+
+        Long ttl = redisTemplate.getExpire("idempotency:" + key, TimeUnit.SECONDS);
+        assertTrue(ttl != null && ttl > 2, "ttl " + ttl);
+        idempotencyService.abandon(key, claim);
+        Claim again = idempotencyService.acquire(key, FINGERPRINT);
+        assertEquals(ClaimOutcome.ACQUIRED, again.getOutcome());
+        idempotencyService.abandon(key, again);
+    }
+}
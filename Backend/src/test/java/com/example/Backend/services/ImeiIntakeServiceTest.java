@@ -0,0 +1,100 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.stock.GoodsReceiptRequest;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The IMEI existence filter when units are registered on another node: the row is written behind
+ * this node's back, as another node's receipt would be, and only its announcement reaches here.
+ */
+class ImeiIntakeServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ImeiIntakeService imeiIntakeService;
+
+    @Autowired
+    private GoodsReceiptService goodsReceiptService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private SKU phone;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        phone = createSku("5000000.00", true);
+        // Skipped while the startup build is still running, which then supplies the filter
+        imeiIntakeService.rebuild();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!imeiIntakeService.getStats().isReady()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("IMEI filter was never built");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void imeiAnnouncedByAnotherNodeIsFound() throws InterruptedException {
+        String imei = registerElsewhere();
+
+        redisTemplate.convertAndSend(ImeiIntakeService.REGISTRATION_CHANNEL, imei);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (imeiIntakeService.findRegistered(List.of(imei)).isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("IMEI " + imei + " announced by another node was never found");
+            }
+            Thread.sleep(20);
+        }
+        assertEquals(Set.of(imei), imeiIntakeService.findRegistered(List.of(imei, uniqueImei())));
+    }
+
+    @Test
+    void receiptOfAnImeiTheFilterMissedWritesNothing() {
+        User receiver = createUser();
+        String known = registerElsewhere();
+        String fresh = uniqueImei();
+
+        StockException refused = assertThrows(StockException.class, () -> goodsReceiptService.receive(
+                GoodsReceiptRequest.builder()
+                        .refType("GOODS_RECEIPT")
+                        .refId(uniqueNumber())
+                        .lines(List.of(GoodsReceiptRequest.Line.builder()
+                                .skuId(phone.getId())
+                                .imeis(List.of(fresh, known))
+                                .build()))
+                        .build(), receiver.getUsername()));
+
+        assertTrue(refused.getMessage().contains(known));
+        assertEquals(0, count("SELECT COUNT(*) FROM serial_unit WHERE imei = ?", fresh));
+        assertEquals(0, count("SELECT COUNT(*) FROM stock_item WHERE sku_id = ?", phone.getId()));
+    }
+
+    private String registerElsewhere() {
+        String imei = uniqueImei();
+        jdbcTemplate.update("INSERT INTO serial_unit (sku_id, imei, status, created_at, updated_at) " +
+                "VALUES (?, ?, 'IN_STOCK', NOW(), NOW())", phone.getId(), imei);
+        return imei;
+    }
+
+    private int count(String sql, Object... args) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.stock.GoodsReceiptRequest;
+import com.example.Backend.dtos.stock.InventoryValuationResponse;
+import com.example.Backend.dtos.stock.StockMovementRequest;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.models.User;
+import com.example.Backend.services.InventoryValuationService.GroupBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The moving weighted-average cost kept by the receipt upsert, and the valuation summed from it,
+ * against PostgreSQL: receipts at different costs, a sell-down to zero and a receipt onto the
+ * empty shelf.
+ */
+class InventoryValuationServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private InventoryValuationService inventoryValuationService;
+
+    @Autowired
+    private GoodsReceiptService goodsReceiptService;
+
+    private User clerk;
+    private SKU phone;
+    private SKU charger;
+    private String brandId;
+
+    @BeforeEach
+    void setUp() {
+        clerk = createUser();
+        signIn(clerk);
+        phone = createSku("200.00", false);
+        charger = createSku("80.00", false);
+        // Both SKUs under the phone's brand
+        jdbcTemplate.update("UPDATE product_model SET brand_id = (SELECT brand_id FROM product_model WHERE id = ?) WHERE id = ?",
+                phone.getModel().getId(), charger.getModel().getId());
+        brandId = String.valueOf(phone.getModel().getBrand().getId());
+    }
+
+    @Test
+    void averageCostFollowsReceiptsAndRestartsOnAnEmptyShelf() {
+        InventoryValuationResponse.Line categoryBefore = line(GroupBy.CATEGORY, "PHONE")
+                .orElse(InventoryValuationResponse.Line.builder().quantity(0L).value(BigDecimal.ZERO).build());
+
+        receipt(phone, 10, "100.00");
+        assertEquals(new BigDecimal("100.0000"), avgCost(phone));
+
+        // (100 * 10 + 130 * 5) / 15
+        receipt(phone, 5, "130.00");
+        assertEquals(new BigDecimal("110.0000"), avgCost(phone));
+
+        // (110 * 15 + 95.50 * 3) / 18 = 107.58333..., kept at 4 decimals
+        addStock(phone, 3, "95.50");
+        assertEquals(new BigDecimal("107.5833"), avgCost(phone));
+
+        receipt(charger, 6, "49.99");
+        assertEquals(new BigDecimal("49.9900"), avgCost(charger));
+
+        // 18 * 107.5833 + 6 * 49.99 = 1936.4994 + 299.94
+        InventoryValuationResponse.Line brand = line(GroupBy.BRAND, brandId).orElseThrow();
+        assertEquals(24L, brand.getQuantity());
+        assertEquals(new BigDecimal("2236.44"), brand.getValue());
+        assertCategoryGrew(categoryBefore, 24, "2236.4394");
+
+        // Selling out leaves the average alone, and the SKU drops out of the valuation
+        stockService.removeStock(StockMovementRequest.builder()
+                .skuId(phone.getId())
+                .quantity(18)
+                .reason(StockMovement.MovementReason.SALE)
+                .build(), clerk.getId());
+        assertEquals(0, stockLevels(phone.getId())[0]);
+        assertEquals(new BigDecimal("107.5833"), avgCost(phone));
+        brand = line(GroupBy.BRAND, brandId).orElseThrow();
+        assertEquals(6L, brand.getQuantity());
+        assertEquals(new BigDecimal("299.94"), brand.getValue());
+
+        // A receipt onto the empty shelf starts the average afresh instead of blending with it
+        receipt(phone, 4, "120.00");
+        assertEquals(new BigDecimal("120.0000"), avgCost(phone));
+        brand = line(GroupBy.BRAND, brandId).orElseThrow();
+        assertEquals(10L, brand.getQuantity());
+        assertEquals(new BigDecimal("779.94"), brand.getValue());
+        assertCategoryGrew(categoryBefore, 10, "779.94");
+        assertEquals(inventoryValuationService.getValuation(GroupBy.NONE).getTotalQuantity(),
+                inventoryValuationService.getValuation(GroupBy.BRAND).getTotalQuantity());
+    }
+
+    private void assertCategoryGrew(InventoryValuationResponse.Line before, long quantity, String value) {
+        InventoryValuationResponse.Line after = line(GroupBy.CATEGORY, "PHONE").orElseThrow();
+        assertEquals(before.getQuantity() + quantity, after.getQuantity());
+        // Lines are rounded to the cent after summing, so the difference can be off by one
+        BigDecimal grown = after.getValue().subtract(before.getValue());
+        assertTrue(grown.subtract(new BigDecimal(value)).abs().compareTo(new BigDecimal("0.01")) <= 0,
+                "category value grew by " + grown + ", expected " + value);
+    }
+
+    private Optional<InventoryValuationResponse.Line> line(GroupBy groupBy, String key) {
+        return inventoryValuationService.getValuation(groupBy).getLines().stream()
+                .filter(line -> key.equals(line.getKey()))
+                .findFirst();
+    }
+
+    private void receipt(SKU sku, int quantity, String unitCost) {
+        goodsReceiptService.receive(GoodsReceiptRequest.builder()
+                .lines(List.of(GoodsReceiptRequest.Line.builder()
+                        .skuId(sku.getId())
+                        .quantity(quantity)
+                        .unitCost(new BigDecimal(unitCost))
+                        .build()))
+                .build(), clerk.getUsername());
+    }
+
+    private void addStock(SKU sku, int quantity, String unitCost) {
+        stockService.addStock(StockMovementRequest.builder()
+                .skuId(sku.getId())
+                .quantity(quantity)
+                .unitCost(new BigDecimal(unitCost))
+                .reason(StockMovement.MovementReason.PURCHASE)
+                .build(), clerk.getId());
+    }
+
+    private BigDecimal avgCost(SKU sku) {
+        return jdbcTemplate.queryForObject("SELECT avg_cost FROM stock_item WHERE sku_id = ?", BigDecimal.class, sku.getId());
+    }
+}
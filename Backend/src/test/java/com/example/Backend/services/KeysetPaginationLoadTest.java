@@ -0,0 +1,116 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.CursorPage;
+import com.example.Backend.dtos.CursorPage.TotalMode;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.User;
+import com.example.Backend.utils.KeysetCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Page 10,000 of the three keyset endpoints against page 1, over tables big enough that an offset
+ * or a scan would show: 200,000 orders, 200,000 ledger rows, and 200,000 payments of one customer
+ * interleaved with as many of another's. The seeded rows are dated 1970 and cancelled or failed,
+ * so no report sees them. The deep median may be at most twice the first page's plus
+ * {@code -Dkeyset.deep-page-slack-ms} (2 ms).
+ */
+@Slf4j
+class KeysetPaginationLoadTest extends PostgresIntegrationTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int ROWS = PAGE_SIZE * DEEP_PAGE;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Test
+    void deepPagesCostAboutTheSameAsTheFirst() {
+        User user = createUser();
+        Customer customer = createCustomer();
+        Customer other = createCustomer();
+        SKU sku = createSku("100.00", false);
+        seedOrders(customer, user, ROWS + PAGE_SIZE);
+        long order = seedOrders(customer, user, 1);
+        long otherOrder = seedOrders(other, user, 1);
+        seedPayments(order, customer, ROWS + PAGE_SIZE);
+        seedPayments(otherOrder, other, ROWS + PAGE_SIZE);
+        jdbcTemplate.update(
+                "INSERT INTO stock_movement (sku_id, movement_type, quantity, reason, created_at) " +
+                "SELECT ?, 'IN', 1, 'PURCHASE', TIMESTAMP '1970-01-02' + g * INTERVAL '1 second' " +
+                "FROM generate_series(1, ?) g", sku.getId(), ROWS + PAGE_SIZE);
+        jdbcTemplate.execute("ANALYZE sales_order");
+        jdbcTemplate.execute("ANALYZE payment");
+        jdbcTemplate.execute("ANALYZE stock_movement");
+
+        String orderCursor = cursorAt("SELECT created_at, id FROM sales_order ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1");
+        String movementCursor = cursorAt("SELECT created_at, id FROM stock_movement ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1");
+        String paymentCursor = cursorAt("SELECT paid_at, id FROM payment WHERE customer_id = " + customer.getId() +
+                " ORDER BY paid_at DESC, id DESC OFFSET ? LIMIT 1");
+
+        compare("orders", cursor -> salesOrderService.getOrdersByCursor(cursor, PAGE_SIZE, TotalMode.NONE), orderCursor);
+        compare("stock movements", cursor -> stockService.getStockMovementsByCursor(cursor, PAGE_SIZE, TotalMode.NONE),
+                movementCursor);
+        compare("customer payments", cursor -> paymentService.getPaymentsByCustomerCursor(
+                customer.getId(), cursor, PAGE_SIZE, TotalMode.NONE), paymentCursor);
+    }
+
+    private void compare(String endpoint, Function<String, CursorPage<?>> page, String deepCursor) {
+        double first = medianMillis(() -> page.apply(null));
+        double deep = medianMillis(() -> assertEquals(PAGE_SIZE, page.apply(deepCursor).getSize()));
+        log.info("Keyset {}: page 1 median {} ms, page {} median {} ms", endpoint, first, DEEP_PAGE + 1, deep);
+        long slack = Long.getLong("keyset.deep-page-slack-ms", 2);
+        assertTrue(deep <= first * 2 + slack,
+                endpoint + " page " + (DEEP_PAGE + 1) + " took " + deep + " ms against " + first + " ms for page 1");
+    }
+
+    private static double medianMillis(Runnable call) {
+        long[] elapsed = new long[31];
+        for (int i = -10; i < elapsed.length; i++) {
+            long started = System.nanoTime();
+            call.run();
+            if (i >= 0) {
+                elapsed[i] = System.nanoTime() - started;
+            }
+        }
+        Arrays.sort(elapsed);
+        return elapsed[elapsed.length / 2] / 1_000_000.0;
+    }
+
+    // Returns the id of the last order inserted
+    private long seedOrders(Customer customer, User user, int count) {
+        return jdbcTemplate.queryForObject(
+                "WITH inserted AS (INSERT INTO sales_order (customer_id, user_id, status, subtotal, discount, tax_amount, " +
+                "total, order_date, created_at, updated_at) " +
+                "SELECT ?, ?, 'CANCELLED', 0, 0, 0, 0, DATE '1970-01-02', TIMESTAMP '1970-01-02' + g * INTERVAL '1 second', NOW() " +
+                "FROM generate_series(1, ?) g RETURNING id) SELECT MAX(id) FROM inserted",
+                Long.class, customer.getId(), user.getId(), count);
+    }
+
+    private void seedPayments(long orderId, Customer customer, int count) {
+        jdbcTemplate.update(
+                "INSERT INTO payment (order_id, customer_id, amount, method, status, paid_at) " +
+                "SELECT ?, ?, 1, 'CASH', 'FAILED', TIMESTAMP '1970-01-02' + g * INTERVAL '1 second' " +
+                "FROM generate_series(1, ?) g", orderId, customer.getId(), count);
+    }
+
+    // The cursor a client holds after reading the first 10,000 pages
+    private String cursorAt(String sql) {
+        return jdbcTemplate.queryForObject(sql,
+                (rs, rowNum) -> new KeysetCursor(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)).encode(),
+                ROWS - 1);
+    }
+}
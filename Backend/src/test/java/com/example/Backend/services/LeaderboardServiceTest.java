@@ -0,0 +1,136 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.event.OrderLifecycleEvent;
+import com.example.Backend.dtos.report.LeaderboardEntry;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.OrderEvent.EventType;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import com.example.Backend.services.LeaderboardService.Period;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The Redis sales leaderboards against real Redis and PostgreSQL: how order events move scores,
+ * and a rebuild from the rollups. Each test works in a month of its own, on the 15th so the ISO
+ * week board stays inside it.
+ */
+class LeaderboardServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private User alice;
+    private User bob;
+    private LocalDate date;
+
+    @BeforeEach
+    void setUp() {
+        alice = createUser();
+        bob = createUser();
+        date = LocalDate.of(1600, 1, 15).plusMonths(uniqueNumber() % 2_000);
+    }
+
+    @Test
+    void paidOrdersScoreAndRefundsTakeTheirTotalBack() {
+        leaderboardService.onOrderEvent(event(alice, OrderStatus.CONFIRMED, OrderStatus.PAID, "500.00"));
+        leaderboardService.onOrderEvent(event(bob, OrderStatus.CONFIRMED, OrderStatus.PAID, "300.00"));
+        OrderLifecycleEvent bobsSecond = event(bob, OrderStatus.CONFIRMED, OrderStatus.PAID, "400.00");
+        leaderboardService.onOrderEvent(bobsSecond);
+        // Neither side of the transition is PAID
+        leaderboardService.onOrderEvent(event(alice, OrderStatus.DRAFT, OrderStatus.CONFIRMED, "9000.00"));
+
+        for (Period period : Period.values()) {
+            assertEquals(List.of(entry(1, bob, "700.00"), entry(2, alice, "500.00")), top(period), period.name());
+        }
+
+        // Delivery is at-least-once
+        leaderboardService.onOrderEvent(bobsSecond);
+        assertEquals(List.of(entry(1, bob, "700.00"), entry(2, alice, "500.00")), top(Period.DAY));
+
+        OrderLifecycleEvent refund = event(bob, OrderStatus.PAID, OrderStatus.REFUNDED, "400.00");
+        refund.setEventType(EventType.ORDER_REFUNDED);
+        leaderboardService.onOrderEvent(refund);
+        for (Period period : Period.values()) {
+            assertEquals(List.of(entry(1, alice, "500.00"), entry(2, bob, "300.00")), top(period), period.name());
+        }
+    }
+
+    @Test
+    void rebuildReplacesTheBoardsWithTheRollups() {
+        Customer customer = createCustomer();
+        paidOrder(customer, alice, "1200.00");
+        paidOrder(customer, alice, "300.00");
+        paidOrder(customer, bob, "1000.00");
+        // Scores the rollups never saw, and a salesperson with no sales at all
+        leaderboardService.onOrderEvent(event(bob, OrderStatus.CONFIRMED, OrderStatus.PAID, "5000.00"));
+        User stranger = createUser();
+        redisTemplate.opsForZSet().add(Period.WEEK.boardKey(date), stranger.getId().toString(), 99_999);
+
+        leaderboardService.rebuild(date);
+
+        for (Period period : Period.values()) {
+            assertEquals(List.of(entry(1, alice, "1500.00"), entry(2, bob, "1000.00")), top(period), period.name());
+        }
+    }
+
+    private List<LeaderboardEntry> top(Period period) {
+        return leaderboardService.getTop(period, date, 10);
+    }
+
+    private OrderLifecycleEvent event(User user, OrderStatus previousStatus, OrderStatus status, String total) {
+        return OrderLifecycleEvent.builder()
+                .eventId(uniqueNumber())
+                .eventType(status == OrderStatus.PAID ? EventType.ORDER_PAID : EventType.ORDER_CONFIRMED)
+                .orderId(uniqueNumber())
+                .userId(user.getId())
+                .previousStatus(previousStatus)
+                .status(status)
+                .total(new BigDecimal(total))
+                .orderDate(date)
+                .build();
+    }
+
+    // A PAID order on the test's date, rolled up the way the order paths do
+    private void paidOrder(Customer customer, User user, String total) {
+        SalesOrder order = salesOrderRepository.save(SalesOrder.builder()
+                .orderNumber("SO-BOARD-" + uniqueNumber())
+                .customer(customer)
+                .user(user)
+                .status(OrderStatus.PAID)
+                .subtotal(new BigDecimal(total))
+                .total(new BigDecimal(total))
+                .orderDate(date)
+                .build());
+        salesRollupService.record(order, null, null);
+    }
+
+    private static LeaderboardEntry entry(int rank, User user, String revenue) {
+        return LeaderboardEntry.builder()
+                .rank(rank)
+                .userId(user.getId())
+                .fullName(user.getFullName())
+                .revenue(new BigDecimal(revenue))
+                .build();
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.event.OrderLifecycleEvent;
+import com.example.Backend.models.OrderEvent;
+import com.example.Backend.models.OrderEvent.EventType;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.repositorys.OrderEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalApplicationListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Delivery guarantees of the outbox relay against PostgreSQL: late commits, rollbacks and failing
+ * listeners. Only events with this test's order ids are looked at, since the scheduled relay also
+ * publishes the events of other tests.
+ */
+class OrderEventRelayTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OrderEventRelay orderEventRelay;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventMulticaster applicationEventMulticaster;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Order ids of events whose relay transaction committed, in delivery order
+    private final List<Long> delivered = new CopyOnWriteArrayList<>();
+    // Remaining failures to inject per order id
+    private final Map<Long, AtomicInteger> failures = new ConcurrentHashMap<>();
+    private ApplicationListener<?> committedListener;
+    private ApplicationListener<?> failingListener;
+
+    @BeforeEach
+    void registerListeners() {
+        committedListener = TransactionalApplicationListener.forPayload(TransactionPhase.AFTER_COMMIT, (Object payload) -> {
+            if (payload instanceof OrderLifecycleEvent event) {
+                delivered.add(event.getOrderId());
+            }
+        });
+        failingListener = ApplicationListener.forPayload((Object payload) -> {
+            if (payload instanceof OrderLifecycleEvent event) {
+                AtomicInteger remaining = failures.get(event.getOrderId());
+                if (remaining != null && remaining.getAndDecrement() > 0) {
+                    throw new IllegalStateException("listener unavailable");
+                }
+            }
+        });
+        applicationEventMulticaster.addApplicationListener(committedListener);
+        applicationEventMulticaster.addApplicationListener(failingListener);
+    }
+
+    @AfterEach
+    void removeListeners() {
+        applicationEventMulticaster.removeApplicationListener(committedListener);
+        applicationEventMulticaster.removeApplicationListener(failingListener);
+    }
+
+    @Test
+    void eventOfALongTransactionIsPublishedWhenItCommits() throws Exception {
+        long slowOrder = uniqueNumber();
+        long fastOrder = uniqueNumber();
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService slowTransaction = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> slowEventId = slowTransaction.submit(() -> transactionTemplate.execute(status -> {
+                long id = save(slowOrder).getId();
+                inserted.countDown();
+                await(commit);
+                return id;
+            }));
+            assertTrue(inserted.await(10, TimeUnit.SECONDS));
+            long fastEventId = transactionTemplate.execute(status -> save(fastOrder).getId());
+
+            awaitDelivered(() -> delivered.contains(fastOrder));
+            // Longer than the old gap grace period, after which the missing id was skipped for good
+            Thread.sleep(11_000);
+            assertFalse(delivered.contains(slowOrder));
+
+            commit.countDown();
+            assertTrue(slowEventId.get(10, TimeUnit.SECONDS) < fastEventId);
+            awaitDelivered(() -> delivered.contains(slowOrder));
+        } finally {
+            commit.countDown();
+            slowTransaction.shutdownNow();
+        }
+
+        assertEquals(List.of(fastOrder, slowOrder), deliveredOf(slowOrder, fastOrder));
+    }
+
+    @Test
+    void rolledBackEventsDoNotHoldUpLaterOnes() {
+        long rolledBackOrder = uniqueNumber();
+        long committedOrder = uniqueNumber();
+        transactionTemplate.executeWithoutResult(status -> {
+            save(rolledBackOrder);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.execute(status -> save(committedOrder));
+
+        long started = System.currentTimeMillis();
+        awaitDelivered(() -> delivered.contains(committedOrder));
+
+        assertTrue(System.currentTimeMillis() - started < 5_000, "delivery waited on the rolled-back id");
+        assertEquals(List.of(committedOrder), deliveredOf(rolledBackOrder, committedOrder));
+    }
+
+    @Test
+    void failedDeliveriesAreCountedOnTheRowAndRetried() {
+        long order = uniqueNumber();
+        failures.put(order, new AtomicInteger(2));
+        long eventId = transactionTemplate.execute(status -> save(order).getId());
+
+        awaitDelivered(() -> delivered.contains(order));
+
+        OrderEvent event = orderEventRepository.findById(eventId).orElseThrow();
+        assertEquals(2, event.getDeliveryAttempts());
+        assertTrue(event.getLastError().contains("listener unavailable"));
+        assertNotNull(event.getRelaySeq());
+        assertEquals(List.of(order), deliveredOf(order));
+    }
+
+    @Test
+    void eventIsStampedWithoutPublishingAfterMaxAttempts() {
+        long poisoned = uniqueNumber();
+        long next = uniqueNumber();
+        failures.put(poisoned, new AtomicInteger(Integer.MAX_VALUE));
+        long poisonedId = transactionTemplate.execute(status -> save(poisoned).getId());
+        transactionTemplate.execute(status -> save(next));
+
+        awaitDelivered(() -> delivered.contains(next));
+
+        OrderEvent event = orderEventRepository.findById(poisonedId).orElseThrow();
+        assertEquals(5, event.getDeliveryAttempts());
+        assertNotNull(event.getRelaySeq());
+        assertEquals(List.of(next), deliveredOf(poisoned, next));
+    }
+
+    @Test
+    void relayPositionsIncreaseWithoutGapsAndMatchTheCheckpoint() {
+        for (int i = 0; i < 5; i++) {
+            long order = uniqueNumber();
+            transactionTemplate.execute(status -> save(order));
+        }
+        awaitDelivered(() -> orderEventRepository.findUnrelayedIds().isEmpty());
+
+        // Positions are handed out one by one from 1, so they are exactly 1..max
+        Long relayed = jdbcTemplate.queryForObject("SELECT COUNT(relay_seq) FROM order_event", Long.class);
+        Long maxPosition = jdbcTemplate.queryForObject("SELECT MAX(relay_seq) FROM order_event", Long.class);
+        assertEquals(relayed, maxPosition);
+        Long checkpoint = jdbcTemplate.queryForObject(
+                "SELECT last_event_id FROM outbox_checkpoint WHERE name = ?", Long.class, OrderEventRelay.CHECKPOINT_NAME);
+        assertEquals(maxPosition, checkpoint);
+    }
+
+    private OrderEvent save(long orderId) {
+        OrderLifecycleEvent message = OrderLifecycleEvent.builder()
+                .eventType(EventType.ORDER_CONFIRMED)
+                .orderId(orderId)
+                .previousStatus(OrderStatus.DRAFT)
+                .status(OrderStatus.CONFIRMED)
+                .items(List.of())
+                .build();
+        try {
+            return orderEventRepository.save(OrderEvent.builder()
+                    .orderId(orderId)
+                    .eventType(EventType.ORDER_CONFIRMED)
+                    .payload(objectMapper.writeValueAsString(message))
+                    .build());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Long> deliveredOf(Long... orderIds) {
+        List<Long> wanted = List.of(orderIds);
+        return delivered.stream().filter(wanted::contains).toList();
+    }
+
+    // Runs the relay alongside the scheduled one until the condition holds
+    private void awaitDelivered(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the relay");
+            orderEventRelay.relay();
+            sleepQuietly(50);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(60, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
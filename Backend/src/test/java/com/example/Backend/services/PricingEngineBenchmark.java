@@ -0,0 +1,114 @@
+package com.example.Backend.services;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.Backend.dtos.pricing.PriceQuoteResponse;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Customer.CustomerTier;
+import com.example.Backend.models.PricingRule;
+import com.example.Backend.models.PricingRule.RuleType;
+import com.example.Backend.models.ProductModel.ProductCategory;
+import com.example.Backend.models.SKU;
+import com.example.Backend.repositorys.PricingRuleRepository;
+import com.example.Backend.services.PricingEngine.CartLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of pricing a basket of 1 to 100 lines against a realistic rule set: SKU, category and global
+ * taxes, tiered discounts and promotions with tier, quantity and date conditions. Not part of the
+ * test run; after {@code mvn test-compile}, run {@link #main} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final RuleType[] DISCOUNT_TYPES = {RuleType.TIERED_DISCOUNT, RuleType.PROMOTION};
+
+    @Param({"50", "500"})
+    public int ruleCount;
+
+    @Param({"1", "10", "50", "100"})
+    public int lineCount;
+
+    private PricingEngine engine;
+    private Customer customer;
+    private List<CartLine> basket;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(30);
+        List<PricingRule> rules = new ArrayList<>();
+        for (int i = 1; i <= ruleCount; i++) {
+            boolean tax = i % 10 == 0;
+            PricingRule rule = PricingRule.builder()
+                    .id((long) i)
+                    .name("rule-" + i)
+                    .ruleType(tax ? RuleType.TAX : DISCOUNT_TYPES[i % 2])
+                    .percent(BigDecimal.valueOf(1 + random.nextInt(15)))
+                    .amountOff(i % 3 == 0 ? BigDecimal.valueOf(random.nextInt(50_000)) : null)
+                    .minQuantity(1 + random.nextInt(3))
+                    .customerTier(i % 4 == 0 ? CustomerTier.VIP : null)
+                    .startDate(LocalDate.now().minusDays(random.nextInt(30)))
+                    .endDate(i % 5 == 0 ? LocalDate.now().plusDays(random.nextInt(30)) : null)
+                    .build();
+            // A third scoped to one of 100 SKUs, a third to a category, the rest global
+            switch (i % 3) {
+                case 0 -> rule.setSku(SKU.builder().id((long) random.nextInt(100)).build());
+                case 1 -> rule.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                default -> { }
+            }
+            rules.add(rule);
+        }
+
+        PricingRuleRepository repository = mock(PricingRuleRepository.class);
+        when(repository.ruleSetVersion()).thenReturn("benchmark");
+        when(repository.findAllActiveForCompilation()).thenReturn(rules);
+        engine = new PricingEngine(repository, new BigDecimal("10.00"));
+        engine.reload();
+
+        customer = Customer.builder().id(1L).tier(CustomerTier.VIP).build();
+        // Lines over the same 100 SKUs the scoped rules pick from, so SKU rules match as in a real cart
+        basket = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            basket.add(new CartLine((long) random.nextInt(100), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    BigDecimal.valueOf(100_000L + random.nextInt(25_000_000)), 1 + random.nextInt(3)));
+        }
+    }
+
+    @Benchmark
+    public PriceQuoteResponse priceBasket() {
+        return engine.price(customer, basket, new BigDecimal("50000.00"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.Backend.dtos.pricing.PriceQuoteResponse;
+import com.example.Backend.exceptions.OrderException;
+import com.example.Backend.models.Campaign;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Customer.CustomerTier;
+import com.example.Backend.models.PricingRule;
+import com.example.Backend.models.PricingRule.RuleType;
+import com.example.Backend.models.ProductModel.ProductCategory;
+import com.example.Backend.models.SKU;
+import com.example.Backend.repositorys.PricingRuleRepository;
+import com.example.Backend.services.PricingEngine.CartLine;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class PricingEngineTest {
+
+    private static final Customer REGULAR = Customer.builder().id(1L).tier(CustomerTier.REGULAR).build();
+    private static final Customer VIP = Customer.builder().id(2L).tier(CustomerTier.VIP).build();
+
+    private final List<PricingRule> rules = new ArrayList<>();
+    private long nextRuleId = 1;
+
+    @Test
+    void bestTieredDiscountStacksWithBestPromotion() {
+        rule(RuleType.TIERED_DISCOUNT, "5.00", null);
+        PricingRule phoneTiered = rule(RuleType.TIERED_DISCOUNT, "10.00", null);
+        phoneTiered.setCategory(ProductCategory.PHONE);
+        PricingRule skuPromotion = rule(RuleType.PROMOTION, null, "50.00");
+        skuPromotion.setSku(sku(1L));
+        rule(RuleType.PROMOTION, "2.00", null);
+
+        PriceQuoteResponse quote = price(REGULAR, null, line(1L, ProductCategory.PHONE, "1000.00", 2));
+        PriceQuoteResponse.Line line = quote.getLines().get(0);
+
+        // 10% of 2000.00 from the category rule plus 50.00 off each unit from the SKU promotion
+        assertEquals(new BigDecimal("2000.00"), line.getGrossAmount());
+        assertEquals(new BigDecimal("300.00"), line.getDiscount());
+        assertEquals(List.of(phoneTiered.getName(), skuPromotion.getName()), line.getAppliedRules());
+        assertEquals(new BigDecimal("1700.00"), line.getLineTotal());
+        assertEquals(new BigDecimal("170.00"), line.getTaxAmount());
+        assertEquals(new BigDecimal("1870.00"), quote.getTotal());
+    }
+
+    @Test
+    void stackedDiscountsAreCappedAtTheLineAmount() {
+        rule(RuleType.TIERED_DISCOUNT, "60.00", null);
+        rule(RuleType.PROMOTION, "50.00", null);
+        rule(RuleType.PROMOTION, null, "999.00");
+
+        PriceQuoteResponse.Line line = price(REGULAR, null, line(1L, ProductCategory.PHONE, "100.00", 3)).getLines().get(0);
+
+        assertEquals(new BigDecimal("300.00"), line.getDiscount());
+        assertEquals(new BigDecimal("0.00"), line.getLineTotal());
+        assertEquals(new BigDecimal("0.00"), line.getTaxAmount());
+    }
+
+    @Test
+    void discountsRespectMinimumQuantityTierAndDates() {
+        PricingRule bulk = rule(RuleType.TIERED_DISCOUNT, "10.00", null);
+        bulk.setMinQuantity(3);
+        PricingRule vipOnly = rule(RuleType.PROMOTION, "20.00", null);
+        vipOnly.setCustomerTier(CustomerTier.VIP);
+        PricingRule notStarted = rule(RuleType.PROMOTION, "30.00", null);
+        notStarted.setStartDate(LocalDate.now().plusDays(1));
+        PricingRule expired = rule(RuleType.TIERED_DISCOUNT, "40.00", null);
+        expired.setEndDate(LocalDate.now().minusDays(1));
+
+        assertEquals(new BigDecimal("0.00"), discountOf(price(REGULAR, null, line(1L, null, "10.00", 2))));
+        assertEquals(new BigDecimal("3.00"), discountOf(price(REGULAR, null, line(1L, null, "10.00", 3))));
+        assertEquals(new BigDecimal("9.00"), discountOf(price(VIP, null, line(1L, null, "10.00", 3))));
+        assertEquals(new BigDecimal("0.00"), discountOf(price(null, null, line(1L, null, "10.00", 1))));
+    }
+
+    @Test
+    void campaignRulesOnlyApplyWhileTheCampaignIsActiveAndRunning() {
+        PricingRule paused = rule(RuleType.PROMOTION, "10.00", null);
+        paused.setCampaign(Campaign.builder().status(Campaign.CampaignStatus.PAUSED).build());
+        PricingRule ended = rule(RuleType.PROMOTION, "20.00", null);
+        ended.setCampaign(Campaign.builder()
+                .status(Campaign.CampaignStatus.ACTIVE)
+                .endDate(LocalDate.now().minusDays(1))
+                .build());
+        PricingRule running = rule(RuleType.PROMOTION, "5.00", null);
+        running.setCampaign(Campaign.builder()
+                .status(Campaign.CampaignStatus.ACTIVE)
+                .startDate(LocalDate.now().minusDays(7))
+                .endDate(LocalDate.now().plusDays(7))
+                .build());
+
+        PriceQuoteResponse.Line line = price(REGULAR, null, line(1L, null, "100.00", 1)).getLines().get(0);
+
+        assertEquals(new BigDecimal("5.00"), line.getDiscount());
+        assertEquals(List.of(running.getName()), line.getAppliedRules());
+    }
+
+    @Test
+    void mostSpecificTaxRuleWinsAndNewestWithinAScope() {
+        rule(RuleType.TAX, "5.00", null);
+        PricingRule phoneTax = rule(RuleType.TAX, "8.00", null);
+        phoneTax.setCategory(ProductCategory.PHONE);
+        PricingRule olderSkuTax = rule(RuleType.TAX, "7.00", null);
+        olderSkuTax.setSku(sku(1L));
+        PricingRule newerSkuTax = rule(RuleType.TAX, "3.00", null);
+        newerSkuTax.setSku(sku(1L));
+
+        PriceQuoteResponse quote = price(REGULAR, null,
+                line(1L, ProductCategory.PHONE, "100.00", 1),
+                line(2L, ProductCategory.PHONE, "100.00", 1),
+                line(3L, ProductCategory.ACCESSORY, "100.00", 1));
+
+        assertEquals(new BigDecimal("3.00"), quote.getLines().get(0).getTaxRate());
+        assertEquals(List.of(newerSkuTax.getName()), quote.getLines().get(0).getAppliedRules());
+        assertEquals(new BigDecimal("8.00"), quote.getLines().get(1).getTaxRate());
+        assertEquals(new BigDecimal("5.00"), quote.getLines().get(2).getTaxRate());
+        assertEquals(new BigDecimal("16.00"), quote.getTaxAmount());
+    }
+
+    @Test
+    void taxRuleThatDoesNotMatchFallsThroughToTheNextScopeAndThenTheDefault() {
+        PricingRule vipSkuTax = rule(RuleType.TAX, "0.00", null);
+        vipSkuTax.setSku(sku(1L));
+        vipSkuTax.setCustomerTier(CustomerTier.VIP);
+
+        assertEquals(new BigDecimal("0.00"), price(VIP, null, line(1L, null, "100.00", 1)).getLines().get(0).getTaxRate());
+        assertEquals(new BigDecimal("10.00"), price(REGULAR, null, line(1L, null, "100.00", 1)).getLines().get(0).getTaxRate());
+    }
+
+    @Test
+    void amountsRoundHalfUpToTheCent() {
+        PricingRule eighth = rule(RuleType.TIERED_DISCOUNT, "12.50", null);
+        eighth.setSku(sku(2L));
+
+        PriceQuoteResponse quote = price(REGULAR, null,
+                line(1L, null, "0.05", 1),   // tax 0.005 rounds up
+                line(3L, null, "0.04", 1),   // tax 0.004 rounds down
+                line(2L, null, "0.99", 1),   // discount 0.12375 rounds down, tax on 0.87 is 0.087
+                line(4L, null, "10.005", 1)); // unit price itself is rounded
+
+        assertEquals(new BigDecimal("0.01"), quote.getLines().get(0).getTaxAmount());
+        assertEquals(new BigDecimal("0.00"), quote.getLines().get(1).getTaxAmount());
+        assertEquals(new BigDecimal("0.12"), quote.getLines().get(2).getDiscount());
+        assertEquals(new BigDecimal("0.09"), quote.getLines().get(2).getTaxAmount());
+        assertEquals(new BigDecimal("10.01"), quote.getLines().get(3).getUnitPrice());
+        assertEquals(new BigDecimal("1.00"), quote.getLines().get(3).getTaxAmount());
+    }
+
+    @Test
+    void orderDiscountComesOffAfterTaxAndNeverMakesTheTotalNegative() {
+        PriceQuoteResponse quote = price(REGULAR, new BigDecimal("10.00"), line(1L, null, "100.00", 1));
+        assertEquals(new BigDecimal("100.00"), quote.getSubtotal());
+        assertEquals(new BigDecimal("10.00"), quote.getTaxAmount());
+        assertEquals(new BigDecimal("100.00"), quote.getTotal());
+
+        assertEquals(new BigDecimal("0.00"), price(REGULAR, new BigDecimal("500.00"), line(1L, null, "100.00", 1)).getTotal());
+    }
+
+    @Test
+    void invalidLinesAreRejected() {
+        assertThrows(OrderException.class, () -> price(REGULAR, null, line(1L, null, "10.00", 0)));
+        assertThrows(OrderException.class, () -> price(REGULAR, null, line(1L, null, "-1.00", 1)));
+        assertThrows(OrderException.class, () -> price(REGULAR, null, line(1L, null, null, 1)));
+        assertThrows(OrderException.class, () -> price(REGULAR, null, line(1L, null, "999999999.99", 2000)));
+        assertThrows(OrderException.class, () -> price(REGULAR, null,
+                line(1L, null, "6000000000.00", 1), line(2L, null, "6000000000.00", 1)));
+    }
+
+    private PriceQuoteResponse price(Customer customer, BigDecimal orderDiscount, CartLine... lines) {
+        PricingRuleRepository repository = mock(PricingRuleRepository.class);
+        when(repository.ruleSetVersion()).thenReturn("test");
+        when(repository.findAllActiveForCompilation()).thenReturn(rules);
+        PricingEngine engine = new PricingEngine(repository, new BigDecimal("10.00"));
+        engine.reload();
+        return engine.price(customer, List.of(lines), orderDiscount);
+    }
+
+    private PricingRule rule(RuleType type, String percent, String amountOff) {
+        long id = nextRuleId++;
+        PricingRule rule = PricingRule.builder()
+                .id(id)
+                .name("rule-" + id)
+                .ruleType(type)
+                .percent(percent != null ? new BigDecimal(percent) : null)
+                .amountOff(amountOff != null ? new BigDecimal(amountOff) : null)
+                .build();
+        rules.add(rule);
+        return rule;
+    }
+
+    private static BigDecimal discountOf(PriceQuoteResponse quote) {
+        return quote.getLines().get(0).getDiscount();
+    }
+
+    private static SKU sku(long id) {
+        return SKU.builder().id(id).build();
+    }
+
+    private static CartLine line(long skuId, ProductCategory category, String unitPrice, int quantity) {
+        return new CartLine(skuId, category, unitPrice != null ? new BigDecimal(unitPrice) : null, quantity);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.example.Backend.models.ReplenishmentForecast;
+import com.example.Backend.repositorys.ReplenishmentBatchRepository;
+import com.example.Backend.repositorys.ReplenishmentForecastRepository;
+import com.example.Backend.utils.DemandForecaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * Reorder point and order-up-to level from a forecast, with a two-week lead time and a one-week
+ * review: safety stock, the min_stock floor and the max_stock cap.
+ */
+class ReplenishmentServiceTest {
+
+    private final DemandForecaster forecaster = new DemandForecaster(0.3, 0.05, 0.2, 52);
+    private ReplenishmentService replenishmentService;
+
+    @BeforeEach
+    void setUp() {
+        replenishmentService = new ReplenishmentService(mock(ReplenishmentBatchRepository.class),
+                mock(ReplenishmentForecastRepository.class), mock(Executor.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(replenishmentService, "leadTimeWeeks", 2);
+        ReflectionTestUtils.setField(replenishmentService, "reviewWeeks", 1);
+        ReflectionTestUtils.setField(replenishmentService, "serviceLevelZ", 1.65);
+    }
+
+    @Test
+    void steadyDemandCoversLeadTimeAndReview() {
+        ReplenishmentForecast forecast = toForecast(steady(10), 0, null);
+
+        assertEquals(0, new BigDecimal("10.000").compareTo(forecast.getWeeklyDemand()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(forecast.getDemandStdDev()));
+        assertEquals(20, forecast.getReorderPoint());
+        assertEquals(30, forecast.getOrderUpTo());
+        assertEquals(12, forecast.getHistoryWeeks());
+    }
+
+    @Test
+    void noisyDemandAddsSafetyStock() {
+        DemandForecaster.Forecast noisy = forecaster.forecast(new double[]{8, 14, 6, 12, 9, 15, 7, 11}, 3);
+        ReplenishmentForecast forecast = replenishmentService.toForecast(1L, noisy, 8, 0, null);
+
+        double sd = noisy.getStdDev();
+        assertEquals((int) Math.ceil(noisy.total(2) + 1.65 * sd * Math.sqrt(2)), forecast.getReorderPoint());
+        assertEquals((int) Math.ceil(noisy.total(3) + 1.65 * sd * Math.sqrt(3)), forecast.getOrderUpTo());
+    }
+
+    @Test
+    void minStockIsAFloor() {
+        ReplenishmentForecast aboveReorder = toForecast(steady(10), 25, null);
+        assertEquals(25, aboveReorder.getReorderPoint());
+        assertEquals(30, aboveReorder.getOrderUpTo());
+
+        // The order-up-to level never falls below the reorder point
+        ReplenishmentForecast aboveEverything = toForecast(steady(10), 40, null);
+        assertEquals(40, aboveEverything.getReorderPoint());
+        assertEquals(40, aboveEverything.getOrderUpTo());
+    }
+
+    @Test
+    void maxStockCapsBothLevels() {
+        ReplenishmentForecast capsOrderUpTo = toForecast(steady(10), 0, 24);
+        assertEquals(20, capsOrderUpTo.getReorderPoint());
+        assertEquals(24, capsOrderUpTo.getOrderUpTo());
+
+        ReplenishmentForecast capsReorderPoint = toForecast(steady(10), 0, 15);
+        assertEquals(15, capsReorderPoint.getReorderPoint());
+        assertEquals(15, capsReorderPoint.getOrderUpTo());
+
+        // max_stock wins over min_stock
+        ReplenishmentForecast overMinStock = toForecast(steady(10), 25, 18);
+        assertEquals(18, overMinStock.getReorderPoint());
+        assertEquals(18, overMinStock.getOrderUpTo());
+    }
+
+    private ReplenishmentForecast toForecast(double[] history, int minStock, Integer maxStock) {
+        return replenishmentService.toForecast(1L, forecaster.forecast(history, 3), history.length, minStock, maxStock);
+    }
+
+    private static double[] steady(double weekly) {
+        double[] history = new double[12];
+        Arrays.fill(history, weekly);
+        return history;
+    }
+}
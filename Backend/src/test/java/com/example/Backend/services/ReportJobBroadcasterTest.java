@@ -0,0 +1,56 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.Backend.dtos.report.ReportJobStatus;
+import com.example.Backend.services.ReportJobService.JobState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ReportJobBroadcasterTest {
+
+    private final ReportJobService reportJobService = mock(ReportJobService.class);
+    private ReportJobBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new ReportJobBroadcaster(mock(RedisMessageListenerContainer.class), reportJobService, new ObjectMapper());
+        ReflectionTestUtils.setField(broadcaster, "sseTimeoutMs", 60_000L);
+    }
+
+    @Test
+    void statusIsReadOnlyOnceTheEmitterIsSubscribed() {
+        AtomicBoolean subscribedWhenRead = new AtomicBoolean();
+        when(reportJobService.getStatus("job-1")).thenAnswer(invocation -> {
+            List<?> emitters = emitters().get("job-1");
+            subscribedWhenRead.set(emitters != null && emitters.size() == 1);
+            return ReportJobStatus.builder().jobId("job-1").state(JobState.RUNNING).progress(40).build();
+        });
+
+        broadcaster.register("job-1");
+
+        // A final state published after the read reaches the emitter, one published before is what was read
+        assertTrue(subscribedWhenRead.get());
+    }
+
+    @Test
+    void unknownJobLeavesNoSubscriber() {
+        assertThrows(IllegalArgumentException.class, () -> broadcaster.register("missing"));
+        assertTrue(emitters().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<?>> emitters() {
+        return (Map<String, List<?>>) ReflectionTestUtils.getField(broadcaster, "emittersByJob");
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.report.ReportJobRequest;
+import com.example.Backend.dtos.report.ReportJobStatus;
+import com.example.Backend.services.ReportJobService.JobState;
+import com.example.Backend.services.ReportJobService.ReportType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Report jobs against a real Redis, with the report queries stubbed so a test decides when they
+ * return. A second service instance on the same Redis plays another node.
+ */
+class ReportJobServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final SalesRollupService salesRollupService = mock(SalesRollupService.class);
+    private final TopProductService topProductService = mock(TopProductService.class);
+    private final WarrantyService warrantyService = mock(WarrantyService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch queried = new CountDownLatch(1);
+
+    private ThreadPoolExecutor executor;
+    private ReportJobService reportJobService;
+    private ReportJobService otherNode;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+        reportJobService = newNode(executor);
+        otherNode = newNode(executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalSubmitsShareOneJob() throws Exception {
+        when(salesRollupService.getTotalSales(any(), any())).thenAnswer(invocation -> {
+            queried.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return BigDecimal.ONE;
+        });
+        ReportJobRequest request = rangeRequest(ReportType.SALES_TOTAL, 3);
+
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> jobIds = new HashSet<>();
+        try {
+            List<Future<ReportJobStatus>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                ReportJobService node = i % 2 == 0 ? reportJobService : otherNode;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return node.submit(request, "tester");
+                }));
+            }
+            start.countDown();
+            for (Future<ReportJobStatus> result : results) {
+                jobIds.add(result.get(10, TimeUnit.SECONDS).getJobId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, jobIds.size(), "jobs " + jobIds);
+        release.countDown();
+        ReportJobStatus finished = awaitFinished(jobIds.iterator().next());
+        assertEquals(JobState.COMPLETED, finished.getState());
+        assertEquals("3", readResult(finished.getJobId()).asText());
+    }
+
+    @Test
+    void cancelFromAnotherNodeIsNotOverwrittenByCompletion() throws Exception {
+        when(warrantyService.getWarrantyStatistics()).thenAnswer(invocation -> {
+            queried.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return WarrantyService.WarrantyStatistics.builder().build();
+        });
+        ReportJobStatus submitted = reportJobService.submit(ReportJobRequest.builder()
+                .type(ReportType.WARRANTY_STATISTICS)
+                .limit((int) (uniqueNumber() % 100) + 1)
+                .build(), "tester");
+        assertTrue(queried.await(10, TimeUnit.SECONDS));
+
+        // No checkpoint between here and completion, so only the conditional finish keeps the cancel
+        assertEquals(JobState.CANCELLED, otherNode.cancel(submitted.getJobId()).getState());
+        release.countDown();
+
+        awaitLocalJobsEmpty(reportJobService);
+        assertEquals(JobState.CANCELLED, reportJobService.getStatus(submitted.getJobId()).getState());
+        assertNull(reportJobService.getCompressedResult(submitted.getJobId()));
+    }
+
+    @Test
+    void cancelAfterCompletionLeavesTheJobCompleted() throws Exception {
+        when(warrantyService.getWarrantyStatistics()).thenReturn(WarrantyService.WarrantyStatistics.builder().build());
+        ReportJobStatus submitted = reportJobService.submit(ReportJobRequest.builder()
+                .type(ReportType.WARRANTY_STATISTICS)
+                .limit((int) (uniqueNumber() % 100) + 1)
+                .build(), "tester");
+        awaitFinished(submitted.getJobId());
+
+        assertEquals(JobState.COMPLETED, otherNode.cancel(submitted.getJobId()).getState());
+        assertEquals(JobState.COMPLETED, reportJobService.getStatus(submitted.getJobId()).getState());
+    }
+
+    @Test
+    void salesPerformanceStopsAtTheNextMonthOnceCancelled() throws Exception {
+        AtomicInteger months = new AtomicInteger();
+        when(salesRollupService.getSalesPerformanceByUserId(any(), any())).thenAnswer(invocation -> {
+            if (months.incrementAndGet() == 2) {
+                queried.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return Map.of();
+        });
+        String jobId = reportJobService.submit(rangeRequest(ReportType.SALES_PERFORMANCE, 12), "tester").getJobId();
+        assertTrue(queried.await(10, TimeUnit.SECONDS));
+
+        otherNode.cancel(jobId);
+        release.countDown();
+
+        assertEquals(JobState.CANCELLED, awaitFinished(jobId).getState());
+        awaitLocalJobsEmpty(reportJobService);
+        assertEquals(2, months.get());
+    }
+
+    @Test
+    void salesPerformanceAddsUpMonthsPerUser() throws Exception {
+        when(salesRollupService.getSalesPerformanceByUserId(any(), any())).thenAnswer(invocation -> {
+            LocalDate from = invocation.getArgument(0);
+            Map<Long, Object[]> rows = new HashMap<>();
+            rows.put(1L, new Object[]{"Alice", 2L, new BigDecimal("10.00")});
+            if (from.getMonthValue() == 2) {
+                rows.put(2L, new Object[]{"Bob", 1L, new BigDecimal("25.00")});
+            }
+            return rows;
+        });
+        ReportJobRequest request = rangeRequest(ReportType.SALES_PERFORMANCE, 3);
+        String jobId = reportJobService.submit(request, "tester").getJobId();
+
+        assertEquals(JobState.COMPLETED, awaitFinished(jobId).getState());
+        JsonNode rows = readResult(jobId);
+        assertEquals(2, rows.size());
+        assertEquals("Alice", rows.get(0).get(0).asText());
+        assertEquals(6, rows.get(0).get(1).asLong());
+        assertEquals(0, new BigDecimal("30.00").compareTo(rows.get(0).get(2).decimalValue()));
+        assertEquals("Bob", rows.get(1).get(0).asText());
+        assertEquals(1, rows.get(1).get(1).asLong());
+    }
+
+    @Test
+    void topProductsStopsAtTheNextMonthOnceCancelled() throws Exception {
+        AtomicInteger months = new AtomicInteger();
+        when(topProductService.getTopProducts(any(), any(), anyInt(), any(), any(BiConsumer.class))).thenAnswer(invocation -> {
+            BiConsumer<Long, Long> monthDone = invocation.getArgument(4);
+            for (long month = 1; month <= 12; month++) {
+                months.incrementAndGet();
+                if (month == 2) {
+                    queried.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                monthDone.accept(month, 12L);
+            }
+            return List.of();
+        });
+        String jobId = reportJobService.submit(rangeRequest(ReportType.TOP_PRODUCTS, 12), "tester").getJobId();
+        assertTrue(queried.await(10, TimeUnit.SECONDS));
+
+        otherNode.cancel(jobId);
+        release.countDown();
+
+        awaitLocalJobsEmpty(reportJobService);
+        assertEquals(JobState.CANCELLED, reportJobService.getStatus(jobId).getState());
+        assertEquals(2, months.get());
+    }
+
+    private ReportJobService newNode(ThreadPoolExecutor executor) {
+        ReportJobService node = new ReportJobService(redisTemplate, objectMapper, executor, salesRollupService,
+                topProductService, warrantyService, stockService);
+        ReflectionTestUtils.setField(node, "queueCapacity", 50);
+        ReflectionTestUtils.setField(node, "resultTtlMinutes", 5L);
+        ReflectionTestUtils.setField(node, "maxRangeDays", 3660L);
+        return node;
+    }
+
+    // A range of its own, so identical specs from other tests never join this one
+    private static ReportJobRequest rangeRequest(ReportType type, int months) {
+        LocalDate start = LocalDate.of(1900, 1, 1).plusMonths(uniqueNumber() % 1000 * 12);
+        return ReportJobRequest.builder()
+                .type(type)
+                .startDate(start)
+                .endDate(start.plusMonths(months).minusDays(1))
+                .limit(10)
+                .build();
+    }
+
+    private ReportJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            ReportJobStatus status = reportJobService.getStatus(jobId);
+            if (status != null && status.getState().isFinished()) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Report job " + jobId + " did not finish");
+    }
+
+    private static void awaitLocalJobsEmpty(ReportJobService node) throws InterruptedException {
+        Map<?, ?> localJobs = (Map<?, ?>) ReflectionTestUtils.getField(node, "localJobs");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!localJobs.isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Report jobs still running: " + localJobs.keySet());
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private JsonNode readResult(String jobId) throws Exception {
+        byte[] compressed = reportJobService.getCompressedResult(jobId);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return objectMapper.readTree(in);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.payment.PaymentCreateDTO;
+import com.example.Backend.dtos.payment.PaymentResponseDTO;
+import com.example.Backend.dtos.salesorder.SalesOrderRequest;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Payment;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.models.SalesOrderItem;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.SalesOrderItemRepository;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The rollup deltas written by the order and payment paths against PostgreSQL. Orders are dated on
+ * two past days of their own and walked through confirm, pay, a total change, refund and cancel;
+ * the closed-day reports read from the rollup must then match sales_order aggregated directly.
+ */
+class SalesRollupServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    @Autowired
+    private SalesOrderItemRepository salesOrderItemRepository;
+
+    private User cashier;
+    private Customer customer;
+    private SKU phone;
+    private SKU charger;
+    private LocalDate firstDay;
+    private LocalDate secondDay;
+
+    @BeforeEach
+    void setUp() {
+        cashier = createUser();
+        customer = createCustomer();
+        signIn(cashier);
+        phone = createSku("8000000.00", false);
+        charger = createSku("350000.00", false);
+        receiveStock(phone, 20, cashier);
+        receiveStock(charger, 20, cashier);
+        // Two consecutive days long closed, which no other fixture uses
+        firstDay = LocalDate.of(1800, 1, 1).plusDays(uniqueNumber() % 30_000 * 2);
+        secondDay = firstDay.plusDays(1);
+    }
+
+    @Test
+    void closedDayReportsMatchSalesOrders() {
+        // Confirmed and paid
+        SalesOrder paid = draftOrder(firstDay, 1, 2);
+        salesOrderService.confirmOrder(paid.getId());
+        salesOrderService.payOrder(paid.getId());
+
+        // Confirmed and cancelled
+        SalesOrder cancelled = draftOrder(firstDay, 2, 0);
+        salesOrderService.confirmOrder(cancelled.getId());
+        salesOrderService.cancelOrder(cancelled.getId());
+
+        // Paid through a payment, then refunded in full
+        SalesOrder refunded = draftOrder(firstDay, 1, 1);
+        salesOrderService.confirmOrder(refunded.getId());
+        PaymentResponseDTO payment = paymentService.createPayment(PaymentCreateDTO.builder()
+                .orderId(refunded.getId())
+                .method(Payment.PaymentMethod.CASH)
+                .amount(salesOrderRepository.findById(refunded.getId()).orElseThrow().getTotal())
+                .build());
+        paymentService.processPayment(payment.getId());
+        paymentService.refundPayment(payment.getId(), payment.getAmount());
+
+        // Discounted after confirmation, then paid
+        SalesOrder discounted = draftOrder(secondDay, 1, 3);
+        salesOrderService.confirmOrder(discounted.getId());
+        SalesOrderRequest discount = new SalesOrderRequest();
+        discount.setCustomerId(customer.getId());
+        discount.setDiscount(new BigDecimal("150000.00"));
+        salesOrderService.updateOrder(discounted.getId(), discount);
+        salesOrderService.payOrder(discounted.getId());
+
+        // Abandoned as a draft
+        SalesOrder abandoned = draftOrder(secondDay, 0, 1);
+        salesOrderService.cancelOrder(abandoned.getId());
+
+        assertEquals(OrderStatus.REFUNDED, salesOrderRepository.findById(refunded.getId()).orElseThrow().getStatus());
+        for (LocalDate day : List.of(firstDay, secondDay)) {
+            assertEquals(rawByStatus(day), rollupByStatus(day), "rollup of " + day);
+            assertEquals(rawSkuSales(day), rollupSkuSales(day), "SKU rollup of " + day);
+        }
+        assertEquals(rows(salesOrderRepository.getDailySalesReport(firstDay, secondDay)),
+                rows(salesRollupService.getDailySalesReport(firstDay, secondDay)));
+        assertEquals(2, salesRollupService.getDailySalesReport(firstDay, secondDay).size());
+        assertEquals(0, salesOrderRepository.getTotalSalesBetween(firstDay, secondDay)
+                .compareTo(salesRollupService.getTotalSales(firstDay, secondDay)));
+        assertEquals(0, salesOrderRepository.getTotalSalesBetween(secondDay, secondDay)
+                .compareTo(salesRollupService.getTotalSales(secondDay, secondDay)));
+    }
+
+    /**
+     * A draft dated on the given day, written and rolled up as SalesOrderService.createOrder does.
+     */
+    private SalesOrder draftOrder(LocalDate day, int phones, int chargers) {
+        SalesOrder order = salesOrderRepository.save(SalesOrder.builder()
+                .orderNumber("SO-ROLLUP-" + uniqueNumber())
+                .customer(customer)
+                .user(cashier)
+                .status(OrderStatus.DRAFT)
+                .orderDate(day)
+                .build());
+        BigDecimal total = BigDecimal.ZERO;
+        List<SalesOrderItem> items = new ArrayList<>();
+        if (phones > 0) {
+            items.add(item(order, phone, phones));
+        }
+        if (chargers > 0) {
+            items.add(item(order, charger, chargers));
+        }
+        for (SalesOrderItem item : salesOrderItemRepository.saveAll(items)) {
+            total = total.add(item.getLineTotal());
+        }
+        order.setSubtotal(total);
+        order.setTotal(total);
+        order = salesOrderRepository.save(order);
+        salesRollupService.record(order, null, null);
+        return order;
+    }
+
+    private static SalesOrderItem item(SalesOrder order, SKU sku, int quantity) {
+        return SalesOrderItem.builder()
+                .order(order)
+                .sku(sku)
+                .quantity(quantity)
+                .unitPrice(sku.getPrice())
+                .lineTotal(sku.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .build();
+    }
+
+    // status -> "count/total" of this cashier's orders on the day
+    private Map<String, String> rawByStatus(LocalDate day) {
+        return byKey("SELECT status, COUNT(*), SUM(total) FROM sales_order " +
+                "WHERE user_id = ? AND order_date = ? GROUP BY status", cashier.getId(), day);
+    }
+
+    // Statuses the orders have left keep a row of zeroes, which the raw aggregate has no row for
+    private Map<String, String> rollupByStatus(LocalDate day) {
+        return byKey("SELECT status, order_count, total_amount FROM daily_sales_rollup " +
+                "WHERE user_id = ? AND sales_date = ? AND order_count <> 0", cashier.getId(), day);
+    }
+
+    private Map<String, String> rawSkuSales(LocalDate day) {
+        return byKey("SELECT soi.sku_id::text, SUM(soi.quantity), SUM(soi.line_total) FROM sales_order_item soi " +
+                "JOIN sales_order so ON so.id = soi.order_id " +
+                "WHERE so.status = 'PAID' AND so.order_date = ? AND soi.sku_id IN (?, ?) GROUP BY soi.sku_id",
+                day, phone.getId(), charger.getId());
+    }
+
+    private Map<String, String> rollupSkuSales(LocalDate day) {
+        return byKey("SELECT sku_id::text, quantity, revenue FROM daily_sku_sales " +
+                "WHERE sales_date = ? AND sku_id IN (?, ?) AND quantity <> 0", day, phone.getId(), charger.getId());
+    }
+
+    private Map<String, String> byKey(String sql, Object... args) {
+        Map<String, String> rows = new TreeMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            rows.put(rs.getString(1), rs.getLong(2) + "/" + rs.getBigDecimal(3).stripTrailingZeros().toPlainString());
+        }, args);
+        return rows;
+    }
+
+    // Report rows as "date count total", with the numeric types of either source normalized
+    private static List<String> rows(List<Object[]> report) {
+        return report.stream()
+                .map(row -> row[0] + " " + ((Number) row[1]).longValue() + " "
+                        + ((BigDecimal) row[2]).stripTrailingZeros().toPlainString())
+                .toList();
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.salesorder.SalesOrderItemRequest;
+import com.example.Backend.dtos.salesorder.SalesOrderRequest;
+import com.example.Backend.dtos.serial.SerialUnitRequest;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder.OrderStatus;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First-in-first-out serial allocation against PostgreSQL: confirmed orders for the same
+ * serialized SKU paid at the same time. Each order also carries a plain SKU, so a payment refused
+ * for want of serial units shows whether it rolled back as a whole.
+ */
+class SerialAllocationConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private SerialUnitService serialUnitService;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    private User cashier;
+    private Customer customer;
+    private SKU phone;
+    private SKU charger;
+
+    @BeforeEach
+    void setUp() {
+        cashier = createUser();
+        customer = createCustomer();
+        signIn(cashier);
+        phone = createSku("9000000.00", true);
+        charger = createSku("300000.00", false);
+    }
+
+    @Test
+    void concurrentPaymentsSellTheOldestUnitsOnceEach() throws Exception {
+        int units = 20;
+        int orders = 12;
+        List<String> oldestFirst = registerUnits(units);
+        receiveStock(phone, units, cashier);
+        receiveStock(charger, orders, cashier);
+        List<Long> orderIds = confirmedOrders(orders);
+
+        Set<Long> paid = payConcurrently(orderIds);
+
+        assertEquals(orders, paid.size());
+        List<String> sold = jdbcTemplate.queryForList(
+                "SELECT su.imei FROM sales_order_item soi JOIN serial_unit su ON su.id = soi.serial_unit_id " +
+                "WHERE soi.order_id = ANY (?)", String.class, (Object) orderIds.toArray(Long[]::new));
+        assertEquals(orders, sold.size());
+        assertEquals(orders, new TreeSet<>(sold).size(), "a unit was sold twice");
+        assertEquals(new TreeSet<>(oldestFirst.subList(0, orders)), new TreeSet<>(sold));
+        assertEquals(new TreeSet<>(oldestFirst.subList(0, orders)), new TreeSet<>(unitsInStatus("SOLD")));
+        assertEquals(orders, count("SELECT COUNT(*) FROM serial_unit_event e JOIN serial_unit su ON su.id = e.serial_unit_id " +
+                "WHERE su.sku_id = ? AND e.to_status = 'SOLD'", phone.getId()));
+        assertArrayEquals(new int[]{units - orders, 0, units - orders, 0}, stockLevels(phone.getId()));
+        assertArrayEquals(new int[]{0, 0, 0, 0}, stockLevels(charger.getId()));
+    }
+
+    @Test
+    void paymentShortOfSerialUnitsRollsBackWhole() throws Exception {
+        int units = 5;
+        int orders = 8;
+        List<String> oldestFirst = registerUnits(units);
+        // More stock counted than units registered, so every order can be confirmed
+        receiveStock(phone, orders, cashier);
+        receiveStock(charger, orders, cashier);
+        List<Long> orderIds = confirmedOrders(orders);
+
+        Set<Long> paid = payConcurrently(orderIds);
+
+        assertEquals(units, paid.size());
+        assertEquals(new TreeSet<>(oldestFirst), new TreeSet<>(unitsInStatus("SOLD")));
+        int refused = orders - units;
+        for (Long orderId : orderIds) {
+            if (paid.contains(orderId)) {
+                continue;
+            }
+            assertEquals(OrderStatus.CONFIRMED, salesOrderRepository.findById(orderId).orElseThrow().getStatus());
+            assertEquals(0, count("SELECT COUNT(*) FROM sales_order_item WHERE order_id = ? AND serial_unit_id IS NOT NULL", orderId));
+            assertEquals(0, count("SELECT COUNT(*) FROM stock_movement WHERE ref_type = 'sales_order' AND ref_id = ?", orderId));
+            assertEquals(0, count("SELECT COUNT(*) FROM serial_unit_event WHERE ref_type = 'sales_order' AND ref_id = ?", orderId));
+        }
+        // The refused orders still hold both lines, neither was taken out of stock
+        assertArrayEquals(new int[]{refused, refused, refused, refused}, stockLevels(phone.getId()));
+        assertArrayEquals(new int[]{refused, refused, refused, refused}, stockLevels(charger.getId()));
+    }
+
+    /**
+     * Register the phone's units with distinct purchase dates, in an order unrelated to those
+     * dates so that ids do not give the oldest away. Returns their IMEIs oldest first.
+     */
+    private List<String> registerUnits(int units) {
+        List<Integer> ages = new ArrayList<>();
+        for (int i = 0; i < units; i++) {
+            ages.add(i);
+        }
+        Collections.shuffle(ages, new Random(47));
+        String[] oldestFirst = new String[units];
+        LocalDate today = LocalDate.now();
+        for (int age : ages) {
+            String imei = uniqueImei();
+            serialUnitService.createSerialUnit(SerialUnitRequest.builder()
+                    .skuId(phone.getId())
+                    .imei(imei)
+                    .purchaseDate(today.minusDays(units - age))
+                    .build());
+            oldestFirst[age] = imei;
+        }
+        return List.of(oldestFirst);
+    }
+
+    // One phone and one charger each, confirmed so both are reserved
+    private List<Long> confirmedOrders(int orders) {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            SalesOrderRequest request = new SalesOrderRequest();
+            request.setCustomerId(customer.getId());
+            request.setItems(List.of(item(phone), item(charger)));
+            Long orderId = salesOrderService.createOrder(request).getId();
+            salesOrderService.confirmOrder(orderId);
+            orderIds.add(orderId);
+        }
+        return orderIds;
+    }
+
+    // Orders whose payment went through; any failure other than a stock shortage fails the test
+    private Set<Long> payConcurrently(List<Long> orderIds) throws Exception {
+        Set<Long> paid = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                results.add(pool.submit(() -> {
+                    signIn(cashier);
+                    start.await();
+                    try {
+                        salesOrderService.payOrder(orderId);
+                        paid.add(orderId);
+                    } catch (StockException e) {
+                        // Left for the assertions on the refused orders
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return paid;
+    }
+
+    private List<String> unitsInStatus(String status) {
+        return jdbcTemplate.queryForList("SELECT imei FROM serial_unit WHERE sku_id = ? AND status = ?",
+                String.class, phone.getId(), status);
+    }
+
+    private static SalesOrderItemRequest item(SKU sku) {
+        SalesOrderItemRequest item = new SalesOrderItemRequest();
+        item.setSkuId(sku.getId());
+        item.setQuantity(1);
+        return item;
+    }
+
+    private int count(String sql, Object... args) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return count != null ? count : 0;
+    }
+}
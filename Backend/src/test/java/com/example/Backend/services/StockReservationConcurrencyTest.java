@@ -0,0 +1,212 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrderItem;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contention tests for the reservation engine against PostgreSQL: many orders reserving the same
+ * SKUs, listed in different orders, at the same time. A deadlock or lock timeout would surface as
+ * an exception other than StockException and fail the test.
+ */
+class StockReservationConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int ORDERS = 120;
+    private static final int STOCK_PER_SKU = 40;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    private List<SKU> skus;
+    private User user;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser();
+        customer = createCustomer();
+        skus = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            SKU sku = createSku("1000.00", false);
+            receiveStock(sku, STOCK_PER_SKU, user);
+            skus.add(sku);
+        }
+    }
+
+    @Test
+    void overlappingOrdersNeverOversellOrDeadlock() throws Exception {
+        Random random = new Random(26);
+        List<SalesOrder> orders = new ArrayList<>();
+        List<List<SalesOrderItem>> baskets = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(newOrder());
+            baskets.add(randomBasket(random));
+        }
+
+        Map<Long, Integer> reservedBySku = new ConcurrentHashMap<>();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(ORDERS, i -> {
+            try {
+                stockReservationService.reserve(orders.get(i), baskets.get(i));
+                accepted.incrementAndGet();
+                baskets.get(i).forEach(item -> reservedBySku.merge(item.getSku().getId(), item.getQuantity(), Integer::sum));
+            } catch (StockException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(ORDERS, accepted.get() + rejected.get());
+        assertTrue(accepted.get() > 0, "no order got its stock");
+        assertTrue(rejected.get() > 0, "demand should exceed stock so that orders compete");
+        for (SKU sku : skus) {
+            int reserved = reservedBySku.getOrDefault(sku.getId(), 0);
+            assertTrue(reserved <= STOCK_PER_SKU, "SKU " + sku.getId() + " oversold: " + reserved);
+            assertArrayEquals(new int[]{STOCK_PER_SKU, reserved, STOCK_PER_SKU, reserved}, stockLevels(sku.getId()));
+        }
+        Integer activeHolds = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_reservation WHERE status = 'ACTIVE' AND order_id = ANY (?)",
+                Integer.class, (Object) orders.stream().map(SalesOrder::getId).toArray(Long[]::new));
+        int expectedHolds = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            if (isHeld(orders.get(i))) {
+                expectedHolds += baskets.get(i).size();
+            }
+        }
+        assertEquals(expectedHolds, activeHolds);
+    }
+
+    @Test
+    void payingWhileHoldsExpireSettlesEveryHoldExactlyOnce() throws Exception {
+        int orderCount = STOCK_PER_SKU / 2;
+        List<SalesOrder> orders = new ArrayList<>();
+        List<List<SalesOrderItem>> baskets = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            SalesOrder order = newOrder();
+            List<SalesOrderItem> basket = new ArrayList<>();
+            for (SKU sku : skus) {
+                basket.add(item(sku, 2));
+            }
+            stockReservationService.reserve(order, basket);
+            orders.add(order);
+            baskets.add(basket);
+        }
+        jdbcTemplate.update("UPDATE stock_reservation SET expires_at = now() - interval '1 minute' WHERE order_id = ANY (?)",
+                (Object) orders.stream().map(SalesOrder::getId).toArray(Long[]::new));
+
+        AtomicBoolean paying = new AtomicBoolean(true);
+        ExecutorService sweeper = Executors.newSingleThreadExecutor();
+        Future<?> sweeps = sweeper.submit(() -> {
+            while (paying.get()) {
+                stockReservationService.releaseExpiredHolds();
+            }
+        });
+        try {
+            runConcurrently(orderCount, i -> stockReservationService.consume(orders.get(i), baskets.get(i)));
+        } finally {
+            paying.set(false);
+            sweeps.get(60, TimeUnit.SECONDS);
+            sweeper.shutdownNow();
+        }
+
+        // Every unit was sold once: held ones from their hold, expired ones from the released free stock
+        for (SKU sku : skus) {
+            assertArrayEquals(new int[]{0, 0, 0, 0}, stockLevels(sku.getId()));
+        }
+        List<String> statuses = jdbcTemplate.queryForList(
+                "SELECT DISTINCT status FROM stock_reservation WHERE order_id = ANY (?)",
+                String.class, (Object) orders.stream().map(SalesOrder::getId).toArray(Long[]::new));
+        assertTrue(List.of("CONSUMED", "EXPIRED").containsAll(statuses), "unexpected hold states " + statuses);
+    }
+
+    private boolean isHeld(SalesOrder order) {
+        Integer holds = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_reservation WHERE order_id = ?", Integer.class, order.getId());
+        return holds != null && holds > 0;
+    }
+
+    // Two or three of the SKUs, 1-3 units each, in a random order
+    private List<SalesOrderItem> randomBasket(Random random) {
+        List<SKU> picked = new ArrayList<>(skus);
+        Collections.shuffle(picked, random);
+        List<SalesOrderItem> basket = new ArrayList<>();
+        for (SKU sku : picked.subList(0, 2 + random.nextInt(2))) {
+            basket.add(item(sku, 1 + random.nextInt(3)));
+        }
+        return basket;
+    }
+
+    private SalesOrderItem item(SKU sku, int quantity) {
+        return SalesOrderItem.builder()
+                .sku(sku)
+                .quantity(quantity)
+                .unitPrice(sku.getPrice())
+                .build();
+    }
+
+    private SalesOrder newOrder() {
+        return salesOrderRepository.save(SalesOrder.builder()
+                .customer(customer)
+                .user(user)
+                .status(SalesOrder.OrderStatus.CONFIRMED)
+                .build());
+    }
+
+    private static void runConcurrently(int tasks, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(int index);
+    }
+}
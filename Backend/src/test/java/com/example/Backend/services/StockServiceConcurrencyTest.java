@@ -0,0 +1,155 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.stock.StockMovementRequest;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stock writes from many threads on two hot SKUs against PostgreSQL. Every call runs outside a
+ * transaction, so the stripe locks and the contention retry are in play; anything but a
+ * StockException for missing stock fails the test, and no write may be lost.
+ */
+class StockServiceConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 40;
+    private static final int INITIAL_STOCK = 50;
+
+    private User user;
+    private List<SKU> skus;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser();
+        skus = List.of(createSku("100.00", false), createSku("200.00", false));
+        for (SKU sku : skus) {
+            receiveStock(sku, INITIAL_STOCK, user);
+        }
+    }
+
+    @Test
+    void concurrentAddsAndRemovesLoseNoUpdates() throws Exception {
+        AtomicInteger[] added = {new AtomicInteger(), new AtomicInteger()};
+        AtomicInteger[] removed = {new AtomicInteger(), new AtomicInteger()};
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently((random, index) -> {
+            int quantity = 1 + random.nextInt(5);
+            if (random.nextBoolean()) {
+                stockService.addStock(movement(skus.get(index), quantity, StockMovement.MovementReason.PURCHASE), user.getId());
+                added[index].addAndGet(quantity);
+            } else {
+                try {
+                    stockService.removeStock(movement(skus.get(index), quantity, StockMovement.MovementReason.DAMAGED), user.getId());
+                    removed[index].addAndGet(quantity);
+                } catch (StockException e) {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+
+        for (int i = 0; i < skus.size(); i++) {
+            int expected = INITIAL_STOCK + added[i].get() - removed[i].get();
+            assertArrayEquals(new int[]{expected, 0, expected, 0}, stockLevels(skus.get(i).getId()));
+            assertEquals(expected, ledgerNet(skus.get(i).getId()));
+        }
+        assertTrue(added[0].get() + added[1].get() > 0 && removed[0].get() + removed[1].get() > 0,
+                "both kinds of write ran; refused removals " + refused.get());
+    }
+
+    @Test
+    void adjustmentsInterleavedWithMovesKeepLevelsAndLedgerInStep() throws Exception {
+        AtomicInteger adjustments = new AtomicInteger();
+
+        runConcurrently((random, index) -> {
+            SKU sku = skus.get(index);
+            int quantity = 1 + random.nextInt(5);
+            switch (random.nextInt(3)) {
+                case 0 -> stockService.addStock(movement(sku, quantity, StockMovement.MovementReason.PURCHASE), user.getId());
+                case 1 -> {
+                    try {
+                        stockService.removeStock(movement(sku, quantity, StockMovement.MovementReason.DAMAGED), user.getId());
+                    } catch (StockException e) {
+                        // Out of stock at that moment
+                    }
+                }
+                default -> {
+                    stockService.adjustStock(sku.getId(), null, random.nextInt(60), "Cycle count", user.getId());
+                    adjustments.incrementAndGet();
+                }
+            }
+        });
+
+        assertTrue(adjustments.get() > 0);
+        for (SKU sku : skus) {
+            // Each adjustment's ledger row is the difference it applied, so the ledger still sums to the level
+            int[] levels = stockLevels(sku.getId());
+            assertEquals(levels[0], levels[2]);
+            assertEquals(levels[0], ledgerNet(sku.getId()));
+            assertTrue(levels[0] >= 0);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(Random random, int skuIndex);
+    }
+
+    private void runConcurrently(Operation operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Random random = new Random(45 + thread);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        operation.run(random, random.nextInt(skus.size()));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static StockMovementRequest movement(SKU sku, int quantity, StockMovement.MovementReason reason) {
+        return StockMovementRequest.builder()
+                .skuId(sku.getId())
+                .quantity(quantity)
+                .reason(reason)
+                .build();
+    }
+
+    private int ledgerNet(long skuId) {
+        Integer net = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(CASE WHEN movement_type = 'IN' THEN quantity ELSE -quantity END), 0) " +
+                "FROM stock_movement WHERE sku_id = ?", Integer.class, skuId);
+        return net != null ? net : 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.stock.StockAsOfResponse;
+import com.example.Backend.models.SKU;
+import com.example.Backend.repositorys.StockSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Daily snapshots and as-of stock against PostgreSQL, checked against a replay of the whole
+ * ledger. Movements are written straight into the ledger around midnight on days after the latest
+ * snapshot taken so far, since snapshots can only be taken forward.
+ */
+class StockSnapshotServiceTest extends PostgresIntegrationTest {
+
+    // The last instant of a day that a PostgreSQL timestamp can hold
+    private static final LocalTime LAST_MICROSECOND = LocalTime.of(23, 59, 59, 999_999_000);
+
+    @Autowired
+    private StockSnapshotService stockSnapshotService;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    private SKU phone;
+    private SKU tablet;
+    private SKU watch;
+    private LocalDate day0;
+    private LocalDate day1;
+    private LocalDate day2;
+
+    @BeforeEach
+    void setUp() {
+        phone = createSku("100.00", false);
+        tablet = createSku("100.00", false);
+        watch = createSku("100.00", false);
+        // Long before the movements other tests write, and clear of any earlier run of this class
+        day0 = stockSnapshotRepository.findLatestSnapshotDate()
+                .map(date -> date.plusDays(10))
+                .orElse(LocalDate.of(1990, 1, 1));
+        day1 = day0.plusDays(1);
+        day2 = day0.plusDays(2);
+    }
+
+    @Test
+    void asOfMatchesTheLedgerAroundEachCutoff() {
+        move(phone, "IN", 10, day0.atTime(10, 0));
+        move(phone, "OUT", 3, day0.atTime(LAST_MICROSECOND));
+        move(phone, "IN", 5, day1.atStartOfDay());
+        move(phone, "OUT", 12, day1.atTime(18, 0));
+        move(phone, "IN", 7, day2.atTime(12, 0));
+        move(tablet, "IN", 4, day0.atStartOfDay());
+        move(tablet, "OUT", 4, day2.atTime(LAST_MICROSECOND));
+        move(watch, "IN", 20, day1.atTime(LAST_MICROSECOND));
+        move(watch, "OUT", 1, day2.atStartOfDay());
+
+        // Before any snapshot covers these days the whole stretch is replayed
+        assertMatchesLedger(day0.atTime(23, 59));
+
+        stockSnapshotService.takeSnapshotsThrough(day0);
+        assertEquals(ledger(day1.atStartOfDay()).get(phone.getId()), snapshotQuantity(day0, phone));
+        assertEquals(Map.of(phone.getId(), 7, tablet.getId(), 4), ours(ledger(day1.atStartOfDay())));
+        assertMatchesLedger(day0.atTime(LAST_MICROSECOND));
+        assertMatchesLedger(day1.atStartOfDay());
+        StockAsOfResponse afterCutoff = assertMatchesLedger(day1.atTime(12, 0));
+        assertEquals(day0, afterCutoff.getSnapshotDate());
+        assertEquals(day1.atStartOfDay(), afterCutoff.getReplayedFrom());
+
+        assertEquals(2, stockSnapshotService.takeSnapshotsThrough(day2));
+        // The phone sold out on day 1, so day 1's snapshot has no row for it
+        assertNull(snapshotQuantity(day1, phone));
+        assertEquals(20, snapshotQuantity(day1, watch));
+        assertMatchesLedger(day1.atTime(LAST_MICROSECOND));
+        assertMatchesLedger(day2.atStartOfDay());
+        assertMatchesLedger(day2.atTime(6, 0));
+        assertMatchesLedger(day2.atTime(LAST_MICROSECOND));
+        StockAsOfResponse later = assertMatchesLedger(day2.plusDays(5).atStartOfDay());
+        assertEquals(day2, later.getSnapshotDate());
+        assertEquals(Map.of(phone.getId(), 7, watch.getId(), 19), ours(ledger(day2.plusDays(5).atStartOfDay())));
+
+        // Taking them again is a no-op
+        assertEquals(0, stockSnapshotService.takeSnapshotsThrough(day2));
+    }
+
+    /**
+     * Compare the multi-partition answer over every SKU, and the single-SKU answer for each fixture
+     * SKU, with a replay of the ledger up to the same time.
+     */
+    private StockAsOfResponse assertMatchesLedger(LocalDateTime asOf) {
+        Map<Long, Integer> expected = ledger(asOf);
+
+        StockAsOfResponse all = stockSnapshotService.getStockAsOf(asOf, null);
+        assertEquals(expected, quantities(all), "all SKUs as of " + asOf);
+        assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(), all.getTotalQuantity());
+        List<Long> skuIds = all.getItems().stream().map(StockAsOfResponse.Line::getSkuId).toList();
+        assertEquals(skuIds.stream().sorted().toList(), skuIds, "items out of SKU order");
+
+        for (SKU sku : List.of(phone, tablet, watch)) {
+            StockAsOfResponse one = stockSnapshotService.getStockAsOf(asOf, sku.getId());
+            Integer quantity = expected.get(sku.getId());
+            assertEquals(quantity != null ? Map.of(sku.getId(), quantity) : Map.of(), quantities(one),
+                    "SKU " + sku.getId() + " as of " + asOf);
+        }
+        assertTrue(all.getReplayedFrom() != null && !all.getReplayedFrom().isAfter(asOf));
+        return all;
+    }
+
+    private void move(SKU sku, String type, int quantity, LocalDateTime at) {
+        jdbcTemplate.update("INSERT INTO stock_movement (sku_id, movement_type, quantity, reason, created_at) " +
+                "VALUES (?, ?, ?, ?, ?)", sku.getId(), type, quantity, "IN".equals(type) ? "PURCHASE" : "SALE", at);
+    }
+
+    // Quantity on hand per SKU from every movement before the given time
+    private Map<Long, Integer> ledger(LocalDateTime asOf) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        jdbcTemplate.query("SELECT sku_id, SUM(CASE WHEN movement_type = 'IN' THEN quantity ELSE -quantity END) " +
+                "FROM stock_movement WHERE created_at < ? GROUP BY sku_id " +
+                "HAVING SUM(CASE WHEN movement_type = 'IN' THEN quantity ELSE -quantity END) <> 0", rs -> {
+            quantities.put(rs.getLong(1), rs.getInt(2));
+        }, asOf);
+        return quantities;
+    }
+
+    private Map<Long, Integer> ours(Map<Long, Integer> quantities) {
+        Map<Long, Integer> ours = new TreeMap<>(quantities);
+        ours.keySet().retainAll(List.of(phone.getId(), tablet.getId(), watch.getId()));
+        return ours;
+    }
+
+    private Integer snapshotQuantity(LocalDate day, SKU sku) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT quantity FROM stock_snapshot WHERE snapshot_date = ? AND sku_id = ?", Integer.class, day, sku.getId());
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static Map<Long, Integer> quantities(StockAsOfResponse response) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        response.getItems().forEach(line -> quantities.put(line.getSkuId(), line.getQuantity()));
+        return quantities;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.salesorder.CheckoutRequest;
+import com.example.Backend.dtos.salesorder.SalesOrderItemRequest;
+import com.example.Backend.dtos.salesorder.SalesOrderRequest;
+import com.example.Backend.dtos.stock.StockLocationRequest;
+import com.example.Backend.dtos.stock.StockMovementRequest;
+import com.example.Backend.dtos.stock.StockTransferRequest;
+import com.example.Backend.exceptions.StockException;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.Payment;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrderItem;
+import com.example.Backend.models.StockLocation;
+import com.example.Backend.models.StockMovement;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transfers between locations against PostgreSQL: a transfer applies whole or not at all, never
+ * oversells the source while tills sell from it, and stock only counts where it actually is.
+ */
+class StockTransferServiceTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private StockTransferService stockTransferService;
+
+    @Autowired
+    private StockLocationService stockLocationService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    private User clerk;
+    private Customer customer;
+    private Long storeA;
+    private Long storeB;
+
+    @BeforeEach
+    void setUp() {
+        clerk = createUser();
+        customer = createCustomer();
+        signIn(clerk);
+        storeA = createStore();
+        storeB = createStore();
+    }
+
+    @Test
+    void oneShortLineRollsBackTheWholeTransfer() {
+        SKU phone = createSku("5000000.00", false);
+        SKU charger = createSku("200000.00", false);
+        receiveAt(storeA, phone, 5);
+        receiveAt(storeA, charger, 1);
+
+        StockException refused = assertThrows(StockException.class, () -> stockTransferService.transfer(
+                transfer(storeA, storeB, line(phone, 3), line(charger, 2)), clerk.getUsername()));
+
+        assertTrue(refused.getMessage().contains(String.valueOf(charger.getId())));
+        assertArrayEquals(new int[]{5, 0, 5, 0}, stockLevels(phone.getId()));
+        assertArrayEquals(new int[]{1, 0, 1, 0}, stockLevels(charger.getId()));
+        assertEquals(5, quantityAt(storeA, phone));
+        assertEquals(1, quantityAt(storeA, charger));
+        assertEquals(0, quantityAt(storeB, phone));
+        assertEquals(0, quantityAt(storeB, charger));
+        assertEquals(0, count("SELECT COUNT(*) FROM stock_movement WHERE reason = 'TRANSFER' AND sku_id IN (?, ?)",
+                phone.getId(), charger.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM stock_transfer WHERE from_location_id = ?", storeA));
+    }
+
+    @Test
+    void transfersRacingSalesNeverTakeTheSourceBelowZero() throws Exception {
+        int stock = 30;
+        int transfers = 20;
+        int sales = 20;
+        SKU sku = createSku("100.00", false);
+        receiveAt(storeA, sku, stock);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger moved = new AtomicInteger();
+        AtomicInteger sold = new AtomicInteger();
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < transfers + sales; i++) {
+                boolean transfer = i % 2 == 0;
+                results.add(pool.submit(() -> {
+                    signIn(clerk);
+                    start.await();
+                    try {
+                        if (transfer) {
+                            stockTransferService.transfer(transfer(storeA, storeB, line(sku, 2)), clerk.getUsername());
+                            moved.incrementAndGet();
+                        } else {
+                            checkoutService.checkout(checkoutAt(storeA, sku, 1));
+                            sold.incrementAndGet();
+                        }
+                    } catch (StockException e) {
+                        // Demand exceeds the stock on purpose
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int atSource = quantityAt(storeA, sku);
+        assertTrue(atSource >= 0, "source went negative: " + atSource);
+        assertTrue(moved.get() > 0 && sold.get() > 0, "transfers and sales should both get through");
+        assertEquals(stock - 2 * moved.get() - sold.get(), atSource);
+        assertEquals(2 * moved.get(), quantityAt(storeB, sku));
+        assertArrayEquals(new int[]{stock - sold.get(), 0, stock - sold.get(), 0}, stockLevels(sku.getId()));
+        assertEquals(2 * moved.get(), count("SELECT COUNT(*) FROM stock_movement WHERE reason = 'TRANSFER' AND sku_id = ?",
+                sku.getId()));
+    }
+
+    @Test
+    void orderAtOneStoreCannotReserveStockHeldAtAnother() {
+        SKU sku = createSku("100.00", false);
+        receiveAt(storeB, sku, 3);
+
+        assertThrows(StockException.class, () -> salesOrderService.createOrder(orderAt(storeA, sku, 2)));
+        SalesOrder order = salesOrderRepository.save(SalesOrder.builder()
+                .customer(customer)
+                .user(clerk)
+                .location(stockLocationService.resolve(storeA))
+                .status(SalesOrder.OrderStatus.DRAFT)
+                .build());
+        List<SalesOrderItem> items = List.of(SalesOrderItem.builder()
+                .order(order)
+                .sku(sku)
+                .quantity(2)
+                .unitPrice(sku.getPrice())
+                .build());
+        assertThrows(StockException.class, () -> stockReservationService.reserve(order, items));
+        assertEquals(List.of(sku.getId()), stockLocationService.findShortages(storeA, Map.of(sku.getId(), 2)));
+        assertArrayEquals(new int[]{3, 0, 3, 0}, stockLevels(sku.getId()));
+
+        // Once moved to A, the same order goes through there
+        stockTransferService.transfer(transfer(storeB, storeA, line(sku, 3)), clerk.getUsername());
+        Long orderId = salesOrderService.createOrder(orderAt(storeA, sku, 2)).getId();
+        salesOrderService.confirmOrder(orderId);
+
+        assertArrayEquals(new int[]{3, 2, 3, 2}, stockLevels(sku.getId()));
+        assertEquals(3, quantityAt(storeA, sku));
+        assertEquals(0, quantityAt(storeB, sku));
+    }
+
+    private Long createStore() {
+        long n = uniqueNumber();
+        return stockLocationService.createLocation(StockLocationRequest.builder()
+                .code("ST" + n)
+                .name("Store " + n)
+                .type(StockLocation.LocationType.STORE)
+                .build()).getId();
+    }
+
+    private void receiveAt(Long locationId, SKU sku, int quantity) {
+        stockService.addStock(StockMovementRequest.builder()
+                .skuId(sku.getId())
+                .locationId(locationId)
+                .quantity(quantity)
+                .reason(StockMovement.MovementReason.PURCHASE)
+                .build(), clerk.getId());
+    }
+
+    private int quantityAt(Long locationId, SKU sku) {
+        return count("SELECT COALESCE(SUM(quantity), 0) FROM location_stock WHERE location_id = ? AND sku_id = ?",
+                locationId, sku.getId());
+    }
+
+    private static StockTransferRequest transfer(Long from, Long to, StockTransferRequest.Line... lines) {
+        return StockTransferRequest.builder()
+                .fromLocationId(from)
+                .toLocationId(to)
+                .lines(List.of(lines))
+                .build();
+    }
+
+    private static StockTransferRequest.Line line(SKU sku, int quantity) {
+        return StockTransferRequest.Line.builder().skuId(sku.getId()).quantity(quantity).build();
+    }
+
+    private CheckoutRequest checkoutAt(Long locationId, SKU sku, int quantity) {
+        CheckoutRequest.Item item = new CheckoutRequest.Item();
+        item.setSkuId(sku.getId());
+        item.setQuantity(quantity);
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCustomerId(customer.getId());
+        request.setLocationId(locationId);
+        request.setPaymentMethod(Payment.PaymentMethod.CASH);
+        request.setItems(new ArrayList<>(List.of(item)));
+        return request;
+    }
+
+    private SalesOrderRequest orderAt(Long locationId, SKU sku, int quantity) {
+        SalesOrderItemRequest item = new SalesOrderItemRequest();
+        item.setSkuId(sku.getId());
+        item.setQuantity(quantity);
+        SalesOrderRequest request = new SalesOrderRequest();
+        request.setCustomerId(customer.getId());
+        request.setLocationId(locationId);
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private int count(String sql, Object... args) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return count != null ? count : 0;
+    }
+}
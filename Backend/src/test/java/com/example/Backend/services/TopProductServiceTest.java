@@ -0,0 +1,165 @@
+package com.example.Backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.Backend.PostgresIntegrationTest;
+import com.example.Backend.dtos.report.TopProductDto;
+import com.example.Backend.models.Customer;
+import com.example.Backend.models.SKU;
+import com.example.Backend.models.SalesOrder;
+import com.example.Backend.models.SalesOrderItem;
+import com.example.Backend.models.User;
+import com.example.Backend.repositorys.DailySkuSalesRepository;
+import com.example.Backend.repositorys.SalesOrderItemRepository;
+import com.example.Backend.repositorys.SalesOrderRepository;
+import com.example.Backend.services.TopProductService.Metric;
+import com.example.Backend.services.TopProductService.Mode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every top-products mode against an exact GROUP BY over the order tables, on a skewed catalog
+ * spread over several days so SKUs recur in the counter stream the sketch sees. The orders sit on
+ * dates of their own, so other tests' sales do not enter the ranking.
+ */
+class TopProductServiceTest extends PostgresIntegrationTest {
+
+    private static final int SKUS = 200;
+    private static final int DAYS = 10;
+    private static final int LINES_PER_ORDER = 20;
+
+    @Autowired
+    private TopProductService topProductService;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    @Autowired
+    private SalesOrderItemRepository salesOrderItemRepository;
+
+    @Autowired
+    private DailySkuSalesRepository dailySkuSalesRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private LocalDate firstDay;
+    private LocalDate lastDay;
+
+    @BeforeEach
+    void setUp() {
+        firstDay = LocalDate.of(2001, 1, 1).plusDays(uniqueNumber() % 300 * DAYS);
+        lastDay = firstDay.plusDays(DAYS - 1);
+        User user = createUser();
+        Customer customer = createCustomer();
+
+        List<SKU> skus = new ArrayList<>();
+        for (int i = 0; i < SKUS; i++) {
+            // Prices that do not follow volume, so the revenue ranking differs from the quantity one
+            skus.add(createSku((100 + i * 37 % 500) + ".00", false));
+        }
+
+        for (int day = 0; day < DAYS; day++) {
+            List<SalesOrderItem> lines = new ArrayList<>();
+            for (int i = 0; i < SKUS; i++) {
+                // Zipf-like volume: the first SKUs carry most units, the tail a handful each
+                int units = 5 + 3000 / (i + 1);
+                int quantity = units / DAYS + (day < units % DAYS ? 1 : 0);
+                if (quantity > 0) {
+                    lines.add(line(skus.get(i), quantity));
+                }
+            }
+            for (int from = 0; from < lines.size(); from += LINES_PER_ORDER) {
+                saveOrder(user, customer, firstDay.plusDays(day), SalesOrder.OrderStatus.PAID,
+                        lines.subList(from, Math.min(from + LINES_PER_ORDER, lines.size())));
+            }
+            // Orders that are not PAID do not count, however large
+            saveOrder(user, customer, firstDay.plusDays(day), SalesOrder.OrderStatus.CANCELLED,
+                    List.of(line(skus.get(SKUS - 1 - day), 10_000)));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> dailySkuSalesRepository.rebuildBetween(firstDay, lastDay));
+    }
+
+    @Test
+    void everyModeMatchesTheExactBaseline() {
+        for (Metric metric : Metric.values()) {
+            for (int k : new int[]{1, 5, 10, 25, 100}) {
+                List<String> expected = baseline(metric, k);
+                assertEquals(k, expected.size());
+                for (Mode mode : Mode.values()) {
+                    assertEquals(expected, describe(topProductService.getTopProducts(firstDay, lastDay, k, metric, mode)),
+                            mode + " top " + k + " by " + metric);
+                }
+            }
+        }
+    }
+
+    @Test
+    void subRangeOnlyCountsItsOwnDays() {
+        LocalDate day = firstDay.plusDays(3);
+        List<TopProductDto> top = topProductService.getTopProducts(day, day, 3, Metric.QUANTITY, Mode.SKETCH);
+
+        // 3005 units over 10 days puts 301 on each of the first five days
+        assertEquals(301, top.get(0).getQuantitySold());
+        assertEquals(List.of(1, 2, 3), top.stream().map(TopProductDto::getRanking).toList());
+    }
+
+    // Exact ranking as "code:quantity:revenue", straight from the order tables
+    private List<String> baseline(Metric metric, int k) {
+        String orderBy = metric == Metric.REVENUE ? "SUM(soi.line_total)" : "SUM(soi.quantity)";
+        return jdbcTemplate.query(
+                "SELECT s.code, SUM(soi.quantity), SUM(soi.line_total) " +
+                "FROM sales_order so JOIN sales_order_item soi ON soi.order_id = so.id JOIN sku s ON s.id = soi.sku_id " +
+                "WHERE so.status = 'PAID' AND so.order_date BETWEEN ? AND ? " +
+                "GROUP BY soi.sku_id, s.code ORDER BY " + orderBy + " DESC, soi.sku_id LIMIT ?",
+                (rs, rowNum) -> rs.getString(1) + ":" + rs.getLong(2) + ":" + rs.getBigDecimal(3).setScale(2),
+                firstDay, lastDay, k);
+    }
+
+    private static List<String> describe(List<TopProductDto> top) {
+        return top.stream()
+                .map(product -> product.getSku() + ":" + product.getQuantitySold() + ":" + product.getRevenue().setScale(2))
+                .toList();
+    }
+
+    private void saveOrder(User user, Customer customer, LocalDate date, SalesOrder.OrderStatus status,
+                           List<SalesOrderItem> lines) {
+        SalesOrder order = SalesOrder.builder()
+                .user(user)
+                .customer(customer)
+                .status(status)
+                .orderDate(date)
+                .subtotal(lines.stream().map(SalesOrderItem::getLineTotal).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .build();
+        order.setTotal(order.getSubtotal());
+        SalesOrder saved = salesOrderRepository.save(order);
+        List<SalesOrderItem> items = new ArrayList<>();
+        for (SalesOrderItem line : lines) {
+            items.add(SalesOrderItem.builder()
+                    .order(saved)
+                    .sku(line.getSku())
+                    .quantity(line.getQuantity())
+                    .unitPrice(line.getUnitPrice())
+                    .lineTotal(line.getLineTotal())
+                    .build());
+        }
+        salesOrderItemRepository.saveAll(items);
+    }
+
+    private static SalesOrderItem line(SKU sku, int quantity) {
+        return SalesOrderItem.builder()
+                .sku(sku)
+                .quantity(quantity)
+                .unitPrice(sku.getPrice())
+                .lineTotal(sku.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .build();
+    }
+}
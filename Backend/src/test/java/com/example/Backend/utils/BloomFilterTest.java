@@ -0,0 +1,52 @@
+package com.example.Backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    private static final int ELEMENTS = 100_000;
+
+    @Test
+    void neverForgetsWhatWasPut() {
+        BloomFilter filter = new BloomFilter(ELEMENTS, 0.001);
+        for (long i = 0; i < ELEMENTS; i++) {
+            filter.put(imeiLike(i));
+        }
+        for (long i = 0; i < ELEMENTS; i++) {
+            assertTrue(filter.mightContain(imeiLike(i)));
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(ELEMENTS, 0.01);
+        for (long i = 0; i < ELEMENTS; i++) {
+            filter.put(imeiLike(i));
+        }
+        int falsePositives = 0;
+        for (long i = ELEMENTS; i < 2L * ELEMENTS; i++) {
+            if (filter.mightContain(imeiLike(i))) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / ELEMENTS;
+        assertTrue(observed < 0.02, "observed false positive rate " + observed);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1.0));
+        assertFalse(new BloomFilter(10, 0.01).mightContain("490154203237518"));
+    }
+
+    // Sequential 15-digit numbers, like the consecutive IMEIs in a carton
+    private static String imeiLike(long i) {
+        return Long.toString(350000000000000L + i);
+    }
+}
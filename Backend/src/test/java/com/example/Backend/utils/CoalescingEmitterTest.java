@@ -0,0 +1,120 @@
+package com.example.Backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * The per-subscriber SSE queue with its drains run by hand: what is coalesced, in which order it
+ * goes out, and what ends the stream.
+ */
+class CoalescingEmitterTest {
+
+    private final List<Runnable> drains = new ArrayList<>();
+    private final List<Integer> rendered = new ArrayList<>();
+    private final RecordingEmitter emitter = new RecordingEmitter();
+
+    @Test
+    void pendingEventsOfOneKeyAreMergedIntoOneSend() {
+        CoalescingEmitter<String, Integer> subscriber = subscriber(event -> false, error -> { });
+
+        subscriber.offer("a", 1);
+        subscriber.offer("b", 10);
+        subscriber.offer("a", 2);
+        assertEquals(1, drains.size());
+        drains.get(0).run();
+
+        assertEquals(List.of(3, 10), rendered);
+        subscriber.offer("a", 4);
+        assertEquals(2, drains.size());
+        drains.get(1).run();
+        assertEquals(List.of(3, 10, 4), rendered);
+    }
+
+    @Test
+    void snapshotGoesFirstAndHeartbeatLast() {
+        CoalescingEmitter<String, Integer> subscriber = subscriber(event -> false, error -> { });
+        SseEmitter.SseEventBuilder snapshot = SseEmitter.event().name("snapshot").data(List.of());
+
+        subscriber.offer("a", 1);
+        subscriber.offerHeartbeat();
+        subscriber.offerFirst(snapshot);
+        drains.get(0).run();
+
+        assertEquals(3, emitter.sent.size());
+        assertSame(snapshot, emitter.sent.get(0));
+        assertEquals(List.of(1), rendered);
+    }
+
+    @Test
+    void finalEventCompletesTheStream() {
+        CoalescingEmitter<String, Integer> subscriber = subscriber(event -> event < 0, error -> { });
+
+        subscriber.offer("a", -1);
+        subscriber.offer("b", 2);
+        drains.get(0).run();
+        subscriber.offer("c", 3);
+
+        assertEquals(List.of(-1), rendered);
+        assertTrue(emitter.completed);
+        assertEquals(1, drains.size());
+    }
+
+    @Test
+    void failedSendDropsTheSubscriber() {
+        AtomicReference<Exception> dropped = new AtomicReference<>();
+        CoalescingEmitter<String, Integer> subscriber = subscriber(event -> false, dropped::set);
+        emitter.failing = true;
+
+        subscriber.offer("a", 1);
+        drains.get(0).run();
+        subscriber.offer("a", 2);
+
+        assertTrue(dropped.get() instanceof IOException);
+        assertTrue(emitter.completedWithError);
+        assertEquals(List.of(1), rendered);
+        assertEquals(1, drains.size());
+    }
+
+    private CoalescingEmitter<String, Integer> subscriber(Predicate<Integer> last, Consumer<Exception> onDrop) {
+        return new CoalescingEmitter<>(emitter, drains::add, event -> {
+            rendered.add(event);
+            return SseEmitter.event().data(event);
+        }, Integer::sum, last, onDrop);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<SseEventBuilder> sent = new ArrayList<>();
+        private boolean failing;
+        private boolean completed;
+        private boolean completedWithError;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            sent.add(builder);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        @Override
+        public synchronized void completeWithError(Throwable ex) {
+            completedWithError = true;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.Backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Stress tests for the compare-and-set retry used by stock adjustments. A row is simulated by an
+ * AtomicInteger that is read, held for a moment and then compare-and-set, like the
+ * "UPDATE ... WHERE quantity = :expected" in StockItemRepository.
+ */
+class ContentionRetryTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    @Test
+    void concurrentAdjustmentsWithoutLocksLoseNoUpdates() throws Exception {
+        AtomicInteger quantity = new AtomicInteger(1_000);
+        AtomicInteger conflicts = new AtomicInteger();
+        ContentionRetry retry = new ContentionRetry(10_000, 0, 1);
+
+        int expected = 1_000 + runConcurrently(thread -> {
+            int delta = thread % 2 == 0 ? 3 : -1;
+            retry.run(() -> adjust(quantity, delta, conflicts));
+            return delta;
+        });
+
+        assertEquals(expected, quantity.get());
+    }
+
+    @Test
+    void stripedLocksRemoveConflictsWithinANode() throws Exception {
+        AtomicInteger quantity = new AtomicInteger(0);
+        AtomicInteger conflicts = new AtomicInteger();
+        StripedLocks locks = new StripedLocks(64);
+        ContentionRetry retry = new ContentionRetry(5, 1, 10);
+        long skuId = 42L;
+
+        int expected = runConcurrently(thread -> {
+            Lock lock = locks.forKey(skuId);
+            lock.lock();
+            try {
+                return retry.run(() -> adjust(quantity, 1, conflicts));
+            } finally {
+                lock.unlock();
+            }
+        });
+
+        assertEquals(expected, quantity.get());
+        assertEquals(0, conflicts.get());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        ContentionRetry retry = new ContentionRetry(4, 0, 0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> retry.run(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("always stale");
+        }));
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    void sameKeyAlwaysMapsToSameStripe() {
+        StripedLocks locks = new StripedLocks(100);
+
+        assertEquals(128, locks.size());
+        for (long key = 0; key < 1_000; key++) {
+            assertSame(locks.forKey(key), locks.forKey(key));
+        }
+    }
+
+    private static int adjust(AtomicInteger quantity, int delta, AtomicInteger conflicts) {
+        int read = quantity.get();
+        // Widen the window between read and write so that threads actually collide
+        Thread.yield();
+        if (!quantity.compareAndSet(read, read + delta)) {
+            conflicts.incrementAndGet();
+            throw new OptimisticLockingFailureException("quantity changed since it was read");
+        }
+        return delta;
+    }
+
+    /**
+     * Run the operation OPERATIONS_PER_THREAD times on each of THREADS threads, all started
+     * together, and return the sum of its results.
+     */
+    private static int runConcurrently(Operation operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int sum = 0;
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        sum += operation.apply(thread);
+                    }
+                    return sum;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(60, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        int apply(int thread);
+    }
+}
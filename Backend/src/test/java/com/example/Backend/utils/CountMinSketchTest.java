@@ -0,0 +1,82 @@
+package com.example.Backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class CountMinSketchTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    void neverUndercountsAndStaysWithinTheErrorBound() {
+        int width = 2048;
+        CountMinSketch sketch = new CountMinSketch(width, 5);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(34);
+        long total = 0;
+        // Skewed stream: a few SKU ids carry most of the volume
+        for (int i = 0; i < 200_000; i++) {
+            long key = (long) Math.pow(KEYS, random.nextDouble());
+            long count = 1 + random.nextInt(5);
+            sketch.add(key, count);
+            exact.merge(key, count, Long::sum);
+            total += count;
+        }
+
+        long bound = 2 * total / width;
+        int overBound = 0;
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "undercount for key " + entry.getKey());
+            if (estimate - entry.getValue() > bound) {
+                overBound++;
+            }
+        }
+        // Each key exceeds the bound with probability at most 2^-5
+        assertTrue(overBound <= exact.size() / 32, overBound + " of " + exact.size() + " keys over the bound");
+    }
+
+    @Test
+    void addReturnsTheNewEstimate() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        for (long key = 0; key < 1000; key++) {
+            long estimate = sketch.add(key, key % 7);
+            assertEquals(sketch.estimate(key), estimate);
+        }
+    }
+
+    @Test
+    void isExactWithoutCollisions() {
+        CountMinSketch sketch = new CountMinSketch(1 << 16, 4);
+        sketch.add(42, 10);
+        sketch.add(42, 5);
+        sketch.add(7, 3);
+
+        assertEquals(15, sketch.estimate(42));
+        assertEquals(3, sketch.estimate(7));
+        assertEquals(0, sketch.estimate(8));
+    }
+
+    @Test
+    void widthOfOneSumsEverything() {
+        CountMinSketch sketch = new CountMinSketch(1, 3);
+        sketch.add(1, 4);
+        sketch.add(-9, 6);
+
+        assertEquals(10, sketch.estimate(123));
+    }
+
+    @Test
+    void rejectsInvalidSizingAndNegativeCounts() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(16, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(16, 3).add(1, -1));
+    }
+}
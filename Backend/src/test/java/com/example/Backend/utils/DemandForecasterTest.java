@@ -0,0 +1,113 @@
+package com.example.Backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+/**
+ * Holt and Holt-Winters on series with a known continuation: constant, linear and seasonal ones
+ * are fitted without error, so the forecast must continue them exactly.
+ */
+class DemandForecasterTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private final DemandForecaster forecaster = new DemandForecaster(0.3, 0.05, 0.2, 4);
+
+    @Test
+    void constantSeriesGivesAFlatForecast() {
+        double[] history = new double[10];
+        Arrays.fill(history, 12);
+
+        DemandForecaster.Forecast forecast = forecaster.forecast(history, 6);
+
+        assertTrue(forecast.isSeasonal());
+        for (int h = 1; h <= 6; h++) {
+            assertEquals(12, forecast.week(h), EPSILON);
+        }
+        assertEquals(72, forecast.total(6), EPSILON);
+        assertEquals(12, forecast.getLevel(), EPSILON);
+        assertEquals(0, forecast.getStdDev(), EPSILON);
+    }
+
+    @Test
+    void linearTrendIsFollowed() {
+        // 5, 7, 9, ... 17 over seven weeks, short of two seasons
+        double[] history = new double[7];
+        for (int t = 0; t < history.length; t++) {
+            history[t] = 5 + 2 * t;
+        }
+
+        DemandForecaster.Forecast forecast = forecaster.forecast(history, 3);
+
+        assertFalse(forecast.isSeasonal());
+        assertEquals(19, forecast.week(1), EPSILON);
+        assertEquals(21, forecast.week(2), EPSILON);
+        assertEquals(23, forecast.week(3), EPSILON);
+        assertEquals(17, forecast.getLevel(), EPSILON);
+        assertEquals(0, forecast.getStdDev(), EPSILON);
+    }
+
+    @Test
+    void twoSeasonsReproduceTheSeasonalPeak() {
+        double[] history = {10, 10, 30, 10, 10, 10, 30, 10};
+
+        DemandForecaster.Forecast forecast = forecaster.forecast(history, 8);
+
+        assertTrue(forecast.isSeasonal());
+        for (int h = 1; h <= 8; h++) {
+            assertEquals(history[h - 1], forecast.week(h), EPSILON, "week " + h);
+        }
+        assertEquals(15, forecast.getLevel(), EPSILON);
+        assertEquals(0, forecast.getStdDev(), EPSILON);
+    }
+
+    @Test
+    void shortHistoryFallsBackToLevelAndTrend() {
+        DemandForecaster.Forecast single = forecaster.forecast(new double[]{9}, 2);
+        assertFalse(single.isSeasonal());
+        assertEquals(9, single.week(1), EPSILON);
+        assertEquals(9, single.week(2), EPSILON);
+        assertEquals(0, single.getStdDev(), EPSILON);
+
+        DemandForecaster.Forecast none = forecaster.forecast(new double[0], 2);
+        assertFalse(none.isSeasonal());
+        assertEquals(0, none.total(2), EPSILON);
+        assertEquals(0, none.getLevel(), EPSILON);
+
+        // One week short of two seasons: the peak is not projected forward
+        DemandForecaster.Forecast almost = forecaster.forecast(new double[]{10, 10, 30, 10, 10, 10, 30}, 4);
+        assertFalse(almost.isSeasonal());
+        assertTrue(almost.getStdDev() > 0);
+    }
+
+    @Test
+    void fallingTrendIsClampedAtZero() {
+        DemandForecaster.Forecast forecast = forecaster.forecast(new double[]{40, 30, 20, 10}, 4);
+
+        assertEquals(0, forecast.week(1), EPSILON);
+        assertEquals(0, forecast.week(4), EPSILON);
+        assertEquals(0, forecast.total(4), EPSILON);
+        assertEquals(10, forecast.getLevel(), EPSILON);
+
+        // Seasonal troughs below zero are clamped too
+        DemandForecaster.Forecast seasonal = forecaster.forecast(new double[]{0, 0, 40, 0, 0, 0, 20, 0}, 4);
+        assertTrue(seasonal.isSeasonal());
+        assertEquals(0, seasonal.week(1), EPSILON);
+        assertEquals(0, seasonal.week(2), EPSILON);
+        assertTrue(seasonal.week(3) > 0);
+        assertEquals(0, seasonal.week(4), EPSILON);
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new DemandForecaster(1.5, 0.05, 0.2, 4));
+        assertThrows(IllegalArgumentException.class, () -> new DemandForecaster(0.3, -0.1, 0.2, 4));
+        assertThrows(IllegalArgumentException.class, () -> new DemandForecaster(0.3, 0.05, 0.2, 1));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.Backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ImeiTest {
+
+    @Test
+    void normalizeStripsScannerSeparators() {
+        assertEquals("490154203237518", Imei.normalize(" 49-015420-323751-8 "));
+        assertEquals("490154203237518", Imei.normalize("49 015420/323751.8"));
+        assertNull(Imei.normalize(" - "));
+        assertNull(Imei.normalize(null));
+    }
+
+    @Test
+    void acceptsOnlyFifteenDigitsWithLuhnCheckDigit() {
+        assertTrue(Imei.isValid("490154203237518"));
+        assertTrue(Imei.isValid("356938035643809"));
+        assertFalse(Imei.isValid("490154203237517"));
+        assertFalse(Imei.isValid("49015420323751"));
+        assertFalse(Imei.isValid("4901542032375180"));
+        assertFalse(Imei.isValid("49015420323751A"));
+        assertFalse(Imei.isValid(null));
+    }
+
+    @Test
+    void detectsEverySingleDigitTypo() {
+        String imei = "490154203237518";
+        for (int position = 0; position < imei.length(); position++) {
+            for (char digit = '0'; digit <= '9'; digit++) {
+                if (digit != imei.charAt(position)) {
+                    String typo = imei.substring(0, position) + digit + imei.substring(position + 1);
+                    assertFalse(Imei.isValid(typo), typo);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.Backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.Backend.utils.SalesCube.Dimension;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Cube queries against a brute-force sum, and the median latency of multi-dimension group-bys over
+ * five million lines against the target of tens of milliseconds, a 100 ms budget. The budget can
+ * be raised for slow machines with {@code -Dsales-cube.query-budget-ms}; the timings are logged
+ * either way.
+ */
+@Slf4j
+class SalesCubeTest {
+
+    private static final int FIRST_DAY = 19_000;
+    private static final int DAYS = 365;
+    private static final int LAST_DAY = FIRST_DAY + DAYS - 1;
+    private static final int MEASURED_LINES = 5_000_000;
+
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void groupByMatchesABruteForceSum() {
+        // Enough rows for several parallel leaves
+        SalesCube cube = new SalesCube();
+        int[][] rows = fill(cube, 300_000, new Random(37));
+        load(cube, rows);
+
+        List<List<Dimension>> groupings = List.of(
+                List.of(),
+                List.of(Dimension.BRAND),
+                List.of(Dimension.SKU, Dimension.DAY),
+                List.of(Dimension.CATEGORY, Dimension.STAFF, Dimension.CUSTOMER_TIER),
+                List.of(Dimension.DAY, Dimension.BRAND, Dimension.CATEGORY, Dimension.STAFF, Dimension.CUSTOMER_TIER));
+        for (List<Dimension> groupBy : groupings) {
+            SalesCube.Query query = new SalesCube.Query(FIRST_DAY + 30, FIRST_DAY + 200, groupBy);
+            assertEquals(bruteForce(rows, FIRST_DAY + 30, FIRST_DAY + 200, groupBy, null, null),
+                    sums(cube.query(query, pool), groupBy.size()), "group by " + groupBy);
+        }
+
+        List<Dimension> byStaff = List.of(Dimension.STAFF);
+        SalesCube.Query filtered = new SalesCube.Query(FIRST_DAY, LAST_DAY, byStaff)
+                .filter(Dimension.BRAND, new int[]{1, 3})
+                .filter(Dimension.CUSTOMER_TIER, new int[]{0});
+        assertEquals(bruteForce(rows, FIRST_DAY, LAST_DAY, byStaff, new int[]{1, 3}, new int[]{0}),
+                sums(cube.query(filtered, pool), 1));
+    }
+
+    @Test
+    void refundRowsNetOut() {
+        SalesCube cube = new SalesCube();
+        int brand = cube.encode(Dimension.BRAND, 7, "Brand");
+        int category = cube.encode(Dimension.CATEGORY, 0, "PHONE");
+        int sku = cube.encode(Dimension.SKU, 42, "SKU-42");
+        int staff = cube.encode(Dimension.STAFF, 1, "Staff");
+        int tier = cube.encode(Dimension.CUSTOMER_TIER, 0, "REGULAR");
+        cube.append(brand, category, sku, staff, tier, FIRST_DAY, 2, 5000);
+        cube.append(brand, category, sku, staff, tier, FIRST_DAY, -2, -5000);
+        cube.append(brand, category, sku, staff, tier, FIRST_DAY + 1, 1, 2500);
+
+        List<SalesCube.Group> groups = cube.query(new SalesCube.Query(FIRST_DAY, FIRST_DAY + 1, List.of(Dimension.DAY)), pool);
+
+        Map<Integer, Long> revenueByDay = new HashMap<>();
+        groups.forEach(group -> revenueByDay.put(group.value(0), group.getRevenueCents()));
+        assertEquals(Map.of(FIRST_DAY, 0L, FIRST_DAY + 1, 2500L), revenueByDay);
+        assertEquals(42L, cube.key(Dimension.SKU, sku));
+        assertEquals("SKU-42", cube.label(Dimension.SKU, sku));
+        assertEquals(-1, cube.code(Dimension.SKU, 43));
+    }
+
+    @Test
+    void batchIsPublishedWhole() {
+        SalesCube cube = new SalesCube();
+        int[][] rows = fill(cube, 40_000, new Random(7));
+        SalesCube.Batch batch = new SalesCube.Batch();
+        for (int[] row : rows) {
+            batch.add(row[0], row[1], row[2], row[3], row[4], row[5], row[6], row[7]);
+        }
+        assertEquals(0, cube.size());
+
+        cube.append(batch);
+        cube.append(new SalesCube.Batch());
+
+        assertEquals(rows.length, cube.size());
+        List<Dimension> bySku = List.of(Dimension.SKU);
+        assertEquals(bruteForce(rows, FIRST_DAY, LAST_DAY, bySku, null, null),
+                sums(cube.query(new SalesCube.Query(FIRST_DAY, LAST_DAY, bySku), pool), 1));
+    }
+
+    @Test
+    void multiDimensionGroupBysOverMillionsOfLinesStayWithinBudget() {
+        SalesCube cube = new SalesCube();
+        Random random = new Random(37);
+        for (int chunk = 0; chunk < MEASURED_LINES / 100_000; chunk++) {
+            SalesCube.Batch batch = new SalesCube.Batch();
+            for (int[] row : fill(cube, 100_000, random)) {
+                batch.add(row[0], row[1], row[2], row[3], row[4], row[5], row[6], row[7]);
+            }
+            cube.append(batch);
+        }
+
+        long budget = Long.getLong("sales-cube.query-budget-ms", 100);
+        List<List<Dimension>> groupings = List.of(
+                List.of(Dimension.BRAND, Dimension.CATEGORY),
+                List.of(Dimension.SKU, Dimension.STAFF),
+                List.of(Dimension.DAY, Dimension.BRAND, Dimension.CUSTOMER_TIER));
+        for (List<Dimension> groupBy : groupings) {
+            SalesCube.Query query = new SalesCube.Query(FIRST_DAY, LAST_DAY, groupBy);
+            long[] elapsed = new long[25];
+            for (int i = -10; i < elapsed.length; i++) {
+                long started = System.nanoTime();
+                cube.query(query, pool);
+                if (i >= 0) {
+                    elapsed[i] = System.nanoTime() - started;
+                }
+            }
+            Arrays.sort(elapsed);
+            double median = elapsed[elapsed.length / 2] / 1_000_000.0;
+            log.info("Sales cube group by {} over {} lines on {} threads: median {} ms, max {} ms",
+                    groupBy, cube.size(), pool.getParallelism(), median, elapsed[elapsed.length - 1] / 1_000_000.0);
+            assertTrue(median < budget, "group by " + groupBy + " took " + median + " ms, over the " + budget + " ms budget");
+        }
+    }
+
+    @Test
+    void rejectsInvertedRangesAndDayCodes() {
+        SalesCube cube = new SalesCube();
+        assertThrows(IllegalArgumentException.class, () -> new SalesCube.Query(2, 1, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> cube.encode(Dimension.DAY, 1, "day"));
+        assertThrows(IllegalArgumentException.class, () -> new SalesCube.Query(1, 2, List.of()).filter(Dimension.DAY, new int[]{1}));
+    }
+
+    // Random rows as {brand, category, sku, staff, tier, day, quantity, revenueCents}, encoded into the cube's dictionaries
+    static int[][] fill(SalesCube cube, int count, Random random) {
+        int[] skuBrand = new int[2000];
+        int[] skuCategory = new int[skuBrand.length];
+        int[] skuCode = new int[skuBrand.length];
+        for (int sku = 0; sku < skuBrand.length; sku++) {
+            int brand = sku % 40;
+            int category = sku % 6;
+            skuBrand[sku] = cube.encode(Dimension.BRAND, brand, "Brand " + brand);
+            skuCategory[sku] = cube.encode(Dimension.CATEGORY, category, "Category " + category);
+            skuCode[sku] = cube.encode(Dimension.SKU, sku, "SKU-" + sku);
+        }
+        int[] staff = new int[50];
+        for (int i = 0; i < staff.length; i++) {
+            staff[i] = cube.encode(Dimension.STAFF, i, "Staff " + i);
+        }
+        int[] tiers = new int[4];
+        for (int i = 0; i < tiers.length; i++) {
+            tiers[i] = cube.encode(Dimension.CUSTOMER_TIER, i, "Tier " + i);
+        }
+
+        int[][] rows = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int sku = (int) Math.pow(skuBrand.length, random.nextDouble()) - 1;
+            int quantity = 1 + random.nextInt(3) - (random.nextInt(20) == 0 ? 4 : 0);
+            rows[i] = new int[]{skuBrand[sku], skuCategory[sku], skuCode[sku], staff[random.nextInt(staff.length)],
+                    tiers[random.nextInt(tiers.length)], FIRST_DAY + random.nextInt(DAYS), quantity,
+                    quantity * (10_000 + random.nextInt(5_000_000))};
+        }
+        return rows;
+    }
+
+    static void load(SalesCube cube, int[][] rows) {
+        for (int[] row : rows) {
+            cube.append(row[0], row[1], row[2], row[3], row[4], row[5], row[6], row[7]);
+        }
+    }
+
+    private static Map<String, List<Long>> bruteForce(int[][] rows, int fromDay, int toDay, List<Dimension> groupBy,
+                                                      int[] brands, int[] tiers) {
+        Map<String, List<Long>> sums = new HashMap<>();
+        for (int[] row : rows) {
+            int day = row[Dimension.DAY.ordinal()];
+            if (day < fromDay || day > toDay
+                    || (brands != null && Arrays.stream(brands).noneMatch(code -> code == row[Dimension.BRAND.ordinal()]))
+                    || (tiers != null && Arrays.stream(tiers).noneMatch(code -> code == row[Dimension.CUSTOMER_TIER.ordinal()]))) {
+                continue;
+            }
+            int[] values = new int[groupBy.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row[groupBy.get(i).ordinal()];
+            }
+            sums.merge(Arrays.toString(values), List.of((long) row[6], (long) row[7]),
+                    (a, b) -> List.of(a.get(0) + b.get(0), a.get(1) + b.get(1)));
+        }
+        return sums;
+    }
+
+    private static Map<String, List<Long>> sums(List<SalesCube.Group> groups, int width) {
+        Map<String, List<Long>> sums = new HashMap<>();
+        for (SalesCube.Group group : groups) {
+            int[] values = new int[width];
+            for (int i = 0; i < width; i++) {
+                values[i] = group.value(i);
+            }
+            sums.put(Arrays.toString(values), List.of(group.getQuantity(), group.getRevenueCents()));
+        }
+        return sums;
+    }
+}